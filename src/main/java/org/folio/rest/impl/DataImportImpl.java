@@ -1,10 +1,12 @@
 package org.folio.rest.impl;
 
+import io.netty.buffer.Unpooled;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
@@ -18,6 +20,8 @@ import org.folio.rest.jaxrs.model.Error;
 import org.folio.rest.jaxrs.model.Errors;
 import org.folio.rest.jaxrs.model.FileDefinition;
 import org.folio.rest.jaxrs.model.FileExtension;
+import org.folio.rest.jaxrs.model.FileRange;
+import org.folio.rest.jaxrs.model.FileRanges;
 import org.folio.rest.jaxrs.model.ProcessFilesRqDto;
 import org.folio.rest.jaxrs.model.UploadDefinition;
 import org.folio.rest.jaxrs.resource.DataImport;
@@ -25,10 +29,12 @@ import org.folio.rest.tools.utils.TenantTool;
 import org.folio.service.file.FileUploadLifecycleService;
 import org.folio.service.fileextension.FileExtensionService;
 import org.folio.service.processing.FileProcessor;
+import org.folio.service.storage.RangedFileUpload;
 import org.folio.service.upload.UploadDefinitionService;
 import org.folio.spring.SpringContextUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.core.Response;
 import java.io.InputStream;
@@ -36,7 +42,9 @@ import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.Map;
+import java.util.stream.Collectors;
 
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
 import static org.folio.rest.RestVerticle.OKAPI_USERID_HEADER;
 import static org.folio.rest.RestVerticle.STREAM_ABORT;
 import static org.folio.rest.jaxrs.model.FileDefinition.Status.ERROR;
@@ -50,6 +58,9 @@ public class DataImportImpl implements DataImport {
   private static final String FILE_EXTENSION_VALIDATE_ERROR_MESSAGE = "Failed to validate file extension";
   private static final String UPLOAD_DEFINITION_VALIDATE_ERROR_MESSAGE = "Failed to validate Upload Definition";
   private static final String FILE_EXTENSION_VALID_REGEXP = "^\\.(\\w+)$";
+  /* Uploaded file is kept open for the whole upload instead of being reopened for every file part */
+  private static final boolean UPLOAD_SESSION_ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("file.upload.session.enabled", "false"));
 
   @Autowired
   private UploadDefinitionService uploadDefinitionService;
@@ -60,6 +71,8 @@ public class DataImportImpl implements DataImport {
 
   private FileProcessor fileProcessor;
   private Future<UploadDefinition> fileUploadStateFuture;
+  private Future<RangedFileUpload> fileRangeFuture;
+  private long fileRangeLength;
   private String tenantId;
 
   public DataImportImpl(Vertx vertx, String tenantId) {
@@ -216,13 +229,14 @@ public class DataImportImpl implements DataImport {
           fileUploadStateFuture = fileService.beforeFileSave(fileId, uploadDefinitionId, params);
         }
         fileUploadStateFuture = fileUploadStateFuture.compose(def ->
-          fileService.saveFileChunk(fileId, def, data, params)
+          saveFileChunk(fileId, def, data, params)
             .compose(fileDefinition -> data.length == 0 ?
               fileService.afterFileSave(fileDefinition, params)
               : Future.succeededFuture(def)));
         responseFuture = fileUploadStateFuture.map(PostDataImportUploadDefinitionsFilesByUploadDefinitionIdAndFileIdResponse::respond200WithApplicationJson);
       } else {
-        responseFuture = uploadDefinitionService.updateFileDefinitionStatus(uploadDefinitionId, fileId, ERROR, tenantId)
+        responseFuture = fileService.abortFileSave(fileId)
+          .compose(v -> uploadDefinitionService.updateFileDefinitionStatus(uploadDefinitionId, fileId, ERROR, tenantId))
           .map(this::areAllFileDefinitionsFailed)
           .compose(filesFailed -> filesFailed
             ? uploadDefinitionService.updateUploadDefinitionStatus(uploadDefinitionId, UploadDefinition.Status.ERROR, tenantId)
@@ -238,6 +252,102 @@ public class DataImportImpl implements DataImport {
     }
   }
 
+  @Stream
+  @Override
+  public void putDataImportUploadDefinitionsFilesRangesByUploadDefinitionIdAndFileId(String uploadDefinitionId, String fileId,
+                                                                                     String offset, String totalSize, InputStream entity,
+                                                                                     Map<String, String> okapiHeaders,
+                                                                                     Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+    try {
+      Future<Response> responseFuture;
+      OkapiConnectionParams params = new OkapiConnectionParams(okapiHeaders, vertxContext.owner());
+      long rangeOffset = parseSize("offset", offset);
+      long fileSize = parseSize("totalSize", totalSize);
+      if (okapiHeaders.get(STREAM_ABORT) == null) {
+        byte[] data = IOUtils.toByteArray(entity);
+        if (fileRangeFuture == null) {
+          fileRangeFuture = fileService.beforeFileRangeSave(fileId, uploadDefinitionId, params)
+            .compose(def -> fileService.startFileRange(fileId, def, fileSize, params));
+        }
+        fileRangeFuture = fileRangeFuture.compose(upload -> data.length == 0
+          ? fileService.finishFileRange(fileId, upload, rangeOffset, fileRangeLength, params)
+          : writeFileRange(fileId, upload, rangeOffset, data));
+        responseFuture = fileRangeFuture.map(upload -> PutDataImportUploadDefinitionsFilesRangesByUploadDefinitionIdAndFileIdResponse
+          .respond200WithApplicationJson(buildFileRanges(fileId, upload)));
+      } else {
+        // ranges received before are kept, so the file is not marked as failed and only the interrupted range is sent again
+        Future<RangedFileUpload> rangeFuture = fileRangeFuture == null ? Future.succeededFuture() : fileRangeFuture;
+        responseFuture = rangeFuture
+          .compose(upload -> upload != null ? fileService.abortFileRange(fileId, upload) : Future.<Void>succeededFuture(),
+            e -> Future.succeededFuture())
+          .map(String.format("Upload stream for the range at offset %d of file with id '%s' has been interrupted", rangeOffset, fileId))
+          .map(PutDataImportUploadDefinitionsFilesRangesByUploadDefinitionIdAndFileIdResponse::respond400WithTextPlain);
+      }
+      responseFuture.map(Response.class::cast)
+        .otherwise(ExceptionHelper::mapExceptionToResponse)
+        .onComplete(asyncResultHandler);
+    } catch (Exception e) {
+      asyncResultHandler.handle(Future.succeededFuture(ExceptionHelper.mapExceptionToResponse(e)));
+    }
+  }
+
+  @Override
+  public void getDataImportUploadDefinitionsFilesRangesByUploadDefinitionIdAndFileId(String uploadDefinitionId, String fileId,
+                                                                                     Map<String, String> okapiHeaders,
+                                                                                     Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+    vertxContext.runOnContext(c -> {
+      try {
+        OkapiConnectionParams params = new OkapiConnectionParams(okapiHeaders, vertxContext.owner());
+        uploadDefinitionService.getUploadDefinitionById(uploadDefinitionId, tenantId)
+          .map(optionalDefinition -> optionalDefinition.orElseThrow(() ->
+            new NotFoundException(String.format("Upload Definition with id '%s' not found", uploadDefinitionId))))
+          .compose(definition -> fileService.getRangedUpload(fileId, definition, params))
+          .map(optionalUpload -> optionalUpload.orElseThrow(() ->
+            new NotFoundException(String.format("File with id '%s' is not being uploaded by ranges", fileId))))
+          .map(upload -> GetDataImportUploadDefinitionsFilesRangesByUploadDefinitionIdAndFileIdResponse
+            .respond200WithApplicationJson(buildFileRanges(fileId, upload)))
+          .map(Response.class::cast)
+          .otherwise(ExceptionHelper::mapExceptionToResponse)
+          .onComplete(asyncResultHandler);
+      } catch (Exception e) {
+        asyncResultHandler.handle(Future.succeededFuture(ExceptionHelper.mapExceptionToResponse(e)));
+      }
+    });
+  }
+
+  private Future<RangedFileUpload> writeFileRange(String fileId, RangedFileUpload upload, long rangeOffset, byte[] data) {
+    long position = rangeOffset + fileRangeLength;
+    fileRangeLength += data.length;
+    return upload.write(position, Buffer.buffer(Unpooled.wrappedBuffer(data)))
+      .map(upload)
+      .recover(e -> fileService.abortFileRange(fileId, upload).compose(v -> Future.failedFuture(e)));
+  }
+
+  private long parseSize(String name, String value) {
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new BadRequestException(String.format("Invalid '%s' parameter value: %s", name, value));
+    }
+  }
+
+  private FileRanges buildFileRanges(String fileId, RangedFileUpload upload) {
+    return new FileRanges()
+      .withFileId(fileId)
+      .withTotalSize(upload.getTotalSize())
+      .withReceivedSize(upload.getReceivedSize())
+      .withCompleted(upload.isCompleted())
+      .withRanges(upload.getReceivedRanges().stream()
+        .map(range -> new FileRange().withOffset(range.getOffset()).withLength(range.getLength()))
+        .collect(Collectors.toList()));
+  }
+
+  private Future<FileDefinition> saveFileChunk(String fileId, UploadDefinition uploadDefinition, byte[] data, OkapiConnectionParams params) {
+    return UPLOAD_SESSION_ENABLED
+      ? fileService.writeFileChunk(fileId, uploadDefinition, Buffer.buffer(Unpooled.wrappedBuffer(data)), params)
+      : fileService.saveFileChunk(fileId, uploadDefinition, data, params);
+  }
+
   private boolean areAllFileDefinitionsFailed(UploadDefinition uploadDefinition) {
     return uploadDefinition.getFileDefinitions().stream()
       .allMatch(fileDefinition -> fileDefinition.getStatus().equals(ERROR));
@@ -5,13 +5,18 @@ import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
 import io.vertx.serviceproxy.ServiceBinder;
 import org.folio.config.ApplicationConfig;
 import org.folio.rest.resource.interfaces.InitAPI;
+import org.folio.service.metrics.PrometheusMetricsExporter;
 import org.folio.service.processing.FileProcessor;
+import org.folio.service.processing.ParallelFileChunkingProcessor;
 import org.folio.spring.SpringContextUtil;
 
 public class InitAPIImpl implements InitAPI {
+  private static final Logger LOGGER = LoggerFactory.getLogger(InitAPIImpl.class);
 
   @Override
   public void init(Vertx vertx, Context context, Handler<AsyncResult<Boolean>> handler) {
@@ -23,6 +28,8 @@ public class InitAPIImpl implements InitAPI {
       result -> {
         if (result.succeeded()) {
           initFileProcessor(vertx);
+          PrometheusMetricsExporter.startConfigured(vertx)
+            .onFailure(e -> LOGGER.error("Can not export metrics of the module", e));
           handler.handle(Future.succeededFuture(true));
         } else {
           handler.handle(Future.failedFuture(result.cause()));
@@ -31,8 +38,13 @@ public class InitAPIImpl implements InitAPI {
   }
 
   private void initFileProcessor(Vertx vertx) {
+    ParallelFileChunkingProcessor fileProcessor = new ParallelFileChunkingProcessor(vertx);
     new ServiceBinder(vertx)
       .setAddress(FileProcessor.FILE_PROCESSOR_ADDRESS)
-      .register(FileProcessor.class, FileProcessor.create(vertx));
+      .register(FileProcessor.class, fileProcessor);
+    if (ParallelFileChunkingProcessor.isOutboxEnabled()) {
+      fileProcessor.recoverFiles()
+        .onFailure(e -> LOGGER.error("Can not resume files interrupted by the restart", e));
+    }
   }
 }
@@ -8,13 +8,13 @@ import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
-import org.folio.dataimport.util.ConfigurationUtil;
 import org.folio.dataimport.util.OkapiConnectionParams;
 import org.folio.rest.annotations.Validate;
 import org.folio.rest.jaxrs.model.FileExtensionCollection;
 import org.folio.rest.jaxrs.model.TenantAttributes;
 import org.folio.rest.tools.utils.TenantTool;
 import org.folio.service.cleanup.StorageCleanupService;
+import org.folio.service.configuration.TenantConfigurationCache;
 import org.folio.service.fileextension.FileExtensionService;
 import org.folio.spring.SpringContextUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,6 +48,8 @@ public class ModTenantAPI extends TenantAPI {
       if (ar.failed()) {
         handlers.handle(ar);
       } else {
+        // properties of the tenant may be changed by the upgrade, they are loaded again once requested
+        TenantConfigurationCache.CONFIGURED.invalidate(TenantTool.calculateTenantId(headers.get(OKAPI_TENANT_HEADER)));
         initStorageCleanupService(headers, context);
         setupDefaultFileExtensions(headers)
           .onComplete(event -> handlers.handle(ar));
@@ -81,7 +83,7 @@ public class ModTenantAPI extends TenantAPI {
     Vertx vertx = context.owner();
     OkapiConnectionParams params = new OkapiConnectionParams(headers, vertx);
 
-    ConfigurationUtil.getPropertyByCode(DELAY_TIME_BETWEEN_CLEANUP_CODE, params)
+    TenantConfigurationCache.getPropertyByCode(DELAY_TIME_BETWEEN_CLEANUP_CODE, params)
       .map(Long::parseLong)
       .otherwise(DELAY_TIME_BETWEEN_CLEANUP_VALUE_MILLIS)
       .onComplete(delayTimeAr -> {
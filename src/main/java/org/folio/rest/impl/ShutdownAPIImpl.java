@@ -0,0 +1,38 @@
+package org.folio.rest.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.folio.rest.resource.interfaces.ShutdownAPI;
+import org.folio.service.processing.ParallelFileChunkingProcessor;
+import org.folio.service.processing.outbox.ChunksOutbox;
+
+public class ShutdownAPIImpl implements ShutdownAPI {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShutdownAPIImpl.class);
+
+  @Override
+  public void shutdown(Vertx vertx, Handler<AsyncResult<Void>> handler) {
+    if (!ParallelFileChunkingProcessor.isOutboxEnabled()) {
+      handler.handle(Future.succeededFuture());
+      return;
+    }
+    // the acknowledgements written since the last sync are synced, so the files are resumed after the restart
+    vertx.<Void>executeBlocking(future -> {
+      try {
+        ChunksOutbox.closeInstance();
+        future.complete();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        future.fail(e);
+      }
+    }, ar -> {
+      if (ar.failed()) {
+        LOGGER.error("Can not close the chunks outbox", ar.cause());
+      }
+      handler.handle(Future.succeededFuture());
+    });
+  }
+}
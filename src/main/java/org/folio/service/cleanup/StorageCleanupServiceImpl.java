@@ -7,10 +7,10 @@ import io.vertx.core.Vertx;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import org.folio.dao.UploadDefinitionDao;
-import org.folio.dataimport.util.ConfigurationUtil;
 import org.folio.dataimport.util.OkapiConnectionParams;
 import org.folio.rest.jaxrs.model.DefinitionCollection;
 import org.folio.rest.jaxrs.model.UploadDefinition;
+import org.folio.service.configuration.TenantConfigurationCache;
 import org.folio.service.storage.FileStorageService;
 import org.folio.service.storage.FileStorageServiceBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -65,7 +65,7 @@ public class StorageCleanupServiceImpl implements StorageCleanupService {
   }
 
   private Future<Long> getTimeWithoutUploadDefinitionChanges(OkapiConnectionParams params) {
-    return ConfigurationUtil.getPropertyByCode(TIME_WITHOUT_UPLOAD_DEFINITION_CHANGES_CODE, params)
+    return TenantConfigurationCache.getPropertyByCode(TIME_WITHOUT_UPLOAD_DEFINITION_CHANGES_CODE, params)
       .map(Long::parseLong)
       .otherwise(TIME_WITHOUT_CHANGES_DEFAULT_VALUE_MILLIS);
   }
@@ -0,0 +1,169 @@
+package org.folio.service.client;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import org.folio.dataimport.util.OkapiConnectionParams;
+import org.folio.rest.jaxrs.model.InitJobExecutionsRqDto;
+import org.folio.rest.jaxrs.model.JobProfileInfo;
+import org.folio.rest.jaxrs.model.RawRecordsDto;
+import org.folio.rest.jaxrs.model.StatusDto;
+import org.folio.service.client.ChunkCompression.ContentEncoding;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeoutException;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Client of the change-manager API of the mod-source-record-manager.
+ * Unlike the generated ChangeManagerClient that opens a new HttpClient for every instance, the requests are sent
+ * by the pooled HttpClient shared within the Vertx instance, see {@link PooledHttpClientProvider}.
+ * Requests are the same the generated client sends, including the query parameters and the Okapi headers.
+ * Entities are encoded straight into the request body, see {@link JsonBufferEncoder},
+ * chunks of records are compressed if it is configured, see {@link ChunkCompression}.
+ * Identity of the chunk is sent in the X-Chunk-Id header. The mod-source-record-manager does not drop the chunk sent again
+ * with the same identity, so the chunk that may have been taken is sent again only once the deduplication is confirmed,
+ * see {@link #CHUNK_DEDUPLICATION_CONFIRMED}.
+ * Every request has a deadline, the request not answered within it fails with TimeoutException.
+ */
+public class ChangeManagerHttpClient {
+  private static final String JOB_EXECUTIONS_PATH = "/change-manager/jobExecutions";
+  private static final String OKAPI_URL_HEADER = "X-Okapi-Url";
+  private static final String OKAPI_TENANT_HEADER = "x-okapi-tenant";
+  private static final String OKAPI_TOKEN_HEADER = "X-Okapi-Token";
+  private static final String CHUNK_ID_HEADER = "X-Chunk-Id";
+  /**
+   * Whether the receiving side is confirmed to drop the chunk sent again with the same X-Chunk-Id.
+   * Chunks that may have been stored are sent again only if it is confirmed, otherwise the records of the chunk are imported twice
+   */
+  public static final boolean CHUNK_DEDUPLICATION_CONFIRMED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.chunk.deduplication.confirmed", "false"));
+  /* Deadline of the request, 0 means the request waits for the response as long as the connection is open */
+  private static final long REQUEST_TIMEOUT_MS =
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.request.timeout.ms", "300000"));
+
+  private final Vertx vertx;
+  private final String okapiUrl;
+  private final String tenantId;
+  private final String token;
+  private final ChunkCompression chunkCompression;
+  private final long requestTimeoutMs;
+
+  public ChangeManagerHttpClient(OkapiConnectionParams params) {
+    this(params.getVertx(), params.getOkapiUrl(), params.getTenantId(), params.getToken());
+  }
+
+  public ChangeManagerHttpClient(Vertx vertx, String okapiUrl, String tenantId, String token) {
+    this(vertx, okapiUrl, tenantId, token, ChunkCompression.CONFIGURED);
+  }
+
+  ChangeManagerHttpClient(Vertx vertx, String okapiUrl, String tenantId, String token, ChunkCompression chunkCompression) {
+    this(vertx, okapiUrl, tenantId, token, chunkCompression, REQUEST_TIMEOUT_MS);
+  }
+
+  ChangeManagerHttpClient(Vertx vertx, String okapiUrl, String tenantId, String token, ChunkCompression chunkCompression,
+                          long requestTimeoutMs) {
+    this.vertx = vertx;
+    this.okapiUrl = okapiUrl;
+    this.tenantId = tenantId;
+    this.token = token;
+    this.chunkCompression = chunkCompression;
+    this.requestTimeoutMs = requestTimeoutMs;
+  }
+
+  public void postChangeManagerJobExecutions(InitJobExecutionsRqDto entity, Handler<HttpClientResponse> responseHandler,
+                                             Handler<Throwable> exceptionHandler) {
+    send(HttpMethod.POST, JOB_EXECUTIONS_PATH, JsonBufferEncoder.encode(entity), responseHandler, exceptionHandler);
+  }
+
+  public void postChangeManagerJobExecutionsRecordsById(String id, boolean defaultMapping, RawRecordsDto entity,
+                                                        Handler<HttpClientResponse> responseHandler,
+                                                        Handler<Throwable> exceptionHandler) {
+    postChangeManagerJobExecutionsRecordsById(id, defaultMapping, entity, null, responseHandler, exceptionHandler);
+  }
+
+  public void postChangeManagerJobExecutionsRecordsById(String id, boolean defaultMapping, RawRecordsDto entity, String chunkId,
+                                                        Handler<HttpClientResponse> responseHandler,
+                                                        Handler<Throwable> exceptionHandler) {
+    String path = JOB_EXECUTIONS_PATH + "/" + id + "/records?defaultMapping=" + defaultMapping + "&";
+    ContentEncoding encoding = chunkCompression.getEncoding(JsonBufferEncoder.estimateChunkSize(entity));
+    Buffer body = JsonBufferEncoder.encodeChunk(entity, chunkCompression, encoding);
+    send(HttpMethod.POST, path, body, encoding, chunkId, responseHandler, exceptionHandler);
+  }
+
+  public void putChangeManagerJobExecutionsJobProfileById(String id, JobProfileInfo entity,
+                                                          Handler<HttpClientResponse> responseHandler,
+                                                          Handler<Throwable> exceptionHandler) {
+    send(HttpMethod.PUT, JOB_EXECUTIONS_PATH + "/" + id + "/jobProfile", JsonBufferEncoder.encode(entity), responseHandler, exceptionHandler);
+  }
+
+  public void putChangeManagerJobExecutionsStatusById(String id, StatusDto entity, Handler<HttpClientResponse> responseHandler,
+                                                      Handler<Throwable> exceptionHandler) {
+    send(HttpMethod.PUT, JOB_EXECUTIONS_PATH + "/" + id + "/status", JsonBufferEncoder.encode(entity), responseHandler, exceptionHandler);
+  }
+
+  public void getChangeManagerJobExecutionsById(String id, Handler<HttpClientResponse> responseHandler,
+                                                Handler<Throwable> exceptionHandler) {
+    send(HttpMethod.GET, JOB_EXECUTIONS_PATH + "/" + id, null, responseHandler, exceptionHandler);
+  }
+
+  public void getChangeManagerJobExecutionsChildrenById(String id, int limit, String query, int offset,
+                                                        Handler<HttpClientResponse> responseHandler,
+                                                        Handler<Throwable> exceptionHandler) {
+    StringBuilder queryParams = new StringBuilder("?limit=").append(limit).append("&");
+    if (query != null) {
+      queryParams.append("query=").append(URLEncoder.encode(query, StandardCharsets.UTF_8)).append("&");
+    }
+    queryParams.append("offset=").append(offset).append("&");
+    send(HttpMethod.GET, JOB_EXECUTIONS_PATH + "/" + id + "/children" + queryParams, null, responseHandler, exceptionHandler);
+  }
+
+  private void send(HttpMethod method, String path, Buffer body, Handler<HttpClientResponse> responseHandler,
+                    Handler<Throwable> exceptionHandler) {
+    send(method, path, body, ContentEncoding.IDENTITY, null, responseHandler, exceptionHandler);
+  }
+
+  private void send(HttpMethod method, String path, Buffer body, ContentEncoding encoding, String chunkId,
+                    Handler<HttpClientResponse> responseHandler, Handler<Throwable> exceptionHandler) {
+    HttpClientRequest request = PooledHttpClientProvider.getHttpClient(vertx)
+      .requestAbs(method, okapiUrl + path)
+      .handler(responseHandler)
+      .exceptionHandler(e -> {
+        if (e instanceof TimeoutException) {
+          PooledHttpClientProvider.onRequestTimedOut();
+        }
+        exceptionHandler.handle(e);
+      })
+      .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+      .putHeader(HttpHeaders.ACCEPT, "application/json,text/plain")
+      .putHeader(OKAPI_URL_HEADER, okapiUrl);
+    if (tenantId != null) {
+      request.putHeader(OKAPI_TENANT_HEADER, tenantId);
+    }
+    if (token != null) {
+      request.putHeader(OKAPI_TOKEN_HEADER, token);
+    }
+    if (encoding != ContentEncoding.IDENTITY) {
+      request.putHeader(HttpHeaders.CONTENT_ENCODING, encoding.getHeaderValue());
+    }
+    if (chunkId != null) {
+      request.putHeader(CHUNK_ID_HEADER, chunkId);
+    }
+    if (requestTimeoutMs > 0) {
+      request.setTimeout(requestTimeoutMs);
+    }
+    PooledHttpClientProvider.onRequestSent();
+    if (body != null) {
+      request.putHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(body.length()))
+        .end(body);
+    } else {
+      request.end();
+    }
+  }
+}
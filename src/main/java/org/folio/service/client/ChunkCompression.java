@@ -0,0 +1,93 @@
+package org.folio.service.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Compression of the chunks of records sent to the mod-source-record-manager.
+ * Chunk body is compressed by the given content encoding while it is encoded to JSON,
+ * chunks smaller than the minimum size are sent uncompressed, compression would not pay off for them.
+ * The receiving side has to support decompression of the request bodies, so compression is disabled by default.
+ */
+public class ChunkCompression {
+
+  /* Compression configured for the module: identity (no compression), gzip or deflate */
+  public static final ChunkCompression CONFIGURED = new ChunkCompression(
+    ContentEncoding.valueOf(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.chunk.compression", "identity").toUpperCase()),
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.chunk.compression.level", String.valueOf(Deflater.BEST_SPEED))),
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.chunk.compression.min.bytes", "8192")));
+
+  private static final int COMPRESSION_BUFFER_SIZE = 64 * 1024;
+
+  private final ContentEncoding encoding;
+  private final int level;
+  private final int minBytes;
+
+  public ChunkCompression(ContentEncoding encoding, int level, int minBytes) {
+    this.encoding = encoding;
+    this.level = level;
+    this.minBytes = minBytes;
+  }
+
+  /**
+   * Returns content encoding of the chunk of the given size
+   *
+   * @param chunkSize estimated size of the encoded chunk
+   * @return content encoding
+   */
+  public ContentEncoding getEncoding(long chunkSize) {
+    return chunkSize >= minBytes ? encoding : ContentEncoding.IDENTITY;
+  }
+
+  /**
+   * Wraps the stream into compressing one
+   *
+   * @param encoding     content encoding
+   * @param outputStream stream the compressed content is written to
+   * @return stream compressing the content
+   * @throws IOException if the stream can not be written
+   */
+  OutputStream compress(ContentEncoding encoding, OutputStream outputStream) throws IOException {
+    switch (encoding) {
+      case GZIP:
+        return new GZIPOutputStream(outputStream, COMPRESSION_BUFFER_SIZE) {
+          {
+            def.setLevel(level);
+          }
+        };
+      case DEFLATE:
+        Deflater deflater = new Deflater(level);
+        return new DeflaterOutputStream(outputStream, deflater, COMPRESSION_BUFFER_SIZE) {
+          @Override
+          public void close() throws IOException {
+            try {
+              super.close();
+            } finally {
+              deflater.end();
+            }
+          }
+        };
+      default:
+        return outputStream;
+    }
+  }
+
+  /**
+   * Content encodings of the chunk body
+   */
+  public enum ContentEncoding {
+    IDENTITY, GZIP, DEFLATE;
+
+    /**
+     * @return value of the Content-Encoding header
+     */
+    public String getHeaderValue() {
+      return name().toLowerCase();
+    }
+  }
+}
@@ -0,0 +1,217 @@
+package org.folio.service.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.web.handler.impl.HttpStatusException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Delivery of the chunks of the single job execution to the mod-source-record-manager.
+ * Every chunk gets the identity made of the job execution id and the sequence number of the chunk,
+ * the identity is sent with every attempt.
+ * Chunks failed by the errors the {@link RetryPolicy} retries are sent again after its delay,
+ * the delay is a timer, so the other chunks of the job go on being sent while one of them waits for the retry.
+ * The attempt not answered within the delay of the {@link HedgingPolicy} is hedged: the chunk is sent once more
+ * and the attempt completes by the request answered first, so a single slow request does not stall the file.
+ * Every request, the hedged one included, waits for the {@link SharedCircuitBreaker} to let it through,
+ * so the chunks of all the jobs pause while the receiving side is overloaded.
+ */
+public class ChunkDelivery {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChunkDelivery.class);
+  private static final Counter RETRIES_COUNTER = Counter.builder("data.import.chunk.retries")
+    .description("Number of the chunks sent again to the mod-source-record-manager after the transient error")
+    .register(Metrics.globalRegistry);
+  private static final Counter HEDGED_COUNTER = Counter.builder("data.import.chunk.hedged")
+    .description("Number of the chunks sent once more to the mod-source-record-manager while the earlier request is not answered")
+    .register(Metrics.globalRegistry);
+
+  private final Vertx vertx;
+  private final String jobExecutionId;
+  private final RetryPolicy retryPolicy;
+  private final HedgingPolicy hedgingPolicy;
+  private final SharedCircuitBreaker circuitBreaker;
+  private final AtomicLong chunksSequence = new AtomicLong();
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong hedgedSends = new AtomicLong();
+
+  public ChunkDelivery(Vertx vertx, String jobExecutionId) {
+    this(vertx, jobExecutionId, RetryPolicy.CONFIGURED, HedgingPolicy.CONFIGURED);
+  }
+
+  public ChunkDelivery(Vertx vertx, String jobExecutionId, RetryPolicy retryPolicy, HedgingPolicy hedgingPolicy) {
+    this(vertx, jobExecutionId, retryPolicy, hedgingPolicy, SharedCircuitBreaker.getShared(vertx));
+  }
+
+  public ChunkDelivery(Vertx vertx, String jobExecutionId, RetryPolicy retryPolicy, HedgingPolicy hedgingPolicy,
+                       SharedCircuitBreaker circuitBreaker) {
+    this.vertx = vertx;
+    this.jobExecutionId = jobExecutionId;
+    this.retryPolicy = retryPolicy;
+    this.hedgingPolicy = hedgingPolicy;
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  /**
+   * Returns identity of the next chunk of the job, chunks have to be taken in the order they are read
+   *
+   * @return identity of the chunk
+   */
+  public String nextChunkId() {
+    return getChunkId(nextChunkSequence());
+  }
+
+  /**
+   * Returns sequence number of the next chunk of the job, chunks have to be taken in the order they are read
+   *
+   * @return sequence number of the chunk
+   */
+  public long nextChunkSequence() {
+    return chunksSequence.incrementAndGet();
+  }
+
+  /**
+   * Returns identity of the chunk of the job by its sequence number
+   *
+   * @param sequence sequence number of the chunk
+   * @return identity of the chunk
+   */
+  public String getChunkId(long sequence) {
+    return jobExecutionId + ":" + sequence;
+  }
+
+  /**
+   * Continues the sequence of the chunks sent before the restart, the next chunk gets the following sequence number
+   *
+   * @param lastSequence sequence number of the last chunk sent before the restart
+   */
+  public void resumeAfter(long lastSequence) {
+    chunksSequence.set(lastSequence);
+  }
+
+  /**
+   * Sends the chunk, the chunk is sent again if the attempt fails by the error retried by the {@link RetryPolicy}
+   * while the attempts and the retry budget are not exhausted. The chunk waits while the circuit breaker is open,
+   * so the reader of the file pauses once all the chunks in flight wait
+   *
+   * @param chunkId identity of the chunk
+   * @param attempt sends the chunk once
+   * @return future completed by the last attempt
+   */
+  public Future<Void> send(String chunkId, Supplier<Future<Void>> attempt) {
+    Promise<Void> promise = Promise.promise();
+    send(chunkId, attempt, 1, promise);
+    return promise.future();
+  }
+
+  public long getRetries() {
+    return retries.get();
+  }
+
+  public long getHedgedSends() {
+    return hedgedSends.get();
+  }
+
+  private void send(String chunkId, Supplier<Future<Void>> attempt, int attemptNumber, Promise<Void> promise) {
+    sendHedged(chunkId, attempt).onComplete(ar -> {
+      if (ar.succeeded()) {
+        promise.complete();
+      } else if (attemptNumber < retryPolicy.getMaxAttempts() && retryPolicy.isRetryable(ar.cause()) && acquireRetry()) {
+        long delay = Math.max(1, retryPolicy.getDelay(attemptNumber));
+        LOGGER.warn("Attempt {} to send chunk {} failed, the chunk will be sent again in {} ms. Cause: {}",
+          attemptNumber, chunkId, delay, ar.cause().getMessage());
+        vertx.setTimer(delay, timerId -> send(chunkId, attempt, attemptNumber + 1, promise));
+      } else {
+        promise.fail(ar.cause());
+      }
+    });
+  }
+
+  /**
+   * Makes the attempt, the chunk is sent once more if the attempt is not answered within the hedging delay.
+   * Attempt succeeds by the first successful request and fails once all the requests have failed.
+   */
+  private Future<Void> sendHedged(String chunkId, Supplier<Future<Void>> attempt) {
+    long hedgingDelay = hedgingPolicy.getDelay();
+    if (hedgingDelay < 0) {
+      return sendGuarded(attempt);
+    }
+    Promise<Void> promise = Promise.promise();
+    AtomicInteger pendingRequests = new AtomicInteger(1);
+    long timerId = vertx.setTimer(hedgingDelay, id -> {
+      if (!promise.future().isComplete()) {
+        pendingRequests.incrementAndGet();
+        hedgedSends.incrementAndGet();
+        HEDGED_COUNTER.increment();
+        LOGGER.info("Chunk {} has not been answered in {} ms, sending the chunk once more", chunkId, hedgingDelay);
+        sendGuarded(attempt).onComplete(ar -> completeHedged(ar, pendingRequests, promise));
+      }
+    });
+    sendGuarded(attempt).onComplete(ar -> {
+      vertx.cancelTimer(timerId);
+      completeHedged(ar, pendingRequests, promise);
+    });
+    return promise.future();
+  }
+
+  private void completeHedged(AsyncResult<Void> ar, AtomicInteger pendingRequests, Promise<Void> promise) {
+    if (ar.succeeded()) {
+      promise.tryComplete();
+    } else if (pendingRequests.decrementAndGet() == 0) {
+      promise.tryFail(ar.cause());
+    }
+  }
+
+  /**
+   * Sends the request once the circuit breaker lets it through
+   */
+  private Future<Void> sendGuarded(Supplier<Future<Void>> attempt) {
+    return circuitBreaker.acquire().compose(v -> sendTimed(attempt));
+  }
+
+  private Future<Void> sendTimed(Supplier<Future<Void>> attempt) {
+    long sentAt = System.nanoTime();
+    return attempt.get().onComplete(ar -> {
+      long latencyMs = (System.nanoTime() - sentAt) / 1_000_000;
+      if (ar.succeeded()) {
+        hedgingPolicy.recordLatency(latencyMs);
+      }
+      if (ar.succeeded() || isSent(ar.cause())) {
+        circuitBreaker.onResult(ar.failed() && retryPolicy.isTransient(ar.cause()), latencyMs);
+      } else {
+        circuitBreaker.onSkipped();
+      }
+    });
+  }
+
+  /**
+   * Checks whether the attempt failed by the error reaching or answered by the receiving side,
+   * the attempt failed locally before the request was sent is not reported to the circuit breaker
+   */
+  private boolean isSent(Throwable error) {
+    return error instanceof HttpStatusException || retryPolicy.isTransient(error);
+  }
+
+  private boolean acquireRetry() {
+    long sentChunks = chunksSequence.get();
+    long retriesMade;
+    do {
+      retriesMade = retries.get();
+      if (!retryPolicy.isWithinBudget(sentChunks, retriesMade)) {
+        LOGGER.warn("Retry budget of the chunks of JobExecution {} is exhausted, {} retries made for {} chunks",
+          jobExecutionId, retriesMade, sentChunks);
+        return false;
+      }
+    } while (!retries.compareAndSet(retriesMade, retriesMade + 1));
+    RETRIES_COUNTER.increment();
+    return true;
+  }
+}
@@ -0,0 +1,88 @@
+package org.folio.service.client;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.util.Arrays;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Policy of hedging the chunks: the chunk not answered within the delay is sent once more with the same identity,
+ * the chunk is sent by the request answered first. The delay is the given percentile of the latencies
+ * of the recent chunks, so only the slowest chunks are hedged and the delay follows the latency of the receiving side.
+ * Chunks are not hedged until there are enough latencies to estimate the percentile.
+ * The hedged chunk is sent while the first request may still be stored by the receiving side, so the chunks are hedged
+ * only once the deduplication of the chunks by their identity is confirmed for the mod-source-record-manager.
+ */
+public class HedgingPolicy {
+  private static final Logger LOGGER = LoggerFactory.getLogger(HedgingPolicy.class);
+
+  /* Hedging configured for the module, chunks are not hedged by default */
+  public static final HedgingPolicy CONFIGURED = new HedgingPolicy(
+    isHedgingConfigured(Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.chunk.hedging.enabled", "false"))),
+    Double.parseDouble(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.chunk.hedging.percentile", "0.95")),
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.chunk.hedging.min.delay.ms", "100")));
+
+  private static final int LATENCY_WINDOW_SIZE = 256;
+  private static final int MIN_LATENCIES_NUMBER = 20;
+
+  private final boolean enabled;
+  private final double percentile;
+  private final long minDelayMs;
+  /* ring buffer of the latencies of the recent chunks */
+  private final long[] latencies = new long[LATENCY_WINDOW_SIZE];
+  private int latenciesNumber;
+  private int nextLatencyIndex;
+
+  /**
+   * @param enabled    whether the chunks are hedged
+   * @param percentile percentile of the latencies used as the hedging delay, from 0 to 1
+   * @param minDelayMs minimum hedging delay
+   */
+  public HedgingPolicy(boolean enabled, double percentile, long minDelayMs) {
+    this.enabled = enabled;
+    this.percentile = Math.min(1, Math.max(0, percentile));
+    this.minDelayMs = Math.max(1, minDelayMs);
+  }
+
+  private static boolean isHedgingConfigured(boolean hedgingEnabled) {
+    if (hedgingEnabled && !ChangeManagerHttpClient.CHUNK_DEDUPLICATION_CONFIRMED) {
+      LOGGER.warn("Hedging of the chunks is disabled: the deduplication of the chunks by the mod-source-record-manager is not confirmed");
+      return false;
+    }
+    return hedgingEnabled;
+  }
+
+  /**
+   * Registers latency of the chunk sent successfully
+   *
+   * @param latencyMs latency in milliseconds
+   */
+  public synchronized void recordLatency(long latencyMs) {
+    if (!enabled) {
+      return;
+    }
+    latencies[nextLatencyIndex] = latencyMs;
+    nextLatencyIndex = (nextLatencyIndex + 1) % LATENCY_WINDOW_SIZE;
+    latenciesNumber = Math.min(latenciesNumber + 1, LATENCY_WINDOW_SIZE);
+  }
+
+  /**
+   * Returns delay after which the chunk is sent once more
+   *
+   * @return delay in milliseconds or -1 if the chunk is not hedged
+   */
+  public long getDelay() {
+    long[] recentLatencies;
+    synchronized (this) {
+      if (!enabled || latenciesNumber < MIN_LATENCIES_NUMBER) {
+        return -1;
+      }
+      recentLatencies = Arrays.copyOf(latencies, latenciesNumber);
+    }
+    Arrays.sort(recentLatencies);
+    int index = (int) Math.ceil(percentile * recentLatencies.length) - 1;
+    return Math.max(minDelayMs, recentLatencies[Math.max(0, index)]);
+  }
+}
@@ -0,0 +1,137 @@
+package org.folio.service.client;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.EncodeException;
+import io.vertx.core.json.jackson.DatabindCodec;
+import org.folio.rest.jaxrs.model.InitialRecord;
+import org.folio.rest.jaxrs.model.RawRecordsDto;
+import org.folio.service.client.ChunkCompression.ContentEncoding;
+import org.folio.service.processing.reader.RecordsBuffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes request entities to JSON straight into the Buffer sent as the request body.
+ * The entity is written by the streaming JSON generator, so the record texts are escaped on the fly
+ * and neither JSON tree nor the intermediate JSON string is built:
+ * the encoded body is the only copy of the payload besides the records themselves.
+ */
+public final class JsonBufferEncoder {
+
+  private static final ObjectMapper MAPPER = DatabindCodec.mapper();
+  private static final int DEFAULT_BUFFER_SIZE = 512;
+  /* Size of the chunk envelope and the record fields besides the record text */
+  private static final int CHUNK_ENVELOPE_SIZE = 256;
+  private static final int RECORD_FIELDS_SIZE = 32;
+  /* Control characters separating the fields of raw MARC records take 6 bytes each once escaped, about a quarter of the record size */
+  private static final int ESCAPING_OVERHEAD_PERCENT = 30;
+  /* Compressed chunk buffer is sized for the compression ratio lower than the usual one for MARC records */
+  private static final int EXPECTED_COMPRESSION_RATIO = 4;
+
+  private JsonBufferEncoder() {
+  }
+
+  /**
+   * Encodes entity to JSON
+   *
+   * @param entity entity to encode
+   * @return buffer with JSON
+   */
+  public static Buffer encode(Object entity) {
+    return encode(entity, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Encodes chunk of records to JSON, the buffer is allocated by the size of the records, so it is rarely reallocated
+   *
+   * @param chunk chunk of records
+   * @return buffer with JSON
+   */
+  public static Buffer encodeChunk(RawRecordsDto chunk) {
+    return encode(chunk, toBufferSize(estimateChunkSize(chunk)));
+  }
+
+  /**
+   * Encodes chunk of records to JSON compressed by the given content encoding while it is being encoded,
+   * so the uncompressed JSON is not kept
+   *
+   * @param chunk       chunk of records
+   * @param compression compression settings
+   * @param encoding    content encoding of the body
+   * @return buffer with compressed JSON
+   */
+  public static Buffer encodeChunk(RawRecordsDto chunk, ChunkCompression compression, ContentEncoding encoding) {
+    if (encoding == ContentEncoding.IDENTITY) {
+      return encodeChunk(chunk);
+    }
+    Buffer buffer = Buffer.buffer(toBufferSize(estimateChunkSize(chunk) / EXPECTED_COMPRESSION_RATIO));
+    try (OutputStream outputStream = compression.compress(encoding, new BufferOutputStream(buffer))) {
+      write(chunk, outputStream);
+    } catch (IOException e) {
+      throw new EncodeException("Failed to encode as JSON: " + e.getMessage());
+    }
+    return buffer;
+  }
+
+  /**
+   * Estimates size of the chunk encoded to JSON by the size of the records it contains
+   *
+   * @param chunk chunk of records
+   * @return estimated size of the encoded chunk
+   */
+  public static long estimateChunkSize(RawRecordsDto chunk) {
+    long size = CHUNK_ENVELOPE_SIZE;
+    if (chunk.getInitialRecords() != null) {
+      for (InitialRecord record : chunk.getInitialRecords()) {
+        long recordSize = RecordsBuffer.getRecordSize(record);
+        size += recordSize + recordSize * ESCAPING_OVERHEAD_PERCENT / 100 + RECORD_FIELDS_SIZE;
+      }
+    }
+    return size;
+  }
+
+  static Buffer encode(Object entity, int initialSize) {
+    Buffer buffer = Buffer.buffer(initialSize);
+    try {
+      write(entity, new BufferOutputStream(buffer));
+    } catch (IOException e) {
+      throw new EncodeException("Failed to encode as JSON: " + e.getMessage());
+    }
+    return buffer;
+  }
+
+  private static void write(Object entity, OutputStream outputStream) throws IOException {
+    try (JsonGenerator generator = MAPPER.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+      MAPPER.writeValue(generator, entity);
+    }
+  }
+
+  private static int toBufferSize(long size) {
+    return (int) Math.min(Integer.MAX_VALUE - 8, size);
+  }
+
+  /**
+   * OutputStream appending the written bytes to the Buffer
+   */
+  private static class BufferOutputStream extends OutputStream {
+    private final Buffer buffer;
+
+    BufferOutputStream(Buffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) {
+      buffer.appendByte((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+      buffer.appendBytes(bytes, offset, length);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package org.folio.service.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Provides the keep-alive pooled HttpClient shared by all the calls to the other modules through Okapi,
+ * one client per Vertx instance, so connections are reused across requests instead of being opened for every call.
+ * Connection reuse is visible by the metrics: the number of requests sent against the number of connections opened.
+ * Requests not answered within the deadline are counted as well.
+ */
+public final class PooledHttpClientProvider {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PooledHttpClientProvider.class);
+  private static final int POOL_SIZE =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.pool.size", "20"));
+  /* Time an unused connection is kept in the pool */
+  private static final int IDLE_TIMEOUT_SECONDS =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.idle.timeout.seconds", "60"));
+  private static final boolean PIPELINING_ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.pipelining.enabled", "false"));
+  private static final int PIPELINING_LIMIT =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.pipelining.limit", "10"));
+  /* HTTP/2 is negotiated by the cleartext upgrade, the client stays on HTTP/1.1 if Okapi does not support it */
+  private static final boolean HTTP2_ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.http2.enabled", "false"));
+  private static final int HTTP2_MULTIPLEXING_LIMIT =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.http2.multiplexing.limit", "-1"));
+
+  private static final Map<Vertx, HttpClient> CLIENTS = new ConcurrentHashMap<>();
+  private static final AtomicInteger OPEN_CONNECTIONS = new AtomicInteger();
+  private static final AtomicLong OPENED_CONNECTIONS = new AtomicLong();
+  private static final AtomicLong SENT_REQUESTS = new AtomicLong();
+  private static final AtomicLong TIMED_OUT_REQUESTS = new AtomicLong();
+
+  static {
+    FunctionCounter.builder("data.import.okapi.client.connections.opened", OPENED_CONNECTIONS, AtomicLong::get)
+      .description("Number of connections opened by the pooled HTTP client")
+      .register(Metrics.globalRegistry);
+    FunctionCounter.builder("data.import.okapi.client.requests", SENT_REQUESTS, AtomicLong::get)
+      .description("Number of requests sent by the pooled HTTP client")
+      .register(Metrics.globalRegistry);
+    FunctionCounter.builder("data.import.okapi.client.requests.timed.out", TIMED_OUT_REQUESTS, AtomicLong::get)
+      .description("Number of requests of the pooled HTTP client not answered within the deadline")
+      .register(Metrics.globalRegistry);
+    Gauge.builder("data.import.okapi.client.connections.open", OPEN_CONNECTIONS, AtomicInteger::get)
+      .description("Number of connections of the pooled HTTP client currently open")
+      .register(Metrics.globalRegistry);
+  }
+
+  private PooledHttpClientProvider() {
+  }
+
+  /**
+   * Returns the pooled HttpClient of the given Vertx instance, the client is created on the first call
+   *
+   * @param vertx vertx instance
+   * @return pooled HttpClient
+   */
+  public static HttpClient getHttpClient(Vertx vertx) {
+    return CLIENTS.computeIfAbsent(vertx, PooledHttpClientProvider::createHttpClient);
+  }
+
+  /**
+   * Registers the request sent by the pooled client
+   */
+  static void onRequestSent() {
+    SENT_REQUESTS.incrementAndGet();
+  }
+
+  /**
+   * Registers the request not answered within the deadline
+   */
+  static void onRequestTimedOut() {
+    TIMED_OUT_REQUESTS.incrementAndGet();
+  }
+
+  public static long getOpenedConnections() {
+    return OPENED_CONNECTIONS.get();
+  }
+
+  public static long getSentRequests() {
+    return SENT_REQUESTS.get();
+  }
+
+  public static long getTimedOutRequests() {
+    return TIMED_OUT_REQUESTS.get();
+  }
+
+  private static HttpClient createHttpClient(Vertx vertx) {
+    HttpClientOptions options = new HttpClientOptions()
+      .setKeepAlive(true)
+      .setMaxPoolSize(POOL_SIZE)
+      .setKeepAliveTimeout(IDLE_TIMEOUT_SECONDS)
+      .setPipelining(PIPELINING_ENABLED)
+      .setPipeliningLimit(PIPELINING_LIMIT);
+    if (HTTP2_ENABLED) {
+      options.setProtocolVersion(HttpVersion.HTTP_2)
+        .setHttp2KeepAliveTimeout(IDLE_TIMEOUT_SECONDS)
+        .setHttp2MultiplexingLimit(HTTP2_MULTIPLEXING_LIMIT);
+    }
+    LOGGER.info("Creating pooled HTTP client: pool size {}, idle timeout {} s, pipelining {}, HTTP/2 {}",
+      POOL_SIZE, IDLE_TIMEOUT_SECONDS, PIPELINING_ENABLED, HTTP2_ENABLED);
+    return vertx.createHttpClient(options)
+      .connectionHandler(connection -> {
+        OPENED_CONNECTIONS.incrementAndGet();
+        OPEN_CONNECTIONS.incrementAndGet();
+        LOGGER.debug("Connection to {} opened, {} connections opened for {} requests sent",
+          connection.remoteAddress(), getOpenedConnections(), getSentRequests());
+        connection.closeHandler(v -> OPEN_CONNECTIONS.decrementAndGet());
+      });
+  }
+}
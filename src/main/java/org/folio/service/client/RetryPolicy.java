@@ -0,0 +1,147 @@
+package org.folio.service.client;
+
+import io.vertx.core.VertxException;
+import io.vertx.ext.web.handler.impl.HttpStatusException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Policy of retrying the requests failed by transient errors. The failed chunk may have been stored by the receiving side
+ * before the failure, while the mod-source-record-manager does not drop the chunk sent again, so unless the deduplication
+ * of the chunks by their identity is confirmed, only the failures proving the chunk was not taken are retried:
+ * refused connection, 429 and 503 responses without body. Once the deduplication is confirmed, 5xx and 429 responses,
+ * connection and timeout errors are retried.
+ * Delay before the retry grows exponentially with the attempt number up to the maximum delay and is jittered,
+ * so the senders that failed at the same moment do not retry at the same moment.
+ * Number of retries is limited by the retry budget: retries may take only the given part of the sent requests
+ * besides the minimal number of retries, so the retries do not multiply the load on the failing service.
+ */
+public class RetryPolicy {
+
+  /* Retry policy of the chunks configured for the module, chunks are not retried by default */
+  public static final RetryPolicy CONFIGURED = new RetryPolicy(
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.chunk.retry.max.attempts", "1")),
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.chunk.retry.backoff.initial.ms", "500")),
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.chunk.retry.backoff.max.ms", "30000")),
+    Double.parseDouble(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.chunk.retry.budget.ratio", "0.1")),
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.chunk.retry.budget.min", "10")),
+    ChangeManagerHttpClient.CHUNK_DEDUPLICATION_CONFIRMED);
+
+  private static final int TOO_MANY_REQUESTS = 429;
+  private static final int SERVER_ERROR = 500;
+  private static final int SERVICE_UNAVAILABLE = 503;
+
+  private final int maxAttempts;
+  private final long initialDelayMs;
+  private final long maxDelayMs;
+  private final double budgetRatio;
+  private final int budgetMin;
+  private final boolean deduplicationConfirmed;
+
+  /**
+   * Creates policy retrying only the requests proved to be not taken by the receiving side
+   *
+   * @param maxAttempts    maximum number of attempts to send the request, including the first one
+   * @param initialDelayMs delay before the first retry
+   * @param maxDelayMs     maximum delay before the retry
+   * @param budgetRatio    part of the sent requests the retries may take
+   * @param budgetMin      number of retries allowed regardless of the number of the sent requests
+   */
+  public RetryPolicy(int maxAttempts, long initialDelayMs, long maxDelayMs, double budgetRatio, int budgetMin) {
+    this(maxAttempts, initialDelayMs, maxDelayMs, budgetRatio, budgetMin, false);
+  }
+
+  /**
+   * @param maxAttempts            maximum number of attempts to send the request, including the first one
+   * @param initialDelayMs         delay before the first retry
+   * @param maxDelayMs             maximum delay before the retry
+   * @param budgetRatio            part of the sent requests the retries may take
+   * @param budgetMin              number of retries allowed regardless of the number of the sent requests
+   * @param deduplicationConfirmed whether the receiving side drops the request sent again with the same identity
+   */
+  public RetryPolicy(int maxAttempts, long initialDelayMs, long maxDelayMs, double budgetRatio, int budgetMin,
+                     boolean deduplicationConfirmed) {
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.initialDelayMs = Math.max(1, initialDelayMs);
+    this.maxDelayMs = Math.max(this.initialDelayMs, maxDelayMs);
+    this.budgetRatio = budgetRatio;
+    this.budgetMin = budgetMin;
+    this.deduplicationConfirmed = deduplicationConfirmed;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  /**
+   * Checks whether the request failed by the given error can be sent again without sending the same records twice
+   *
+   * @param error cause of the failure
+   * @return true if the request was not taken by the receiving side or the receiving side drops the request sent again
+   */
+  public boolean isRetryable(Throwable error) {
+    return isNotTaken(error) || deduplicationConfirmed && isTransient(error);
+  }
+
+  /**
+   * Checks whether the request failed by the transient error of the receiving side: 5xx and 429 responses,
+   * connection and timeout errors. The request failed this way may have been taken by the receiving side
+   *
+   * @param error cause of the failure
+   * @return true if the error is transient
+   */
+  public boolean isTransient(Throwable error) {
+    if (error instanceof HttpStatusException) {
+      int statusCode = ((HttpStatusException) error).getStatusCode();
+      return statusCode == TOO_MANY_REQUESTS || statusCode >= SERVER_ERROR;
+    }
+    // connection refused, reset or closed, request timeout
+    return error instanceof IOException || error instanceof VertxException || error instanceof TimeoutException;
+  }
+
+  /**
+   * Checks whether the failure proves the request was not taken by the receiving side: the connection was refused,
+   * or the request was rejected by 429 or 503 response without body before it was handled
+   */
+  private boolean isNotTaken(Throwable error) {
+    if (error instanceof HttpStatusException) {
+      HttpStatusException statusException = (HttpStatusException) error;
+      int statusCode = statusException.getStatusCode();
+      return (statusCode == TOO_MANY_REQUESTS || statusCode == SERVICE_UNAVAILABLE) && StringUtils.isEmpty(statusException.getPayload());
+    }
+    return error instanceof ConnectException;
+  }
+
+  /**
+   * Checks whether there is a retry left in the budget
+   *
+   * @param requests number of the requests sent for the first time
+   * @param retries  number of the retries made
+   * @return true if one more retry is allowed
+   */
+  public boolean isWithinBudget(long requests, long retries) {
+    return retries < budgetMin + (long) (requests * budgetRatio);
+  }
+
+  /**
+   * Returns delay before the retry: exponential delay limited by the maximum one,
+   * of which the half is jittered
+   *
+   * @param attempt number of the failed attempt, starting from 1
+   * @return delay in milliseconds
+   */
+  public long getDelay(int attempt) {
+    long delay = initialDelayMs << Math.min(attempt - 1, 30);
+    if (delay <= 0 || delay > maxDelayMs) {
+      delay = maxDelayMs;
+    }
+    long half = delay / 2;
+    return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+  }
+}
@@ -0,0 +1,288 @@
+package org.folio.service.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Circuit breaker shared by all the chunks sent to the mod-source-record-manager within the Vertx instance.
+ * Breaker opens once the part of the failed or slow requests among the recent ones reaches the threshold.
+ * While the breaker is open the chunks are not failed but wait until it lets them through, so the senders hold
+ * their in-flight chunks and the readers of all the files pause instead of adding load to the overloaded service.
+ * After the open duration the breaker lets through a few probe requests, it closes once all of them succeed
+ * and opens again if any of them fails. Only the requests answered by the receiving side or failed on the way to it
+ * are counted, the request skipped before it was sent returns its probe to the next waiting request.
+ * Request is never failed by the breaker, the request waiting longer than the maximum wait is reported in the log
+ * and keeps its place in the queue, so the stalled files are visible while the breaker stays open.
+ */
+public class SharedCircuitBreaker {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SharedCircuitBreaker.class);
+  private static final boolean ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.circuit.breaker.enabled", "false"));
+  /* Number of the recent requests the failure rate is calculated by */
+  private static final int WINDOW_SIZE =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.circuit.breaker.window.size", "50"));
+  private static final double FAILURE_RATE_THRESHOLD =
+    Double.parseDouble(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.circuit.breaker.failure.rate.threshold", "0.5"));
+  /* Request answered later is counted as failed */
+  private static final long SLOW_REQUEST_MS =
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.circuit.breaker.slow.request.ms", "30000"));
+  private static final long OPEN_DURATION_MS =
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.circuit.breaker.open.duration.ms", "10000"));
+  private static final int HALF_OPEN_REQUESTS =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.circuit.breaker.half.open.requests", "3"));
+  /* Request waiting longer is reported in the log every time the wait passes, the waiting requests are not reported by default */
+  private static final long MAX_WAIT_MS =
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("okapi.client.circuit.breaker.max.wait.ms", "0"));
+
+  private static final Map<Vertx, SharedCircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+  private static final AtomicLong OPENED_TIMES = new AtomicLong();
+  private static final AtomicInteger WAITING_REQUESTS = new AtomicInteger();
+
+  static {
+    FunctionCounter.builder("data.import.okapi.client.circuit.breaker.opened", OPENED_TIMES, AtomicLong::get)
+      .description("Number of times the circuit breaker of the chunks sent to the mod-source-record-manager has opened")
+      .register(Metrics.globalRegistry);
+    Gauge.builder("data.import.okapi.client.circuit.breaker.waiting", WAITING_REQUESTS, AtomicInteger::get)
+      .description("Number of the chunks waiting for the circuit breaker to let them through")
+      .register(Metrics.globalRegistry);
+  }
+
+  /**
+   * States of the circuit breaker
+   */
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final Vertx vertx;
+  private final boolean enabled;
+  private final int windowSize;
+  private final double failureRateThreshold;
+  private final long slowRequestMs;
+  private final long openDurationMs;
+  private final int halfOpenRequests;
+  private final long maxWaitMs;
+  /* ring buffer of the outcomes of the recent requests, true for the failed one */
+  private final boolean[] outcomes;
+  private final Queue<WaitingRequest> waitingRequests = new ArrayDeque<>();
+  private State state = State.CLOSED;
+  private int outcomesNumber;
+  private int failuresNumber;
+  private int nextOutcomeIndex;
+  private int probesSent;
+  private int probesSucceeded;
+
+  SharedCircuitBreaker(Vertx vertx, boolean enabled, int windowSize, double failureRateThreshold, long slowRequestMs,
+                       long openDurationMs, int halfOpenRequests, long maxWaitMs) {
+    this.vertx = vertx;
+    this.enabled = enabled;
+    this.windowSize = Math.max(1, windowSize);
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowRequestMs = slowRequestMs;
+    this.openDurationMs = Math.max(1, openDurationMs);
+    this.halfOpenRequests = Math.max(1, halfOpenRequests);
+    this.maxWaitMs = Math.max(0, maxWaitMs);
+    this.outcomes = new boolean[this.windowSize];
+  }
+
+  /**
+   * Returns the circuit breaker of the given Vertx instance, the breaker is created on the first call
+   *
+   * @param vertx vertx instance
+   * @return shared circuit breaker
+   */
+  public static SharedCircuitBreaker getShared(Vertx vertx) {
+    return BREAKERS.computeIfAbsent(vertx, v -> new SharedCircuitBreaker(v, ENABLED, WINDOW_SIZE, FAILURE_RATE_THRESHOLD,
+      SLOW_REQUEST_MS, OPEN_DURATION_MS, HALF_OPEN_REQUESTS, MAX_WAIT_MS));
+  }
+
+  /**
+   * Returns future completed once the request may be sent: at once while the breaker is closed,
+   * after the open duration if the breaker is open. The future is never failed, the request waits
+   * as long as the breaker stays open
+   *
+   * @return future completed when the request may be sent
+   */
+  public Future<Void> acquire() {
+    if (!enabled) {
+      return Future.succeededFuture();
+    }
+    synchronized (this) {
+      if (state == State.CLOSED) {
+        return Future.succeededFuture();
+      }
+      if (state == State.HALF_OPEN && probesSent < halfOpenRequests) {
+        probesSent++;
+        return Future.succeededFuture();
+      }
+      WaitingRequest request = new WaitingRequest();
+      if (maxWaitMs > 0) {
+        request.timerId = vertx.setTimer(maxWaitMs, id -> expire(request));
+      }
+      waitingRequests.add(request);
+      WAITING_REQUESTS.incrementAndGet();
+      return request.promise.future();
+    }
+  }
+
+  /**
+   * Registers the request let through by {@link #acquire()} but not sent, so its outcome says nothing
+   * about the receiving side. The probe taken by the request is given to the next waiting request
+   */
+  public void onSkipped() {
+    if (!enabled) {
+      return;
+    }
+    List<WaitingRequest> probes = new ArrayList<>();
+    synchronized (this) {
+      if (state != State.HALF_OPEN || probesSent == 0) {
+        return;
+      }
+      probesSent--;
+      if (!waitingRequests.isEmpty()) {
+        probes.add(waitingRequests.poll());
+        probesSent++;
+      }
+    }
+    release(probes);
+  }
+
+  /**
+   * Registers outcome of the request sent after {@link #acquire()}
+   *
+   * @param failed    whether the request failed by the error of the receiving side
+   * @param latencyMs latency of the request
+   */
+  public void onResult(boolean failed, long latencyMs) {
+    if (!enabled) {
+      return;
+    }
+    boolean unhealthy = failed || latencyMs >= slowRequestMs;
+    List<WaitingRequest> releasedRequests;
+    synchronized (this) {
+      switch (state) {
+        case CLOSED:
+          recordOutcome(unhealthy);
+          if (outcomesNumber == windowSize && failuresNumber >= failureRateThreshold * windowSize) {
+            LOGGER.warn("Circuit breaker opens, {} of the last {} requests to the mod-source-record-manager failed or were slow",
+              failuresNumber, windowSize);
+            open();
+          }
+          return;
+        case HALF_OPEN:
+          if (unhealthy) {
+            LOGGER.warn("Circuit breaker opens again, probe request to the mod-source-record-manager failed or was slow");
+            open();
+            return;
+          }
+          if (++probesSucceeded < halfOpenRequests) {
+            return;
+          }
+          LOGGER.info("Circuit breaker closes, {} probe requests to the mod-source-record-manager succeeded", probesSucceeded);
+          state = State.CLOSED;
+          releasedRequests = new ArrayList<>(waitingRequests);
+          waitingRequests.clear();
+          break;
+        default:
+          // requests sent before the breaker opened
+          return;
+      }
+    }
+    release(releasedRequests);
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  public synchronized int getWaitingRequests() {
+    return waitingRequests.size();
+  }
+
+  private void recordOutcome(boolean unhealthy) {
+    if (outcomesNumber == windowSize && outcomes[nextOutcomeIndex]) {
+      failuresNumber--;
+    }
+    outcomes[nextOutcomeIndex] = unhealthy;
+    if (unhealthy) {
+      failuresNumber++;
+    }
+    nextOutcomeIndex = (nextOutcomeIndex + 1) % windowSize;
+    outcomesNumber = Math.min(outcomesNumber + 1, windowSize);
+  }
+
+  private void open() {
+    state = State.OPEN;
+    outcomesNumber = 0;
+    failuresNumber = 0;
+    nextOutcomeIndex = 0;
+    OPENED_TIMES.incrementAndGet();
+    vertx.setTimer(openDurationMs, id -> halfOpen());
+  }
+
+  private void halfOpen() {
+    List<WaitingRequest> probes = new ArrayList<>();
+    synchronized (this) {
+      LOGGER.info("Circuit breaker is half-open, sending {} probe requests to the mod-source-record-manager", halfOpenRequests);
+      state = State.HALF_OPEN;
+      probesSent = 0;
+      probesSucceeded = 0;
+      while (probesSent < halfOpenRequests && !waitingRequests.isEmpty()) {
+        probes.add(waitingRequests.poll());
+        probesSent++;
+      }
+    }
+    release(probes);
+  }
+
+  private void release(List<WaitingRequest> requests) {
+    WAITING_REQUESTS.addAndGet(-requests.size());
+    requests.forEach(request -> {
+      vertx.cancelTimer(request.timerId);
+      request.promise.tryComplete();
+    });
+  }
+
+  /**
+   * Reports the request waiting longer than the maximum wait, the request is queued again at the same place
+   */
+  private void expire(WaitingRequest request) {
+    long waitedMs;
+    synchronized (this) {
+      if (!waitingRequests.contains(request)) {
+        // the request has been let through
+        return;
+      }
+      waitedMs = maxWaitMs * ++request.expirations;
+      request.timerId = vertx.setTimer(maxWaitMs, id -> expire(request));
+    }
+    LOGGER.warn("Circuit breaker has not let the request to the mod-source-record-manager through in {} ms, the request keeps waiting",
+      waitedMs);
+  }
+
+  /**
+   * Request waiting for the breaker to let it through
+   */
+  private static final class WaitingRequest {
+    private final Promise<Void> promise = Promise.promise();
+    private long timerId = -1;
+    private int expirations;
+  }
+}
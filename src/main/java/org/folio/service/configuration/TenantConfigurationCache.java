@@ -0,0 +1,232 @@
+package org.folio.service.configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Metrics;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.folio.dataimport.util.ConfigurationUtil;
+import org.folio.dataimport.util.OkapiConnectionParams;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Snapshot of the mod-configuration properties of the tenants, the property is requested once
+ * and served from the snapshot until its time to live expires.
+ * Property requested after the refresh-ahead part of its time to live is served from the snapshot
+ * and reloaded in the background, so the hot paths do not wait for the mod-configuration while the property is in use.
+ * Only one request per property of the tenant is made at a time, the callers asking for the property
+ * being loaded wait for that request instead of sending their own.
+ * Failed lookups, including the property not defined for the tenant, are kept for the shorter time to live,
+ * so the callers falling back to the default value do not request the property every time.
+ * Request that takes longer than the load timeout is abandoned, the callers waiting for it fail
+ * and the next caller requests the property again.
+ */
+public class TenantConfigurationCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TenantConfigurationCache.class);
+
+  /* Snapshot of the properties configured for the module, properties are not cached by default */
+  public static final TenantConfigurationCache CONFIGURED = new TenantConfigurationCache(
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("configuration.cache.enabled", "false")),
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("configuration.cache.ttl.ms", "300000")),
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("configuration.cache.failure.ttl.ms", "30000")),
+    Double.parseDouble(MODULE_SPECIFIC_ARGS.getOrDefault("configuration.cache.refresh.ahead.ratio", "0.8")),
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("configuration.cache.load.timeout.ms", "30000")),
+    ConfigurationUtil::getPropertyByCode,
+    System::currentTimeMillis);
+
+  static {
+    FunctionCounter.builder("data.import.configuration.cache.hits", CONFIGURED, TenantConfigurationCache::getHits)
+      .description("Number of the mod-configuration properties served from the snapshot")
+      .register(Metrics.globalRegistry);
+    FunctionCounter.builder("data.import.configuration.cache.misses", CONFIGURED, TenantConfigurationCache::getMisses)
+      .description("Number of the mod-configuration properties requested because they were missing in the snapshot or expired")
+      .register(Metrics.globalRegistry);
+    FunctionCounter.builder("data.import.configuration.cache.refreshes", CONFIGURED, TenantConfigurationCache::getRefreshes)
+      .description("Number of the mod-configuration properties reloaded ahead of expiration")
+      .register(Metrics.globalRegistry);
+  }
+
+  private final boolean enabled;
+  private final long ttlMs;
+  private final long failureTtlMs;
+  private final long refreshAheadMs;
+  private final long loadTimeoutMs;
+  private final BiFunction<String, OkapiConnectionParams, Future<String>> loader;
+  private final LongSupplier clock;
+  /* tenant id -> property code -> property */
+  private final Map<String, Map<String, CachedProperty>> snapshots = new ConcurrentHashMap<>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong refreshes = new AtomicLong();
+
+  /**
+   * @param enabled           whether the properties are cached, the properties are requested every time otherwise
+   * @param ttlMs             time the loaded property is served from the snapshot
+   * @param failureTtlMs      time the failed lookup is served from the snapshot
+   * @param refreshAheadRatio part of the time to live after which the property is reloaded in the background
+   * @param loadTimeoutMs     time the request of the property is waited for before it is sent again
+   * @param loader            requests the property of the tenant from the mod-configuration
+   * @param clock             current time in milliseconds
+   */
+  public TenantConfigurationCache(boolean enabled, long ttlMs, long failureTtlMs, double refreshAheadRatio, long loadTimeoutMs,
+                                  BiFunction<String, OkapiConnectionParams, Future<String>> loader, LongSupplier clock) {
+    this.enabled = enabled && ttlMs > 0;
+    this.ttlMs = ttlMs;
+    this.failureTtlMs = Math.max(0, failureTtlMs);
+    this.refreshAheadMs = refreshAheadRatio > 0 && refreshAheadRatio < 1 ? (long) (ttlMs * refreshAheadRatio) : ttlMs;
+    this.loadTimeoutMs = loadTimeoutMs > 0 ? loadTimeoutMs : Long.MAX_VALUE;
+    this.loader = loader;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the property of the tenant, it has the same outcome as {@link ConfigurationUtil#getPropertyByCode}
+   * made when the property was loaded
+   *
+   * @param code   property code
+   * @param params Okapi connection params of the tenant
+   * @return future with the property value, failed if the property could not be found
+   */
+  public static Future<String> getPropertyByCode(String code, OkapiConnectionParams params) {
+    return CONFIGURED.get(code, params);
+  }
+
+  /**
+   * Returns the property of the tenant from the snapshot, the property is loaded if it is missing or expired
+   *
+   * @param code   property code
+   * @param params Okapi connection params of the tenant
+   * @return future with the property value, failed if the property could not be found
+   */
+  public Future<String> get(String code, OkapiConnectionParams params) {
+    if (!enabled) {
+      return loader.apply(code, params);
+    }
+    Map<String, CachedProperty> snapshot = snapshots.computeIfAbsent(params.getTenantId(), tenantId -> new ConcurrentHashMap<>());
+    long now = clock.getAsLong();
+    while (true) {
+      CachedProperty cached = snapshot.get(code);
+      if (cached != null && !cached.isDueForRefresh(now)) {
+        hits.incrementAndGet();
+        return cached.get();
+      }
+      boolean refresh = cached != null && cached.loaded != null && !cached.isExpired(now);
+      long loadDeadline = now > Long.MAX_VALUE - loadTimeoutMs ? Long.MAX_VALUE : now + loadTimeoutMs;
+      CachedProperty loading = refresh
+        ? new CachedProperty(cached.loaded, Math.min(loadDeadline, cached.expiresAt), cached.expiresAt)
+        : new CachedProperty(null, loadDeadline, loadDeadline);
+      boolean started = cached == null ? snapshot.putIfAbsent(code, loading) == null : snapshot.replace(code, cached, loading);
+      if (started) {
+        if (cached != null && cached.promise != null) {
+          LOGGER.warn("Loading of property {} of tenant {} has timed out, the property is requested again", code, params.getTenantId());
+          cached.promise.tryFail(new TimeoutException(String.format("Property %s was not loaded in %d ms", code, loadTimeoutMs)));
+        }
+        if (refresh) {
+          hits.incrementAndGet();
+          refreshes.incrementAndGet();
+          LOGGER.debug("Property {} of tenant {} is reloaded ahead of expiration", code, params.getTenantId());
+        } else {
+          misses.incrementAndGet();
+        }
+        load(snapshot, code, params, cached, loading);
+        return loading.get();
+      }
+    }
+  }
+
+  /**
+   * Drops the snapshot of the tenant, the properties are loaded again once requested
+   *
+   * @param tenantId tenant id
+   */
+  public void invalidate(String tenantId) {
+    snapshots.remove(tenantId);
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getRefreshes() {
+    return refreshes.get();
+  }
+
+  /**
+   * Loads the property and puts the outcome to the snapshot. Failed reload of the property loaded before
+   * keeps the previous value until it expires, so the short outage of the mod-configuration does not reach the callers.
+   */
+  private void load(Map<String, CachedProperty> snapshot, String code, OkapiConnectionParams params,
+                    CachedProperty previous, CachedProperty loading) {
+    Future<String> future;
+    try {
+      future = loader.apply(code, params);
+    } catch (Exception e) {
+      future = Future.failedFuture(e);
+    }
+    future.onComplete(ar -> {
+      long loadedAt = clock.getAsLong();
+      CachedProperty loaded;
+      if (ar.succeeded()) {
+        loaded = new CachedProperty(Future.succeededFuture(ar.result()), null, loadedAt + refreshAheadMs, loadedAt + ttlMs);
+      } else if (loading.loaded != null) {
+        LOGGER.warn("Error during reloading property {} of tenant {}, the previous value is kept until it expires",
+          ar.cause(), code, params.getTenantId());
+        loaded = new CachedProperty(previous.loaded, null, previous.expiresAt, previous.expiresAt);
+      } else {
+        loaded = new CachedProperty(Future.failedFuture(ar.cause()), null, loadedAt + failureTtlMs, loadedAt + failureTtlMs);
+      }
+      snapshot.replace(code, loading, loaded);
+      if (ar.succeeded()) {
+        loading.promise.tryComplete(ar.result());
+      } else {
+        loading.promise.tryFail(ar.cause());
+      }
+    });
+  }
+
+  private static final class CachedProperty {
+    /* outcome served to the callers, null while the missing or expired property is loaded */
+    private final Future<String> loaded;
+    /* loading of the property, null once the property is loaded */
+    private final Promise<String> promise;
+    /* the loading property is loaded again once the load timeout passes */
+    private final long refreshAt;
+    private final long expiresAt;
+
+    private CachedProperty(Future<String> loaded, long refreshAt, long expiresAt) {
+      this(loaded, Promise.promise(), refreshAt, expiresAt);
+    }
+
+    private CachedProperty(Future<String> loaded, Promise<String> promise, long refreshAt, long expiresAt) {
+      this.loaded = loaded;
+      this.promise = promise;
+      this.refreshAt = refreshAt;
+      this.expiresAt = expiresAt;
+    }
+
+    private Future<String> get() {
+      return loaded != null ? loaded : promise.future();
+    }
+
+    private boolean isExpired(long now) {
+      return now >= expiresAt;
+    }
+
+    private boolean isDueForRefresh(long now) {
+      return now >= refreshAt;
+    }
+  }
+}
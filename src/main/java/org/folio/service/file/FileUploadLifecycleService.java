@@ -1,9 +1,13 @@
 package org.folio.service.file;
 
 import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
 import org.folio.dataimport.util.OkapiConnectionParams;
 import org.folio.rest.jaxrs.model.FileDefinition;
 import org.folio.rest.jaxrs.model.UploadDefinition;
+import org.folio.service.storage.RangedFileUpload;
+
+import java.util.Optional;
 
 /**
  * File service
@@ -41,6 +45,80 @@ public interface FileUploadLifecycleService {
    */
   Future<FileDefinition> saveFileChunk(String fileId, UploadDefinition uploadDefinition, byte[] data, OkapiConnectionParams params);
 
+  /**
+   * The method is called for each piece of the file that is uploaded to the server when the upload sessions are enabled.
+   * The file is opened with the first piece and kept open for the whole upload, the empty piece closes the file.
+   *
+   * @param fileId           - UUID for uploading {@link FileDefinition}
+   * @param uploadDefinition - {@link UploadDefinition} object which describes uploading process
+   * @param data             - buffer with data chunk
+   * @param params           - {@link OkapiConnectionParams} object with connection params
+   * @return - Future with {@link FileDefinition} completed once the next piece may be written,
+   * for the empty piece once the whole file is saved
+   */
+  Future<FileDefinition> writeFileChunk(String fileId, UploadDefinition uploadDefinition, Buffer data, OkapiConnectionParams params);
+
+  /**
+   * Closes the file of the upload interrupted by the client
+   *
+   * @param fileId - UUID for uploading {@link FileDefinition}
+   * @return - Future completed once the file is closed
+   */
+  Future<Void> abortFileSave(String fileId);
+
+  /**
+   * Contains business logic that runs once before saving the range of the file when uploading by ranges
+   *
+   * @param fileId             - UUID for uploading {@link FileDefinition}
+   * @param uploadDefinitionId - UUID for {@link UploadDefinition}
+   * @param params             - {@link OkapiConnectionParams} object with connection params
+   * @return - Future with completed {@link UploadDefinition} ready to start saving the range, failed if the file is already uploaded
+   */
+  Future<UploadDefinition> beforeFileRangeSave(String fileId, String uploadDefinitionId, OkapiConnectionParams params);
+
+  /**
+   * Opens the ranged upload of the file for the range being sent, the upload is continued from the ranges received before.
+   * Every started range has to be ended with {@link #finishFileRange} or {@link #abortFileRange}
+   *
+   * @param fileId           - UUID for uploading {@link FileDefinition}
+   * @param uploadDefinition - {@link UploadDefinition} object which describes uploading process
+   * @param totalSize        - size of the whole file
+   * @param params           - {@link OkapiConnectionParams} object with connection params
+   * @return - Future with {@link RangedFileUpload} the range is written to
+   */
+  Future<RangedFileUpload> startFileRange(String fileId, UploadDefinition uploadDefinition, long totalSize, OkapiConnectionParams params);
+
+  /**
+   * Records the range written to the file as received, the file is saved once the received ranges cover the whole file
+   *
+   * @param fileId - UUID for uploading {@link FileDefinition}
+   * @param upload - ranged upload the range was written to
+   * @param offset - offset of the range in the file
+   * @param length - length of the range
+   * @param params - {@link OkapiConnectionParams} object with connection params
+   * @return - Future with {@link RangedFileUpload} completed once the range is received
+   */
+  Future<RangedFileUpload> finishFileRange(String fileId, RangedFileUpload upload, long offset, long length, OkapiConnectionParams params);
+
+  /**
+   * Ends the range interrupted by the client, ranges received before are kept
+   *
+   * @param fileId - UUID for uploading {@link FileDefinition}
+   * @param upload - ranged upload the range was written to
+   * @return - Future completed once the range is ended
+   */
+  Future<Void> abortFileRange(String fileId, RangedFileUpload upload);
+
+  /**
+   * Returns the ranged upload of the file with the ranges received so far
+   *
+   * @param fileId           - UUID for uploading {@link FileDefinition}
+   * @param uploadDefinition - {@link UploadDefinition} object which describes uploading process
+   * @param params           - {@link OkapiConnectionParams} object with connection params
+   * @return - Future with {@link RangedFileUpload} or empty Optional if the file is not uploaded by ranges
+   */
+  Future<Optional<RangedFileUpload>> getRangedUpload(String fileId, UploadDefinition uploadDefinition, OkapiConnectionParams params);
+
   /**
    * Deletes File by id and Upload Definition Id
    *
@@ -2,23 +2,34 @@ package org.folio.service.file;
 
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import org.folio.dataimport.util.OkapiConnectionParams;
 import org.folio.rest.jaxrs.model.FileDefinition;
 import org.folio.rest.jaxrs.model.StatusDto;
 import org.folio.rest.jaxrs.model.UploadDefinition;
+import org.folio.service.storage.ContentChecksum;
+import org.folio.service.storage.DuplicateFileIndex;
 import org.folio.service.storage.FileStorageService;
 import org.folio.service.storage.FileStorageServiceBuilder;
+import org.folio.service.storage.FileUploadSession;
+import org.folio.service.storage.LocalFileStorageService;
+import org.folio.service.storage.RangedFileUpload;
+import org.folio.service.storage.UploadProgress;
 import org.folio.service.upload.UploadDefinitionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.NotFoundException;
+import java.nio.file.Paths;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class FileUploadLifecycleServiceImpl implements FileUploadLifecycleService {
@@ -29,6 +40,10 @@ public class FileUploadLifecycleServiceImpl implements FileUploadLifecycleServic
   private UploadDefinitionService uploadDefinitionService;
 
   private Future<FileStorageService> fileStorage = Future.succeededFuture();
+  /* Sessions of the files being uploaded by file id, the future is completed with null if the file is saved part by part */
+  private final Map<String, Future<FileUploadSession>> uploadSessions = new ConcurrentHashMap<>();
+  /* Uploads of the files by ranges by file id, the upload is kept while its ranges are being sent */
+  private final Map<String, Future<RangedFileUpload>> rangedUploads = new ConcurrentHashMap<>();
 
   private Optional<FileDefinition> findFileDefinition(UploadDefinition uploadDefinition, String fileId) {
     return uploadDefinition.getFileDefinitions()
@@ -69,11 +84,22 @@ public class FileUploadLifecycleServiceImpl implements FileUploadLifecycleServic
 
   @Override
   public Future<UploadDefinition> afterFileSave(FileDefinition fileDefinition, OkapiConnectionParams params) {
+    return checkDuplicateFile(fileDefinition, params).compose(v -> updateAfterFileSave(fileDefinition, params));
+  }
+
+  private Future<UploadDefinition> updateAfterFileSave(FileDefinition fileDefinition, OkapiConnectionParams params) {
     Promise<UploadDefinition> promise = Promise.promise();
+    // files uploaded in the pipelined mode may be processed before the upload ends, the statuses set by the processing are kept
+    boolean processingStarted = UploadProgress.complete(fileDefinition.getId());
     uploadDefinitionService.updateBlocking(fileDefinition.getUploadDefinitionId(), definition -> {
       Promise<UploadDefinition> updatePromise = Promise.promise();
       definition.setFileDefinitions(replaceFile(definition.getFileDefinitions(),
         fileDefinition.withUploadedDate(new Date()).withStatus(FileDefinition.Status.UPLOADED)));
+      if (processingStarted) {
+        updatePromise.complete(definition);
+        promise.complete(definition);
+        return updatePromise.future();
+      }
       setUploadDefinitionStatusAfterFileUpload(definition);
       uploadDefinitionService.updateJobExecutionStatus(fileDefinition.getJobExecutionId(), new StatusDto().withStatus(StatusDto.Status.FILE_UPLOADED), params)
         .onComplete(booleanAsyncResult -> {
@@ -89,12 +115,72 @@ public class FileUploadLifecycleServiceImpl implements FileUploadLifecycleServic
     return promise.future();
   }
 
+  /**
+   * Looks up the file uploaded before with the same content as the saved file, the duplicate is flagged,
+   * linked to the file uploaded before or rejected. Failure to look the file up does not fail the upload.
+   */
+  private Future<Void> checkDuplicateFile(FileDefinition fileDefinition, OkapiConnectionParams params) {
+    DuplicateFileIndex index = DuplicateFileIndex.CONFIGURED;
+    Optional<ContentChecksum> checksum = ContentChecksum.complete(fileDefinition.getId());
+    if (!index.isEnabled() || !checksum.isPresent()) {
+      return Future.succeededFuture();
+    }
+    Promise<Optional<DuplicateFileIndex.IndexedFile>> promise = Promise.promise();
+    params.getVertx().<Optional<DuplicateFileIndex.IndexedFile>>executeBlocking(future ->
+      future.complete(index.register(params.getTenantId(), fileDefinition, checksum.get())), false, promise);
+    return promise.future().compose(original -> {
+      if (!original.isPresent()) {
+        return Future.succeededFuture();
+      }
+      String message = String.format("File with id '%s' is a duplicate of the file with id '%s' of the upload definition with id '%s', checksum %s",
+        fileDefinition.getId(), original.get().getFileId(), original.get().getUploadDefinitionId(), checksum.get());
+      switch (index.getAction()) {
+        case REJECT:
+          logger.warn("{}, the file is rejected", message);
+          return getStorage(params)
+            .compose(service -> service.deleteFile(fileDefinition))
+            .compose(deleted -> uploadDefinitionService.updateFileDefinitionStatus(fileDefinition.getUploadDefinitionId(),
+              fileDefinition.getId(), FileDefinition.Status.ERROR, params.getTenantId()))
+            .compose(definition -> uploadDefinitionService.updateJobExecutionStatus(fileDefinition.getJobExecutionId(),
+              new StatusDto().withStatus(StatusDto.Status.ERROR).withErrorStatus(StatusDto.ErrorStatus.FILE_PROCESSING_ERROR), params)
+              .otherwise(e -> {
+                logger.error("Couldn't update JobExecution status with id {} to ERROR after file with id {} was rejected",
+                  fileDefinition.getJobExecutionId(), fileDefinition.getId(), e);
+                return false;
+              }))
+            .compose(updated -> Future.failedFuture(new BadRequestException(message)));
+        case LINK:
+          Promise<Void> linkPromise = Promise.promise();
+          params.getVertx().<Void>executeBlocking(future -> {
+            try {
+              DuplicateFileIndex.link(Paths.get(fileDefinition.getSourcePath()), Paths.get(original.get().getPath()));
+              logger.info("{}, the stored file is replaced with the link to the file uploaded before", message);
+            } catch (Exception e) {
+              logger.warn("{}, couldn't link the stored file to the file uploaded before", e, message);
+            }
+            future.complete();
+          }, false, linkPromise);
+          return linkPromise.future();
+        default:
+          logger.warn(message);
+          return Future.succeededFuture();
+      }
+    }, e -> {
+      logger.warn("Couldn't look up the duplicates of the uploaded file. FileId: {}", e, fileDefinition.getId());
+      return Future.succeededFuture();
+    });
+  }
+
   @Override
   public Future<FileDefinition> saveFileChunk(String fileId, UploadDefinition uploadDefinition, byte[] data, OkapiConnectionParams params) {
     Optional<FileDefinition> optionalFileDefinition = findFileDefinition(uploadDefinition, fileId);
     if (optionalFileDefinition.isPresent()) {
       FileDefinition fileDefinition = optionalFileDefinition.get();
-      return getStorage(params).compose(service -> service.saveFile(data, fileDefinition, params));
+      return getStorage(params).compose(service -> service.saveFile(data, fileDefinition, params))
+        .onFailure(e -> {
+          UploadProgress.fail(fileId, e);
+          ContentChecksum.discard(fileId);
+        });
     } else {
       String errorMessage = "FileDefinition not found. FileDefinition ID: " + fileId;
       logger.error(errorMessage);
@@ -102,6 +188,145 @@ public class FileUploadLifecycleServiceImpl implements FileUploadLifecycleServic
     }
   }
 
+  @Override
+  public Future<FileDefinition> writeFileChunk(String fileId, UploadDefinition uploadDefinition, Buffer data, OkapiConnectionParams params) {
+    Optional<FileDefinition> optionalFileDefinition = findFileDefinition(uploadDefinition, fileId);
+    if (!optionalFileDefinition.isPresent()) {
+      String errorMessage = "FileDefinition not found. FileDefinition ID: " + fileId;
+      logger.error(errorMessage);
+      return Future.failedFuture(new NotFoundException(errorMessage));
+    }
+    FileDefinition fileDefinition = optionalFileDefinition.get();
+    boolean lastChunk = data.length() == 0;
+    return getStorage(params).compose(service -> uploadSessions
+      .computeIfAbsent(fileId, id -> service.openUploadSession(fileDefinition, params))
+      .compose(session -> {
+        if (lastChunk) {
+          uploadSessions.remove(fileId);
+        }
+        if (session == null) {
+          return service.saveFile(data.getBytes(), fileDefinition, params);
+        }
+        return lastChunk ? session.close() : session.write(data).map(fileDefinition);
+      }))
+      .onFailure(e -> abortFileSave(fileId));
+  }
+
+  @Override
+  public Future<Void> abortFileSave(String fileId) {
+    UploadProgress.fail(fileId, new IllegalStateException("Upload of the file was aborted. FileId: " + fileId));
+    ContentChecksum.discard(fileId);
+    LocalFileStorageService.discardRecordsIndex(fileId);
+    Future<FileUploadSession> sessionFuture = uploadSessions.remove(fileId);
+    if (sessionFuture == null) {
+      return Future.succeededFuture();
+    }
+    return sessionFuture
+      .compose(session -> session != null ? session.abort() : Future.<Void>succeededFuture())
+      .recover(e -> {
+        logger.warn("Couldn't close the file of the interrupted upload. FileId: {}", e, fileId);
+        return Future.succeededFuture();
+      });
+  }
+
+  @Override
+  public Future<UploadDefinition> beforeFileRangeSave(String fileId, String uploadDefinitionId, OkapiConnectionParams params) {
+    return uploadDefinitionService.updateBlocking(uploadDefinitionId, uploadDef -> {
+      Promise<UploadDefinition> promise = Promise.promise();
+      Optional<FileDefinition> optionalFileDefinition = findFileDefinition(uploadDef, fileId);
+      if (!optionalFileDefinition.isPresent()) {
+        String errorMessage = "FileDefinition not found. FileDefinition ID: " + fileId;
+        logger.error(errorMessage);
+        promise.fail(new NotFoundException(errorMessage));
+      } else if (optionalFileDefinition.get().getStatus() == FileDefinition.Status.UPLOADED) {
+        String errorMessage = "File is already uploaded. FileDefinition ID: " + fileId;
+        logger.error(errorMessage);
+        promise.fail(new BadRequestException(errorMessage));
+      } else {
+        uploadDef.setFileDefinitions(replaceFile(uploadDef.getFileDefinitions(), optionalFileDefinition.get().withStatus(FileDefinition.Status.UPLOADING)));
+        promise.complete(uploadDef);
+      }
+      return promise.future();
+    }, params.getTenantId());
+  }
+
+  @Override
+  public Future<RangedFileUpload> startFileRange(String fileId, UploadDefinition uploadDefinition, long totalSize, OkapiConnectionParams params) {
+    Optional<FileDefinition> optionalFileDefinition = findFileDefinition(uploadDefinition, fileId);
+    if (!optionalFileDefinition.isPresent()) {
+      String errorMessage = "FileDefinition not found. FileDefinition ID: " + fileId;
+      logger.error(errorMessage);
+      return Future.failedFuture(new NotFoundException(errorMessage));
+    }
+    return getStorage(params).compose(service -> startFileRange(service, optionalFileDefinition.get(), totalSize, params));
+  }
+
+  private Future<RangedFileUpload> startFileRange(FileStorageService service, FileDefinition fileDefinition, Long totalSize,
+                                                  OkapiConnectionParams params) {
+    String fileId = fileDefinition.getId();
+    Future<RangedFileUpload> uploadFuture = rangedUploads
+      .computeIfAbsent(fileId, id -> service.openRangedUpload(fileDefinition, totalSize, params));
+    return uploadFuture
+      .onFailure(e -> rangedUploads.remove(fileId, uploadFuture))
+      .compose(upload -> {
+        if (upload == null) {
+          // there was no upload to continue when the upload was looked up, the range starts it
+          rangedUploads.remove(fileId, uploadFuture);
+          return totalSize == null ? Future.succeededFuture() : startFileRange(service, fileDefinition, totalSize, params);
+        }
+        if (!upload.startRange()) {
+          // the upload was closed once its last range was sent, it is opened again
+          rangedUploads.remove(fileId, uploadFuture);
+          return startFileRange(service, fileDefinition, totalSize, params);
+        }
+        if (totalSize != null && upload.getTotalSize() != totalSize) {
+          String errorMessage = String.format("File of %d bytes is being uploaded by ranges, ranges of the file of %d bytes can not be saved. FileDefinition ID: %s",
+            upload.getTotalSize(), totalSize, fileId);
+          logger.error(errorMessage);
+          return abortFileRange(fileId, upload).compose(v -> Future.failedFuture(new BadRequestException(errorMessage)));
+        }
+        return Future.succeededFuture(upload);
+      });
+  }
+
+  @Override
+  public Future<RangedFileUpload> finishFileRange(String fileId, RangedFileUpload upload, long offset, long length, OkapiConnectionParams params) {
+    return upload.receive(offset, length)
+      .compose(completes -> completes
+        ? upload.close().compose(fileDefinition -> afterFileSave(fileDefinition, params)).map(upload)
+        : Future.succeededFuture(upload))
+      .compose(result -> abortFileRange(fileId, upload).map(result),
+        e -> abortFileRange(fileId, upload).compose(v -> Future.failedFuture(e)));
+  }
+
+  @Override
+  public Future<Void> abortFileRange(String fileId, RangedFileUpload upload) {
+    return upload.finishRange()
+      .map(fileClosed -> {
+        if (fileClosed || upload.isCompleted()) {
+          rangedUploads.computeIfPresent(fileId, (id, uploadFuture) -> uploadFuture.result() == upload ? null : uploadFuture);
+        }
+        return (Void) null;
+      })
+      .recover(e -> {
+        logger.warn("Couldn't close the file of the ranged upload. FileId: {}", e, fileId);
+        return Future.succeededFuture();
+      });
+  }
+
+  @Override
+  public Future<Optional<RangedFileUpload>> getRangedUpload(String fileId, UploadDefinition uploadDefinition, OkapiConnectionParams params) {
+    Optional<FileDefinition> optionalFileDefinition = findFileDefinition(uploadDefinition, fileId);
+    if (!optionalFileDefinition.isPresent()) {
+      return Future.succeededFuture(Optional.empty());
+    }
+    return getStorage(params)
+      .compose(service -> startFileRange(service, optionalFileDefinition.get(), null, params))
+      .compose(upload -> upload == null
+        ? Future.succeededFuture(Optional.empty())
+        : abortFileRange(fileId, upload).map(Optional.of(upload)));
+  }
+
   @Override
   public Future<Boolean> deleteFile(String id, String uploadDefinitionId, OkapiConnectionParams params) {
     return uploadDefinitionService.updateBlocking(uploadDefinitionId, uploadDefinition -> {
@@ -0,0 +1,89 @@
+package org.folio.service.metrics;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Exporter of the module metrics to Prometheus. The meters of the module are registered in the Micrometer
+ * global registry, the exporter adds the Prometheus registry to it, so the meters registered before and after
+ * the exporter is started are kept, and serves them for scraping by the HTTP server on the separate port.
+ */
+public class PrometheusMetricsExporter {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PrometheusMetricsExporter.class);
+  /* Metrics are exported on the separate port, so the scraping does not go through Okapi */
+  private static final boolean ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("metrics.prometheus.enabled", "false"));
+  private static final int PORT =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("metrics.prometheus.port", "9150"));
+  static final String METRICS_PATH = "/metrics";
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final PrometheusMeterRegistry registry;
+
+  public PrometheusMetricsExporter(PrometheusMeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * Starts the exporter configured for the module, metrics are not exported by default
+   *
+   * @param vertx vertx instance
+   * @return future completed once the metrics are served
+   */
+  public static Future<Void> startConfigured(Vertx vertx) {
+    if (!ENABLED) {
+      return Future.succeededFuture();
+    }
+    return new PrometheusMetricsExporter(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT))
+      .start(vertx, PORT)
+      .map(server -> {
+        LOGGER.info("Metrics are served for Prometheus on port {} at {}", server.actualPort(), METRICS_PATH);
+        return null;
+      });
+  }
+
+  /**
+   * Adds the Prometheus registry to the global registry and starts the HTTP server serving the metrics
+   *
+   * @param vertx vertx instance
+   * @param port  port of the HTTP server, 0 picks a free port
+   * @return future completed by the started server
+   */
+  public Future<HttpServer> start(Vertx vertx, int port) {
+    Metrics.addRegistry(registry);
+    Promise<HttpServer> promise = Promise.promise();
+    vertx.createHttpServer()
+      .requestHandler(request -> {
+        if (METRICS_PATH.equals(request.path())) {
+          request.response().putHeader("Content-Type", CONTENT_TYPE).end(registry.scrape());
+        } else {
+          request.response().setStatusCode(404).end();
+        }
+      })
+      .listen(port, ar -> {
+        if (ar.failed()) {
+          Metrics.removeRegistry(registry);
+          LOGGER.error("Can not start the server of the metrics on port {}", ar.cause(), port);
+        }
+        promise.handle(ar);
+      });
+    return promise.future();
+  }
+
+  /**
+   * Removes the Prometheus registry from the global registry
+   */
+  public void stop() {
+    Metrics.removeRegistry(registry);
+    registry.close();
+  }
+}
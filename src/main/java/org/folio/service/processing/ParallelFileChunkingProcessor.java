@@ -1,7 +1,11 @@
 package org.folio.service.processing;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.WorkerExecutor;
@@ -13,7 +17,6 @@ import org.apache.commons.collections4.list.UnmodifiableList;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.folio.HttpStatus;
 import org.folio.dataimport.util.OkapiConnectionParams;
-import org.folio.rest.client.ChangeManagerClient;
 import org.folio.rest.jaxrs.model.FileDefinition;
 import org.folio.rest.jaxrs.model.InitialRecord;
 import org.folio.rest.jaxrs.model.JobExecution;
@@ -23,19 +26,39 @@ import org.folio.rest.jaxrs.model.RawRecordsDto;
 import org.folio.rest.jaxrs.model.RecordsMetadata;
 import org.folio.rest.jaxrs.model.StatusDto;
 import org.folio.rest.jaxrs.model.UploadDefinition;
+import org.folio.service.client.ChangeManagerHttpClient;
+import org.folio.service.client.ChunkDelivery;
+import org.folio.service.processing.coordinator.AimdChunkingController;
 import org.folio.service.processing.coordinator.BlockingCoordinator;
+import org.folio.service.processing.coordinator.ChunksCompletionTracker;
+import org.folio.service.processing.coordinator.CreditCoordinator;
 import org.folio.service.processing.coordinator.QueuedBlockingCoordinator;
+import org.folio.service.processing.outbox.ChunksJournal;
+import org.folio.service.processing.outbox.ChunksOutbox;
+import org.folio.service.processing.outbox.JournaledChunk;
+import org.folio.service.processing.reader.RecordsBuffer;
+import org.folio.service.processing.reader.SourceFileSample;
 import org.folio.service.processing.reader.SourceReader;
 import org.folio.service.processing.reader.SourceReaderBuilder;
+import org.folio.service.processing.reader.SourceReaderRegistry;
+import org.folio.service.processing.stream.MappingReadStream;
+import org.folio.service.processing.stream.RawRecordsWriteStream;
+import org.folio.service.processing.stream.SourceReaderStream;
 import org.folio.service.storage.FileStorageService;
 import org.folio.service.storage.FileStorageServiceBuilder;
+import org.folio.service.storage.UploadProgress;
+import org.folio.service.storage.index.RecordFormat;
+import org.folio.service.storage.index.RecordOffsetIndex;
 import org.folio.service.upload.UploadDefinitionService;
 import org.folio.service.upload.UploadDefinitionServiceImpl;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static io.vertx.core.Future.succeededFuture;
@@ -45,7 +68,12 @@ import static org.folio.rest.jaxrs.model.StatusDto.ErrorStatus.FILE_PROCESSING_E
 import static org.folio.rest.jaxrs.model.StatusDto.Status.ERROR;
 
 /**
- * Processing files in parallel threads, one thread per one file.
+ * Processing files of the upload definition, up to "file.processing.blocking.coordinator.parallel.files.number" files at a time.
+ * By default every file is read sequentially on a blocking worker thread, which waits for the sent chunks
+ * to free the slots of "file.processing.blocking.coordinator.parallel.chunks.number".
+ * With "file.processing.async.enabled" the chunks are sent without blocking threads, as the credits of the sent chunks return,
+ * and with "file.processing.stream.enabled" the file is processed as a pipe of Vert.x streams with back pressure.
+ * In any mode, a raw MARC file may be read in parallel byte ranges, see "file.processing.parallel.ranges.number".
  * File chunking process implies reading and splitting the file into chunks of data.
  * Every chunk represents collection of source records, see ({@link org.folio.rest.jaxrs.model.RawRecordsDto}).
  * After the target file gets split into records, ParallelFileChunkingProcessor sends records to the mod-source-record-manager
@@ -59,17 +87,64 @@ public class ParallelFileChunkingProcessor implements FileProcessor {
     Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.blocking.coordinator.parallel.files.number", "1"));
   private static final int BLOCKING_COORDINATOR_CHUNKS_NUMBER =
     Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.blocking.coordinator.parallel.chunks.number", "10"));
+  /* Total records number is estimated while the file is being read instead of counting records in a separate pass */
+  private static final boolean SINGLE_PASS_ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.single.pass.enabled", "false"));
+  /* Chunk size and the number of parallel chunks are adjusted for every job by the downstream latency */
+  private static final boolean ADAPTIVE_CHUNKING_ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.adaptive.enabled", "false"));
+  /* Files are processed without blocking worker threads while the chunks are being sent */
+  private static final boolean ASYNC_PROCESSING_ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.async.enabled", "false"));
+  /* Files are processed as a pipe from the stream of the file chunks to the stream of the sent chunks */
+  private static final boolean STREAM_PROCESSING_ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.stream.enabled", "false"));
+  /* Chunks are journaled to the outbox before they are sent, so the files are resumed after the restart */
+  private static final boolean OUTBOX_ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.outbox.enabled", "false"));
+  /* Total records number of the file is estimated while the file is read and sent with the last chunk */
+  private static final int TOTAL_RECORDS_ESTIMATED = -1;
+  private static final String FILE_DEFINITION_KEY = "fileDefinition";
+  private static final String JOB_PROFILE_INFO_KEY = "jobProfileInfo";
+  private static final String OKAPI_HEADERS_KEY = "okapiHeaders";
+  private static final String DEFAULT_MAPPING_KEY = "defaultMapping";
+  /* Sizes of the sent chunks, used to tune file.processing.buffer.chunk.size and file.processing.buffer.chunk.bytes */
+  private static final DistributionSummary CHUNK_BYTES_SUMMARY = DistributionSummary.builder("data.import.chunk.bytes")
+    .description("Approximate size of the records in the chunk sent to the mod-source-record-manager")
+    .baseUnit("bytes")
+    .register(Metrics.globalRegistry);
+  private static final DistributionSummary CHUNK_RECORDS_SUMMARY = DistributionSummary.builder("data.import.chunk.records")
+    .description("Number of records in the chunk sent to the mod-source-record-manager")
+    .register(Metrics.globalRegistry);
 
   private Vertx vertx;
   /* WorkerExecutor provides separate worker pool for code execution */
   private WorkerExecutor executor;
+  /* Outbox the chunks are journaled to, null if the outbox is disabled */
+  private ChunksOutbox outbox;
+  /* Whether the chunks not acknowledged before the restart may be sent again, see resumeFile */
+  private boolean deduplicationConfirmed;
 
   public ParallelFileChunkingProcessor() {
   }
 
   public ParallelFileChunkingProcessor(Vertx vertx) {
+    this(vertx, OUTBOX_ENABLED ? ChunksOutbox.getInstance() : null);
+  }
+
+  ParallelFileChunkingProcessor(Vertx vertx, ChunksOutbox outbox) {
+    this(vertx, outbox, ChangeManagerHttpClient.CHUNK_DEDUPLICATION_CONFIRMED);
+  }
+
+  ParallelFileChunkingProcessor(Vertx vertx, ChunksOutbox outbox, boolean deduplicationConfirmed) {
     this.vertx = vertx;
     this.executor = this.vertx.createSharedWorkerExecutor("processing-files-thread-pool", THREAD_POOL_SIZE);
+    this.outbox = outbox;
+    this.deduplicationConfirmed = deduplicationConfirmed;
+  }
+
+  public static boolean isOutboxEnabled() {
+    return OUTBOX_ENABLED;
   }
 
   @Override
@@ -79,9 +154,11 @@ public class ParallelFileChunkingProcessor implements FileProcessor {
     JobProfileInfo jobProfile = request.getJobProfileInfo();
     OkapiConnectionParams params = new OkapiConnectionParams(jsonParams.mapTo(HashMap.class), this.vertx);
     UploadDefinitionService uploadDefinitionService = new UploadDefinitionServiceImpl(vertx);
+    claimUploads(uploadDefinition);
     succeededFuture()
       .compose(ar -> uploadDefinitionService.getJobExecutions(uploadDefinition, params))
       .compose(jobExecutions -> updateJobsProfile(jobExecutions, jobProfile, params))
+      .compose(ar -> openJournals(uploadDefinition, jobProfile, params, defaultMapping))
       .compose(ar -> FileStorageServiceBuilder.build(this.vertx, params.getTenantId(), params))
       .compose(fileStorageService -> {
         processFiles(jobProfile, uploadDefinitionService, fileStorageService, uploadDefinition, params, defaultMapping);
@@ -90,7 +167,8 @@ public class ParallelFileChunkingProcessor implements FileProcessor {
           definition -> succeededFuture(definition.withStatus(UploadDefinition.Status.COMPLETED)),
           params.getTenantId());
         return succeededFuture();
-      });
+      })
+      .onFailure(e -> uploadDefinition.getFileDefinitions().forEach(fileDefinition -> UploadProgress.release(fileDefinition.getId())));
   }
 
   /**
@@ -108,6 +186,10 @@ public class ParallelFileChunkingProcessor implements FileProcessor {
                             UploadDefinition uploadDefinition,
                             OkapiConnectionParams params,
                             boolean defaultMapping) {
+    if (ASYNC_PROCESSING_ENABLED || STREAM_PROCESSING_ENABLED) {
+      processFilesAsync(jobProfile, uploadDefinitionService, fileStorageService, uploadDefinition, params, defaultMapping);
+      return;
+    }
     this.executor.executeBlocking(filesBlockingFuture -> {
       BlockingCoordinator blockingCoordinator = new QueuedBlockingCoordinator(BLOCKING_COORDINATOR_FILES_NUMBER);
       List<FileDefinition> fileDefinitions = new UnmodifiableList<>(uploadDefinition.getFileDefinitions());
@@ -124,6 +206,7 @@ public class ParallelFileChunkingProcessor implements FileProcessor {
               } else {
                 LOGGER.info("File {} successfully processed.", fileDefinition.getSourcePath());
               }
+              deleteJournal(fileDefinition.getJobExecutionId());
               blockingCoordinator.acceptUnlock();
             }),
           false, null
@@ -132,6 +215,176 @@ public class ParallelFileChunkingProcessor implements FileProcessor {
     }, null);
   }
 
+  /**
+   * Performs processing files from given UploadDefinition without blocking threads:
+   * the next file is started when one of the files in progress is processed
+   */
+  private void processFilesAsync(JobProfileInfo jobProfile,
+                                 UploadDefinitionService uploadDefinitionService,
+                                 FileStorageService fileStorageService,
+                                 UploadDefinition uploadDefinition,
+                                 OkapiConnectionParams params,
+                                 boolean defaultMapping) {
+    Iterator<FileDefinition> fileDefinitions = new UnmodifiableList<>(uploadDefinition.getFileDefinitions()).iterator();
+    CreditCoordinator filesCoordinator = new CreditCoordinator(BLOCKING_COORDINATOR_FILES_NUMBER);
+    Runnable startNextFiles = () -> {
+      while (true) {
+        FileDefinition fileDefinition;
+        synchronized (fileDefinitions) {
+          if (!fileDefinitions.hasNext() || !filesCoordinator.tryAcquire()) {
+            return;
+          }
+          fileDefinition = fileDefinitions.next();
+        }
+        Future<Void> fileProcessedFuture = STREAM_PROCESSING_ENABLED
+          ? processFileStream(fileDefinition, jobProfile, fileStorageService, params, defaultMapping)
+          : processFileAsync(fileDefinition, jobProfile, fileStorageService, params, defaultMapping);
+        fileProcessedFuture.onComplete(ar -> {
+            if (ar.failed()) {
+              LOGGER.error("File was processed with errors {}. Cause: {}", fileDefinition.getSourcePath(), ar.cause());
+              uploadDefinitionService.updateJobExecutionStatus(
+                fileDefinition.getJobExecutionId(),
+                new StatusDto().withStatus(ERROR).withErrorStatus(FILE_PROCESSING_ERROR),
+                params);
+            } else {
+              LOGGER.info("File {} successfully processed.", fileDefinition.getSourcePath());
+            }
+            deleteJournal(fileDefinition.getJobExecutionId());
+            filesCoordinator.release();
+          });
+      }
+    };
+    filesCoordinator.onRelease(startNextFiles);
+    startNextFiles.run();
+  }
+
+  /**
+   * Resumes processing of the files interrupted by the restart of the module.
+   * Journals left in the outbox by the previous run are read on the worker pool,
+   * then every file is resumed with the Okapi connection params it was started with
+   * once the mod-source-record-manager still accepts the token of the params, otherwise the job fails.
+   *
+   * @return future completed once the journals are read, the files are resumed in background
+   */
+  public Future<Void> recoverFiles() {
+    if (outbox == null) {
+      return succeededFuture();
+    }
+    Promise<List<ChunksJournal>> promise = Promise.promise();
+    this.executor.<List<ChunksJournal>>executeBlocking(future -> {
+      try {
+        future.complete(outbox.recover());
+      } catch (IOException e) {
+        future.fail(e);
+      }
+    }, false, promise);
+    return promise.future().map(journals -> {
+      LOGGER.info("{} files interrupted by the restart are going to be resumed", journals.size());
+      journals.forEach(this::resumeJournaledFile);
+      return null;
+    });
+  }
+
+  private void resumeJournaledFile(ChunksJournal journal) {
+    JsonObject manifest = journal.getManifest();
+    FileDefinition fileDefinition = manifest.getJsonObject(FILE_DEFINITION_KEY).mapTo(FileDefinition.class);
+    JobProfileInfo jobProfile = manifest.getJsonObject(JOB_PROFILE_INFO_KEY).mapTo(JobProfileInfo.class);
+    OkapiConnectionParams params = new OkapiConnectionParams(manifest.getJsonObject(OKAPI_HEADERS_KEY).mapTo(HashMap.class), this.vertx);
+    boolean defaultMapping = manifest.getBoolean(DEFAULT_MAPPING_KEY, false);
+    UploadDefinitionService uploadDefinitionService = new UploadDefinitionServiceImpl(vertx);
+    FileStorageServiceBuilder.build(this.vertx, params.getTenantId(), params).onComplete(storageAr -> {
+      Handler<AsyncResult<Void>> fileProcessedHandler = ar -> {
+        if (ar.failed()) {
+          LOGGER.error("File was resumed with errors {}. Cause: {}", fileDefinition.getSourcePath(), ar.cause());
+          uploadDefinitionService.updateJobExecutionStatus(
+            fileDefinition.getJobExecutionId(),
+            new StatusDto().withStatus(ERROR).withErrorStatus(FILE_PROCESSING_ERROR),
+            params);
+        } else {
+          LOGGER.info("File {} successfully resumed.", fileDefinition.getSourcePath());
+        }
+        deleteJournal(fileDefinition.getJobExecutionId());
+      };
+      if (storageAr.failed()) {
+        fileProcessedHandler.handle(Future.failedFuture(storageAr.cause()));
+        return;
+      }
+      checkCredentials(fileDefinition.getJobExecutionId(), params).onComplete(checkAr -> {
+        if (checkAr.failed()) {
+          fileProcessedHandler.handle(Future.failedFuture(checkAr.cause()));
+          return;
+        }
+        this.executor.executeBlocking(fileBlockingFuture ->
+            resumeFile(fileDefinition, jobProfile, storageAr.result(), params, defaultMapping, journal).onComplete(fileProcessedHandler),
+          false, null);
+      });
+    });
+  }
+
+  /**
+   * Checks the mod-source-record-manager still accepts the Okapi token the job was started with,
+   * the token kept in the journal may have expired while the module was down and is not refreshed
+   */
+  private Future<Void> checkCredentials(String jobExecutionId, OkapiConnectionParams params) {
+    Promise<Void> promise = Promise.promise();
+    ChangeManagerHttpClient client = new ChangeManagerHttpClient(params);
+    try {
+      client.getChangeManagerJobExecutionsById(jobExecutionId, response -> {
+        if (response.statusCode() == HttpStatus.HTTP_OK.toInt()) {
+          promise.complete();
+        } else {
+          String errorMessage = format("JobExecution %s can not be resumed with the Okapi token it was started with. Status code %s",
+            jobExecutionId, response.statusCode());
+          LOGGER.error(errorMessage);
+          promise.fail(errorMessage);
+        }
+      }, promise::tryFail);
+    } catch (Exception e) {
+      promise.fail(e);
+    }
+    return promise.future();
+  }
+
+  /**
+   * Creates journals of the files in the outbox before the files are processed,
+   * the files the journal of which can not be created are processed without the outbox
+   */
+  private Future<Void> openJournals(UploadDefinition uploadDefinition, JobProfileInfo jobProfile,
+                                    OkapiConnectionParams params, boolean defaultMapping) {
+    if (outbox == null) {
+      return succeededFuture();
+    }
+    Promise<Void> promise = Promise.promise();
+    this.executor.<Void>executeBlocking(future -> {
+      try {
+        for (FileDefinition fileDefinition : uploadDefinition.getFileDefinitions()) {
+          outbox.open(fileDefinition.getJobExecutionId(), new JsonObject()
+            .put(FILE_DEFINITION_KEY, JsonObject.mapFrom(fileDefinition))
+            .put(JOB_PROFILE_INFO_KEY, JsonObject.mapFrom(jobProfile))
+            .put(OKAPI_HEADERS_KEY, JsonObject.mapFrom(params.getHeaders()))
+            .put(DEFAULT_MAPPING_KEY, defaultMapping));
+        }
+        future.complete();
+      } catch (IOException e) {
+        future.fail(e);
+      }
+    }, false, ar -> {
+      if (ar.failed()) {
+        LOGGER.error("Can not create journals of the files of UploadDefinition {}, files are processed without the outbox",
+          ar.cause(), uploadDefinition.getId());
+      }
+      promise.complete();
+    });
+    return promise.future();
+  }
+
+  private void deleteJournal(String jobExecutionId) {
+    if (outbox != null) {
+      outbox.delete(jobExecutionId)
+        .onFailure(e -> LOGGER.warn("Can not delete journal of the chunks of JobExecution {}", e, jobExecutionId));
+    }
+  }
+
   /**
    * Processing file
    *
@@ -146,85 +399,471 @@ public class ParallelFileChunkingProcessor implements FileProcessor {
                                      FileStorageService fileStorageService,
                                      OkapiConnectionParams params,
                                      boolean defaultMapping) {
+    return processFile(fileDefinition, jobProfile, fileStorageService, params, defaultMapping, null);
+  }
+
+  /**
+   * Resumes processing of the file interrupted by the restart: the chunks not acknowledged are sent again
+   * with their identities and the file is read from the record following the last journaled one.
+   * The chunk not acknowledged may have been stored by the mod-source-record-manager before the restart, while
+   * the chunk sent again is not dropped by its identity, so unless the deduplication of the chunks is confirmed
+   * the file with such chunks is not resumed and fails instead of importing their records twice.
+   * Acknowledgements are synced on the module shutdown, so the file stopped by the shutdown is resumed either way,
+   * while the file interrupted by the crash may have lost the latest acknowledgements and is resumed only
+   * if the deduplication is confirmed
+   *
+   * @param fileDefinition     fileDefinition entity
+   * @param jobProfile         job profile, contains profile type
+   * @param fileStorageService service to obtain file
+   * @param params             parameters necessary for connection to the OKAPI
+   * @param journal            journal of the chunks sent before the restart
+   * @return Future
+   */
+  protected Future<Void> resumeFile(FileDefinition fileDefinition,
+                                    JobProfileInfo jobProfile,
+                                    FileStorageService fileStorageService,
+                                    OkapiConnectionParams params,
+                                    boolean defaultMapping,
+                                    ChunksJournal journal) {
+    if (!deduplicationConfirmed && !journal.getPendingChunks().isEmpty()) {
+      String errorMessage = format("File %s can not be resumed: %s chunks of JobExecution %s were sent but not acknowledged "
+          + "before the restart, sending them again may import their records twice", fileDefinition.getSourcePath(),
+        journal.getPendingChunks().size(), fileDefinition.getJobExecutionId());
+      LOGGER.error(errorMessage);
+      return Future.failedFuture(errorMessage);
+    }
+    return processFile(fileDefinition, jobProfile, fileStorageService, params, defaultMapping, journal);
+  }
+
+  private Future<Void> processFile(FileDefinition fileDefinition,
+                                   JobProfileInfo jobProfile,
+                                   FileStorageService fileStorageService,
+                                   OkapiConnectionParams params,
+                                   boolean defaultMapping,
+                                   ChunksJournal journal) {
     Promise<Void> promise = Promise.promise();
     MutableInt recordsCounter = new MutableInt(0);
-    BlockingCoordinator coordinator = new QueuedBlockingCoordinator(BLOCKING_COORDINATOR_CHUNKS_NUMBER);
+    AimdChunkingController chunkingController = createChunkingController(fileDefinition);
+    BlockingCoordinator coordinator = chunkingController != null
+      ? chunkingController.getCoordinator()
+      : new QueuedBlockingCoordinator(BLOCKING_COORDINATOR_CHUNKS_NUMBER);
+    SourceReader sourceReader = null;
     try {
+      Optional<UploadProgress> upload = findUploadInProgress(fileDefinition);
       File file = fileStorageService.getFile(fileDefinition.getSourcePath());
-      SourceReader reader = SourceReaderBuilder.build(file, jobProfile);
+      SourceReader reader = upload.isPresent()
+        ? SourceReaderBuilder.buildTailing(file, jobProfile, upload.get())
+        : SourceReaderBuilder.build(file, jobProfile);
+      sourceReader = reader;
       /*
         If one of the dedicated handlers for sending chunks is failed, then all the other senders have to be aware of that
         in a terms of the target file processing.
         Using atomic variable because it's value stored in worker thread, but changes in event-loop thread.
       */
       AtomicBoolean canSendNextChunk = new AtomicBoolean(true);
-      List<Future> chunkSentFutures = new ArrayList<>();
-      int totalRecords = countTotalRecordsInFile(file, jobProfile);
+      ChunkDelivery chunkDelivery = new ChunkDelivery(params.getVertx(), fileDefinition.getJobExecutionId());
+      ChunksCompletionTracker completionTracker = createCompletionTracker();
+      int totalRecords = SINGLE_PASS_ENABLED || upload.isPresent() ? TOTAL_RECORDS_ESTIMATED : countTotalRecordsInFile(file, jobProfile);
+      if (journal != null) {
+        resendJournaledChunks(fileDefinition, journal, reader, recordsCounter, coordinator, canSendNextChunk, chunkDelivery,
+          completionTracker, params, defaultMapping);
+      }
       while (reader.hasNext()) {
         boolean doBreak = false;
-        if (canSendNextChunk.get()) {
+        // a failed chunk fails the tracker, so the rest of the file is not read in vain
+        if (canSendNextChunk.get() && !completionTracker.isFailed()) {
           coordinator.acceptLock();
           if (!canSendNextChunk.get()) {
-            chunkSentFutures.add(Future.failedFuture("canSendNextChunk has already been cleared to false"));
+            completionTracker.fail("canSendNextChunk has already been cleared to false");
             doBreak = true;
           } else {
-            List<InitialRecord> records = reader.next();
-            recordsCounter.add(records.size());
-            RawRecordsDto chunk = new RawRecordsDto()
-              .withInitialRecords(records)
-              .withRecordsMetadata(new RecordsMetadata()
-                .withContentType(reader.getContentType())
-                .withCounter(recordsCounter.getValue())
-                .withLast(false)
-                .withTotal(totalRecords));
-            chunkSentFutures.add(postRawRecords(fileDefinition.getJobExecutionId(), chunk, canSendNextChunk, coordinator, params, defaultMapping));
+            if (chunkingController != null) {
+              reader.setChunkSize(chunkingController.getChunkSize());
+            }
+            RawRecordsDto chunk = buildChunk(file, reader, reader.next(), recordsCounter, totalRecords);
+            Future<Void> chunkSentFuture = sendChunk(fileDefinition, chunk, canSendNextChunk, chunkDelivery, chunkingController, params, defaultMapping);
+            // the tracker handles the completion before the next chunk is admitted, so it keeps only the admitted chunks
+            completionTracker.track(chunkSentFuture);
+            chunkSentFuture.onComplete(ar -> coordinator.acceptUnlock());
           }
         } else {
           String errorMessage = "Can not send next chunks of file. They were skipped " + fileDefinition.getSourcePath();
           LOGGER.error(errorMessage);
-          chunkSentFutures.add(Future.failedFuture(errorMessage));
+          completionTracker.fail(errorMessage);
           doBreak = true;
         }
         if (doBreak) {
+          reader.close();
           break;
         }
       }
+      completionTracker.seal();
 
-      CompositeFuture.all(chunkSentFutures).onComplete(ar -> {
+      completionTracker.future().onComplete(ar -> {
         if (ar.failed()) {
           String errorMessage = "File processing finished with errors. Can not send chunks of the file " + fileDefinition.getSourcePath();
           LOGGER.error(errorMessage, ar.cause());
         }
-        // Sending the last chunk
-        RawRecordsDto chunk = new RawRecordsDto()
-          .withRecordsMetadata(new RecordsMetadata()
-            .withContentType(reader.getContentType())
-            .withCounter(recordsCounter.getValue())
-            .withLast(true)
-            .withTotal(totalRecords));
-        postRawRecords(fileDefinition.getJobExecutionId(), chunk, canSendNextChunk, coordinator, params, defaultMapping)
-          .onComplete(r -> {
-            if (r.failed()) {
-              String errorMessage = "File processing stopped. Can not send the last chunk of the file " + fileDefinition.getSourcePath();
-              LOGGER.error(errorMessage);
-              promise.fail(errorMessage);
-            } else {
-              LOGGER.info("File " + fileDefinition.getSourcePath() + " has been successfully sent.");
-              promise.complete();
-            }
-          });
-
+        sendLastChunk(fileDefinition, reader, recordsCounter, canSendNextChunk, chunkDelivery, params, defaultMapping)
+          .onComplete(promise);
       });
     } catch (Exception e) {
       String errorMessage = format("Can not process file: %s. Cause: %s", fileDefinition.getSourcePath(), e.getMessage());
       LOGGER.error(errorMessage, e);
+      if (sourceReader != null) {
+        sourceReader.close();
+      }
       promise.fail(errorMessage);
     }
     return promise.future();
   }
 
   /**
-   * Read file and count total records it is contains
+   * Sends again the chunks not acknowledged before the restart and positions the reader and the chunks sequence
+   * after the last journaled chunk. The last chunk of the file is sent by the caller with its journaled sequence number.
+   */
+  private void resendJournaledChunks(FileDefinition fileDefinition, ChunksJournal journal, SourceReader reader,
+                                     MutableInt recordsCounter, BlockingCoordinator coordinator, AtomicBoolean canSendNextChunk,
+                                     ChunkDelivery chunkDelivery, ChunksCompletionTracker completionTracker,
+                                     OkapiConnectionParams params, boolean defaultMapping) {
+    JournaledChunk pendingLastChunk = null;
+    for (JournaledChunk pendingChunk : journal.getPendingChunks()) {
+      if (Boolean.TRUE.equals(pendingChunk.getChunk().getRecordsMetadata().getLast())) {
+        pendingLastChunk = pendingChunk;
+        continue;
+      }
+      coordinator.acceptLock();
+      Future<Void> chunkSentFuture = deliverRawRecords(fileDefinition.getJobExecutionId(), pendingChunk.getSequence(),
+        pendingChunk.getChunk(), canSendNextChunk, chunkDelivery, journal, params, defaultMapping);
+      completionTracker.track(chunkSentFuture);
+      chunkSentFuture.onComplete(ar -> coordinator.acceptUnlock());
+    }
+    chunkDelivery.resumeAfter(pendingLastChunk != null ? pendingLastChunk.getSequence() - 1 : journal.getLastSequence());
+    skipRecords(reader, journal.getRecordsCounter());
+    recordsCounter.setValue(journal.getRecordsCounter());
+    LOGGER.info("File {} is resumed: {} chunks are sent again, {} records were journaled before the restart",
+      fileDefinition.getSourcePath(), journal.getPendingChunks().size(), journal.getRecordsCounter());
+  }
+
+  private void skipRecords(SourceReader reader, int recordsNumber) {
+    int skippedRecords = 0;
+    while (skippedRecords < recordsNumber && reader.hasNext()) {
+      reader.setChunkSize(Math.min(SourceReaderBuilder.getChunkSize(), recordsNumber - skippedRecords));
+      skippedRecords += reader.next().size();
+    }
+    reader.setChunkSize(SourceReaderBuilder.getChunkSize());
+  }
+
+  /**
+   * Processing file without blocking threads while chunks are being sent.
+   * Chunks are read on the worker pool one at a time, the next chunk is read once there is a free credit
+   * of the {@link CreditCoordinator}, credit is returned when the chunk is sent. So reading of the next chunk
+   * is triggered by the completion of the earlier one and no thread waits for the responses.
+   *
+   * @param fileDefinition     fileDefinition entity
+   * @param jobProfile         job profile, contains profile type
+   * @param fileStorageService service to obtain file
+   * @param params             parameters necessary for connection to the OKAPI
+   * @return Future
+   */
+  protected Future<Void> processFileAsync(FileDefinition fileDefinition,
+                                          JobProfileInfo jobProfile,
+                                          FileStorageService fileStorageService,
+                                          OkapiConnectionParams params,
+                                          boolean defaultMapping) {
+    Promise<Void> promise = Promise.promise();
+    AimdChunkingController chunkingController = createChunkingController(fileDefinition);
+    CreditCoordinator coordinator = chunkingController != null
+      ? new CreditCoordinator(chunkingController::getParallelChunks)
+      : new CreditCoordinator(BLOCKING_COORDINATOR_CHUNKS_NUMBER);
+    openFile(fileDefinition, jobProfile, fileStorageService, params).onComplete(ar -> {
+      if (ar.failed()) {
+        promise.fail(ar.cause());
+        return;
+      }
+      FileChunkingState state = ar.result();
+      coordinator.onRelease(() -> sendNextChunks(fileDefinition, state, coordinator, chunkingController, params, defaultMapping, promise));
+      sendNextChunks(fileDefinition, state, coordinator, chunkingController, params, defaultMapping, promise);
+    });
+    return promise.future();
+  }
+
+  /**
+   * Processing file as a pipe of streams: the stream of the file chunks read on the worker pool is converted
+   * to the stream of the chunks to send and piped to the stream sending them to the mod-source-record-manager.
+   * Reading pauses once the number of chunks waiting for the response reaches the limit
+   * and resumes when one of the responses is received.
+   *
+   * @param fileDefinition     fileDefinition entity
+   * @param jobProfile         job profile, contains profile type
+   * @param fileStorageService service to obtain file
+   * @param params             parameters necessary for connection to the OKAPI
+   * @return Future
+   */
+  protected Future<Void> processFileStream(FileDefinition fileDefinition,
+                                           JobProfileInfo jobProfile,
+                                           FileStorageService fileStorageService,
+                                           OkapiConnectionParams params,
+                                           boolean defaultMapping) {
+    Promise<Void> promise = Promise.promise();
+    AimdChunkingController chunkingController = createChunkingController(fileDefinition);
+    openFile(fileDefinition, jobProfile, fileStorageService, params).onComplete(ar -> {
+      if (ar.failed()) {
+        promise.fail(ar.cause());
+        return;
+      }
+      FileChunkingState state = ar.result();
+      SourceReaderStream recordsStream = new SourceReaderStream(state.reader, this.executor);
+      if (chunkingController != null) {
+        recordsStream.chunkSize(chunkingController::getChunkSize);
+      }
+      RawRecordsWriteStream chunksSender = new RawRecordsWriteStream(
+        chunk -> sendChunk(fileDefinition, chunk, state.canSendNextChunk, state.chunkDelivery, chunkingController, params, defaultMapping),
+        chunkingController != null ? chunkingController::getParallelChunks : () -> BLOCKING_COORDINATOR_CHUNKS_NUMBER);
+      new MappingReadStream<>(recordsStream, records -> buildChunk(state.file, state.reader, records, state.recordsCounter, state.totalRecords))
+        .pipe()
+        .endOnComplete(false)
+        .to(chunksSender, piped -> {
+          if (piped.failed()) {
+            LOGGER.error("File processing finished with errors. Can not send chunks of the file {}", piped.cause(), fileDefinition.getSourcePath());
+            state.canSendNextChunk.set(false);
+          }
+          chunksSender.end(sent -> sendLastChunk(fileDefinition, state.reader, state.recordsCounter,
+            state.canSendNextChunk, state.chunkDelivery, params, defaultMapping).onComplete(promise));
+        });
+    });
+    return promise.future();
+  }
+
+  /**
+   * Opens the file and counts records in it on the worker pool
+   */
+  private Future<FileChunkingState> openFile(FileDefinition fileDefinition, JobProfileInfo jobProfile,
+                                             FileStorageService fileStorageService, OkapiConnectionParams params) {
+    Promise<FileChunkingState> promise = Promise.promise();
+    this.executor.<FileChunkingState>executeBlocking(future -> {
+      Optional<UploadProgress> upload = findUploadInProgress(fileDefinition);
+      File file = fileStorageService.getFile(fileDefinition.getSourcePath());
+      SourceReader reader = upload.isPresent()
+        ? SourceReaderBuilder.buildTailing(file, jobProfile, upload.get())
+        : SourceReaderBuilder.build(file, jobProfile);
+      int totalRecords = SINGLE_PASS_ENABLED || upload.isPresent() ? TOTAL_RECORDS_ESTIMATED : countTotalRecordsInFile(file, jobProfile);
+      ChunkDelivery chunkDelivery = new ChunkDelivery(params.getVertx(), fileDefinition.getJobExecutionId());
+      future.complete(new FileChunkingState(file, reader, totalRecords, chunkDelivery));
+    }, false, ar -> {
+      if (ar.failed()) {
+        String errorMessage = format("Can not process file: %s. Cause: %s", fileDefinition.getSourcePath(), ar.cause().getMessage());
+        LOGGER.error(errorMessage, ar.cause());
+        promise.fail(errorMessage);
+      } else {
+        promise.complete(ar.result());
+      }
+    });
+    return promise.future();
+  }
+
+  /**
+   * Reads and sends the next chunk if there is a free credit, sends the last chunk once all the chunks are sent
+   */
+  private void sendNextChunks(FileDefinition fileDefinition, FileChunkingState state, CreditCoordinator coordinator,
+                              AimdChunkingController chunkingController, OkapiConnectionParams params, boolean defaultMapping,
+                              Promise<Void> promise) {
+    synchronized (state) {
+      if (state.reading || state.finished) {
+        return;
+      }
+      if (state.readerExhausted || !state.canSendNextChunk.get()) {
+        if (coordinator.getAcquired() == 0) {
+          state.finished = true;
+          if (!state.readerExhausted) {
+            LOGGER.error("Can not send next chunks of file. They were skipped {}", fileDefinition.getSourcePath());
+            state.reader.close();
+          }
+          sendLastChunk(fileDefinition, state.reader, state.recordsCounter, state.canSendNextChunk,
+            state.chunkDelivery, params, defaultMapping)
+            .onComplete(promise);
+        }
+        return;
+      }
+      if (!coordinator.tryAcquire()) {
+        return;
+      }
+      state.reading = true;
+    }
+    this.executor.<List<InitialRecord>>executeBlocking(future -> {
+      if (chunkingController != null) {
+        state.reader.setChunkSize(chunkingController.getChunkSize());
+      }
+      future.complete(state.reader.hasNext() ? state.reader.next() : null);
+    }, false, ar -> {
+      synchronized (state) {
+        state.reading = false;
+        if (ar.failed()) {
+          LOGGER.error("Can not read next chunk of the file {}", ar.cause(), fileDefinition.getSourcePath());
+          state.canSendNextChunk.set(false);
+        } else if (ar.result() == null) {
+          state.readerExhausted = true;
+        }
+      }
+      if (ar.failed() || ar.result() == null) {
+        coordinator.release();
+        return;
+      }
+      RawRecordsDto chunk = buildChunk(state.file, state.reader, ar.result(), state.recordsCounter, state.totalRecords);
+      sendChunk(fileDefinition, chunk, state.canSendNextChunk, state.chunkDelivery, chunkingController, params, defaultMapping)
+        .onComplete(sent -> coordinator.release());
+      // there may be more free credits, reading goes on without waiting for the response
+      sendNextChunks(fileDefinition, state, coordinator, chunkingController, params, defaultMapping, promise);
+    });
+  }
+
+  /**
+   * State of the file processed by {@link #processFileAsync} or {@link #processFileStream}
+   */
+  private static class FileChunkingState {
+    private final File file;
+    private final SourceReader reader;
+    private final int totalRecords;
+    private final ChunkDelivery chunkDelivery;
+    private final MutableInt recordsCounter = new MutableInt(0);
+    private final AtomicBoolean canSendNextChunk = new AtomicBoolean(true);
+    private boolean reading;
+    private boolean readerExhausted;
+    private boolean finished;
+
+    FileChunkingState(File file, SourceReader reader, int totalRecords, ChunkDelivery chunkDelivery) {
+      this.file = file;
+      this.reader = reader;
+      this.totalRecords = totalRecords;
+      this.chunkDelivery = chunkDelivery;
+    }
+  }
+
+  /**
+   * Finds progress of the file upload if the file is processed while it is still being uploaded,
+   * the path to the file is taken from the upload as the upload definition gets it once the file is uploaded
+   */
+  /**
+   * Claims the files being uploaded in the pipelined mode before the processing is started,
+   * the end of the upload of the claimed file keeps the statuses set by the processing
+   */
+  private void claimUploads(UploadDefinition uploadDefinition) {
+    if (UploadProgress.isPipelinedEnabled()) {
+      uploadDefinition.getFileDefinitions().forEach(fileDefinition -> UploadProgress.claim(fileDefinition.getId()));
+    }
+  }
+
+  /**
+   * Looks up the upload of the file claimed by the processing, must not be called on the event loop.
+   * The file with no part stored yet is waited for the idle timeout of the upload, the processing of the file fails
+   * if no part is stored in time.
+   */
+  private Optional<UploadProgress> findUploadInProgress(FileDefinition fileDefinition) {
+    if (!UploadProgress.isPipelinedEnabled()) {
+      return Optional.empty();
+    }
+    Optional<UploadProgress> upload;
+    try {
+      upload = fileDefinition.getSourcePath() == null
+        ? UploadProgress.awaitTracked(fileDefinition.getId(), UploadProgress.getIdleTimeoutMs())
+        : UploadProgress.find(fileDefinition.getId());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the upload of the file. FileId: " + fileDefinition.getId(), e);
+    } finally {
+      UploadProgress.release(fileDefinition.getId());
+    }
+    if (!upload.isPresent() && fileDefinition.getSourcePath() == null) {
+      throw new IllegalStateException(format("No part of the file was uploaded for %d ms, the file can not be processed. FileId: %s",
+        UploadProgress.getIdleTimeoutMs(), fileDefinition.getId()));
+    }
+    upload.ifPresent(progress -> {
+      LOGGER.info("File {} is processed while it is being uploaded", progress.getPath());
+      fileDefinition.setSourcePath(progress.getPath());
+    });
+    return upload;
+  }
+
+  ChunksCompletionTracker createCompletionTracker() {
+    return new ChunksCompletionTracker();
+  }
+
+  private AimdChunkingController createChunkingController(FileDefinition fileDefinition) {
+    return ADAPTIVE_CHUNKING_ENABLED
+      ? new AimdChunkingController(fileDefinition.getJobExecutionId(), SourceReaderBuilder.getChunkSize(), BLOCKING_COORDINATOR_CHUNKS_NUMBER)
+      : null;
+  }
+
+  private RawRecordsDto buildChunk(File file, SourceReader reader, List<InitialRecord> records, MutableInt recordsCounter, int totalRecords) {
+    recordsCounter.add(records.size());
+    recordChunkMetrics(records);
+    return new RawRecordsDto()
+      .withInitialRecords(records)
+      .withRecordsMetadata(new RecordsMetadata()
+        .withContentType(reader.getContentType())
+        .withCounter(recordsCounter.getValue())
+        .withLast(false)
+        .withTotal(totalRecords == TOTAL_RECORDS_ESTIMATED
+          ? estimateTotalRecordsInFile(file, reader, recordsCounter.getValue())
+          : Math.max(totalRecords, recordsCounter.getValue())));
+  }
+
+  private Future<Void> sendChunk(FileDefinition fileDefinition, RawRecordsDto chunk, AtomicBoolean canSendNextChunk,
+                                 ChunkDelivery chunkDelivery, AimdChunkingController chunkingController,
+                                 OkapiConnectionParams params, boolean defaultMapping) {
+    long sentAt = System.nanoTime();
+    Future<Void> chunkSentFuture = postRawRecords(fileDefinition.getJobExecutionId(), chunk, canSendNextChunk, chunkDelivery, params, defaultMapping);
+    if (chunkingController != null) {
+      trackChunkLatency(chunkingController, chunkSentFuture, sentAt);
+    }
+    return chunkSentFuture;
+  }
+
+  private Future<Void> sendLastChunk(FileDefinition fileDefinition, SourceReader reader, MutableInt recordsCounter,
+                                     AtomicBoolean canSendNextChunk, ChunkDelivery chunkDelivery,
+                                     OkapiConnectionParams params, boolean defaultMapping) {
+    Promise<Void> promise = Promise.promise();
+    RawRecordsDto chunk = new RawRecordsDto()
+      .withRecordsMetadata(new RecordsMetadata()
+        .withContentType(reader.getContentType())
+        .withCounter(recordsCounter.getValue())
+        .withLast(true)
+        // the counted or indexed total may differ from the records the reader found, the records actually sent are the total
+        .withTotal(recordsCounter.getValue()));
+    postRawRecords(fileDefinition.getJobExecutionId(), chunk, canSendNextChunk, chunkDelivery, params, defaultMapping)
+      .onComplete(r -> {
+        if (r.failed()) {
+          String errorMessage = "File processing stopped. Can not send the last chunk of the file " + fileDefinition.getSourcePath();
+          LOGGER.error(errorMessage);
+          promise.fail(errorMessage);
+        } else {
+          LOGGER.info("File " + fileDefinition.getSourcePath() + " has been successfully sent.");
+          promise.complete();
+        }
+      });
+    return promise.future();
+  }
+
+  private void trackChunkLatency(AimdChunkingController chunkingController, Future<Void> chunkSentFuture, long sentAt) {
+    long chunkNumber = chunkingController.onChunkSent();
+    chunkSentFuture.onComplete(ar ->
+      chunkingController.onChunkCompleted(chunkNumber, (System.nanoTime() - sentAt) / 1_000_000, ar.succeeded()));
+  }
+
+  private void recordChunkMetrics(List<InitialRecord> records) {
+    long chunkBytes = 0;
+    for (InitialRecord record : records) {
+      chunkBytes += RecordsBuffer.getRecordSize(record);
+    }
+    CHUNK_BYTES_SUMMARY.record(chunkBytes);
+    CHUNK_RECORDS_SUMMARY.record(records.size());
+  }
+
+  /**
+   * Read file and count total records it is contains.
+   * If records index was built for the file during upload, records number is taken from the index without reading the file.
+   * Index boundaries are not the reader rules for the corrupted records, so the number is sent with the chunks
+   * as the expected total only, the last chunk is sent with the number of records actually read.
    *
    * @param file       - file with records
    * @param jobProfile - job profile main info
@@ -235,6 +874,14 @@ public class ParallelFileChunkingProcessor implements FileProcessor {
     if (file == null || jobProfile == null) {
       return total;
     }
+    try {
+      Optional<RecordOffsetIndex> index = RecordOffsetIndex.open(file.toPath());
+      if (index.isPresent() && isIndexOfReader(file, index.get())) {
+        return index.get().getRecordsNumber();
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Can not read records index of the file {}, records will be counted by reading the file", e, file.getPath());
+    }
     SourceReader reader = SourceReaderBuilder.build(file, jobProfile);
     while (reader.hasNext()) {
       total += reader.next().size();
@@ -243,43 +890,119 @@ public class ParallelFileChunkingProcessor implements FileProcessor {
   }
 
   /**
-   * Sends chunk with records to the corresponding consumer
+   * Checks that the records index was built with the record boundaries of the reader the file is processed with,
+   * the index built for the other format does not count the records the reader finds
+   */
+  private boolean isIndexOfReader(File file, RecordOffsetIndex index) {
+    Optional<RecordFormat> readerFormat = SourceReaderRegistry.getInstance().detectIndexFormat(SourceFileSample.read(file));
+    if (readerFormat.isPresent() && readerFormat.get() == index.getFormat()) {
+      return true;
+    }
+    LOGGER.warn("Records index of the file {} was built for {} format, the index is not used", file.getPath(), index.getFormat());
+    return false;
+  }
+
+  /**
+   * Estimates total records in file by the number of records read so far and the part of the file they take,
+   * the exact value is sent with the last chunk
+   *
+   * @param file        - file with records
+   * @param reader      - reader of the file
+   * @param recordsRead - number of records read so far
+   * @return estimated total records in file
+   */
+  private int estimateTotalRecordsInFile(File file, SourceReader reader, int recordsRead) {
+    long fileSize = file.length();
+    long bytesRead = reader.getBytesRead();
+    if (bytesRead <= 0 || bytesRead >= fileSize) {
+      return recordsRead;
+    }
+    return (int) Math.min(Integer.MAX_VALUE, recordsRead * fileSize / bytesRead);
+  }
+
+  /**
+   * Sends chunk with records to the corresponding consumer, the failed chunk is sent again with the same identity
+   * if the retries are configured and the failure is retried by the {@link org.folio.service.client.RetryPolicy}.
+   * If the file is journaled, the chunk is sent once it is synced to the journal and acknowledged in the journal
+   * once it is accepted.
    *
    * @param jobExecutionId   job id
    * @param chunk            chunk of records
    * @param canSendNextChunk flag the identifies has the last record been successfully sent and can the other handlers
    *                         send raw records (chunks)
-   * @param coordinator      blocking coordinator
+   * @param chunkDelivery    delivery of the chunks of the job, gives identity to the chunk and retries it
    * @param params           parameters necessary for connection to the OKAPI
    * @return Future
    */
   private Future<Void> postRawRecords(String jobExecutionId, RawRecordsDto chunk, AtomicBoolean canSendNextChunk,
-                                      BlockingCoordinator coordinator, OkapiConnectionParams params, boolean defaultMapping) {
+                                      ChunkDelivery chunkDelivery, OkapiConnectionParams params, boolean defaultMapping) {
+    if (!canSendNextChunk.get()) {
+      return Future.failedFuture("canSendNextChunk has already been cleared to false");
+    }
+    long sequence = chunkDelivery.nextChunkSequence();
+    ChunksJournal journal = outbox != null ? outbox.getJournal(jobExecutionId) : null;
+    if (journal == null) {
+      return deliverRawRecords(jobExecutionId, sequence, chunk, canSendNextChunk, chunkDelivery, null, params, defaultMapping);
+    }
+    return journal.append(sequence, chunk)
+      .onFailure(e -> {
+        LOGGER.error("Can not journal chunk {} of JobExecution {}", e, sequence, jobExecutionId);
+        canSendNextChunk.set(false);
+      })
+      .compose(v -> deliverRawRecords(jobExecutionId, sequence, chunk, canSendNextChunk, chunkDelivery, journal, params, defaultMapping));
+  }
+
+  private Future<Void> deliverRawRecords(String jobExecutionId, long sequence, RawRecordsDto chunk, AtomicBoolean canSendNextChunk,
+                                         ChunkDelivery chunkDelivery, ChunksJournal journal,
+                                         OkapiConnectionParams params, boolean defaultMapping) {
+    String chunkId = chunkDelivery.getChunkId(sequence);
+    return chunkDelivery.send(chunkId, () -> postRawRecords(jobExecutionId, chunkId, chunk, canSendNextChunk, params, defaultMapping))
+      .onSuccess(v -> {
+        if (journal != null) {
+          journal.ack(sequence);
+        }
+      })
+      .onFailure(e -> canSendNextChunk.set(false));
+  }
+
+  /**
+   * Makes single attempt to send chunk with records, the attempt is not made once the other chunk has failed
+   *
+   * @param jobExecutionId   job id
+   * @param chunkId          identity of the chunk
+   * @param chunk            chunk of records
+   * @param canSendNextChunk flag the identifies can the raw records (chunks) be sent
+   * @param params           parameters necessary for connection to the OKAPI
+   * @return Future
+   */
+  private Future<Void> postRawRecords(String jobExecutionId, String chunkId, RawRecordsDto chunk, AtomicBoolean canSendNextChunk,
+                                      OkapiConnectionParams params, boolean defaultMapping) {
     if (!canSendNextChunk.get()) {
       return Future.failedFuture("canSendNextChunk has already been cleared to false");
     }
 
     Promise<Void> promise = Promise.promise();
-    ChangeManagerClient client = new ChangeManagerClient(params.getOkapiUrl(), params.getTenantId(), params.getToken());
+    ChangeManagerHttpClient client = new ChangeManagerHttpClient(params);
     try {
 
-      LOGGER.debug("About to send next chunk: {}", chunk.getRecordsMetadata().toString());
-      client.postChangeManagerJobExecutionsRecordsById(jobExecutionId, defaultMapping, chunk, response -> {
+      LOGGER.debug("About to send next chunk {}: {}", chunkId, chunk.getRecordsMetadata().toString());
+      client.postChangeManagerJobExecutionsRecordsById(jobExecutionId, defaultMapping, chunk, chunkId, response -> {
         LOGGER.debug("Response received for cunk: {}", chunk.getRecordsMetadata().toString());
         if (response.statusCode() == HttpStatus.HTTP_NO_CONTENT.toInt()) {
           LOGGER.debug("Chunk of records with size {} was successfully posted for JobExecution {}", chunk.getInitialRecords().size(), jobExecutionId);
           promise.complete();
         } else {
-          canSendNextChunk.set(false);
           String errorMessage = format("Error posting chunk of raw records for JobExecution with id %s. Status code %s", jobExecutionId, response.statusMessage());
           LOGGER.error(errorMessage);
-          promise.fail(new HttpStatusException(response.statusCode(), errorMessage));
+          // the response body is kept as the payload, the response without body proves the chunk was not taken, see RetryPolicy
+          response.exceptionHandler(promise::tryFail);
+          response.bodyHandler(body -> promise.tryFail(new HttpStatusException(response.statusCode(), body.toString())));
         }
-        coordinator.acceptUnlock();
+      }, e -> {
+        LOGGER.error("Can not post chunk of raw records for JobExecution with id {}", jobExecutionId, e);
+        promise.tryFail(e);
       });
     } catch (Exception e) {
-      canSendNextChunk.set(false);
-      coordinator.acceptUnlock();
       LOGGER.error("Can not post chunk of raw records for JobExecution with id {}", jobExecutionId, e);
       promise.fail(e);
     }
@@ -321,7 +1044,7 @@ public class ParallelFileChunkingProcessor implements FileProcessor {
    */
   private Future<Void> updateJobProfile(String jobId, JobProfileInfo jobProfile, OkapiConnectionParams params) {
     Promise<Void> promise = Promise.promise();
-    ChangeManagerClient client = new ChangeManagerClient(params.getOkapiUrl(), params.getTenantId(), params.getToken());
+    ChangeManagerHttpClient client = new ChangeManagerHttpClient(params);
     try {
       client.putChangeManagerJobExecutionsJobProfileById(jobId, jobProfile, response -> {
         if (response.statusCode() != HttpStatus.HTTP_OK.toInt()) {
@@ -331,6 +1054,9 @@ public class ParallelFileChunkingProcessor implements FileProcessor {
           LOGGER.info("Job profile for job {} successfully updated.", jobId);
           promise.complete();
         }
+      }, e -> {
+        LOGGER.error("Couldn't update jobProfile for JobExecution with id {}", jobId, e);
+        promise.tryFail(e);
       });
     } catch (Exception e) {
       LOGGER.error("Couldn't update jobProfile for JobExecution with id {}", jobId, e);
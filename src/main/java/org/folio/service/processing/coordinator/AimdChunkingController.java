@@ -0,0 +1,134 @@
+package org.folio.service.processing.coordinator;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Adjusts the chunk size and the number of chunks sent in parallel for a single job
+ * by the additive increase/multiplicative decrease rule, driven by the latency and the result of sent chunks:
+ * <ul>
+ * <li>once a window of chunks was sent without errors within the latency target, the window grows by one chunk
+ * and the chunk size grows by the configured step;</li>
+ * <li>a chunk failed or answered slower than the latency target halves both values.
+ * Chunks sent before the last decrease do not cause another decrease, they reflect the settings already reduced.</li>
+ * </ul>
+ * Both values are kept within the configured limits, every decision is logged.
+ */
+public class AimdChunkingController {
+  private static final Logger LOGGER = LoggerFactory.getLogger(AimdChunkingController.class);
+  private static final long LATENCY_TARGET_MS =
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.adaptive.latency.target.ms", "2000"));
+  private static final int MIN_CHUNK_SIZE =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.adaptive.chunk.size.min", "10"));
+  private static final int MAX_CHUNK_SIZE =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.adaptive.chunk.size.max", "500"));
+  private static final int CHUNK_SIZE_STEP =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.adaptive.chunk.size.step", "10"));
+  private static final int MIN_PARALLEL_CHUNKS =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.adaptive.parallel.chunks.min", "1"));
+  private static final int MAX_PARALLEL_CHUNKS =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.adaptive.parallel.chunks.max", "20"));
+
+  private String jobExecutionId;
+  private ResizableBlockingCoordinator coordinator;
+  private long latencyTargetMs;
+  private int minChunkSize;
+  private int maxChunkSize;
+  private int chunkSizeStep;
+  private int minParallelChunks;
+  private int maxParallelChunks;
+  private int chunkSize;
+  private int parallelChunks;
+  private long sentChunks;
+  private long lastDecreaseChunk;
+  private int succeededInWindow;
+
+  public AimdChunkingController(String jobExecutionId, int chunkSize, int parallelChunks) {
+    this(jobExecutionId, chunkSize, parallelChunks, LATENCY_TARGET_MS, MIN_CHUNK_SIZE, MAX_CHUNK_SIZE, CHUNK_SIZE_STEP,
+      MIN_PARALLEL_CHUNKS, MAX_PARALLEL_CHUNKS);
+  }
+
+  AimdChunkingController(String jobExecutionId, int chunkSize, int parallelChunks, long latencyTargetMs,
+                         int minChunkSize, int maxChunkSize, int chunkSizeStep, int minParallelChunks, int maxParallelChunks) {
+    this.jobExecutionId = jobExecutionId;
+    this.latencyTargetMs = latencyTargetMs;
+    this.minChunkSize = minChunkSize;
+    this.maxChunkSize = maxChunkSize;
+    this.chunkSizeStep = chunkSizeStep;
+    this.minParallelChunks = minParallelChunks;
+    this.maxParallelChunks = maxParallelChunks;
+    this.chunkSize = Math.max(minChunkSize, Math.min(maxChunkSize, chunkSize));
+    this.parallelChunks = Math.max(minParallelChunks, Math.min(maxParallelChunks, parallelChunks));
+    this.coordinator = new ResizableBlockingCoordinator(this.parallelChunks);
+    LOGGER.info("Adaptive chunking started for JobExecution {}: chunk size {}, parallel chunks {}",
+      jobExecutionId, this.chunkSize, this.parallelChunks);
+  }
+
+  /**
+   * Returns coordinator limiting the number of chunks sent in parallel by the current window
+   *
+   * @return coordinator
+   */
+  public BlockingCoordinator getCoordinator() {
+    return coordinator;
+  }
+
+  public synchronized int getChunkSize() {
+    return chunkSize;
+  }
+
+  public synchronized int getParallelChunks() {
+    return parallelChunks;
+  }
+
+  /**
+   * Registers the chunk sent
+   *
+   * @return sequence number of the chunk to pass to {@link #onChunkCompleted(long, long, boolean)}
+   */
+  public synchronized long onChunkSent() {
+    return ++sentChunks;
+  }
+
+  /**
+   * Adjusts settings by the result of the sent chunk
+   *
+   * @param chunkNumber sequence number of the chunk returned by {@link #onChunkSent()}
+   * @param latencyMs   time from sending the chunk to receiving the response
+   * @param succeeded   true if the chunk was accepted
+   */
+  public synchronized void onChunkCompleted(long chunkNumber, long latencyMs, boolean succeeded) {
+    if (!succeeded || latencyMs > latencyTargetMs) {
+      if (chunkNumber <= lastDecreaseChunk) {
+        LOGGER.info("JobExecution {}: chunk {} {} in {} ms, it was sent before the last decrease, keeping chunk size {}, parallel chunks {}",
+          jobExecutionId, chunkNumber, succeeded ? "succeeded" : "failed", latencyMs, chunkSize, parallelChunks);
+        return;
+      }
+      lastDecreaseChunk = sentChunks;
+      succeededInWindow = 0;
+      chunkSize = Math.max(minChunkSize, chunkSize / 2);
+      setParallelChunks(Math.max(minParallelChunks, parallelChunks / 2));
+      LOGGER.info("JobExecution {}: chunk {} {} in {} ms (target {} ms), decreasing to chunk size {}, parallel chunks {}",
+        jobExecutionId, chunkNumber, succeeded ? "succeeded" : "failed", latencyMs, latencyTargetMs, chunkSize, parallelChunks);
+      return;
+    }
+    succeededInWindow++;
+    if (succeededInWindow < parallelChunks) {
+      LOGGER.debug("JobExecution {}: chunk {} succeeded in {} ms, {} of {} chunks of the window succeeded",
+        jobExecutionId, chunkNumber, latencyMs, succeededInWindow, parallelChunks);
+      return;
+    }
+    succeededInWindow = 0;
+    chunkSize = Math.min(maxChunkSize, chunkSize + chunkSizeStep);
+    setParallelChunks(Math.min(maxParallelChunks, parallelChunks + 1));
+    LOGGER.info("JobExecution {}: window of chunks succeeded within {} ms, increasing to chunk size {}, parallel chunks {}",
+      jobExecutionId, latencyTargetMs, chunkSize, parallelChunks);
+  }
+
+  private void setParallelChunks(int parallelChunks) {
+    this.parallelChunks = parallelChunks;
+    coordinator.setLimit(parallelChunks);
+  }
+}
@@ -0,0 +1,104 @@
+package org.folio.service.processing.coordinator;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+/**
+ * Tracks completion of the chunks sent for a single file by counters, so neither the futures of the sent chunks
+ * nor their handlers are kept once the chunks are completed and the memory does not grow with the file size.
+ * The completion future fails as soon as the first chunk fails, carrying the error of that chunk.
+ * Otherwise it succeeds once all the tracked chunks succeeded and no more chunks are expected, see {@link #seal()}.
+ */
+public class ChunksCompletionTracker {
+
+  private final Promise<Void> promise = Promise.promise();
+  private long pending;
+  private long maxPending;
+  private long succeeded;
+  private boolean sealed;
+
+  /**
+   * Tracks completion of the sent chunk
+   *
+   * @param chunkSentFuture future completed once the chunk is sent
+   */
+  public void track(Future<Void> chunkSentFuture) {
+    synchronized (this) {
+      if (sealed) {
+        throw new IllegalStateException("Chunks completion tracker has already been sealed");
+      }
+      pending++;
+      maxPending = Math.max(maxPending, pending);
+    }
+    chunkSentFuture.onComplete(this::handleChunkCompletion);
+  }
+
+  /**
+   * Fails the completion without waiting for the tracked chunks
+   *
+   * @param message error message
+   */
+  public void fail(String message) {
+    promise.tryFail(message);
+  }
+
+  /**
+   * Marks that no more chunks are going to be tracked
+   */
+  public void seal() {
+    synchronized (this) {
+      sealed = true;
+      if (pending > 0) {
+        return;
+      }
+    }
+    promise.tryComplete();
+  }
+
+  /**
+   * Returns true if one of the chunks failed, so the remaining chunks should not be sent
+   *
+   * @return true if the completion failed
+   */
+  public boolean isFailed() {
+    return promise.future().failed();
+  }
+
+  public synchronized long getPending() {
+    return pending;
+  }
+
+  /**
+   * Returns the highest number of the chunks that were pending at the same time
+   *
+   * @return maximum number of the pending chunks
+   */
+  public synchronized long getMaxPending() {
+    return maxPending;
+  }
+
+  public synchronized long getSucceeded() {
+    return succeeded;
+  }
+
+  public Future<Void> future() {
+    return promise.future();
+  }
+
+  private void handleChunkCompletion(AsyncResult<Void> ar) {
+    boolean completed;
+    synchronized (this) {
+      pending--;
+      if (ar.succeeded()) {
+        succeeded++;
+      }
+      completed = sealed && pending == 0;
+    }
+    if (ar.failed()) {
+      promise.tryFail(ar.cause());
+    } else if (completed) {
+      promise.tryComplete();
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package org.folio.service.processing.coordinator;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Non-blocking coordinator limiting the number of operations in progress by credits:
+ * an operation starts only if it acquires a credit by {@link #tryAcquire()}, the credit is returned by {@link #release()}
+ * once the operation completes. Nothing waits for a credit, the handler registered by {@link #onRelease(Runnable)}
+ * starts the next operations instead, so no thread is parked while the operations are in progress.
+ * The number of credits is read from the supplier on every acquire, so the limit may change while the coordinator is in use.
+ */
+public class CreditCoordinator {
+
+  private final IntSupplier limit;
+  private int acquired;
+  private Runnable releaseHandler = () -> {
+  };
+
+  public CreditCoordinator(int limit) {
+    this(() -> limit);
+  }
+
+  public CreditCoordinator(IntSupplier limit) {
+    this.limit = limit;
+  }
+
+  /**
+   * Acquires credit if there is an available one
+   *
+   * @return true if credit is acquired
+   */
+  public synchronized boolean tryAcquire() {
+    if (acquired < limit.getAsInt()) {
+      acquired++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns credit and notifies the release handler
+   */
+  public void release() {
+    synchronized (this) {
+      if (acquired > 0) {
+        acquired--;
+      }
+    }
+    releaseHandler.run();
+  }
+
+  /**
+   * Sets handler called each time credit is released, the handler is called outside of the coordinator lock
+   *
+   * @param releaseHandler handler
+   * @return coordinator
+   */
+  public CreditCoordinator onRelease(Runnable releaseHandler) {
+    this.releaseHandler = releaseHandler;
+    return this;
+  }
+
+  public synchronized int getAcquired() {
+    return acquired;
+  }
+}
@@ -35,13 +35,7 @@ public class QueuedBlockingCoordinator implements BlockingCoordinator {
 
   @Override
   public void acceptUnlock() {
-    try {
-      if (!blockingQueue.isEmpty()) {
-        blockingQueue.take();
-      }
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      LOGGER.info("Failed to accept unlock. The current thread {} is interrupted. Cause: {}", Thread.currentThread().getName(), e.getCause());
-    }
+    // poll does not block if the queue was emptied by another thread between the check and the removal
+    blockingQueue.poll();
   }
 }
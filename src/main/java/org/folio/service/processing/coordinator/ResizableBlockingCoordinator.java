@@ -0,0 +1,69 @@
+package org.folio.service.processing.coordinator;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of the BlockingCoordinator which limit can be changed while the coordinator is in use:
+ * the producing thread gets blocked calling {@link #acceptLock()} while the number of accepted locks reaches the limit,
+ * it remains blocked until a consuming thread calls {@link #acceptUnlock()} or the limit is increased.
+ * Decreasing the limit does not affect already accepted locks, the producing thread waits till they get unlocked.
+ */
+public class ResizableBlockingCoordinator implements BlockingCoordinator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResizableBlockingCoordinator.class);
+  private final ReentrantLock lock = new ReentrantLock(true);
+  private final Condition lockReleased = lock.newCondition();
+  private int locked;
+  private int limit;
+
+  public ResizableBlockingCoordinator(int limit) {
+    this.limit = limit;
+  }
+
+  @Override
+  public void acceptLock() {
+    lock.lock();
+    try {
+      while (locked >= limit) {
+        lockReleased.await();
+      }
+      locked++;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.info("Failed to accept lock. The current thread {} is interrupted. Cause: {}", Thread.currentThread().getName(), e.getCause());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void acceptUnlock() {
+    lock.lock();
+    try {
+      if (locked > 0) {
+        locked--;
+      }
+      lockReleased.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Changes the maximum number of accepted locks
+   *
+   * @param limit new limit
+   */
+  public void setLimit(int limit) {
+    lock.lock();
+    try {
+      this.limit = limit;
+      lockReleased.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,393 @@
+package org.folio.service.processing.outbox;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.folio.rest.jaxrs.model.RawRecordsDto;
+import org.folio.service.client.JsonBufferEncoder;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the chunks of the single job execution.
+ * Journal is the directory with the manifest describing the job and the segments the entries are appended to:
+ * the chunk is appended before it is sent, the acknowledgement is appended once the chunk is accepted.
+ * Once the active segment reaches the size limit the next segment is started, it begins with the checkpoint
+ * of the job progress. Segments are compacted by removing the oldest ones all the chunks of which are acknowledged,
+ * on recovery the chunks not acknowledged are rewritten to the new segment and the old segments are removed.
+ * Entries are written by the writer thread of the {@link ChunksOutbox}, so the state of the segments is not synchronized.
+ */
+public class ChunksJournal {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChunksJournal.class);
+  static final String MANIFEST_FILE = "manifest.json";
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final byte CHUNK_ENTRY = 1;
+  private static final byte ACK_ENTRY = 2;
+  private static final byte CHECKPOINT_ENTRY = 3;
+  /* entry type, chunk sequence, records counter of the chunk, payload length */
+  private static final int ENTRY_HEADER_SIZE = 1 + Long.BYTES + Integer.BYTES + Integer.BYTES;
+  private static final byte[] EMPTY_PAYLOAD = new byte[0];
+
+  private final ChunksOutbox outbox;
+  private final Path directory;
+  private final JsonObject manifest;
+  private final long segmentBytes;
+  private final List<JournaledChunk> pendingChunks;
+  private final long recoveredLastSequence;
+  private final int recoveredRecordsCounter;
+  /* state of the segments, accessed by the writer thread only */
+  private final TreeMap<Integer, Integer> segmentsPendingChunks = new TreeMap<>();
+  private final Map<Long, Integer> chunkSegments = new HashMap<>();
+  private final Map<Long, Integer> chunkCounters = new HashMap<>();
+  private long lastSequence;
+  private int recordsCounter;
+  private int activeSegmentIndex;
+  private FileChannel activeSegment;
+  private long activeSegmentSize;
+  private boolean deleted;
+
+  private ChunksJournal(ChunksOutbox outbox, Path directory, JsonObject manifest, long segmentBytes,
+                       List<JournaledChunk> pendingChunks, long lastSequence, int recordsCounter, int lastSegmentIndex) {
+    this.outbox = outbox;
+    this.directory = directory;
+    this.manifest = manifest;
+    this.segmentBytes = segmentBytes;
+    this.pendingChunks = Collections.unmodifiableList(pendingChunks);
+    this.recoveredLastSequence = lastSequence;
+    this.recoveredRecordsCounter = recordsCounter;
+    this.lastSequence = lastSequence;
+    this.recordsCounter = recordsCounter;
+    this.activeSegmentIndex = lastSegmentIndex;
+  }
+
+  /**
+   * Creates journal of the job, the manifest is written before the journal is returned
+   */
+  static ChunksJournal create(ChunksOutbox outbox, Path directory, JsonObject manifest, long segmentBytes) throws IOException {
+    Files.createDirectories(directory);
+    writeManifest(directory, manifest);
+    return new ChunksJournal(outbox, directory, manifest, segmentBytes, new ArrayList<>(), 0, 0, 0);
+  }
+
+  /**
+   * Reads journal of the job left by the previous run and compacts it:
+   * the chunks not acknowledged are rewritten to the new segment and the old segments are removed
+   */
+  static ChunksJournal recover(ChunksOutbox outbox, Path directory, long segmentBytes) throws IOException {
+    JsonObject manifest = new JsonObject(Buffer.buffer(Files.readAllBytes(directory.resolve(MANIFEST_FILE))));
+    List<Integer> segmentIndexes = listSegments(directory);
+    RecoveredEntries entries = new RecoveredEntries();
+    for (int segmentIndex : segmentIndexes) {
+      readSegment(segmentPath(directory, segmentIndex), entries);
+    }
+    List<JournaledChunk> pendingChunks = new ArrayList<>(entries.chunks.size());
+    entries.chunks.forEach((sequence, payload) ->
+      pendingChunks.add(new JournaledChunk(sequence, new JsonObject(Buffer.buffer(payload)).mapTo(RawRecordsDto.class))));
+    int lastSegmentIndex = segmentIndexes.isEmpty() ? 0 : segmentIndexes.get(segmentIndexes.size() - 1);
+    ChunksJournal journal = new ChunksJournal(outbox, directory, manifest, segmentBytes, pendingChunks,
+      entries.lastSequence, entries.recordsCounter, lastSegmentIndex);
+    journal.compactRecovered(entries.chunks, segmentIndexes);
+    LOGGER.info("Journal {} recovered: {} chunks are not acknowledged, {} records journaled",
+      directory, pendingChunks.size(), entries.recordsCounter);
+    return journal;
+  }
+
+  /**
+   * Appends the chunk to the journal
+   *
+   * @param sequence sequence number of the chunk within the job
+   * @param chunk    chunk of records
+   * @return future completed once the chunk is synced to the disk
+   */
+  public Future<Void> append(long sequence, RawRecordsDto chunk) {
+    int counter = chunk.getRecordsMetadata().getCounter();
+    ByteBuffer entry = encodeEntry(CHUNK_ENTRY, sequence, counter, JsonBufferEncoder.encodeChunk(chunk).getBytes());
+    return outbox.submit(() -> {
+      // chunk resent after the restart is journaled already
+      if (deleted || chunkSegments.containsKey(sequence)) {
+        return null;
+      }
+      FileChannel segment = writeEntry(entry);
+      chunkSegments.put(sequence, activeSegmentIndex);
+      chunkCounters.put(sequence, counter);
+      segmentsPendingChunks.merge(activeSegmentIndex, 1, Integer::sum);
+      lastSequence = Math.max(lastSequence, sequence);
+      recordsCounter = Math.max(recordsCounter, counter);
+      return segment;
+    }, true);
+  }
+
+  /**
+   * Appends the acknowledgement of the chunk accepted by the receiving side. Acknowledgements are not synced
+   * on their own, they are synced with the next chunk or once the outbox is closed on the module shutdown.
+   * The acknowledgement lost by the crash leaves the chunk pending, and the job with the pending chunks is resumed
+   * only if the deduplication of the chunks is confirmed, so resuming the job after the crash needs the deduplication
+   *
+   * @param sequence sequence number of the chunk within the job
+   */
+  public void ack(long sequence) {
+    outbox.submit(() -> {
+      Integer segmentIndex = chunkSegments.remove(sequence);
+      if (deleted || segmentIndex == null) {
+        return null;
+      }
+      FileChannel segment = writeEntry(encodeEntry(ACK_ENTRY, sequence, chunkCounters.remove(sequence), EMPTY_PAYLOAD));
+      segmentsPendingChunks.merge(segmentIndex, -1, Integer::sum);
+      compact();
+      return segment;
+    }, false);
+  }
+
+  /**
+   * @return manifest describing the job
+   */
+  public JsonObject getManifest() {
+    return manifest;
+  }
+
+  /**
+   * @return chunks not acknowledged before the journal was recovered, ordered by the sequence number
+   */
+  public List<JournaledChunk> getPendingChunks() {
+    return pendingChunks;
+  }
+
+  /**
+   * @return sequence number of the last chunk journaled before the journal was recovered
+   */
+  public long getLastSequence() {
+    return recoveredLastSequence;
+  }
+
+  /**
+   * @return number of records journaled before the journal was recovered
+   */
+  public int getRecordsCounter() {
+    return recoveredRecordsCounter;
+  }
+
+  /**
+   * Removes the journal with all its segments
+   */
+  Future<Void> delete() {
+    return outbox.submit(() -> {
+      deleted = true;
+      closeSegment();
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+        for (Path file : files) {
+          Files.deleteIfExists(file);
+        }
+      }
+      Files.deleteIfExists(directory);
+      return null;
+    }, false);
+  }
+
+  /**
+   * Syncs the active segment, called by the writer thread once it stops
+   */
+  void syncSegment() throws IOException {
+    if (activeSegment != null && activeSegment.isOpen()) {
+      activeSegment.force(false);
+    }
+  }
+
+  /**
+   * Closes the active segment, called by the writer thread once it stops
+   */
+  void closeSegment() throws IOException {
+    if (activeSegment != null) {
+      activeSegment.close();
+      activeSegment = null;
+    }
+  }
+
+  int getSegmentsNumber() throws IOException {
+    return listSegments(directory).size();
+  }
+
+  private FileChannel writeEntry(ByteBuffer entry) throws IOException {
+    if (activeSegment == null || activeSegmentSize >= segmentBytes) {
+      startSegment();
+    }
+    activeSegmentSize += write(activeSegment, entry);
+    return activeSegment;
+  }
+
+  /**
+   * Starts the next segment, the previous one is synced and closed, so the sync of the batch skips it
+   */
+  private void startSegment() throws IOException {
+    if (activeSegment != null) {
+      activeSegment.force(false);
+      activeSegment.close();
+    }
+    activeSegmentIndex++;
+    activeSegment = FileChannel.open(segmentPath(directory, activeSegmentIndex),
+      StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    activeSegmentSize = 0;
+    segmentsPendingChunks.put(activeSegmentIndex, 0);
+    if (lastSequence > 0) {
+      // progress of the job survives the removal of the older segments
+      activeSegmentSize += write(activeSegment, encodeEntry(CHECKPOINT_ENTRY, lastSequence, recordsCounter, EMPTY_PAYLOAD));
+    }
+  }
+
+  /**
+   * Removes the oldest segments all the chunks of which are acknowledged. Acknowledgements are appended after
+   * the chunks, so the removed segments contain acknowledgements of the chunks of the removed segments only.
+   */
+  private void compact() throws IOException {
+    while (!segmentsPendingChunks.isEmpty()) {
+      Map.Entry<Integer, Integer> oldestSegment = segmentsPendingChunks.firstEntry();
+      if (oldestSegment.getKey() >= activeSegmentIndex || oldestSegment.getValue() > 0) {
+        return;
+      }
+      segmentsPendingChunks.pollFirstEntry();
+      Files.deleteIfExists(segmentPath(directory, oldestSegment.getKey()));
+      outbox.onSegmentCompacted();
+    }
+  }
+
+  private void compactRecovered(Map<Long, byte[]> chunks, List<Integer> recoveredSegments) throws IOException {
+    startSegment();
+    for (JournaledChunk pendingChunk : pendingChunks) {
+      long sequence = pendingChunk.getSequence();
+      int counter = pendingChunk.getChunk().getRecordsMetadata().getCounter();
+      activeSegmentSize += write(activeSegment, encodeEntry(CHUNK_ENTRY, sequence, counter, chunks.get(sequence)));
+      chunkSegments.put(sequence, activeSegmentIndex);
+      chunkCounters.put(sequence, counter);
+      segmentsPendingChunks.merge(activeSegmentIndex, 1, Integer::sum);
+    }
+    activeSegment.force(false);
+    for (int segmentIndex : recoveredSegments) {
+      Files.deleteIfExists(segmentPath(directory, segmentIndex));
+    }
+  }
+
+  private static ByteBuffer encodeEntry(byte type, long sequence, int counter, byte[] payload) {
+    ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + payload.length + Integer.BYTES);
+    entry.put(type).putLong(sequence).putInt(counter).putInt(payload.length).put(payload);
+    CRC32 crc = new CRC32();
+    crc.update(entry.array(), 0, entry.position());
+    entry.putInt((int) crc.getValue());
+    entry.flip();
+    return entry;
+  }
+
+  private static int write(FileChannel channel, ByteBuffer entry) throws IOException {
+    int size = entry.remaining();
+    while (entry.hasRemaining()) {
+      channel.write(entry);
+    }
+    return size;
+  }
+
+  /**
+   * Reads entries of the segment, reading stops at the entry torn by the crash
+   */
+  private static void readSegment(Path segment, RecoveredEntries entries) throws IOException {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+      while (input.available() > 0) {
+        byte[] header = new byte[ENTRY_HEADER_SIZE];
+        input.readFully(header);
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+        byte type = headerBuffer.get();
+        long sequence = headerBuffer.getLong();
+        int counter = headerBuffer.getInt();
+        int length = headerBuffer.getInt();
+        if (length < 0 || length > Files.size(segment)) {
+          LOGGER.warn("Journal segment {} has malformed entry, the rest of the segment is skipped", segment);
+          return;
+        }
+        byte[] payload = new byte[length];
+        input.readFully(payload);
+        CRC32 crc = new CRC32();
+        crc.update(header);
+        crc.update(payload);
+        if (input.readInt() != (int) crc.getValue()) {
+          LOGGER.warn("Journal segment {} has entry with invalid checksum, the rest of the segment is skipped", segment);
+          return;
+        }
+        entries.add(type, sequence, counter, payload);
+      }
+    } catch (EOFException e) {
+      LOGGER.warn("Journal segment {} ends with incomplete entry, the entry is skipped", segment);
+    }
+  }
+
+  private static List<Integer> listSegments(Path directory) throws IOException {
+    List<Integer> segmentIndexes = new ArrayList<>();
+    try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      for (Path segment : segments) {
+        String fileName = segment.getFileName().toString();
+        segmentIndexes.add(Integer.parseInt(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length())));
+      }
+    }
+    Collections.sort(segmentIndexes);
+    return segmentIndexes;
+  }
+
+  private static Path segmentPath(Path directory, int segmentIndex) {
+    return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segmentIndex, SEGMENT_SUFFIX));
+  }
+
+  /**
+   * Writes the manifest to the temporary file and moves it in place, so the manifest is either complete or absent.
+   * Manifest contains the Okapi token the job is resumed with, so it is readable by the owner only.
+   */
+  private static void writeManifest(Path directory, JsonObject manifest) throws IOException {
+    Path manifestFile = directory.resolve(MANIFEST_FILE);
+    Path tempFile = directory.resolve(MANIFEST_FILE + ".tmp");
+    try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+      StandardOpenOption.TRUNCATE_EXISTING)) {
+      if (Files.getFileStore(tempFile).supportsFileAttributeView("posix")) {
+        Files.setPosixFilePermissions(tempFile, PosixFilePermissions.fromString("rw-------"));
+      }
+      write(channel, ByteBuffer.wrap(manifest.encode().getBytes(StandardCharsets.UTF_8)));
+      channel.force(true);
+    }
+    Files.move(tempFile, manifestFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Entries read from the segments: chunks not acknowledged so far and the progress of the job
+   */
+  private static class RecoveredEntries {
+    private final Map<Long, byte[]> chunks = new TreeMap<>();
+    private long lastSequence;
+    private int recordsCounter;
+
+    void add(byte type, long sequence, int counter, byte[] payload) {
+      if (type == CHUNK_ENTRY) {
+        chunks.put(sequence, payload);
+      } else if (type == ACK_ENTRY) {
+        chunks.remove(sequence);
+      }
+      lastSequence = Math.max(lastSequence, sequence);
+      recordsCounter = Math.max(recordsCounter, counter);
+    }
+  }
+}
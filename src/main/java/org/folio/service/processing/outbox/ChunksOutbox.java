@@ -0,0 +1,297 @@
+package org.folio.service.processing.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Outbox of the chunks sent to the mod-source-record-manager: the local directory with the journal of every job
+ * in progress, see {@link ChunksJournal}. Chunks are journaled before they are sent and acknowledged once they
+ * are accepted, after the restart the jobs are resumed by the journals left by the previous run.
+ * Job with the chunks not acknowledged is resumed only if the deduplication of the chunks is confirmed,
+ * as such chunks may have been stored by the receiving side before the restart.
+ * All the journals are written by the single writer thread that takes all the entries queued so far
+ * and syncs every written segment once, so the chunks appended at the same time share the sync.
+ */
+public class ChunksOutbox {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChunksOutbox.class);
+  private static final String OUTBOX_PATH = MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.outbox.path", "./outbox");
+  private static final long SEGMENT_BYTES =
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.outbox.segment.bytes", String.valueOf(64 * 1024 * 1024)));
+  private static final Counter SYNCS_COUNTER = Counter.builder("data.import.outbox.syncs")
+    .description("Number of the journal segments synced to the disk")
+    .register(Metrics.globalRegistry);
+  private static final Counter ENTRIES_COUNTER = Counter.builder("data.import.outbox.entries")
+    .description("Number of the entries written to the journals of the chunks")
+    .register(Metrics.globalRegistry);
+  private static final Counter COMPACTED_SEGMENTS_COUNTER = Counter.builder("data.import.outbox.segments.compacted")
+    .description("Number of the journal segments removed once all their chunks are acknowledged")
+    .register(Metrics.globalRegistry);
+
+  private static ChunksOutbox instance;
+
+  private final Path directory;
+  private final long segmentBytes;
+  private final Map<String, ChunksJournal> journals = new ConcurrentHashMap<>();
+  private final BlockingQueue<WriteTask> writeQueue = new LinkedBlockingQueue<>();
+  private final AtomicLong syncs = new AtomicLong();
+  private final AtomicLong writtenEntries = new AtomicLong();
+  private final Thread writer;
+  private volatile boolean closed;
+
+  public ChunksOutbox(Path directory, long segmentBytes) {
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.writer = new Thread(this::writeEntries, "chunks-outbox-writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Returns the outbox configured for the module, the outbox is created on the first call
+   *
+   * @return chunks outbox
+   */
+  public static synchronized ChunksOutbox getInstance() {
+    if (instance == null) {
+      instance = new ChunksOutbox(Paths.get(OUTBOX_PATH), SEGMENT_BYTES);
+    }
+    return instance;
+  }
+
+  /**
+   * Creates journal of the job, blocks while the manifest is written
+   *
+   * @param jobExecutionId job execution id
+   * @param manifest       description of the job needed to resume it
+   * @return journal of the job
+   * @throws IOException if the journal can not be created
+   */
+  public ChunksJournal open(String jobExecutionId, JsonObject manifest) throws IOException {
+    ChunksJournal journal = ChunksJournal.create(this, directory.resolve(jobExecutionId), manifest, segmentBytes);
+    journals.put(jobExecutionId, journal);
+    return journal;
+  }
+
+  /**
+   * Reads the journals left by the previous run, blocks while the journals are read and compacted
+   *
+   * @return journals of the jobs to resume
+   * @throws IOException if the outbox can not be read
+   */
+  public List<ChunksJournal> recover() throws IOException {
+    List<ChunksJournal> recoveredJournals = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return recoveredJournals;
+    }
+    try (DirectoryStream<Path> jobDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+      for (Path jobDirectory : jobDirectories) {
+        if (!Files.exists(jobDirectory.resolve(ChunksJournal.MANIFEST_FILE))) {
+          LOGGER.warn("Directory {} of the outbox has no manifest, it is skipped", jobDirectory);
+          continue;
+        }
+        ChunksJournal journal = ChunksJournal.recover(this, jobDirectory, segmentBytes);
+        journals.put(jobDirectory.getFileName().toString(), journal);
+        recoveredJournals.add(journal);
+      }
+    }
+    return recoveredJournals;
+  }
+
+  /**
+   * Returns journal of the job
+   *
+   * @param jobExecutionId job execution id
+   * @return journal or null if the job is not journaled
+   */
+  public ChunksJournal getJournal(String jobExecutionId) {
+    return journals.get(jobExecutionId);
+  }
+
+  /**
+   * Removes journal of the job once the job is processed
+   *
+   * @param jobExecutionId job execution id
+   * @return future completed once the journal is removed
+   */
+  public Future<Void> delete(String jobExecutionId) {
+    ChunksJournal journal = journals.remove(jobExecutionId);
+    return journal != null ? journal.delete() : Future.succeededFuture();
+  }
+
+  public long getSyncs() {
+    return syncs.get();
+  }
+
+  public long getWrittenEntries() {
+    return writtenEntries.get();
+  }
+
+  /**
+   * Closes the outbox configured for the module if it has been created, blocks until the queued entries are synced
+   */
+  public static synchronized void closeInstance() throws InterruptedException {
+    if (instance != null) {
+      instance.close();
+      instance = null;
+    }
+  }
+
+  /**
+   * Stops the writer thread, the entries queued so far are written and the active segments are synced,
+   * so the acknowledgements written since the last sync are not lost by the module shutdown
+   */
+  public void close() throws InterruptedException {
+    closed = true;
+    writer.join();
+  }
+
+  /**
+   * Queues the write to the journal
+   *
+   * @param write   writes the entry and returns the segment written or null if nothing is written
+   * @param durable whether the returned future is completed after the segment is synced
+   * @return future completed once the entry is written
+   */
+  Future<Void> submit(JournalWrite write, boolean durable) {
+    Promise<Void> promise = Promise.promise();
+    if (closed) {
+      promise.fail("Chunks outbox is closed");
+      return promise.future();
+    }
+    writeQueue.add(new WriteTask(write, durable, promise, Vertx.currentContext()));
+    return promise.future();
+  }
+
+  void onSegmentCompacted() {
+    COMPACTED_SEGMENTS_COUNTER.increment();
+  }
+
+  private void writeEntries() {
+    List<WriteTask> batch = new ArrayList<>();
+    while (!closed || !writeQueue.isEmpty()) {
+      try {
+        WriteTask firstTask = writeQueue.poll(100, TimeUnit.MILLISECONDS);
+        if (firstTask == null) {
+          continue;
+        }
+        batch.add(firstTask);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      writeQueue.drainTo(batch);
+      writeBatch(batch);
+      batch.clear();
+    }
+    journals.values().forEach(journal -> {
+      try {
+        journal.syncSegment();
+        journal.closeSegment();
+      } catch (IOException e) {
+        LOGGER.warn("Can not close journal segment", e);
+      }
+    });
+  }
+
+  /**
+   * Writes the batch of entries and syncs every segment written by the durable entries once
+   */
+  private void writeBatch(List<WriteTask> batch) {
+    Map<FileChannel, Boolean> segmentsToSync = new IdentityHashMap<>();
+    for (WriteTask task : batch) {
+      try {
+        task.segment = task.write.write();
+        if (task.segment != null) {
+          writtenEntries.incrementAndGet();
+          ENTRIES_COUNTER.increment();
+          if (task.durable) {
+            segmentsToSync.put(task.segment, Boolean.TRUE);
+          }
+        }
+      } catch (Exception e) {
+        LOGGER.error("Can not write entry to the chunks journal", e);
+        task.error = e;
+      }
+    }
+    for (FileChannel segment : segmentsToSync.keySet()) {
+      // segment closed by the start of the next one has been synced before it was closed
+      if (!segment.isOpen()) {
+        continue;
+      }
+      try {
+        segment.force(false);
+        syncs.incrementAndGet();
+        SYNCS_COUNTER.increment();
+      } catch (IOException e) {
+        LOGGER.error("Can not sync chunks journal segment", e);
+        batch.stream().filter(task -> task.segment == segment && task.error == null).forEach(task -> task.error = e);
+      }
+    }
+    batch.forEach(WriteTask::complete);
+  }
+
+  /**
+   * Write to the journal performed by the writer thread
+   */
+  @FunctionalInterface
+  interface JournalWrite {
+    FileChannel write() throws IOException;
+  }
+
+  private static class WriteTask {
+    private final JournalWrite write;
+    private final boolean durable;
+    private final Promise<Void> promise;
+    private final Context context;
+    private FileChannel segment;
+    private Throwable error;
+
+    WriteTask(JournalWrite write, boolean durable, Promise<Void> promise, Context context) {
+      this.write = write;
+      this.durable = durable;
+      this.promise = promise;
+      this.context = context;
+    }
+
+    void complete() {
+      if (context != null) {
+        context.runOnContext(v -> completePromise());
+      } else {
+        completePromise();
+      }
+    }
+
+    private void completePromise() {
+      if (error != null) {
+        promise.fail(error);
+      } else {
+        promise.complete();
+      }
+    }
+  }
+}
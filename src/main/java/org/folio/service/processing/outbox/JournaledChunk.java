@@ -0,0 +1,27 @@
+package org.folio.service.processing.outbox;
+
+import org.folio.rest.jaxrs.model.RawRecordsDto;
+
+/**
+ * Chunk of records read from the journal
+ */
+public class JournaledChunk {
+  private final long sequence;
+  private final RawRecordsDto chunk;
+
+  public JournaledChunk(long sequence, RawRecordsDto chunk) {
+    this.sequence = sequence;
+    this.chunk = chunk;
+  }
+
+  /**
+   * @return sequence number of the chunk within the job
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  public RawRecordsDto getChunk() {
+    return chunk;
+  }
+}
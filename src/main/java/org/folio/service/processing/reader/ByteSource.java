@@ -0,0 +1,41 @@
+package org.folio.service.processing.reader;
+
+import java.io.IOException;
+
+/**
+ * Source of the file bytes split into records by {@link MarcRawSplitReader}.
+ * Bytes are addressed by their position in the file, the source tells how far the bytes can be read,
+ * so the same split logic reads the stored file and the file that is still being uploaded.
+ */
+interface ByteSource {
+
+  /**
+   * Checks the source has the given number of bytes, may block while the bytes are being written
+   *
+   * @param length number of bytes from the start of the file
+   * @return true if the bytes up to the given length can be read, false if the source ends before
+   */
+  boolean has(long length) throws IOException;
+
+  /**
+   * Returns the byte at the given position, the position has to be checked by {@link #has(long)} before
+   *
+   * @param position position in the file
+   * @return byte of the file
+   */
+  byte byteAt(long position) throws IOException;
+
+  /**
+   * Reads the bytes of the given range, the range has to be checked by {@link #has(long)} before
+   *
+   * @param position position in the file the range starts at
+   * @param length   length of the range
+   * @return bytes of the range
+   */
+  byte[] readBytes(long position, int length) throws IOException;
+
+  /**
+   * Closes the source, the source may be closed more than once
+   */
+  void close() throws IOException;
+}
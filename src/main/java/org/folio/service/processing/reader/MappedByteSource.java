@@ -0,0 +1,85 @@
+package org.folio.service.processing.reader;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Source of the bytes of the stored file or its range, the file is read by the memory-mapped regions.
+ * Byte ranges longer than the longest valid MARC record are read from the channel instead of being mapped.
+ */
+class MappedByteSource implements ByteSource {
+  /* Size of the memory-mapped region, a single MappedByteBuffer can not exceed 2Gb */
+  private static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024;
+  private static final int MAX_MAPPED_READ_LENGTH = 99999;
+
+  private final FileChannel channel;
+  private final long end;
+  private MappedByteBuffer region;
+  private long regionStart;
+
+  /**
+   * @param file file to read
+   * @param end  position in the file the source ends at (exclusive), -1 means the end of file
+   */
+  MappedByteSource(File file, long end) throws IOException {
+    this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    this.end = end < 0 ? channel.size() : Math.min(end, channel.size());
+  }
+
+  @Override
+  public boolean has(long length) {
+    return length <= end;
+  }
+
+  @Override
+  public byte byteAt(long position) throws IOException {
+    mapRegion(position, 1);
+    return region.get((int) (position - regionStart));
+  }
+
+  @Override
+  public byte[] readBytes(long position, int length) throws IOException {
+    byte[] bytes = new byte[length];
+    if (length > MAX_MAPPED_READ_LENGTH) {
+      readFully(ByteBuffer.wrap(bytes), position);
+      return bytes;
+    }
+    mapRegion(position, length);
+    ByteBuffer view = region.duplicate();
+    view.position((int) (position - regionStart));
+    view.get(bytes);
+    return bytes;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+    region = null;
+  }
+
+  private void readFully(ByteBuffer target, long position) throws IOException {
+    long readPosition = position;
+    while (target.hasRemaining()) {
+      int read = channel.read(target, readPosition);
+      if (read < 0) {
+        throw new EOFException("Unexpected end of file at position " + readPosition);
+      }
+      readPosition += read;
+    }
+  }
+
+  /**
+   * Maps file region containing the range [position, position + length) unless it is already mapped
+   */
+  private void mapRegion(long position, int length) throws IOException {
+    if (region == null || position < regionStart || position + length > regionStart + region.limit()) {
+      regionStart = position;
+      region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(MAPPED_REGION_SIZE, end - regionStart));
+    }
+  }
+}
@@ -8,9 +8,11 @@ import com.google.gson.stream.JsonToken;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.folio.rest.jaxrs.model.InitialRecord;
 import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.folio.service.storage.CompressionFormat;
 
 import java.io.File;
 import java.io.IOException;
@@ -26,6 +28,7 @@ public class MarcJsonReader implements SourceReader {
   private static final Logger LOGGER = LoggerFactory.getLogger(MarcJsonReader.class);
   public static final String JSON_EXTENSION = "json";
   private JsonReader reader;
+  private CountingInputStream inputStream;
   private int chunkSize;
   private MutableInt recordsCounter;
 
@@ -33,7 +36,8 @@ public class MarcJsonReader implements SourceReader {
     this.chunkSize = chunkSize;
     recordsCounter = new MutableInt(0);
     try {
-      this.reader = new JsonReader(new InputStreamReader(FileUtils.openInputStream(file)));
+      this.inputStream = new CountingInputStream(FileUtils.openInputStream(file));
+      this.reader = new JsonReader(new InputStreamReader(CompressionFormat.decompress(inputStream)));
     } catch (IOException e) {
       LOGGER.error("Cannot initialize reader", e);
       throw new RecordsReaderException(e);
@@ -80,4 +84,14 @@ public class MarcJsonReader implements SourceReader {
   public RecordsMetadata.ContentType getContentType() {
     return RecordsMetadata.ContentType.MARC_JSON;
   }
+
+  @Override
+  public long getBytesRead() {
+    return inputStream.getByteCount();
+  }
+
+  @Override
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
 }
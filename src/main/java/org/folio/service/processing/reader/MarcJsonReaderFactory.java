@@ -0,0 +1,35 @@
+package org.folio.service.processing.reader;
+
+import org.folio.service.storage.index.RecordFormat;
+
+import java.util.Optional;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+import static org.folio.service.processing.reader.MarcJsonReader.JSON_EXTENSION;
+
+/**
+ * Factory of readers of MARC-JSON files: the content is an array of record objects or a single record object.
+ */
+public class MarcJsonReaderFactory implements SourceReaderFactory {
+
+  private static final boolean MARC_JSON_SPAN_ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.marc.json.span.enabled", "false"));
+
+  @Override
+  public int score(SourceFileSample sample) {
+    int firstByte = sample.getFirstSignificantByte();
+    return firstByte == '[' || firstByte == '{' ? 90 + SourceReaderFactory.extensionBonus(sample, JSON_EXTENSION) : 0;
+  }
+
+  @Override
+  public SourceReader create(SourceFileSample sample, int chunkSize) {
+    return MARC_JSON_SPAN_ENABLED
+      ? new MarcJsonSpanReader(sample.getFile(), chunkSize)
+      : new MarcJsonReader(sample.getFile(), chunkSize);
+  }
+
+  @Override
+  public Optional<RecordFormat> getIndexFormat() {
+    return Optional.of(RecordFormat.MARC_JSON);
+  }
+}
@@ -0,0 +1,224 @@
+package org.folio.service.processing.reader;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.folio.rest.jaxrs.model.InitialRecord;
+import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.folio.service.storage.CompressionFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Implementation reads source records in json format from the local file system in fixed-size buffer.
+ * Unlike {@link MarcJsonReader} it does not build json objects: a streaming tokenizer finds where each
+ * top-level record starts and ends, and the raw text of the record is copied to the {@link InitialRecord} as is.
+ * Only the structure of the file (array of objects or a single object) is validated,
+ * the content of the records is left to the records consumer.
+ * <code>next</code> method returns buffer content once the buffer is full or the target file has come to the end.
+ */
+public class MarcJsonSpanReader implements SourceReader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MarcJsonSpanReader.class);
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  private Reader reader;
+  private CountingInputStream inputStream;
+  private char[] readBuffer = new char[READ_BUFFER_SIZE];
+  private int bufferPosition;
+  private int bufferLimit;
+  private boolean insideArray;
+  private boolean expectingComma;
+  private boolean finished;
+  private int chunkSize;
+  private MutableInt recordsCounter;
+
+  public MarcJsonSpanReader(File file, int chunkSize) {
+    this.chunkSize = chunkSize;
+    recordsCounter = new MutableInt(0);
+    try {
+      this.inputStream = new CountingInputStream(FileUtils.openInputStream(file));
+      this.reader = new InputStreamReader(CompressionFormat.decompress(inputStream), StandardCharsets.UTF_8);
+      if (peekSignificantChar() == '[') {
+        bufferPosition++;
+        insideArray = true;
+      }
+    } catch (IOException e) {
+      LOGGER.error("Cannot initialize reader", e);
+      throw new RecordsReaderException(e);
+    }
+  }
+
+  @Override
+  public List<InitialRecord> next() {
+    RecordsBuffer recordsBuffer = new RecordsBuffer(this.chunkSize);
+    try {
+      while (hasNext()) {
+        recordsBuffer.add(new InitialRecord().withRecord(readRecord()).withOrder(recordsCounter.getAndIncrement()));
+        if (recordsBuffer.isFull()) {
+          return recordsBuffer.getRecords();
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.error("Error reading next record", e);
+      throw new RecordsReaderException(e);
+    }
+    return recordsBuffer.getRecords();
+  }
+
+  @Override
+  public boolean hasNext() {
+    try {
+      if (finished) {
+        return false;
+      }
+      int c = peekSignificantChar();
+      if (insideArray) {
+        if (c == ',' && expectingComma) {
+          bufferPosition++;
+          expectingComma = false;
+          c = peekSignificantChar();
+        } else if (c == ']') {
+          bufferPosition++;
+          insideArray = false;
+          expectingComma = false;
+          c = peekSignificantChar();
+          if (c != -1) {
+            throw malformedJson("Unexpected content after the end of the records array", c);
+          }
+        } else if (c == -1) {
+          throw malformedJson("Records array is not closed", c);
+        }
+      }
+      if (c == -1) {
+        finish();
+        return false;
+      }
+      if (c != '{' || expectingComma) {
+        throw malformedJson("Expected a record object", c);
+      }
+      return true;
+    } catch (IOException e) {
+      LOGGER.error("Error checking for the next record", e);
+      throw new RecordsReaderException(e);
+    }
+  }
+
+  @Override
+  public RecordsMetadata.ContentType getContentType() {
+    return RecordsMetadata.ContentType.MARC_JSON;
+  }
+
+  @Override
+  public long getBytesRead() {
+    return inputStream.getByteCount();
+  }
+
+  @Override
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public void close() {
+    try {
+      reader.close();
+    } catch (IOException e) {
+      LOGGER.warn("Error closing the file", e);
+    }
+  }
+
+  /**
+   * Marks the file as read and closes it, the file is closed wherever the end of the records is reached
+   */
+  private void finish() {
+    finished = true;
+    close();
+  }
+
+  /**
+   * Copies the json object starting at the current position.
+   * Nesting depth is tracked for objects and arrays outside of string literals.
+   *
+   * @return raw text of the json object
+   */
+  private String readRecord() throws IOException {
+    StringBuilder record = new StringBuilder();
+    int depth = 0;
+    boolean insideString = false;
+    boolean escaped = false;
+    while (true) {
+      if (bufferPosition == bufferLimit && !fillBuffer()) {
+        throw malformedJson("Unexpected end of file inside the record", -1);
+      }
+      int spanStart = bufferPosition;
+      while (bufferPosition < bufferLimit) {
+        char c = readBuffer[bufferPosition++];
+        if (insideString) {
+          if (escaped) {
+            escaped = false;
+          } else if (c == '\\') {
+            escaped = true;
+          } else if (c == '"') {
+            insideString = false;
+          }
+        } else if (c == '"') {
+          insideString = true;
+        } else if (c == '{' || c == '[') {
+          depth++;
+        } else if ((c == '}' || c == ']') && --depth == 0) {
+          record.append(readBuffer, spanStart, bufferPosition - spanStart);
+          expectingComma = true;
+          if (!insideArray) {
+            int next = peekSignificantChar();
+            if (next != -1) {
+              throw malformedJson("Unexpected content after the record", next);
+            }
+            finish();
+          }
+          return record.toString();
+        }
+      }
+      record.append(readBuffer, spanStart, bufferPosition - spanStart);
+    }
+  }
+
+  /**
+   * Skips whitespace and returns the next character without consuming it
+   *
+   * @return next significant character or -1 if the end of file is reached
+   */
+  private int peekSignificantChar() throws IOException {
+    while (true) {
+      if (bufferPosition == bufferLimit && !fillBuffer()) {
+        return -1;
+      }
+      char c = readBuffer[bufferPosition];
+      if (!Character.isWhitespace(c) && c != '\uFEFF') {
+        return c;
+      }
+      bufferPosition++;
+    }
+  }
+
+  private boolean fillBuffer() throws IOException {
+    int read = reader.read(readBuffer, 0, readBuffer.length);
+    bufferPosition = 0;
+    bufferLimit = Math.max(read, 0);
+    return read > 0;
+  }
+
+  private RecordsReaderException malformedJson(String message, int c) {
+    String errorMessage = String.format("Malformed json file: %s, found '%s' after %s records", message,
+      c == -1 ? "end of file" : String.valueOf((char) c), recordsCounter.getValue());
+    LOGGER.error(errorMessage);
+    return new RecordsReaderException(new IOException(errorMessage));
+  }
+}
@@ -3,9 +3,11 @@ package org.folio.service.processing.reader;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.folio.rest.jaxrs.model.InitialRecord;
 import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.folio.service.storage.CompressionFormat;
 import org.marc4j.MarcPermissiveStreamReader;
 import org.marc4j.MarcStreamWriter;
 import org.marc4j.marc.Record;
@@ -16,6 +18,7 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.Optional;
 
 import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
 
@@ -28,6 +31,7 @@ public class MarcRawReader implements SourceReader {
   private static final Charset CHARSET = Charset.forName(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.buffer.record.charset", "UTF8"));
   private static final Logger logger = LoggerFactory.getLogger(MarcRawReader.class);
   private MarcPermissiveStreamReader reader;
+  private CountingInputStream inputStream;
   private int chunkSize;
   private MutableInt recordsCounter;
 
@@ -35,7 +39,8 @@ public class MarcRawReader implements SourceReader {
     this.chunkSize = chunkSize;
     recordsCounter = new MutableInt(0);
     try {
-      this.reader = new MarcPermissiveStreamReader(FileUtils.openInputStream(file), true, true);
+      this.inputStream = new CountingInputStream(FileUtils.openInputStream(file));
+      this.reader = new MarcPermissiveStreamReader(CompressionFormat.decompress(inputStream), true, true);
     } catch (IOException e) {
       String errorMessage = "Can not initialize reader. Cause: " + e.getMessage();
       LOGGER.error(errorMessage);
@@ -48,15 +53,8 @@ public class MarcRawReader implements SourceReader {
     RecordsBuffer recordsBuffer = new RecordsBuffer(this.chunkSize);
     while (this.reader.hasNext()) {
       Record rawRecord = this.reader.next();
-      ByteArrayOutputStream bos = new ByteArrayOutputStream();
-      MarcStreamWriter streamWriter = new MarcStreamWriter(bos, CHARSET.name());
-      streamWriter.write(rawRecord);
-      streamWriter.close();
-      try {
-        recordsBuffer.add(new InitialRecord().withRecord(bos.toString(CHARSET.name())).withOrder(recordsCounter.getAndIncrement()));
-      } catch (UnsupportedEncodingException e) {
-        logger.error("Error during reading MARC record. Record will be skipped.", e);
-      }
+      writeRecord(rawRecord)
+        .ifPresent(record -> recordsBuffer.add(new InitialRecord().withRecord(record).withOrder(recordsCounter.getAndIncrement())));
       if (recordsBuffer.isFull()) {
         return recordsBuffer.getRecords();
       }
@@ -73,4 +71,33 @@ public class MarcRawReader implements SourceReader {
   public RecordsMetadata.ContentType getContentType() {
     return RecordsMetadata.ContentType.MARC_RAW;
   }
+
+  @Override
+  public long getBytesRead() {
+    return inputStream.getByteCount();
+  }
+
+  @Override
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Serializes marc4j record to the raw MARC21 representation
+   *
+   * @param rawRecord marc4j record
+   * @return raw MARC21 record, or empty Optional if record can not be serialized
+   */
+  static Optional<String> writeRecord(Record rawRecord) {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    MarcStreamWriter streamWriter = new MarcStreamWriter(bos, CHARSET.name());
+    streamWriter.write(rawRecord);
+    streamWriter.close();
+    try {
+      return Optional.of(bos.toString(CHARSET.name()));
+    } catch (UnsupportedEncodingException e) {
+      logger.error("Error during reading MARC record. Record will be skipped.", e);
+      return Optional.empty();
+    }
+  }
 }
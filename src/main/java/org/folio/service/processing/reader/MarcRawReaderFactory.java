@@ -0,0 +1,91 @@
+package org.folio.service.processing.reader;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import org.folio.service.storage.UploadProgress;
+import org.folio.service.storage.index.RecordFormat;
+
+import java.io.File;
+import java.util.Optional;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Factory of readers of raw MARC21 files: the content starts with the leader with 5 digits of the record length,
+ * a field terminator or record terminator follows within the sample.
+ */
+public class MarcRawReaderFactory implements SourceReaderFactory {
+
+  private static final boolean MARC_RAW_SPLIT_ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.marc.raw.split.enabled", "false"));
+  private static final int PARALLEL_RANGES_NUMBER =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.parallel.ranges.number", "1"));
+  /* Size of the worker pool shared by the ranges of all the files read in parallel */
+  private static final int PARALLEL_RANGES_POOL_SIZE =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.parallel.ranges.pool.size", "4"));
+  private static final String PARALLEL_RANGES_POOL_NAME = "marc-raw-ranges-thread-pool";
+  private static final String MARC_EXTENSION = "mrc";
+  private static final int LEADER_LENGTH = 24;
+  private static final byte FIELD_TERMINATOR = 0x1E;
+  private static final byte RECORD_TERMINATOR = 0x1D;
+
+  @Override
+  public int score(SourceFileSample sample) {
+    byte[] head = sample.getHead();
+    int start = 0;
+    while (start < head.length && (head[start] == '\n' || head[start] == '\r' || head[start] == ' ')) {
+      start++;
+    }
+    if (start == head.length) {
+      // empty file, there are no records to read by any reader
+      return 1;
+    }
+    if (head.length - start < LEADER_LENGTH) {
+      return 0;
+    }
+    for (int i = start; i < start + 5; i++) {
+      if (head[i] < '0' || head[i] > '9') {
+        return 0;
+      }
+    }
+    for (int i = start + LEADER_LENGTH; i < head.length; i++) {
+      if (head[i] == FIELD_TERMINATOR || head[i] == RECORD_TERMINATOR) {
+        return 90 + SourceReaderFactory.extensionBonus(sample, MARC_EXTENSION);
+      }
+    }
+    return 10 + SourceReaderFactory.extensionBonus(sample, MARC_EXTENSION);
+  }
+
+  @Override
+  public SourceReader create(SourceFileSample sample, int chunkSize) {
+    File file = sample.getFile();
+    if (sample.isCompressed()) {
+      // compressed content can be read only sequentially
+      return new MarcRawReader(file, chunkSize);
+    }
+    // ranges are read on the shared worker pool of the vertx instance the file is processed by
+    Context context = Vertx.currentContext();
+    if (PARALLEL_RANGES_NUMBER > 1 && context != null) {
+      return ParallelMarcRawReader.splitIntoRanges(file, PARALLEL_RANGES_NUMBER)
+        .<SourceReader>map(bounds -> new ParallelMarcRawReader(file, chunkSize, bounds,
+          context.owner().createSharedWorkerExecutor(PARALLEL_RANGES_POOL_NAME, PARALLEL_RANGES_POOL_SIZE)))
+        .orElseGet(() -> createSequentialReader(file, chunkSize));
+    }
+    return createSequentialReader(file, chunkSize);
+  }
+
+  @Override
+  public SourceReader createTailing(SourceFileSample sample, int chunkSize, UploadProgress upload) {
+    // records of the compressed content can not be told from the partially written gzip member
+    return sample.isCompressed() ? null : new MarcRawSplitReader(sample.getFile(), chunkSize, upload);
+  }
+
+  private SourceReader createSequentialReader(File file, int chunkSize) {
+    return MARC_RAW_SPLIT_ENABLED ? new MarcRawSplitReader(file, chunkSize) : new MarcRawReader(file, chunkSize);
+  }
+
+  @Override
+  public Optional<RecordFormat> getIndexFormat() {
+    return Optional.of(RecordFormat.MARC_RAW);
+  }
+}
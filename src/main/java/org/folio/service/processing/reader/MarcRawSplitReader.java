@@ -0,0 +1,255 @@
+package org.folio.service.processing.reader;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.folio.rest.jaxrs.model.InitialRecord;
+import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.folio.service.storage.UploadProgress;
+import org.marc4j.MarcException;
+import org.marc4j.MarcPermissiveStreamReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Implementation reads raw MARC21 records from the local file system without building marc4j records.
+ * The file is split into records using the 5-digit record length from the leader
+ * and the record terminator (0x1D), the original bytes of the record are emitted as is.
+ * Records that fail the structural check (wrong length, missing terminator, non UTF-8 encoding)
+ * are handed over to the {@link MarcPermissiveStreamReader}, the same way {@link MarcRawReader} does.
+ * Bytes are taken from the {@link ByteSource}: the stored file is memory-mapped, the file that is still being uploaded
+ * is read as far as it is written and the reader waits at the partial trailing record until the rest of it is written,
+ * in that case both methods may block the calling worker thread while the file is being uploaded.
+ * <code>next</code> method returns buffer content once the buffer is full or the target file has come to the end.
+ */
+public class MarcRawSplitReader implements SourceReader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MarcRawSplitReader.class);
+  private static final Charset CHARSET = Charset.forName(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.buffer.record.charset", "UTF8"));
+  private static final int LEADER_LENGTH = 24;
+  private static final int MAX_RECORD_LENGTH = 99999;
+  private static final byte RECORD_TERMINATOR = 0x1D;
+  private static final byte FIELD_TERMINATOR = 0x1E;
+  private static final byte UNICODE_CODING_SCHEME = 'a';
+
+  private ByteSource source;
+  private long position;
+  private volatile int chunkSize;
+  private MutableInt recordsCounter;
+
+  public MarcRawSplitReader(File file, int chunkSize) {
+    this(file, chunkSize, 0, -1);
+  }
+
+  /**
+   * Creates reader of the file range, the range has to start at the record start and end at the record end
+   *
+   * @param file      file to read
+   * @param chunkSize number of records in the chunk
+   * @param start     position in the file the range starts at
+   * @param end       position in the file the range ends at (exclusive), -1 means the end of file
+   */
+  public MarcRawSplitReader(File file, int chunkSize, long start, long end) {
+    this(chunkSize, start, () -> new MappedByteSource(file, end));
+  }
+
+  /**
+   * Creates reader of the file that is still being uploaded, the file is read till the end of the upload
+   *
+   * @param file      file to read
+   * @param chunkSize number of records in the chunk
+   * @param upload    progress of the file upload
+   */
+  public MarcRawSplitReader(File file, int chunkSize, UploadProgress upload) {
+    this(chunkSize, 0, () -> new TailingByteSource(file, upload));
+  }
+
+  private MarcRawSplitReader(int chunkSize, long start, ByteSourceOpener opener) {
+    this.chunkSize = chunkSize;
+    recordsCounter = new MutableInt(0);
+    try {
+      this.source = opener.open();
+      this.position = start;
+    } catch (IOException e) {
+      String errorMessage = "Can not initialize reader. Cause: " + e.getMessage();
+      LOGGER.error(errorMessage);
+      throw new IllegalArgumentException(errorMessage);
+    }
+  }
+
+  @Override
+  public List<InitialRecord> next() {
+    RecordsBuffer recordsBuffer = new RecordsBuffer(this.chunkSize);
+    try {
+      while (hasNext()) {
+        long recordStart = position;
+        int recordLength = getValidRecordLength(recordStart);
+        if (recordLength > 0) {
+          position = recordStart + recordLength;
+          String record = new String(source.readBytes(recordStart, recordLength), CHARSET);
+          recordsBuffer.add(new InitialRecord().withRecord(record).withOrder(recordsCounter.getAndIncrement()));
+        } else {
+          // resync: everything up to the next record terminator is treated as a single corrupted record
+          position = findRecordEnd(recordStart);
+          readCorruptedRecord(source.readBytes(recordStart, getCorruptedRecordLength(recordStart, position)), recordStart, recordsBuffer);
+        }
+        if (recordsBuffer.isFull()) {
+          return recordsBuffer.getRecords();
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.error("Error reading next record", e);
+      close();
+      throw new RecordsReaderException(e);
+    }
+    return recordsBuffer.getRecords();
+  }
+
+  @Override
+  public boolean hasNext() {
+    try {
+      skipRecordSeparators();
+      boolean hasNext = source.has(position + 1);
+      if (!hasNext) {
+        close();
+      }
+      return hasNext;
+    } catch (IOException e) {
+      LOGGER.error("Error checking for the next record", e);
+      close();
+      throw new RecordsReaderException(e);
+    }
+  }
+
+  @Override
+  public RecordsMetadata.ContentType getContentType() {
+    return RecordsMetadata.ContentType.MARC_RAW;
+  }
+
+  @Override
+  public long getBytesRead() {
+    return position;
+  }
+
+  @Override
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public void close() {
+    try {
+      source.close();
+    } catch (IOException e) {
+      LOGGER.warn("Error closing the file", e);
+    }
+  }
+
+  /**
+   * Checks the record structure starting at given position: leader with numeric record length and base address,
+   * directory ending with field terminator, record terminator at the declared end of record
+   * and unicode character coding scheme. Waits for the whole record to be written if the file is being uploaded.
+   *
+   * @param recordStart position of the record in the file
+   * @return record length if record is structurally valid, otherwise -1
+   */
+  private int getValidRecordLength(long recordStart) throws IOException {
+    if (!source.has(recordStart + LEADER_LENGTH)) {
+      return -1;
+    }
+    int recordLength = parseNumber(recordStart, 5);
+    int baseAddress = parseNumber(recordStart + 12, 5);
+    if (recordLength <= LEADER_LENGTH || baseAddress <= LEADER_LENGTH || baseAddress >= recordLength
+      || !source.has(recordStart + recordLength)) {
+      return -1;
+    }
+    if (source.byteAt(recordStart + recordLength - 1) != RECORD_TERMINATOR
+      || source.byteAt(recordStart + baseAddress - 1) != FIELD_TERMINATOR
+      || source.byteAt(recordStart + 9) != UNICODE_CODING_SCHEME) {
+      return -1;
+    }
+    return recordLength;
+  }
+
+  private int parseNumber(long from, int digits) throws IOException {
+    int value = 0;
+    for (int i = 0; i < digits; i++) {
+      byte digit = source.byteAt(from + i);
+      if (digit < '0' || digit > '9') {
+        return -1;
+      }
+      value = value * 10 + (digit - '0');
+    }
+    return value;
+  }
+
+  /**
+   * Scans the file for the next record terminator.
+   *
+   * @param from position to start scan from
+   * @return position right after the record terminator or the end of file if there is no terminator
+   */
+  private long findRecordEnd(long from) throws IOException {
+    long i = from;
+    while (source.has(i + 1)) {
+      if (source.byteAt(i) == RECORD_TERMINATOR) {
+        return i + 1;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Limits the corrupted record to the longest valid MARC record, the rest of the span up to the next record terminator
+   * is skipped, so the file without record terminators is not read into memory at once
+   */
+  private int getCorruptedRecordLength(long recordStart, long recordEnd) {
+    long length = recordEnd - recordStart;
+    if (length > MAX_RECORD_LENGTH) {
+      LOGGER.warn("Corrupted MARC record at position {} spans {} bytes, only first {} bytes are read and the rest is skipped",
+        recordStart, length, MAX_RECORD_LENGTH);
+      return MAX_RECORD_LENGTH;
+    }
+    return (int) length;
+  }
+
+  private void readCorruptedRecord(byte[] recordBytes, long recordStart, RecordsBuffer recordsBuffer) {
+    LOGGER.debug("MARC record at position {} failed structural check, reading it in permissive mode", recordStart);
+    try {
+      MarcPermissiveStreamReader permissiveReader = new MarcPermissiveStreamReader(new ByteArrayInputStream(recordBytes), true, true);
+      while (permissiveReader.hasNext()) {
+        MarcRawReader.writeRecord(permissiveReader.next())
+          .ifPresent(record -> recordsBuffer.add(new InitialRecord().withRecord(record).withOrder(recordsCounter.getAndIncrement())));
+      }
+    } catch (MarcException e) {
+      LOGGER.error("Can not read MARC record at position {}. Record will be skipped.", e, recordStart);
+    }
+  }
+
+  /**
+   * Skips line breaks and other whitespace some exporters put between records
+   */
+  private void skipRecordSeparators() throws IOException {
+    while (source.has(position + 1)) {
+      byte b = source.byteAt(position);
+      if (b != '\n' && b != '\r' && b != ' ') {
+        return;
+      }
+      position++;
+    }
+  }
+
+  /**
+   * Opens the source of the file bytes
+   */
+  @FunctionalInterface
+  private interface ByteSourceOpener {
+    ByteSource open() throws IOException;
+  }
+}
@@ -2,65 +2,168 @@ package org.folio.service.processing.reader;
 
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.mutable.MutableInt;
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
-import org.dom4j.Element;
-import org.dom4j.io.SAXReader;
 import org.folio.rest.jaxrs.model.InitialRecord;
 import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.folio.service.storage.CompressionFormat;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.File;
-import java.util.Iterator;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.List;
 
 /**
  * It reads marc records from an xml file by specified size of chunk.
+ * The file is streamed with StAX, only the record being read is kept in memory,
+ * so memory consumption does not depend on the file size.
  */
 public class MarcXmlReader implements SourceReader {
   public static final String XML_EXTENSION = "xml";
   private static final Logger LOGGER = LoggerFactory.getLogger(MarcXmlReader.class);
-  private Document document;
+  private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+  private static final XMLOutputFactory OUTPUT_FACTORY = createOutputFactory();
+  private CountingInputStream inputStream;
+  private XMLStreamReader reader;
   private int chunkSize;
-  private Iterator iterator;
   private MutableInt recordsCounter;
 
   public MarcXmlReader(File file, int chunkSize) {
     this.chunkSize = chunkSize;
     recordsCounter = new MutableInt(0);
     try {
-      // SAXReader.createDefault() prevents XXE attacks by
-      // disabling external DTDs and External Entities
-      // https://cve.mitre.org/cgi-bin/cvename.cgi?name=CVE-2020-10683
-      // https://github.com/dom4j/dom4j/releases/tag/version-2.1.3
-      this.document = SAXReader.createDefault().read(file);
-    } catch (DocumentException e) {
+      this.inputStream = new CountingInputStream(FileUtils.openInputStream(file));
+      this.reader = INPUT_FACTORY.createXMLStreamReader(CompressionFormat.decompress(inputStream));
+      // move to the root element, records are its direct children
+      reader.nextTag();
+      reader.next();
+    } catch (IOException | XMLStreamException e) {
       LOGGER.error("Can not read the xml file: %s", e, file);
       throw new RecordsReaderException(e);
     }
-    this.iterator = document.getRootElement().elementIterator();
   }
 
   @Override
   public List<InitialRecord> next() {
     RecordsBuffer buffer = new RecordsBuffer(this.chunkSize);
-    while (iterator.hasNext()) {
-      Element element = (Element) iterator.next();
-      buffer.add(new InitialRecord().withRecord(element.asXML()).withOrder(recordsCounter.getAndIncrement()));
-      if (buffer.isFull()) {
-        break;
+    try {
+      while (hasNext()) {
+        buffer.add(new InitialRecord().withRecord(readElement()).withOrder(recordsCounter.getAndIncrement()));
+        if (buffer.isFull()) {
+          break;
+        }
       }
+    } catch (XMLStreamException e) {
+      LOGGER.error("Error reading next record", e);
+      throw new RecordsReaderException(e);
     }
     return buffer.getRecords();
   }
 
   @Override
   public boolean hasNext() {
-    return iterator.hasNext();
+    try {
+      while (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+        if (reader.getEventType() == XMLStreamConstants.END_ELEMENT || !reader.hasNext()) {
+          // end of the root element
+          close();
+          return false;
+        }
+        reader.next();
+      }
+      return true;
+    } catch (XMLStreamException e) {
+      LOGGER.error("Error checking for the next record", e);
+      throw new RecordsReaderException(e);
+    }
   }
 
   @Override
   public RecordsMetadata.ContentType getContentType() {
     return RecordsMetadata.ContentType.MARC_XML;
   }
+
+  @Override
+  public long getBytesRead() {
+    return inputStream.getByteCount();
+  }
+
+  @Override
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Copies the element the reader is positioned at, including all its descendants, to the string.
+   * Namespaces used by the element are declared on it, so the result is a standalone xml document.
+   * Reader is moved to the event following the element end.
+   *
+   * @return xml representation of the element
+   */
+  private String readElement() throws XMLStreamException {
+    StringWriter out = new StringWriter();
+    XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(out);
+    int depth = 0;
+    do {
+      switch (reader.getEventType()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          writer.writeStartElement(StringUtils.defaultString(reader.getPrefix()), reader.getLocalName(),
+            StringUtils.defaultString(reader.getNamespaceURI()));
+          for (int i = 0; i < reader.getAttributeCount(); i++) {
+            writer.writeAttribute(StringUtils.defaultString(reader.getAttributePrefix(i)),
+              StringUtils.defaultString(reader.getAttributeNamespace(i)), reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+          }
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          writer.writeEndElement();
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          writer.writeCharacters(reader.getText());
+          break;
+        default:
+          // comments and processing instructions are not a part of record
+          break;
+      }
+      reader.next();
+    } while (depth > 0);
+    writer.close();
+    return out.toString();
+  }
+
+  @Override
+  public void close() {
+    try {
+      reader.close();
+      inputStream.close();
+    } catch (XMLStreamException | IOException e) {
+      LOGGER.warn("Error closing the xml file", e);
+    }
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    // prevents XXE attacks by disabling DTDs and external entities
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    return factory;
+  }
+
+  private static XMLOutputFactory createOutputFactory() {
+    XMLOutputFactory factory = XMLOutputFactory.newFactory();
+    factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+    return factory;
+  }
 }
@@ -0,0 +1,28 @@
+package org.folio.service.processing.reader;
+
+import org.folio.service.storage.index.RecordFormat;
+
+import java.util.Optional;
+
+import static org.folio.service.processing.reader.MarcXmlReader.XML_EXTENSION;
+
+/**
+ * Factory of readers of MARCXML files: the content is an xml document with records as children of the root element.
+ */
+public class MarcXmlReaderFactory implements SourceReaderFactory {
+
+  @Override
+  public int score(SourceFileSample sample) {
+    return sample.getFirstSignificantByte() == '<' ? 90 + SourceReaderFactory.extensionBonus(sample, XML_EXTENSION) : 0;
+  }
+
+  @Override
+  public SourceReader create(SourceFileSample sample, int chunkSize) {
+    return new MarcXmlReader(sample.getFile(), chunkSize);
+  }
+
+  @Override
+  public Optional<RecordFormat> getIndexFormat() {
+    return Optional.of(RecordFormat.MARC_XML);
+  }
+}
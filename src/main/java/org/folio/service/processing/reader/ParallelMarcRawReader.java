@@ -0,0 +1,314 @@
+package org.folio.service.processing.reader;
+
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.folio.rest.jaxrs.model.InitialRecord;
+import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.folio.service.storage.index.RecordFormat;
+import org.folio.service.storage.index.RecordOffsetIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Implementation reads raw MARC21 file in several threads.
+ * The file is split into byte ranges aligned to record boundaries, every range is decoded by {@link MarcRawSplitReader}
+ * on the shared worker pool, decoded chunks are put to the queue of the range.
+ * Every range decodes one chunk per task and is rescheduled while its queue has less than {@link #RANGE_QUEUE_CAPACITY} chunks,
+ * so the range tasks never block the pool threads and the ranges of all the files being read share the pool of the configured size.
+ * Chunks are taken from the queues range by range, so records are returned in the file order,
+ * the order of records is renumbered across the ranges.
+ * Chunk at the end of each range may contain less records than the chunk size.
+ */
+public class ParallelMarcRawReader implements SourceReader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParallelMarcRawReader.class);
+  /* Number of decoded chunks a range may keep ahead of the consumer */
+  private static final int RANGE_QUEUE_CAPACITY = 4;
+  /* Ranges smaller than this size are not worth a separate thread */
+  private static final long MIN_RANGE_SIZE = 1024L * 1024;
+  /* Record boundary has to be found within this distance from the split point, otherwise the file is read sequentially */
+  private static final int MAX_BOUNDARY_SCAN_LENGTH = 2 * 99999;
+  private static final byte RECORD_TERMINATOR = 0x1D;
+  private static final List<InitialRecord> END_OF_RANGE = new ArrayList<>();
+  /* Period the consumer checks that the range it waits for is still being read */
+  private static final long RANGE_POLL_INTERVAL_MILLIS = 1000;
+  /* Time the consumer waits for the next chunk of the range before the reading fails */
+  private static final long RANGE_CHUNK_TIMEOUT_MILLIS =
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.parallel.ranges.chunk.timeout.ms", "300000"));
+
+  private List<Range> ranges = new ArrayList<>();
+  private WorkerExecutor rangesExecutor;
+  private AtomicInteger rangesInProgress;
+  private volatile boolean closed;
+  private int currentRange;
+  private List<InitialRecord> nextChunk;
+  private long bytesRead;
+  private MutableInt recordsCounter = new MutableInt(0);
+
+  /**
+   * Starts reading of the file ranges
+   *
+   * @param file           file to read
+   * @param chunkSize      number of records in the chunk
+   * @param bounds         positions of ranges starts in the file, the first one is 0
+   * @param rangesExecutor shared worker pool the ranges are decoded on, the reader closes it once the ranges are read
+   */
+  public ParallelMarcRawReader(File file, int chunkSize, long[] bounds, WorkerExecutor rangesExecutor) {
+    this.rangesExecutor = rangesExecutor;
+    this.rangesInProgress = new AtomicInteger(bounds.length);
+    for (int i = 0; i < bounds.length; i++) {
+      ranges.add(new Range(new MarcRawSplitReader(file, chunkSize, bounds[i], i + 1 < bounds.length ? bounds[i + 1] : -1)));
+    }
+    ranges.forEach(Range::schedule);
+  }
+
+  /**
+   * Splits the raw MARC file into ranges aligned to record boundaries.
+   * Boundaries are taken from the records index of the file if it exists, otherwise the record terminator
+   * followed by a valid record length is looked for near every split point.
+   *
+   * @param file         file to split
+   * @param rangesNumber desired number of ranges
+   * @return positions of ranges starts or empty Optional if the file should be read sequentially
+   */
+  public static Optional<long[]> splitIntoRanges(File file, int rangesNumber) {
+    long fileSize = file.length();
+    int number = (int) Math.min(rangesNumber, fileSize / MIN_RANGE_SIZE);
+    if (number < 2) {
+      return Optional.empty();
+    }
+    try {
+      Optional<RecordOffsetIndex> index = RecordOffsetIndex.open(file.toPath())
+        .filter(recordsIndex -> recordsIndex.getFormat() == RecordFormat.MARC_RAW)
+        .filter(recordsIndex -> recordsIndex.getRecordsNumber() >= number);
+      long[] bounds = new long[number];
+      if (index.isPresent()) {
+        int recordsNumber = index.get().getRecordsNumber();
+        for (int i = 1; i < number; i++) {
+          bounds[i] = index.get().getOffset((int) ((long) recordsNumber * i / number));
+        }
+        return Optional.of(bounds);
+      }
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        for (int i = 1; i < number; i++) {
+          long boundary = findRecordStart(channel, fileSize * i / number);
+          if (boundary <= bounds[i - 1]) {
+            LOGGER.info("Can not find record boundary near position {} of the file {}, file will be read sequentially",
+              fileSize * i / number, file.getPath());
+            return Optional.empty();
+          }
+          bounds[i] = boundary;
+        }
+      }
+      return Optional.of(bounds);
+    } catch (IOException e) {
+      LOGGER.warn("Can not split the file {} into ranges, file will be read sequentially", e, file.getPath());
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Finds the first record starting after given position: record terminator followed by 5 digits of the record length,
+   * line breaks and spaces between records are skipped
+   *
+   * @return position of the record start or -1 if no record starts within the scan length
+   */
+  private static long findRecordStart(FileChannel channel, long from) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(MAX_BOUNDARY_SCAN_LENGTH);
+    channel.read(buffer, from);
+    buffer.flip();
+    for (int i = 0; i < buffer.limit(); i++) {
+      if (buffer.get(i) == RECORD_TERMINATOR) {
+        int recordStart = i + 1;
+        while (recordStart < buffer.limit() && isRecordSeparator(buffer.get(recordStart))) {
+          recordStart++;
+        }
+        if (recordStart + 5 <= buffer.limit() && isRecordLength(buffer, recordStart)) {
+          return from + recordStart;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isRecordSeparator(byte b) {
+    return b == '\n' || b == '\r' || b == ' ';
+  }
+
+  private static boolean isRecordLength(ByteBuffer buffer, int from) {
+    for (int i = from; i < from + 5; i++) {
+      byte digit = buffer.get(i);
+      if (digit < '0' || digit > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public List<InitialRecord> next() {
+    if (!hasNext()) {
+      return new ArrayList<>();
+    }
+    List<InitialRecord> chunk = nextChunk;
+    nextChunk = null;
+    for (InitialRecord record : chunk) {
+      record.setOrder(recordsCounter.getAndIncrement());
+    }
+    return chunk;
+  }
+
+  @Override
+  public boolean hasNext() {
+    try {
+      while (nextChunk == null && currentRange < ranges.size()) {
+        Range range = ranges.get(currentRange);
+        List<InitialRecord> chunk = range.takeChunk();
+        if (chunk == END_OF_RANGE) {
+          if (range.error != null) {
+            close();
+            throw range.error instanceof RuntimeException ? (RuntimeException) range.error : new RecordsReaderException(range.error);
+          }
+          currentRange++;
+        } else {
+          nextChunk = chunk;
+          bytesRead = range.reader.getBytesRead();
+        }
+      }
+      return nextChunk != null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      close();
+      throw new RecordsReaderException(e);
+    }
+  }
+
+  @Override
+  public RecordsMetadata.ContentType getContentType() {
+    return RecordsMetadata.ContentType.MARC_RAW;
+  }
+
+  @Override
+  public long getBytesRead() {
+    return bytesRead;
+  }
+
+  /**
+   * Changes size of the chunks decoded by the range readers, chunks already decoded keep their size
+   */
+  @Override
+  public void setChunkSize(int chunkSize) {
+    ranges.forEach(range -> range.reader.setChunkSize(chunkSize));
+  }
+
+  /**
+   * Stops reading of the ranges, the range readers are closed by their next tasks
+   */
+  @Override
+  public void close() {
+    closed = true;
+    ranges.forEach(Range::schedule);
+  }
+
+  /**
+   * Range of the file decoded on the shared worker pool
+   */
+  private class Range {
+    private MarcRawSplitReader reader;
+    private BlockingQueue<List<InitialRecord>> chunks = new LinkedBlockingQueue<>();
+    private AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean finished;
+    private volatile Throwable error;
+
+    Range(MarcRawSplitReader reader) {
+      this.reader = reader;
+    }
+
+    /**
+     * Takes the next chunk of the range, the range is rescheduled once its queue has room for the next chunk
+     */
+    List<InitialRecord> takeChunk() throws InterruptedException {
+      long waitingSince = System.currentTimeMillis();
+      List<InitialRecord> chunk;
+      while ((chunk = chunks.poll(RANGE_POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+        if (System.currentTimeMillis() - waitingSince > RANGE_CHUNK_TIMEOUT_MILLIS) {
+          close();
+          throw new RecordsReaderException(new TimeoutException(
+            "Range of the file was not read within " + RANGE_CHUNK_TIMEOUT_MILLIS + " ms"));
+        }
+        // the range task is lost only if the pool rejected it, such range is scheduled again
+        schedule();
+      }
+      schedule();
+      return chunk;
+    }
+
+    void schedule() {
+      if (finished || chunks.size() >= RANGE_QUEUE_CAPACITY && !closed || !scheduled.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        rangesExecutor.executeBlocking(promise -> {
+          readChunk();
+          promise.complete();
+        }, false, null);
+      } catch (RuntimeException e) {
+        LOGGER.warn("Can not schedule reading of the file range", e);
+        scheduled.set(false);
+      }
+    }
+
+    /**
+     * Decodes the next chunk of the range, the end of range is queued whatever way the range ends
+     */
+    private void readChunk() {
+      try {
+        if (closed) {
+          finish();
+        } else if (reader.hasNext()) {
+          List<InitialRecord> chunk = reader.next();
+          if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+          }
+        } else {
+          finish();
+        }
+      } catch (Throwable e) { //NOSONAR the range has to be ended whatever error is thrown by the decoding
+        LOGGER.error("Error reading file range", e);
+        error = e;
+        finish();
+      } finally {
+        scheduled.set(false);
+      }
+      schedule();
+    }
+
+    private void finish() {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      reader.close();
+      chunks.add(END_OF_RANGE);
+      if (rangesInProgress.decrementAndGet() == 0) {
+        rangesExecutor.close();
+      }
+    }
+  }
+}
@@ -5,17 +5,34 @@ import org.folio.rest.jaxrs.model.InitialRecord;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
 /**
  * Represents buffer with source records.
+ * Buffer is full once it contains chunk size records or, if the byte budget is set,
+ * once the size of the records it contains reaches the budget, whichever comes first.
+ * The record that crosses the budget is kept in the buffer, so a single record larger than the budget makes its own chunk.
  */
 public class RecordsBuffer {
 
+  /* Byte budget of the chunk, 0 means chunks are limited by the records number only */
+  private static final long CHUNK_BYTES_LIMIT =
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.buffer.chunk.bytes", "0"));
+  private static final int MAX_INITIAL_CAPACITY = 1000;
+
   private List<InitialRecord> records;
   private int chunkSize;
+  private long bytesLimit;
+  private long bytes;
 
   RecordsBuffer(int chunkSize) {
+    this(chunkSize, CHUNK_BYTES_LIMIT);
+  }
+
+  RecordsBuffer(int chunkSize, long bytesLimit) {
     this.chunkSize = chunkSize;
-    this.records = new ArrayList<>(chunkSize);
+    this.bytesLimit = bytesLimit;
+    this.records = new ArrayList<>(Math.min(chunkSize, MAX_INITIAL_CAPACITY));
   }
 
   public List<InitialRecord> getRecords() {
@@ -24,9 +41,30 @@ public class RecordsBuffer {
 
   public void add(InitialRecord records) {
     this.records.add(records);
+    this.bytes += getRecordSize(records);
   }
 
   public boolean isFull() {
-    return this.records.size() >= chunkSize;
+    return this.records.size() >= chunkSize || (bytesLimit > 0 && bytes >= bytesLimit);
+  }
+
+  /**
+   * Returns approximate size of the buffered records, see {@link #getRecordSize(InitialRecord)}
+   *
+   * @return size of the buffered records
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Approximates size of the record in the chunk by the length of the record content,
+   * which is exact for the ASCII content of MARC records and avoids encoding the record once more.
+   *
+   * @param record initial record
+   * @return approximate size of the record
+   */
+  public static long getRecordSize(InitialRecord record) {
+    return record.getRecord() == null ? 0 : record.getRecord().length();
   }
 }
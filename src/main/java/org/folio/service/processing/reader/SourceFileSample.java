@@ -0,0 +1,102 @@
+package org.folio.service.processing.reader;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.folio.service.storage.CompressionFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * The beginning of the source file, decompressed if the file is compressed, used to detect the format of the file
+ */
+public class SourceFileSample {
+
+  public static final int SAMPLE_SIZE = 8 * 1024;
+
+  private File file;
+  private byte[] head;
+  private boolean compressed;
+  private String extension;
+
+  private SourceFileSample(File file, byte[] head, boolean compressed) {
+    this.file = file;
+    this.head = head;
+    this.compressed = compressed;
+    this.extension = FilenameUtils.getExtension(CompressionFormat.getContentFileName(file.getName())).toLowerCase();
+  }
+
+  /**
+   * Reads the beginning of the file
+   *
+   * @param file source file
+   * @return sample of the file
+   */
+  public static SourceFileSample read(File file) {
+    try (InputStream inputStream = CompressionFormat.decompress(FileUtils.openInputStream(file))) {
+      byte[] head = new byte[SAMPLE_SIZE];
+      int length = inputStream.readNBytes(head, 0, head.length);
+      return new SourceFileSample(file, Arrays.copyOf(head, length), CompressionFormat.detect(file) != CompressionFormat.NONE);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Can not read the file " + file.getPath() + ". Cause: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Takes the beginning of the file from the bytes already read, e.g. from the file parts being uploaded
+   *
+   * @param file source file
+   * @param head first bytes of the file content, the bytes past {@link #SAMPLE_SIZE} are not taken
+   * @return sample of the file
+   */
+  public static SourceFileSample of(File file, byte[] head) {
+    return new SourceFileSample(file, Arrays.copyOf(head, Math.min(head.length, SAMPLE_SIZE)),
+      CompressionFormat.detect(head) != CompressionFormat.NONE);
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Returns the first bytes of the file content
+   *
+   * @return the first bytes of the file content, decompressed if the file is compressed
+   */
+  public byte[] getHead() {
+    return head;
+  }
+
+  public boolean isCompressed() {
+    return compressed;
+  }
+
+  /**
+   * Returns extension of the file name without the compression extension, in lower case
+   *
+   * @return extension of the file name
+   */
+  public String getExtension() {
+    return extension;
+  }
+
+  /**
+   * Returns the first byte of the content which is not a whitespace or byte order mark
+   *
+   * @return the first significant byte or -1 if there is no such byte in the sample
+   */
+  public int getFirstSignificantByte() {
+    int i = 0;
+    if (head.length >= 3 && head[0] == (byte) 0xEF && head[1] == (byte) 0xBB && head[2] == (byte) 0xBF) {
+      i = 3;
+    }
+    for (; i < head.length; i++) {
+      if (!Character.isWhitespace(head[i])) {
+        return head[i] & 0xFF;
+      }
+    }
+    return -1;
+  }
+}
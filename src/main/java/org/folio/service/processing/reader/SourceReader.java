@@ -34,4 +34,26 @@ SourceReader {
    */
   RecordsMetadata.ContentType getContentType();
 
+  /**
+   * Returns number of bytes of the source file consumed by the reader so far.
+   * Readers may read ahead, so the value is approximate position of the last returned record in the file.
+   *
+   * @return number of bytes read
+   */
+  long getBytesRead();
+
+  /**
+   * Changes the number of records returned by the following {@link #next} calls.
+   *
+   * @param chunkSize number of records in the chunk
+   */
+  void setChunkSize(int chunkSize);
+
+  /**
+   * Releases resources held by the reader when the file is not read till the end.
+   * Readers release their resources themselves once the end of file is reached.
+   */
+  default void close() {
+  }
+
 }
@@ -1,19 +1,24 @@
 package org.folio.service.processing.reader;
 
-import org.apache.commons.io.FilenameUtils;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
 import org.folio.rest.jaxrs.model.JobProfileInfo;
+import org.folio.service.storage.UploadProgress;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
 
-import static java.util.Optional.ofNullable;
 import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
-import static org.folio.service.processing.reader.MarcJsonReader.JSON_EXTENSION;
-import static org.folio.service.processing.reader.MarcXmlReader.XML_EXTENSION;
 
 /**
- * Builds source reader depending on job profile type
+ * Builds source reader depending on job profile type.
+ * Reader is chosen by the content of the file using the {@link SourceReaderRegistry},
+ * compressed files are read through the streaming decompressor.
+ * Files being uploaded are read by the tailing readers as far as they are uploaded.
  */
 public class SourceReaderBuilder {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SourceReaderBuilder.class);
 
   private static final String CHUNK_SIZE_KEY = "file.processing.buffer.chunk.size";
   private static final int CHUNK_SIZE = Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault(CHUNK_SIZE_KEY, "50"));
@@ -23,20 +28,53 @@ public class SourceReaderBuilder {
   }
 
   public static SourceReader build(File file, JobProfileInfo jobProfile) {
-    SourceReader sourceReader = null;
-    String extension = FilenameUtils.getExtension(file.getName());
+    Optional<SourceReader> sourceReader = Optional.empty();
 
     if (isMarc(jobProfile)) {
-      if (JSON_EXTENSION.equals(extension)) {
-        sourceReader = new MarcJsonReader(file, CHUNK_SIZE);
-      } else if (XML_EXTENSION.equals(extension)) {
-        sourceReader = new MarcXmlReader(file, CHUNK_SIZE);
-      } else {
-        sourceReader = new MarcRawReader(file, CHUNK_SIZE);
+      sourceReader = SourceReaderRegistry.getInstance().createReader(file, CHUNK_SIZE);
+    }
+
+    return sourceReader.orElseThrow(() -> new UnsupportedOperationException("Unsupported file format"));
+  }
+
+  /**
+   * Builds reader of the file that is still being uploaded. The format is detected once the beginning of the file is uploaded,
+   * the file of the format that can not be read before the upload ends is read once it is uploaded.
+   * Waits for the file to be uploaded, so it must not be called on the event loop.
+   *
+   * @param file       file being uploaded
+   * @param jobProfile job profile
+   * @param upload     progress of the file upload
+   * @return source reader
+   */
+  public static SourceReader buildTailing(File file, JobProfileInfo jobProfile, UploadProgress upload) {
+    if (!isMarc(jobProfile)) {
+      throw new UnsupportedOperationException("Unsupported file format");
+    }
+    try {
+      upload.awaitBytes(SourceFileSample.SAMPLE_SIZE);
+      Optional<SourceReader> sourceReader = SourceReaderRegistry.getInstance().createTailingReader(file, CHUNK_SIZE, upload);
+      if (sourceReader.isPresent()) {
+        return sourceReader.get();
       }
+      LOGGER.info("File {} can not be read while it is being uploaded, the file will be read once it is uploaded", file.getPath());
+      upload.awaitBytes(Long.MAX_VALUE);
+      return build(file, jobProfile);
+    } catch (IOException e) {
+      throw new RecordsReaderException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RecordsReaderException(e);
     }
+  }
 
-    return ofNullable(sourceReader).orElseThrow(() -> new UnsupportedOperationException("Unsupported file format"));
+  /**
+   * Returns the configured number of records in the chunk
+   *
+   * @return chunk size
+   */
+  public static int getChunkSize() {
+    return CHUNK_SIZE;
   }
 
   private static boolean isMarc(JobProfileInfo jobProfile) {
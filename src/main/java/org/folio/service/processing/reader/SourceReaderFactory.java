@@ -0,0 +1,64 @@
+package org.folio.service.processing.reader;
+
+import org.folio.service.storage.UploadProgress;
+import org.folio.service.storage.index.RecordFormat;
+
+import java.util.Optional;
+
+/**
+ * Factory of the {@link SourceReader} for a particular file format.
+ * Factories are registered in the {@link SourceReaderRegistry} using {@link java.util.ServiceLoader},
+ * so a new reader is plugged in by listing its factory in META-INF/services/org.folio.service.processing.reader.SourceReaderFactory.
+ */
+public interface SourceReaderFactory {
+
+  /**
+   * Scores how well the file matches the format the factory reads
+   *
+   * @param sample beginning of the file
+   * @return 0 if the reader can not read the file, otherwise the higher the better the file matches the format
+   */
+  int score(SourceFileSample sample);
+
+  /**
+   * Creates reader of the file
+   *
+   * @param sample    beginning of the file the factory gave the highest score to
+   * @param chunkSize number of records in the chunk
+   * @return source reader
+   */
+  SourceReader create(SourceFileSample sample, int chunkSize);
+
+  /**
+   * Creates reader of the file that is still being uploaded, the reader reads the file as far as it is uploaded
+   * and waits for the rest of the file until the upload ends
+   *
+   * @param sample    beginning of the file the factory gave the highest score to
+   * @param chunkSize number of records in the chunk
+   * @param upload    progress of the file upload
+   * @return source reader or null if the file can be read only once it is uploaded
+   */
+  default SourceReader createTailing(SourceFileSample sample, int chunkSize, UploadProgress upload) {
+    return null;
+  }
+
+  /**
+   * Returns format of the records index which boundaries match the records found by the reader
+   *
+   * @return format of the records index or empty Optional if the records index is not built for the files of the reader
+   */
+  default Optional<RecordFormat> getIndexFormat() {
+    return Optional.empty();
+  }
+
+  /**
+   * Helper for factories: score bonus for the file with the expected extension
+   *
+   * @param sample    beginning of the file
+   * @param extension expected extension
+   * @return bonus score
+   */
+  static int extensionBonus(SourceFileSample sample, String extension) {
+    return extension.equals(sample.getExtension()) ? 10 : 0;
+  }
+}
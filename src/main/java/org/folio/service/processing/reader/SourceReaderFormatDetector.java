@@ -0,0 +1,23 @@
+package org.folio.service.processing.reader;
+
+import org.folio.service.storage.index.RecordFormat;
+import org.folio.service.storage.index.RecordFormatDetector;
+
+import java.io.File;
+import java.util.Optional;
+
+/**
+ * Detects format of the records index by the {@link SourceReaderRegistry}, the same way the file reader is chosen for processing
+ */
+public class SourceReaderFormatDetector implements RecordFormatDetector {
+
+  @Override
+  public int getSampleSize() {
+    return SourceFileSample.SAMPLE_SIZE;
+  }
+
+  @Override
+  public Optional<RecordFormat> detect(File file, byte[] head) {
+    return SourceReaderRegistry.getInstance().detectIndexFormat(SourceFileSample.of(file, head));
+  }
+}
@@ -0,0 +1,91 @@
+package org.folio.service.processing.reader;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.folio.service.storage.UploadProgress;
+import org.folio.service.storage.index.RecordFormat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of the {@link SourceReaderFactory} loaded with {@link ServiceLoader}.
+ * Format of the file is detected by the content: every factory scores the beginning of the file,
+ * the reader is created by the factory with the highest score. Factories listed earlier win the ties.
+ */
+public class SourceReaderRegistry {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SourceReaderRegistry.class);
+  private static final SourceReaderRegistry INSTANCE = new SourceReaderRegistry(ServiceLoader.load(SourceReaderFactory.class));
+
+  private List<SourceReaderFactory> factories = new ArrayList<>();
+
+  SourceReaderRegistry(Iterable<SourceReaderFactory> factories) {
+    factories.forEach(this.factories::add);
+    this.factories.forEach(factory -> LOGGER.info("Source reader factory registered: {}", factory.getClass().getName()));
+  }
+
+  public static SourceReaderRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Creates reader for the file by the factory that gives the highest score to the beginning of the file
+   *
+   * @param file      source file
+   * @param chunkSize number of records in the chunk
+   * @return reader of the file or empty Optional if no factory can read the file
+   */
+  public Optional<SourceReader> createReader(File file, int chunkSize) {
+    SourceFileSample sample = SourceFileSample.read(file);
+    return findFactory(sample).map(factory -> factory.create(sample, chunkSize));
+  }
+
+  /**
+   * Creates reader of the file being uploaded by the factory that gives the highest score to the beginning of the file
+   *
+   * @param file      source file
+   * @param chunkSize number of records in the chunk
+   * @param upload    progress of the file upload
+   * @return reader of the file or empty Optional if the file can be read only once it is uploaded
+   */
+  public Optional<SourceReader> createTailingReader(File file, int chunkSize, UploadProgress upload) {
+    SourceFileSample sample = SourceFileSample.read(file);
+    return findFactory(sample).map(factory -> factory.createTailing(sample, chunkSize, upload));
+  }
+
+  /**
+   * Detects format of the records index by the factory that gives the highest score to the beginning of the file,
+   * so the index is built with the record boundaries of the reader the file is processed with
+   *
+   * @param sample beginning of the file
+   * @return format of the records index or empty Optional if the index is not built for the file
+   */
+  public Optional<RecordFormat> detectIndexFormat(SourceFileSample sample) {
+    if (sample.isCompressed()) {
+      return Optional.empty();
+    }
+    return findFactory(sample).flatMap(SourceReaderFactory::getIndexFormat);
+  }
+
+  private Optional<SourceReaderFactory> findFactory(SourceFileSample sample) {
+    File file = sample.getFile();
+    SourceReaderFactory bestFactory = null;
+    int bestScore = 0;
+    for (SourceReaderFactory factory : factories) {
+      int score = factory.score(sample);
+      if (score > bestScore) {
+        bestScore = score;
+        bestFactory = factory;
+      }
+    }
+    if (bestFactory == null) {
+      LOGGER.warn("Format of the file {} is not recognized by any of the source readers", file.getPath());
+      return Optional.empty();
+    }
+    LOGGER.debug("File {} is read by the reader of {} with score {}", file.getPath(), bestFactory.getClass().getSimpleName(), bestScore);
+    return Optional.of(bestFactory);
+  }
+}
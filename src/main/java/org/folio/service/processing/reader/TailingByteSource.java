@@ -0,0 +1,85 @@
+package org.folio.service.processing.reader;
+
+import org.folio.service.storage.UploadProgress;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Source of the bytes of the file that is still being uploaded: the end of the file is the end of the upload.
+ * Only the bytes the {@link UploadProgress} reports as written are read, the source waits for the bytes
+ * not written yet until the upload ends. Bytes are read to the buffer as far as they are written.
+ */
+class TailingByteSource implements ByteSource {
+  private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+  private final FileChannel channel;
+  private final UploadProgress upload;
+  /* bytes of the file starting at bufferStart */
+  private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+  private long bufferStart;
+
+  TailingByteSource(File file, UploadProgress upload) throws IOException {
+    this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    this.upload = upload;
+    buffer.limit(0);
+  }
+
+  /**
+   * Waits until the file has the given number of bytes written
+   *
+   * @return false if the upload has ended with the file being shorter
+   */
+  @Override
+  public boolean has(long length) throws IOException {
+    if (length <= bufferStart + buffer.limit()) {
+      return true;
+    }
+    try {
+      return upload.awaitBytes(length);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Waiting for the file to be uploaded was interrupted", e);
+    }
+  }
+
+  @Override
+  public byte byteAt(long position) throws IOException {
+    if (position < bufferStart || position >= bufferStart + buffer.limit()) {
+      long length = Math.min(READ_BUFFER_SIZE, upload.getBytesWritten() - position);
+      buffer.clear();
+      buffer.limit((int) Math.max(length, 1));
+      bufferStart = position;
+      readFully(buffer, position);
+      buffer.flip();
+    }
+    return buffer.get((int) (position - bufferStart));
+  }
+
+  @Override
+  public byte[] readBytes(long position, int length) throws IOException {
+    byte[] bytes = new byte[length];
+    readFully(ByteBuffer.wrap(bytes), position);
+    return bytes;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void readFully(ByteBuffer target, long position) throws IOException {
+    long readPosition = position;
+    while (target.hasRemaining()) {
+      int read = channel.read(target, readPosition);
+      if (read < 0) {
+        throw new EOFException("File is shorter than the uploaded bytes, position " + readPosition);
+      }
+      readPosition += read;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package org.folio.service.processing.stream;
+
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.function.Function;
+
+/**
+ * Stage of the stream pipeline converting every item of the source stream by the given function.
+ * Flow control is delegated to the source stream, so pausing this stream pauses the source.
+ *
+ * @param <T> type of the source items
+ * @param <R> type of the converted items
+ */
+public class MappingReadStream<T, R> implements ReadStream<R> {
+
+  private final ReadStream<T> source;
+  private final Function<T, R> mapper;
+
+  public MappingReadStream(ReadStream<T> source, Function<T, R> mapper) {
+    this.source = source;
+    this.mapper = mapper;
+  }
+
+  @Override
+  public MappingReadStream<T, R> exceptionHandler(Handler<Throwable> handler) {
+    source.exceptionHandler(handler);
+    return this;
+  }
+
+  @Override
+  public MappingReadStream<T, R> handler(Handler<R> handler) {
+    source.handler(handler == null ? null : item -> handler.handle(mapper.apply(item)));
+    return this;
+  }
+
+  @Override
+  public MappingReadStream<T, R> pause() {
+    source.pause();
+    return this;
+  }
+
+  @Override
+  public MappingReadStream<T, R> resume() {
+    source.resume();
+    return this;
+  }
+
+  @Override
+  public MappingReadStream<T, R> fetch(long amount) {
+    source.fetch(amount);
+    return this;
+  }
+
+  @Override
+  public MappingReadStream<T, R> endHandler(Handler<Void> endHandler) {
+    source.endHandler(endHandler);
+    return this;
+  }
+}
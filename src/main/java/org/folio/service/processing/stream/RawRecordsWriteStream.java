@@ -0,0 +1,137 @@
+package org.folio.service.processing.stream;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.streams.WriteStream;
+import org.folio.rest.jaxrs.model.RawRecordsDto;
+
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * Stream of chunks sent to the mod-source-record-manager.
+ * Every written chunk is sent at once, the write queue is the number of chunks waiting for the response,
+ * it is full once the number reaches the limit and drains as soon as one of the responses is received.
+ * Ending the stream completes once all the sent chunks get their responses,
+ * the end fails if any of the chunks failed to be sent.
+ */
+public class RawRecordsWriteStream implements WriteStream<RawRecordsDto> {
+
+  private final Function<RawRecordsDto, Future<Void>> sender;
+  private IntSupplier maxChunksInFlight;
+  private Handler<Throwable> exceptionHandler;
+  private Handler<Void> drainHandler;
+  private Handler<AsyncResult<Void>> endHandler;
+  private int chunksInFlight;
+  private boolean ended;
+  private Throwable failure;
+
+  /**
+   * @param sender            sends the chunk, returned future completes once the response is received
+   * @param maxChunksInFlight supplier of the current limit of chunks waiting for the response
+   */
+  public RawRecordsWriteStream(Function<RawRecordsDto, Future<Void>> sender, IntSupplier maxChunksInFlight) {
+    this.sender = sender;
+    this.maxChunksInFlight = maxChunksInFlight;
+  }
+
+  @Override
+  public synchronized RawRecordsWriteStream exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public RawRecordsWriteStream write(RawRecordsDto chunk) {
+    return write(chunk, null);
+  }
+
+  @Override
+  public RawRecordsWriteStream write(RawRecordsDto chunk, Handler<AsyncResult<Void>> handler) {
+    synchronized (this) {
+      if (ended) {
+        throw new IllegalStateException("Stream of chunks has already been ended");
+      }
+      chunksInFlight++;
+    }
+    sender.apply(chunk).onComplete(ar -> handleResponse(ar, handler));
+    return this;
+  }
+
+  @Override
+  public void end() {
+    end((Handler<AsyncResult<Void>>) null);
+  }
+
+  @Override
+  public void end(Handler<AsyncResult<Void>> handler) {
+    synchronized (this) {
+      ended = true;
+      if (chunksInFlight > 0) {
+        endHandler = handler;
+        return;
+      }
+    }
+    completeEnd(handler);
+  }
+
+  @Override
+  public synchronized RawRecordsWriteStream setWriteQueueMaxSize(int maxSize) {
+    this.maxChunksInFlight = () -> maxSize;
+    return this;
+  }
+
+  @Override
+  public synchronized boolean writeQueueFull() {
+    return chunksInFlight >= maxChunksInFlight.getAsInt();
+  }
+
+  @Override
+  public synchronized RawRecordsWriteStream drainHandler(Handler<Void> handler) {
+    this.drainHandler = handler;
+    return this;
+  }
+
+  private void handleResponse(AsyncResult<Void> ar, Handler<AsyncResult<Void>> handler) {
+    Handler<Void> streamDrainHandler = null;
+    Handler<AsyncResult<Void>> streamEndHandler = null;
+    Handler<Throwable> streamExceptionHandler;
+    synchronized (this) {
+      chunksInFlight--;
+      if (ar.failed() && failure == null) {
+        failure = ar.cause();
+      }
+      if (drainHandler != null && !writeQueueFull()) {
+        streamDrainHandler = drainHandler;
+        drainHandler = null;
+      }
+      if (ended && chunksInFlight == 0) {
+        streamEndHandler = endHandler;
+        endHandler = null;
+      }
+      streamExceptionHandler = exceptionHandler;
+    }
+    if (handler != null) {
+      handler.handle(ar);
+    } else if (ar.failed() && streamExceptionHandler != null) {
+      streamExceptionHandler.handle(ar.cause());
+    }
+    if (streamDrainHandler != null) {
+      streamDrainHandler.handle(null);
+    }
+    if (streamEndHandler != null) {
+      completeEnd(streamEndHandler);
+    }
+  }
+
+  private void completeEnd(Handler<AsyncResult<Void>> handler) {
+    if (handler != null) {
+      Throwable cause;
+      synchronized (this) {
+        cause = failure;
+      }
+      handler.handle(cause == null ? Future.succeededFuture() : Future.failedFuture(cause));
+    }
+  }
+}
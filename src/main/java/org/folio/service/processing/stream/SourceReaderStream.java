@@ -0,0 +1,152 @@
+package org.folio.service.processing.stream;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.streams.ReadStream;
+import org.folio.rest.jaxrs.model.InitialRecord;
+import org.folio.service.processing.reader.SourceReader;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Exposes {@link SourceReader} as a stream of chunks of records.
+ * Chunks are read on the worker pool one at a time and only while there is a demand for them:
+ * the stream stops reading once it is paused or the fetched number of chunks is delivered,
+ * so the consumer controls how far reading may go ahead of it.
+ * Handlers are called on the context the chunks were requested from.
+ * Setting the null handler stops reading and closes the reader, as well as the end of the stream or the read error.
+ */
+public class SourceReaderStream implements ReadStream<List<InitialRecord>> {
+
+  private final SourceReader reader;
+  private final WorkerExecutor executor;
+  private IntSupplier chunkSize;
+  private Handler<List<InitialRecord>> handler;
+  private Handler<Void> endHandler;
+  private Handler<Throwable> exceptionHandler;
+  private long demand = Long.MAX_VALUE;
+  private boolean reading;
+  private boolean closed;
+
+  public SourceReaderStream(SourceReader reader, WorkerExecutor executor) {
+    this.reader = reader;
+    this.executor = executor;
+  }
+
+  /**
+   * Sets the chunk size applied to the reader before reading every next chunk
+   *
+   * @param chunkSize supplier of the current chunk size
+   * @return this stream
+   */
+  public synchronized SourceReaderStream chunkSize(IntSupplier chunkSize) {
+    this.chunkSize = chunkSize;
+    return this;
+  }
+
+  @Override
+  public synchronized SourceReaderStream exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public SourceReaderStream handler(Handler<List<InitialRecord>> handler) {
+    synchronized (this) {
+      this.handler = handler;
+      if (handler == null) {
+        close();
+        return this;
+      }
+    }
+    readNext();
+    return this;
+  }
+
+  @Override
+  public synchronized SourceReaderStream pause() {
+    demand = 0;
+    return this;
+  }
+
+  @Override
+  public SourceReaderStream resume() {
+    return fetch(Long.MAX_VALUE);
+  }
+
+  @Override
+  public SourceReaderStream fetch(long amount) {
+    synchronized (this) {
+      demand += amount;
+      if (demand < 0) {
+        demand = Long.MAX_VALUE;
+      }
+    }
+    readNext();
+    return this;
+  }
+
+  @Override
+  public synchronized SourceReaderStream endHandler(Handler<Void> endHandler) {
+    this.endHandler = endHandler;
+    return this;
+  }
+
+  private void readNext() {
+    IntSupplier currentChunkSize;
+    synchronized (this) {
+      if (reading || closed || demand == 0 || handler == null) {
+        return;
+      }
+      reading = true;
+      currentChunkSize = chunkSize;
+    }
+    executor.<List<InitialRecord>>executeBlocking(future -> {
+      if (currentChunkSize != null) {
+        reader.setChunkSize(currentChunkSize.getAsInt());
+      }
+      future.complete(reader.hasNext() ? reader.next() : null);
+    }, false, this::handleChunk);
+  }
+
+  private void handleChunk(AsyncResult<List<InitialRecord>> ar) {
+    Handler<List<InitialRecord>> chunkHandler;
+    Handler<Void> streamEndHandler;
+    Handler<Throwable> streamExceptionHandler;
+    synchronized (this) {
+      reading = false;
+      chunkHandler = handler;
+      streamEndHandler = endHandler;
+      streamExceptionHandler = exceptionHandler;
+      if (chunkHandler == null || ar.failed() || ar.result() == null) {
+        close();
+      } else if (demand != Long.MAX_VALUE) {
+        demand--;
+      }
+    }
+    if (chunkHandler == null) {
+      return;
+    }
+    if (ar.failed()) {
+      if (streamExceptionHandler != null) {
+        streamExceptionHandler.handle(ar.cause());
+      }
+    } else if (ar.result() == null) {
+      if (streamEndHandler != null) {
+        streamEndHandler.handle(null);
+      }
+    } else {
+      chunkHandler.handle(ar.result());
+      readNext();
+    }
+  }
+
+  private synchronized void close() {
+    if (!closed && !reading) {
+      closed = true;
+      reader.close();
+    }
+  }
+}
@@ -4,9 +4,9 @@ import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.file.FileSystem;
-import org.folio.dataimport.util.ConfigurationUtil;
 import org.folio.dataimport.util.OkapiConnectionParams;
 import org.folio.rest.jaxrs.model.FileDefinition;
+import org.folio.service.configuration.TenantConfigurationCache;
 
 import java.io.File;
 
@@ -30,7 +30,7 @@ public abstract class AbstractFileStorageService implements FileStorageService {
   protected Future<String> getStoragePath(String code, FileDefinition fileDefinition, OkapiConnectionParams params) {
     Promise<String> promise = Promise.promise();
     String suffix = "/" + fileDefinition.getUploadDefinitionId() + "/" + fileDefinition.getId();
-    ConfigurationUtil.getPropertyByCode(code, params).onComplete(configValue -> {
+    TenantConfigurationCache.getPropertyByCode(code, params).onComplete(configValue -> {
       if (configValue.succeeded()) {
         promise.complete(configValue.result() + suffix);
       } else {
@@ -0,0 +1,105 @@
+package org.folio.service.storage;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression formats of the stored files. Format is detected by the magic bytes the compressed content starts with,
+ * so the file is read the same way regardless of its name.
+ */
+public enum CompressionFormat {
+  NONE(new byte[0]),
+  GZIP(new byte[]{0x1F, (byte) 0x8B}, "gz", "gzip"),
+  ZSTD(new byte[]{0x28, (byte) 0xB5, 0x2F, (byte) 0xFD}, "zst", "zstd");
+
+  private static final int MAGIC_MAX_LENGTH = 4;
+  private static final int DECOMPRESSION_BUFFER_SIZE = 64 * 1024;
+
+  private byte[] magic;
+  private String[] extensions;
+
+  CompressionFormat(byte[] magic, String... extensions) {
+    this.magic = magic;
+    this.extensions = extensions;
+  }
+
+  /**
+   * Detects compression format by the beginning of the content
+   *
+   * @param head first bytes of the content
+   * @return compression format, {@link #NONE} if content is not compressed
+   */
+  public static CompressionFormat detect(byte[] head) {
+    for (CompressionFormat format : values()) {
+      if (format != NONE && head.length >= format.magic.length
+        && Arrays.equals(Arrays.copyOf(head, format.magic.length), format.magic)) {
+        return format;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * Detects compression format of the file
+   *
+   * @param file file to check
+   * @return compression format, {@link #NONE} if file is not compressed
+   * @throws IOException if file can not be read
+   */
+  public static CompressionFormat detect(File file) throws IOException {
+    try (InputStream inputStream = new FileInputStream(file)) {
+      byte[] head = new byte[MAGIC_MAX_LENGTH];
+      int length = inputStream.readNBytes(head, 0, head.length);
+      return detect(Arrays.copyOf(head, length));
+    }
+  }
+
+  /**
+   * Wraps the stream into streaming decompressor if the stream content is compressed
+   *
+   * @param inputStream stream positioned at the beginning of the content
+   * @return stream of decompressed content
+   * @throws IOException if stream can not be read
+   */
+  public static InputStream decompress(InputStream inputStream) throws IOException {
+    BufferedInputStream bufferedStream = new BufferedInputStream(inputStream, DECOMPRESSION_BUFFER_SIZE);
+    bufferedStream.mark(MAGIC_MAX_LENGTH);
+    byte[] head = new byte[MAGIC_MAX_LENGTH];
+    int length = bufferedStream.readNBytes(head, 0, head.length);
+    bufferedStream.reset();
+    switch (detect(Arrays.copyOf(head, length))) {
+      case GZIP:
+        return new GZIPInputStream(bufferedStream, DECOMPRESSION_BUFFER_SIZE);
+      case ZSTD:
+        return new BufferedInputStream(new ZstdInputStream(bufferedStream), DECOMPRESSION_BUFFER_SIZE);
+      default:
+        return bufferedStream;
+    }
+  }
+
+  /**
+   * Removes compression extension from the file name, so "records.mrc.gz" becomes "records.mrc"
+   *
+   * @param fileName name of the file
+   * @return name of the file content
+   */
+  public static String getContentFileName(String fileName) {
+    String extension = FilenameUtils.getExtension(fileName);
+    for (CompressionFormat format : values()) {
+      for (String compressionExtension : format.extensions) {
+        if (compressionExtension.equalsIgnoreCase(extension)) {
+          return FilenameUtils.removeExtension(fileName);
+        }
+      }
+    }
+    return fileName;
+  }
+}
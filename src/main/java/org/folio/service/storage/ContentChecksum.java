@@ -0,0 +1,103 @@
+package org.folio.service.storage;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * CRC32C checksum of the file content computed while the file is being uploaded, the file parts are added
+ * in the order they are written to the storage. Checksum of the file which upload was started before the module restart
+ * does not cover the whole file and is not reported.
+ */
+public class ContentChecksum {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ContentChecksum.class);
+
+  /* Checksums of the files being uploaded by file id */
+  private static final Map<String, ContentChecksum> CHECKSUMS = new ConcurrentHashMap<>();
+
+  private final CRC32C crc = new CRC32C();
+  private final boolean wholeFile;
+  private long length;
+
+  public ContentChecksum() {
+    this(true);
+  }
+
+  private ContentChecksum(boolean wholeFile) {
+    this.wholeFile = wholeFile;
+  }
+
+  /**
+   * Returns checksum of the file being uploaded, the checksum is started if the file is not tracked yet.
+   * Has to be called before the file part is written.
+   *
+   * @param fileId     id of the uploaded file
+   * @param fileExists whether the file already has bytes stored
+   * @return checksum of the file content
+   */
+  public static ContentChecksum track(String fileId, boolean fileExists) {
+    return CHECKSUMS.computeIfAbsent(fileId, id -> {
+      if (fileExists) {
+        LOGGER.debug("File upload was started before, checksum of the file will not be reported. FileId: {}", fileId);
+      }
+      return new ContentChecksum(!fileExists);
+    });
+  }
+
+  /**
+   * Returns checksum of the file being uploaded
+   *
+   * @param fileId id of the uploaded file
+   * @return checksum or empty Optional if the file is not tracked
+   */
+  public static Optional<ContentChecksum> find(String fileId) {
+    return Optional.ofNullable(CHECKSUMS.get(fileId));
+  }
+
+  /**
+   * Ends tracking of the uploaded file
+   *
+   * @param fileId id of the uploaded file
+   * @return checksum of the whole file or empty Optional if the file was not tracked from the first part
+   */
+  public static Optional<ContentChecksum> complete(String fileId) {
+    return Optional.ofNullable(CHECKSUMS.remove(fileId)).filter(checksum -> checksum.wholeFile);
+  }
+
+  /**
+   * Ends tracking of the file which upload was interrupted
+   *
+   * @param fileId id of the uploaded file
+   */
+  public static void discard(String fileId) {
+    CHECKSUMS.remove(fileId);
+  }
+
+  public synchronized void update(byte[] data) {
+    crc.update(data, 0, data.length);
+    length += data.length;
+  }
+
+  public synchronized void update(Buffer data) {
+    crc.update(data.getByteBuf().nioBuffer());
+    length += data.length();
+  }
+
+  public synchronized long getValue() {
+    return crc.getValue();
+  }
+
+  public synchronized long getLength() {
+    return length;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("crc32c:%08x:%d", getValue(), getLength());
+  }
+}
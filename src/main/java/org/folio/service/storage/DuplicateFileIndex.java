@@ -0,0 +1,212 @@
+package org.folio.service.storage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Metrics;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.folio.rest.jaxrs.model.FileDefinition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Index of the files recently uploaded by the tenants, the files are looked up by their {@link ContentChecksum}.
+ * File with the same checksum is a duplicate candidate only, content of the stored files is compared before
+ * the uploaded file is reported as a duplicate, so the checksum collision never takes the file for the other one.
+ * Only the most recently uploaded files are kept per tenant, the index is kept in memory of the running module.
+ */
+public class DuplicateFileIndex {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DuplicateFileIndex.class);
+  private static final int COMPARE_BUFFER_SIZE = 64 * 1024;
+  private static final String LINK_SUFFIX = ".link";
+
+  /**
+   * What is done with the duplicate of the file uploaded before
+   */
+  public enum Action {
+    /* duplicate is reported in the log and metrics and is processed as usual */
+    FLAG,
+    /* duplicate is deleted from the storage and the upload fails */
+    REJECT,
+    /* stored duplicate is replaced with the hard link to the file uploaded before */
+    LINK
+  }
+
+  /* Index of the files uploaded to the module, duplicates are not looked up by default */
+  public static final DuplicateFileIndex CONFIGURED = new DuplicateFileIndex(
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("file.upload.duplicate.check.enabled", "false")),
+    Action.valueOf(MODULE_SPECIFIC_ARGS.getOrDefault("file.upload.duplicate.action", Action.FLAG.name())),
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("file.upload.duplicate.index.size", "1000")));
+
+  static {
+    FunctionCounter.builder("data.import.upload.duplicates", CONFIGURED, DuplicateFileIndex::getDuplicates)
+      .description("Number of the uploaded files found to be duplicates of the files uploaded before")
+      .register(Metrics.globalRegistry);
+  }
+
+  private final boolean enabled;
+  private final Action action;
+  private final int capacity;
+  /* tenant id -> checksum -> file uploaded last with the checksum */
+  private final Map<String, Map<String, IndexedFile>> tenantFiles = new ConcurrentHashMap<>();
+  private final AtomicLong duplicates = new AtomicLong();
+
+  /**
+   * @param enabled  whether the duplicates are looked up
+   * @param action   what is done with the duplicate
+   * @param capacity number of the files kept in the index per tenant
+   */
+  public DuplicateFileIndex(boolean enabled, Action action, int capacity) {
+    this.enabled = enabled && capacity > 0;
+    this.action = action;
+    this.capacity = capacity;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public Action getAction() {
+    return action;
+  }
+
+  public long getDuplicates() {
+    return duplicates.get();
+  }
+
+  /**
+   * Looks up the file uploaded before with the same content as the uploaded file, the uploaded file is added
+   * to the index if no such file is found. Blocking, compares the stored files and must not be called on the event loop.
+   *
+   * @param tenantId       tenant id
+   * @param fileDefinition definition of the uploaded file stored at its source path
+   * @param checksum       checksum of the uploaded file
+   * @return file with the same content uploaded before or empty Optional if the uploaded file is not a duplicate
+   */
+  public Optional<IndexedFile> register(String tenantId, FileDefinition fileDefinition, ContentChecksum checksum) {
+    if (!enabled || fileDefinition.getSourcePath() == null) {
+      return Optional.empty();
+    }
+    Map<String, IndexedFile> files = tenantFiles.computeIfAbsent(tenantId, id -> createTenantFiles());
+    String key = checksum.toString();
+    IndexedFile candidate;
+    synchronized (files) {
+      candidate = files.get(key);
+    }
+    if (candidate != null && !candidate.getFileId().equals(fileDefinition.getId())
+      && hasSameContent(Paths.get(candidate.getPath()), Paths.get(fileDefinition.getSourcePath()))) {
+      duplicates.incrementAndGet();
+      return Optional.of(candidate);
+    }
+    synchronized (files) {
+      files.put(key, new IndexedFile(fileDefinition.getId(), fileDefinition.getUploadDefinitionId(), fileDefinition.getSourcePath()));
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Replaces the stored duplicate with the hard link to the file uploaded before, the duplicate is kept if the link
+   * can not be created. Blocking, must not be called on the event loop.
+   *
+   * @param duplicate path to the stored duplicate
+   * @param original  path to the file uploaded before
+   * @throws IOException if the link can not be created
+   */
+  public static void link(Path duplicate, Path original) throws IOException {
+    Path link = duplicate.resolveSibling(duplicate.getFileName() + LINK_SUFFIX);
+    Files.deleteIfExists(link);
+    Files.createLink(link, original);
+    Files.move(link, duplicate, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private Map<String, IndexedFile> createTenantFiles() {
+    return new LinkedHashMap<String, IndexedFile>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, IndexedFile> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Compares the content of the stored files. Compressed files are compared by their decompressed content,
+   * every part of the file stored compressed is a separate gzip member, so the same content may be stored
+   * with the different bytes depending on the parts the file was uploaded by.
+   */
+  private boolean hasSameContent(Path original, Path uploaded) {
+    try {
+      if (!Files.exists(original)) {
+        return false;
+      }
+      if (Files.isSameFile(original, uploaded)) {
+        return true;
+      }
+      boolean compressed = CompressionFormat.detect(original.toFile()) != CompressionFormat.NONE
+        || CompressionFormat.detect(uploaded.toFile()) != CompressionFormat.NONE;
+      if (!compressed && Files.size(original) != Files.size(uploaded)) {
+        return false;
+      }
+      try (InputStream originalStream = openContent(original, compressed);
+           InputStream uploadedStream = openContent(uploaded, compressed)) {
+        byte[] originalBytes = new byte[COMPARE_BUFFER_SIZE];
+        byte[] uploadedBytes = new byte[COMPARE_BUFFER_SIZE];
+        int read;
+        while ((read = originalStream.readNBytes(originalBytes, 0, COMPARE_BUFFER_SIZE)) > 0) {
+          if (uploadedStream.readNBytes(uploadedBytes, 0, read) != read
+            || !Arrays.equals(originalBytes, 0, read, uploadedBytes, 0, read)) {
+            return false;
+          }
+        }
+        return uploadedStream.read() == -1;
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Couldn't compare the uploaded file {} with the file {} uploaded before", e, uploaded, original);
+      return false;
+    }
+  }
+
+  private InputStream openContent(Path path, boolean compressed) throws IOException {
+    InputStream inputStream = Files.newInputStream(path);
+    return compressed ? CompressionFormat.decompress(inputStream) : inputStream;
+  }
+
+  /**
+   * File kept in the index
+   */
+  public static final class IndexedFile {
+    private final String fileId;
+    private final String uploadDefinitionId;
+    private final String path;
+
+    public IndexedFile(String fileId, String uploadDefinitionId, String path) {
+      this.fileId = fileId;
+      this.uploadDefinitionId = uploadDefinitionId;
+      this.path = Objects.requireNonNull(path);
+    }
+
+    public String getFileId() {
+      return fileId;
+    }
+
+    public String getUploadDefinitionId() {
+      return uploadDefinitionId;
+    }
+
+    public String getPath() {
+      return path;
+    }
+  }
+}
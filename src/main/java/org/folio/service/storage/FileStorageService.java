@@ -27,6 +27,18 @@ public interface FileStorageService {
    */
   Future<FileDefinition> saveFile(byte[] data, FileDefinition fileDefinition, OkapiConnectionParams params);
 
+  /**
+   * Opens the session writing the whole file to the storage without reopening it for every file part,
+   * returns null if the file has to be saved part by part with {@link #saveFile}
+   */
+  Future<FileUploadSession> openUploadSession(FileDefinition fileDefinition, OkapiConnectionParams params);
+
+  /**
+   * Opens the upload of the file by byte ranges sent in any order, the upload is continued from the ranges received before.
+   * If the total size is null, only the upload started before is opened and the future is completed with null if there is none
+   */
+  Future<RangedFileUpload> openRangedUpload(FileDefinition fileDefinition, Long totalSize, OkapiConnectionParams params);
+
   /**
    * Deletes File from the storage and returns true if succeeded
    */
@@ -5,8 +5,8 @@ import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
-import org.folio.dataimport.util.ConfigurationUtil;
 import org.folio.dataimport.util.OkapiConnectionParams;
+import org.folio.service.configuration.TenantConfigurationCache;
 
 import java.util.Collections;
 import java.util.List;
@@ -32,7 +32,7 @@ public class FileStorageServiceBuilder {
    */
   public static Future<FileStorageService> build(Vertx vertx, String tenantId, OkapiConnectionParams params) {
     Promise<FileStorageService> promise = Promise.promise();
-    ConfigurationUtil.getPropertyByCode(SERVICE_STORAGE_PROPERTY_CODE, params).onComplete(result -> {
+    TenantConfigurationCache.getPropertyByCode(SERVICE_STORAGE_PROPERTY_CODE, params).onComplete(result -> {
       if (result.failed() || result.result() == null || result.result().isEmpty()) {
         logger.warn("Request to mod-configuration was failed or property for lookup service is not define. Try to use default Local Storage!");
         promise.complete(new LocalFileStorageService(vertx, tenantId));
@@ -0,0 +1,251 @@
+package org.folio.service.storage;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.folio.rest.jaxrs.model.FileDefinition;
+import org.folio.service.storage.index.RecordOffsetIndex;
+import org.folio.service.storage.index.RecordOffsetIndexer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Upload of the single file to the local storage. The file is opened once when the upload starts
+ * and stays open until the upload ends, the received file parts are queued to the file one after another.
+ * Write of the file part is accepted at once while the write queue of the file has room,
+ * otherwise once the queue is drained, so the upload is paced by the disk instead of piling the parts up in memory.
+ * Records index of the file is built on the worker pool in the order the parts are received.
+ * Bytes written to the file are reported to the {@link UploadProgress}, so the file can be read while it is being uploaded,
+ * and added to the {@link ContentChecksum} of the file if the duplicates of the uploaded files are looked up.
+ */
+public class FileUploadSession {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileUploadSession.class);
+
+  private final Vertx vertx;
+  private final FileDefinition fileDefinition;
+  private final Path path;
+  private final AsyncFile file;
+  /* progress reported to the readers of the file being uploaded, null if the file is processed once it is uploaded */
+  private final UploadProgress progress;
+  /* checksum of the file content, null if the duplicates are not looked up */
+  private final ContentChecksum checksum;
+  /* changed on the worker pool once the index can not be built */
+  private volatile boolean indexEnabled;
+  private RecordOffsetIndexer indexer;
+  private Future<Void> indexUpdated = Future.succeededFuture();
+  private Throwable writeFailure;
+  private long bytesWritten;
+  private boolean closed;
+
+  private FileUploadSession(Vertx vertx, FileDefinition fileDefinition, Path path, AsyncFile file, boolean indexEnabled,
+                            UploadProgress progress, ContentChecksum checksum) {
+    this.vertx = vertx;
+    this.fileDefinition = fileDefinition;
+    this.path = path;
+    this.file = file;
+    this.indexEnabled = indexEnabled;
+    this.progress = progress;
+    this.checksum = checksum;
+  }
+
+  /**
+   * Opens the file for the upload, the file is created with its directories if it does not exist
+   * and the parts are appended to it otherwise
+   *
+   * @param vertx           vertx instance
+   * @param fileDefinition  definition of the uploaded file
+   * @param path            path to the file in the storage
+   * @param indexEnabled    whether the records index is built for the file
+   * @param writeQueueBytes number of bytes queued to the file before the writes are paused
+   * @return future with the session
+   */
+  public static Future<FileUploadSession> open(Vertx vertx, FileDefinition fileDefinition, String path, boolean indexEnabled,
+                                               int writeQueueBytes) {
+    Path pathToFile = Paths.get(path);
+    Promise<Boolean> directoryPromise = Promise.promise();
+    vertx.<Boolean>executeBlocking(future -> {
+      try {
+        Files.createDirectories(pathToFile.getParent());
+        boolean fileExists = Files.exists(pathToFile);
+        if (fileExists) {
+          // file upload was started before the module restart, the index can not be continued
+          RecordOffsetIndex.delete(pathToFile);
+        }
+        if (UploadProgress.isPipelinedEnabled()) {
+          UploadProgress.track(fileDefinition.getId(), path);
+        }
+        if (DuplicateFileIndex.CONFIGURED.isEnabled()) {
+          ContentChecksum.track(fileDefinition.getId(), fileExists);
+        }
+        future.complete(fileExists);
+      } catch (IOException e) {
+        future.fail(e);
+      }
+    }, false, directoryPromise);
+    return directoryPromise.future().compose(fileExists -> {
+      Promise<AsyncFile> filePromise = Promise.promise();
+      vertx.fileSystem().open(path, new OpenOptions().setCreate(true).setWrite(true).setAppend(true), filePromise);
+      return filePromise.future().map(file -> {
+        file.setWriteQueueMaxSize(writeQueueBytes);
+        fileDefinition.setSourcePath(path);
+        LOGGER.debug("Upload session was opened. FileId: {}", fileDefinition.getId());
+        return new FileUploadSession(vertx, fileDefinition, pathToFile, file, indexEnabled && !fileExists,
+          UploadProgress.find(fileDefinition.getId()).orElse(null), ContentChecksum.find(fileDefinition.getId()).orElse(null));
+      });
+    }).onFailure(e -> LOGGER.error("Error during opening file for the upload. FileId: {}", e, fileDefinition.getId()));
+  }
+
+  /**
+   * Queues the file part to the file
+   *
+   * @param data file part
+   * @return future completed once the next part may be written
+   */
+  public Future<Void> write(Buffer data) {
+    if (closed) {
+      return Future.failedFuture(new IllegalStateException("Upload session is closed. FileId: " + fileDefinition.getId()));
+    }
+    if (writeFailure != null) {
+      return Future.failedFuture(writeFailure);
+    }
+    Promise<Void> promise = Promise.promise();
+    int length = data.length();
+    file.write(data, ar -> {
+      if (ar.succeeded() && progress != null) {
+        progress.advance(length);
+      }
+      if (ar.failed() && writeFailure == null) {
+        LOGGER.error("Error during writing file part to the local system's storage. FileId: {}", ar.cause(), fileDefinition.getId());
+        writeFailure = ar.cause();
+      }
+    });
+    bytesWritten += length;
+    if (checksum != null) {
+      checksum.update(data);
+    }
+    if (indexEnabled) {
+      byte[] bytes = data.getBytes();
+      indexUpdated = indexUpdated.compose(v -> executeBlocking(() -> updateRecordsIndex(bytes)));
+    }
+    if (file.writeQueueFull()) {
+      file.drainHandler(v -> promise.complete());
+    } else {
+      promise.complete();
+    }
+    return promise.future();
+  }
+
+  /**
+   * Closes the file once all the queued parts are written and completes the records index
+   *
+   * @return future with the definition of the uploaded file
+   */
+  public Future<FileDefinition> close() {
+    return closeFile().compose(v -> {
+      if (writeFailure != null) {
+        return Future.failedFuture(writeFailure);
+      }
+      if (indexEnabled) {
+        return indexUpdated.compose(u -> executeBlocking(this::completeRecordsIndex));
+      }
+      return Future.succeededFuture();
+    }).map(v -> {
+      LOGGER.debug("File was saved to the storage, {} bytes written. FileId: {}", bytesWritten, fileDefinition.getId());
+      return fileDefinition;
+    });
+  }
+
+  /**
+   * Closes the file of the interrupted upload, the records index of the file is dropped
+   *
+   * @return future completed once the file is closed
+   */
+  public Future<Void> abort() {
+    boolean dropIndex = indexEnabled;
+    indexEnabled = false;
+    return closeFile()
+      .compose(v -> dropIndex ? indexUpdated.otherwiseEmpty().compose(u -> executeBlocking(this::deleteRecordsIndex)) : Future.succeededFuture());
+  }
+
+  public FileDefinition getFileDefinition() {
+    return fileDefinition;
+  }
+
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  private Future<Void> closeFile() {
+    if (closed) {
+      return Future.succeededFuture();
+    }
+    closed = true;
+    Promise<Void> promise = Promise.promise();
+    file.close(promise);
+    return promise.future();
+  }
+
+  /**
+   * Appends offsets of records found in the file part to the records index of the file.
+   * Failure to build the index does not fail the upload, the index gets deleted and the file is processed without it.
+   */
+  private void updateRecordsIndex(byte[] data) {
+    if (!indexEnabled) {
+      return;
+    }
+    try {
+      if (indexer == null) {
+        if (CompressionFormat.detect(data) != CompressionFormat.NONE) {
+          indexEnabled = false;
+          return;
+        }
+        indexer = RecordOffsetIndexer.create(path);
+      }
+      indexer.append(data);
+    } catch (IOException e) {
+      LOGGER.warn("Error during building records index for the file, the file will be processed without the index. FileId: {}",
+        e, fileDefinition.getId());
+      indexEnabled = false;
+      deleteRecordsIndex();
+    }
+  }
+
+  private void completeRecordsIndex() {
+    if (!indexEnabled || indexer == null) {
+      return;
+    }
+    try {
+      indexer.complete();
+      LOGGER.debug("Records index was built for the file. FileId: {}", fileDefinition.getId());
+    } catch (IOException e) {
+      LOGGER.warn("Error during completing records index for the file, the file will be processed without the index. FileId: {}",
+        e, fileDefinition.getId());
+      deleteRecordsIndex();
+    }
+  }
+
+  private void deleteRecordsIndex() {
+    try {
+      RecordOffsetIndex.delete(path);
+    } catch (IOException e) {
+      LOGGER.warn("Couldn't delete records index of the file. FileId: {}", e, fileDefinition.getId());
+    }
+  }
+
+  private Future<Void> executeBlocking(Runnable action) {
+    Promise<Void> promise = Promise.promise();
+    vertx.<Void>executeBlocking(future -> {
+      action.run();
+      future.complete();
+    }, false, promise);
+    return promise.future();
+  }
+}
@@ -7,17 +7,36 @@ import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import org.folio.dataimport.util.OkapiConnectionParams;
 import org.folio.rest.jaxrs.model.FileDefinition;
+import org.folio.service.storage.index.RecordOffsetIndex;
+import org.folio.service.storage.index.RecordOffsetIndexer;
 
 import javax.ws.rs.BadRequestException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
 
 public class LocalFileStorageService extends AbstractFileStorageService {
 
   private static final String FILE_STORAGE_PATH_CODE = "data.import.storage.path";
   private static final Logger logger = LoggerFactory.getLogger(LocalFileStorageService.class);
+  private static final boolean RECORDS_INDEX_ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("file.upload.records.index.enabled", "false"));
+  /* Uploaded files are stored gzip-compressed, every file part is written as a separate gzip member */
+  private static final boolean STORAGE_COMPRESSION_ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("file.upload.storage.compression.enabled", "false"));
+  /* Number of bytes of the file parts queued to the file of the upload session before the upload waits for the disk */
+  private static final int UPLOAD_SESSION_WRITE_QUEUE_BYTES =
+    Integer.parseInt(MODULE_SPECIFIC_ARGS.getOrDefault("file.upload.session.write.queue.bytes", String.valueOf(4 * 1024 * 1024)));
+  /* Indexers of the files being uploaded by file id, file parts are saved one after another so an indexer is never used concurrently */
+  private static final Map<String, RecordOffsetIndexer> INDEXERS = new ConcurrentHashMap<>();
 
   public LocalFileStorageService(Vertx vertx, String tenantId) {
     super(vertx, tenantId);
@@ -42,11 +61,26 @@ public class LocalFileStorageService extends AbstractFileStorageService {
                   fs.mkdirsBlocking(path.substring(0, path.indexOf(fileDefinition.getName()) - 1));
                 }
                 final Path pathToFile = Paths.get(path);
-                Files.write(pathToFile, data, pathToFile.toFile().exists() ? StandardOpenOption.APPEND : StandardOpenOption.CREATE);
+                boolean fileExists = pathToFile.toFile().exists();
+                boolean compress = STORAGE_COMPRESSION_ENABLED && isUncompressedFile(fileDefinition.getName());
+                UploadProgress progress = UploadProgress.isPipelinedEnabled() ? UploadProgress.track(fileId, path) : null;
+                ContentChecksum checksum = DuplicateFileIndex.CONFIGURED.isEnabled() ? ContentChecksum.track(fileId, fileExists) : null;
+                byte[] storedData = compress ? compress(data) : data;
+                Files.write(pathToFile, storedData, fileExists ? StandardOpenOption.APPEND : StandardOpenOption.CREATE);
+                if (progress != null) {
+                  progress.advance(storedData.length);
+                }
+                if (checksum != null) {
+                  checksum.update(data);
+                }
                 fileDefinition.setSourcePath(path);
+                if (RECORDS_INDEX_ENABLED && !compress) {
+                  updateRecordsIndex(pathToFile, data, fileExists, fileId);
+                }
                 b.complete();
               } catch (Exception e) {
                 logger.error("Error during save file source data to the local system's storage. FileId: {}", fileId, e);
+                discardRecordsIndex(fileId);
                 b.fail(e);
               }
             },
@@ -67,11 +101,40 @@ public class LocalFileStorageService extends AbstractFileStorageService {
     return promise.future();
   }
 
+  @Override
+  public Future<FileUploadSession> openUploadSession(FileDefinition fileDefinition, OkapiConnectionParams params) {
+    if (STORAGE_COMPRESSION_ENABLED && isUncompressedFile(fileDefinition.getName())) {
+      // every file part is compressed into the separate gzip member by saveFile
+      return Future.succeededFuture();
+    }
+    return getStoragePath(FILE_STORAGE_PATH_CODE, fileDefinition, params)
+      .recover(e -> {
+        logger.error("Error during calculating path for file save. FileId: {}", fileDefinition.getId(), e);
+        return Future.failedFuture(new BadRequestException(e));
+      })
+      .compose(path -> FileUploadSession.open(vertx, fileDefinition, path, RECORDS_INDEX_ENABLED, UPLOAD_SESSION_WRITE_QUEUE_BYTES));
+  }
+
+  @Override
+  public Future<RangedFileUpload> openRangedUpload(FileDefinition fileDefinition, Long totalSize, OkapiConnectionParams params) {
+    // ranges are written at their offsets, so the file is stored uncompressed and without the records index
+    return getStoragePath(FILE_STORAGE_PATH_CODE, fileDefinition, params)
+      .recover(e -> {
+        logger.error("Error during calculating path for file save. FileId: {}", fileDefinition.getId(), e);
+        return Future.failedFuture(new BadRequestException(e));
+      })
+      .compose(path -> RangedFileUpload.open(vertx, fileDefinition, path, totalSize));
+  }
+
   @Override
   public Future<Boolean> deleteFile(FileDefinition fileDefinition) {
     Promise<Boolean> promise = Promise.promise();
     try {
       fs.deleteBlocking(fileDefinition.getSourcePath());
+      Path pathToFile = Paths.get(fileDefinition.getSourcePath());
+      INDEXERS.remove(fileDefinition.getId());
+      RecordOffsetIndex.delete(pathToFile);
+      RangedFileUpload.deleteRanges(pathToFile);
       promise.complete(true);
     } catch (Exception e) {
       logger.error("Couldn't delete the file with id {} from the storage", fileDefinition.getId(), e);
@@ -80,6 +143,88 @@ public class LocalFileStorageService extends AbstractFileStorageService {
     return promise.future();
   }
 
+  /**
+   * Discards the records index of the file which upload is interrupted, the upload continued later
+   * stores the file without the index
+   *
+   * @param fileId id of the file
+   */
+  public static void discardRecordsIndex(String fileId) {
+    RecordOffsetIndexer indexer = INDEXERS.remove(fileId);
+    if (indexer == null) {
+      return;
+    }
+    try {
+      indexer.discard();
+    } catch (IOException e) {
+      logger.warn("Couldn't delete records index of the file. FileId: {}", fileId, e);
+    }
+  }
+
+  /**
+   * Appends offsets of records found in the saved file part to the records index of the file.
+   * Empty part means the end of upload, the index gets completed then.
+   * Failure to build the index does not fail the upload, the index gets deleted and the file is processed without it.
+   *
+   * @param pathToFile path to the saved file
+   * @param data       saved file part
+   * @param fileExists true if the part was appended to the existing file
+   * @param fileId     id of the file
+   */
+  private void updateRecordsIndex(Path pathToFile, byte[] data, boolean fileExists, String fileId) {
+    try {
+      RecordOffsetIndexer indexer = fileExists ? INDEXERS.get(fileId) : null;
+      if (indexer == null) {
+        if (fileExists) {
+          // file upload was started before the module restart or the file is compressed, the index can not be continued
+          RecordOffsetIndex.delete(pathToFile);
+          return;
+        }
+        if (CompressionFormat.detect(data) != CompressionFormat.NONE) {
+          return;
+        }
+        indexer = RecordOffsetIndexer.create(pathToFile);
+        INDEXERS.put(fileId, indexer);
+      }
+      indexer.append(data);
+      if (data.length == 0) {
+        INDEXERS.remove(fileId);
+        indexer.complete();
+        logger.debug("Records index was built for the file. FileId: {}", fileId);
+      }
+    } catch (IOException e) {
+      logger.warn("Error during building records index for the file, the file will be processed without the index. FileId: {}", fileId, e);
+      INDEXERS.remove(fileId);
+      try {
+        RecordOffsetIndex.delete(pathToFile);
+      } catch (IOException ex) {
+        logger.warn("Couldn't delete records index of the file. FileId: {}", fileId, ex);
+      }
+    }
+  }
+
+  private boolean isUncompressedFile(String fileName) {
+    return CompressionFormat.getContentFileName(fileName).equals(fileName);
+  }
+
+  /**
+   * Compresses the file part into the separate gzip member, gzip stream of the whole file is a concatenation of such members
+   *
+   * @param data file part
+   * @return compressed file part, empty for the empty file part
+   * @throws IOException if the part can not be compressed
+   */
+  private byte[] compress(byte[] data) throws IOException {
+    if (data.length == 0) {
+      return data;
+    }
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 4);
+    try (GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+      gzipStream.write(data);
+    }
+    return compressed.toByteArray();
+  }
+
   @Override
   protected Future<String> getStoragePath(String code, FileDefinition fileDefinition, OkapiConnectionParams params) {
     return fileDefinition.getSourcePath() != null ?
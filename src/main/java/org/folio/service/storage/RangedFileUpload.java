@@ -0,0 +1,353 @@
+package org.folio.service.storage;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.folio.rest.jaxrs.model.FileDefinition;
+import org.folio.service.storage.index.RecordOffsetIndex;
+
+import javax.ws.rs.BadRequestException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Upload of the single file to the local storage by byte ranges. Ranges may be sent in any order and at the same time,
+ * every range is written to the file at its offset. Range is recorded as received once its bytes are flushed to the disk,
+ * received ranges are kept in the file next to the uploaded one, so the interrupted upload, including the one interrupted
+ * by the restart of the module, is continued from the ranges received before. The file is kept open while the ranges
+ * are being sent, the upload is completed once the received ranges cover the whole file.
+ */
+public class RangedFileUpload {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RangedFileUpload.class);
+  private static final String RANGES_FILE_SUFFIX = ".ranges";
+  private static final String TOTAL_SIZE_KEY = "totalSize";
+  private static final String RANGES_KEY = "ranges";
+
+  private final Vertx vertx;
+  private final FileDefinition fileDefinition;
+  private final Path rangesPath;
+  private final AsyncFile file;
+  private final long totalSize;
+  /* received ranges, offset -> end of the range (exclusive), adjacent ranges are merged */
+  private final TreeMap<Long, Long> receivedRanges;
+  private boolean completing;
+  private boolean closed;
+  private int rangesInProgress;
+
+  private RangedFileUpload(Vertx vertx, FileDefinition fileDefinition, Path path, AsyncFile file, long totalSize,
+                           TreeMap<Long, Long> receivedRanges) {
+    this.vertx = vertx;
+    this.fileDefinition = fileDefinition;
+    this.rangesPath = getRangesPath(path);
+    this.file = file;
+    this.totalSize = totalSize;
+    this.receivedRanges = receivedRanges;
+  }
+
+  /**
+   * Opens the ranged upload of the file. The upload is continued from the ranges received before if they were received
+   * for the file of the same size, otherwise the upload is started over.
+   *
+   * @param vertx          vertx instance
+   * @param fileDefinition definition of the uploaded file
+   * @param path           path to the file in the storage
+   * @param totalSize      size of the whole file, null to continue the upload started before
+   * @return future with the upload, completed with null if the total size is not given and there is no upload to continue
+   */
+  public static Future<RangedFileUpload> open(Vertx vertx, FileDefinition fileDefinition, String path, Long totalSize) {
+    Path pathToFile = Paths.get(path);
+    Promise<RangesState> statePromise = Promise.promise();
+    vertx.<RangesState>executeBlocking(future -> {
+      try {
+        Files.createDirectories(pathToFile.getParent());
+        RangesState state = readRanges(pathToFile);
+        if (state == null || (totalSize != null && state.totalSize != totalSize)) {
+          if (totalSize == null) {
+            future.complete(null);
+            return;
+          }
+          // ranges are written at their offsets, the index built for the sequential upload does not match the file
+          RecordOffsetIndex.delete(pathToFile);
+          Files.deleteIfExists(pathToFile);
+          state = new RangesState(totalSize, new TreeMap<>());
+          writeRanges(getRangesPath(pathToFile), state);
+        }
+        future.complete(state);
+      } catch (IOException e) {
+        future.fail(e);
+      }
+    }, false, statePromise);
+    return statePromise.future().compose(state -> {
+      if (state == null) {
+        return Future.succeededFuture();
+      }
+      Promise<AsyncFile> filePromise = Promise.promise();
+      vertx.fileSystem().open(path, new OpenOptions().setCreate(true).setWrite(true).setRead(false), filePromise);
+      return filePromise.future().map(file -> {
+        fileDefinition.setSourcePath(path);
+        LOGGER.debug("Ranged upload was opened, {} of {} bytes were received before. FileId: {}",
+          getSize(state.ranges), state.totalSize, fileDefinition.getId());
+        return new RangedFileUpload(vertx, fileDefinition, pathToFile, file, state.totalSize, state.ranges);
+      });
+    }).onFailure(e -> LOGGER.error("Error during opening file for the ranged upload. FileId: {}", e, fileDefinition.getId()));
+  }
+
+  /**
+   * Writes the part of the range to the file
+   *
+   * @param position position in the file the part starts at
+   * @param data     part of the range
+   * @return future completed once the part is written
+   */
+  public Future<Void> write(long position, Buffer data) {
+    if (position < 0 || position + data.length() > totalSize) {
+      return Future.failedFuture(new BadRequestException(String.format(
+        "Range %d-%d is out of the file of %d bytes. FileId: %s", position, position + data.length(), totalSize, fileDefinition.getId())));
+    }
+    if (isClosed()) {
+      return Future.failedFuture(new IllegalStateException("Ranged upload is closed. FileId: " + fileDefinition.getId()));
+    }
+    Promise<Void> promise = Promise.promise();
+    file.write(data, position, promise);
+    return promise.future();
+  }
+
+  /**
+   * Records the range as received once its bytes are flushed to the disk
+   *
+   * @param offset offset of the range in the file
+   * @param length length of the range
+   * @return future with true if the range completes the upload, every received range after that is completed with false
+   */
+  public Future<Boolean> receive(long offset, long length) {
+    if (length == 0) {
+      return Future.succeededFuture(false);
+    }
+    Promise<Void> flushPromise = Promise.promise();
+    file.flush(flushPromise);
+    return flushPromise.future().compose(v -> {
+      Promise<Boolean> promise = Promise.promise();
+      vertx.<Boolean>executeBlocking(future -> {
+        synchronized (this) {
+          addRange(offset, offset + length);
+          try {
+            writeRanges(rangesPath, new RangesState(totalSize, receivedRanges));
+          } catch (IOException e) {
+            // the range is received, it is written to the disk with the next range or sent again if the module restarts
+            LOGGER.warn("Couldn't record received ranges of the file. FileId: {}", e, fileDefinition.getId());
+          }
+          boolean completes = !completing && getSize(receivedRanges) == totalSize;
+          completing |= completes;
+          future.complete(completes);
+        }
+      }, false, promise);
+      return promise.future();
+    });
+  }
+
+  /**
+   * Counts the range being sent to the upload
+   *
+   * @return false if the upload is already closed and has to be opened again
+   */
+  public synchronized boolean startRange() {
+    if (closed) {
+      return false;
+    }
+    rangesInProgress++;
+    return true;
+  }
+
+  /**
+   * Ends the range sent to the upload, received or interrupted. Once no ranges are being sent, the file is closed
+   * and the received ranges are kept to continue the upload
+   *
+   * @return future with true if the file was closed
+   */
+  public Future<Boolean> finishRange() {
+    synchronized (this) {
+      rangesInProgress--;
+      if (rangesInProgress > 0 || closed) {
+        return Future.succeededFuture(false);
+      }
+      closed = true;
+    }
+    return closeFile().map(true);
+  }
+
+  /**
+   * Closes the file of the completed upload and deletes the received ranges
+   *
+   * @return future with the definition of the uploaded file
+   */
+  public Future<FileDefinition> close() {
+    synchronized (this) {
+      if (closed) {
+        return Future.failedFuture(new IllegalStateException("Ranged upload is closed. FileId: " + fileDefinition.getId()));
+      }
+      closed = true;
+    }
+    return closeFile().compose(v -> {
+      Promise<FileDefinition> promise = Promise.promise();
+      vertx.<FileDefinition>executeBlocking(future -> {
+        try {
+          Files.deleteIfExists(rangesPath);
+          future.complete(fileDefinition);
+        } catch (IOException e) {
+          future.fail(e);
+        }
+      }, false, promise);
+      return promise.future();
+    });
+  }
+
+  /**
+   * Deletes the received ranges of the file
+   *
+   * @param path path to the file in the storage
+   */
+  public static void deleteRanges(Path path) throws IOException {
+    Files.deleteIfExists(getRangesPath(path));
+  }
+
+  public FileDefinition getFileDefinition() {
+    return fileDefinition;
+  }
+
+  public long getTotalSize() {
+    return totalSize;
+  }
+
+  public synchronized long getReceivedSize() {
+    return getSize(receivedRanges);
+  }
+
+  public synchronized boolean isCompleted() {
+    return getSize(receivedRanges) == totalSize;
+  }
+
+  /**
+   * Returns the received ranges ordered by offset, adjacent ranges are merged
+   *
+   * @return received ranges
+   */
+  public synchronized List<Range> getReceivedRanges() {
+    List<Range> ranges = new ArrayList<>();
+    receivedRanges.forEach((offset, end) -> ranges.add(new Range(offset, end - offset)));
+    return ranges;
+  }
+
+  private synchronized boolean isClosed() {
+    return closed;
+  }
+
+  private Future<Void> closeFile() {
+    Promise<Void> promise = Promise.promise();
+    file.close(promise);
+    return promise.future();
+  }
+
+  /**
+   * Adds the range merging it with the overlapping and adjacent ranges
+   */
+  private void addRange(long offset, long end) {
+    long start = offset;
+    long until = end;
+    Map.Entry<Long, Long> previous = receivedRanges.floorEntry(start);
+    if (previous != null && previous.getValue() >= start) {
+      start = previous.getKey();
+      until = Math.max(until, previous.getValue());
+    }
+    Map.Entry<Long, Long> next = receivedRanges.ceilingEntry(start);
+    while (next != null && next.getKey() <= until) {
+      until = Math.max(until, next.getValue());
+      receivedRanges.remove(next.getKey());
+      next = receivedRanges.ceilingEntry(start);
+    }
+    receivedRanges.put(start, until);
+  }
+
+  private static long getSize(TreeMap<Long, Long> ranges) {
+    long size = 0;
+    for (Map.Entry<Long, Long> range : ranges.entrySet()) {
+      size += range.getValue() - range.getKey();
+    }
+    return size;
+  }
+
+  private static Path getRangesPath(Path path) {
+    return path.resolveSibling(path.getFileName() + RANGES_FILE_SUFFIX);
+  }
+
+  private static RangesState readRanges(Path path) throws IOException {
+    Path rangesPath = getRangesPath(path);
+    if (!Files.exists(rangesPath) || !Files.exists(path)) {
+      return null;
+    }
+    JsonObject json = new JsonObject(new String(Files.readAllBytes(rangesPath), StandardCharsets.UTF_8));
+    TreeMap<Long, Long> ranges = new TreeMap<>();
+    json.getJsonArray(RANGES_KEY).forEach(range -> {
+      JsonArray bounds = (JsonArray) range;
+      ranges.put(bounds.getLong(0), bounds.getLong(1));
+    });
+    return new RangesState(json.getLong(TOTAL_SIZE_KEY), ranges);
+  }
+
+  /**
+   * Replaces the file of the received ranges, so the file is never left partially written
+   */
+  private static void writeRanges(Path rangesPath, RangesState state) throws IOException {
+    JsonArray ranges = new JsonArray();
+    state.ranges.forEach((offset, end) -> ranges.add(new JsonArray().add(offset).add(end)));
+    byte[] content = new JsonObject().put(TOTAL_SIZE_KEY, state.totalSize).put(RANGES_KEY, ranges).encode().getBytes(StandardCharsets.UTF_8);
+    Path temporaryPath = rangesPath.resolveSibling(rangesPath.getFileName() + ".tmp");
+    Files.write(temporaryPath, content);
+    Files.move(temporaryPath, rangesPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Received range of the file
+   */
+  public static final class Range {
+    private final long offset;
+    private final long length;
+
+    public Range(long offset, long length) {
+      this.offset = offset;
+      this.length = length;
+    }
+
+    public long getOffset() {
+      return offset;
+    }
+
+    public long getLength() {
+      return length;
+    }
+  }
+
+  private static final class RangesState {
+    private final long totalSize;
+    private final TreeMap<Long, Long> ranges;
+
+    private RangesState(long totalSize, TreeMap<Long, Long> ranges) {
+      this.totalSize = totalSize;
+      this.ranges = ranges;
+    }
+  }
+}
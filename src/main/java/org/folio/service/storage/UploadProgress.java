@@ -0,0 +1,259 @@
+package org.folio.service.storage;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.folio.rest.RestVerticle.MODULE_SPECIFIC_ARGS;
+
+/**
+ * Progress of the file being uploaded to the local storage, lets the file be processed while it is still being uploaded.
+ * Storage reports the bytes once they are written to the file, the upload lifecycle reports the end of the upload.
+ * Readers of the file wait for the bytes they need on the worker pool until the bytes are written, the upload ends
+ * or no bytes are written for the idle timeout. Progress is tracked for the files of the running module only,
+ * the file uploaded before the restart or to the other instance of the module is read as is.
+ * Processing claims the files of the upload definition before it starts, the claim is kept on the progress
+ * so the end of the upload does not reset the statuses set by the processing.
+ */
+public class UploadProgress {
+  private static final Logger LOGGER = LoggerFactory.getLogger(UploadProgress.class);
+
+  /* Files are processed while they are still being uploaded, the reader tails the file until the upload ends */
+  private static final boolean PIPELINED_ENABLED =
+    Boolean.parseBoolean(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.pipelined.enabled", "false"));
+  private static final long IDLE_TIMEOUT_MS =
+    Long.parseLong(MODULE_SPECIFIC_ARGS.getOrDefault("file.processing.pipelined.idle.timeout.ms", "600000"));
+  /* Progress of the files being uploaded by file id */
+  private static final Map<String, UploadProgress> UPLOADS = new ConcurrentHashMap<>();
+  /* Ids of the files claimed by the processing, guards the changes of the tracked uploads */
+  private static final Set<String> CLAIMS = new HashSet<>();
+
+  private final String path;
+  private final long idleTimeoutMs;
+  private long bytesWritten;
+  private boolean completed;
+  private Throwable failure;
+  private boolean consumed;
+
+  public UploadProgress(String path, long bytesWritten, long idleTimeoutMs) {
+    this.path = path;
+    this.bytesWritten = bytesWritten;
+    this.idleTimeoutMs = idleTimeoutMs;
+  }
+
+  public static boolean isPipelinedEnabled() {
+    return PIPELINED_ENABLED;
+  }
+
+  /**
+   * Returns progress of the file upload, the progress is started if the upload is not tracked yet.
+   * Has to be called before the file part is written, bytes already stored in the file count as written.
+   *
+   * @param fileId id of the uploaded file
+   * @param path   path to the file in the storage
+   * @return progress of the file upload
+   */
+  public static UploadProgress track(String fileId, String path) {
+    synchronized (CLAIMS) {
+      UploadProgress progress = UPLOADS.get(fileId);
+      if (progress == null) {
+        Path pathToFile = Paths.get(path);
+        long storedBytes = 0;
+        try {
+          storedBytes = Files.exists(pathToFile) ? Files.size(pathToFile) : 0;
+        } catch (IOException e) {
+          LOGGER.warn("Couldn't get size of the file being uploaded. FileId: {}", e, fileId);
+        }
+        LOGGER.debug("Progress of the file upload is tracked. FileId: {}", fileId);
+        progress = new UploadProgress(path, storedBytes, IDLE_TIMEOUT_MS);
+        if (CLAIMS.contains(fileId)) {
+          progress.markConsumed();
+        }
+        UPLOADS.put(fileId, progress);
+        CLAIMS.notifyAll();
+      }
+      return progress;
+    }
+  }
+
+  /**
+   * Claims the file for the processing, has to be called before the processing is started.
+   * The upload of the claimed file is marked as consumed by the processing, including the upload not tracked yet.
+   *
+   * @param fileId id of the processed file
+   */
+  public static void claim(String fileId) {
+    synchronized (CLAIMS) {
+      CLAIMS.add(fileId);
+      UploadProgress progress = UPLOADS.get(fileId);
+      if (progress != null) {
+        progress.markConsumed();
+      }
+    }
+  }
+
+  /**
+   * Releases the claim of the processing once the processing has looked the upload of the file up
+   *
+   * @param fileId id of the processed file
+   */
+  public static void release(String fileId) {
+    synchronized (CLAIMS) {
+      CLAIMS.remove(fileId);
+    }
+  }
+
+  /**
+   * Waits until the upload of the file is tracked, must not be called on the event loop.
+   * The file the processing is requested for may have no part stored yet.
+   *
+   * @param fileId    id of the uploaded file
+   * @param timeoutMs time to wait for
+   * @return progress of the file upload or empty Optional if the upload has not stored any part of the file in time
+   * @throws InterruptedException if the waiting thread is interrupted
+   */
+  public static Optional<UploadProgress> awaitTracked(String fileId, long timeoutMs) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    synchronized (CLAIMS) {
+      UploadProgress progress = UPLOADS.get(fileId);
+      long timeLeft = timeoutMs;
+      while (progress == null && timeLeft > 0) {
+        CLAIMS.wait(timeLeft);
+        progress = UPLOADS.get(fileId);
+        timeLeft = deadline - System.currentTimeMillis();
+      }
+      return Optional.ofNullable(progress);
+    }
+  }
+
+  public static long getIdleTimeoutMs() {
+    return IDLE_TIMEOUT_MS;
+  }
+
+  /**
+   * Returns progress of the file being uploaded
+   *
+   * @param fileId id of the uploaded file
+   * @return progress of the file upload or empty Optional if the file is not being uploaded
+   */
+  public static Optional<UploadProgress> find(String fileId) {
+    return Optional.ofNullable(UPLOADS.get(fileId));
+  }
+
+  /**
+   * Reports the end of the file upload, readers of the file read it till the end
+   *
+   * @param fileId id of the uploaded file
+   * @return true if the file was claimed by the processing before the upload ended
+   */
+  public static boolean complete(String fileId) {
+    UploadProgress progress;
+    boolean claimed;
+    synchronized (CLAIMS) {
+      progress = UPLOADS.remove(fileId);
+      claimed = CLAIMS.contains(fileId);
+    }
+    if (progress == null) {
+      return claimed;
+    }
+    progress.complete();
+    return progress.isConsumed();
+  }
+
+  /**
+   * Reports the interrupted file upload, readers of the file fail
+   *
+   * @param fileId id of the uploaded file
+   * @param cause  cause of the interruption
+   */
+  public static void fail(String fileId, Throwable cause) {
+    UploadProgress progress;
+    synchronized (CLAIMS) {
+      progress = UPLOADS.remove(fileId);
+    }
+    if (progress != null) {
+      progress.fail(cause);
+    }
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public synchronized long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  public synchronized boolean isCompleted() {
+    return completed;
+  }
+
+  public synchronized boolean isConsumed() {
+    return consumed;
+  }
+
+  /**
+   * Marks the upload as consumed by the processing
+   */
+  public synchronized void markConsumed() {
+    consumed = true;
+  }
+
+  /**
+   * Reports bytes written to the file
+   *
+   * @param bytes number of bytes written
+   */
+  public synchronized void advance(long bytes) {
+    bytesWritten += bytes;
+    notifyAll();
+  }
+
+  public synchronized void complete() {
+    completed = true;
+    notifyAll();
+  }
+
+  public synchronized void fail(Throwable cause) {
+    failure = cause;
+    notifyAll();
+  }
+
+  /**
+   * Waits until the file has the given number of bytes written or the upload ends, must not be called on the event loop
+   *
+   * @param length number of bytes the file has to have
+   * @return true if the file has the given number of bytes, false if the upload has ended with the file being shorter
+   * @throws IOException          if the upload is interrupted or no bytes are written for the idle timeout
+   * @throws InterruptedException if the waiting thread is interrupted
+   */
+  public synchronized boolean awaitBytes(long length) throws IOException, InterruptedException {
+    long lastBytesWritten = bytesWritten;
+    long idleSince = System.currentTimeMillis();
+    while (failure == null && bytesWritten < length && !completed) {
+      long now = System.currentTimeMillis();
+      if (bytesWritten != lastBytesWritten) {
+        lastBytesWritten = bytesWritten;
+        idleSince = now;
+      }
+      long idleTimeLeft = idleSince + idleTimeoutMs - now;
+      if (idleTimeLeft <= 0) {
+        throw new IOException(String.format("No bytes of the file %s were uploaded for %d ms", path, idleTimeoutMs));
+      }
+      wait(idleTimeLeft);
+    }
+    if (failure != null) {
+      throw new IOException("Upload of the file " + path + " was interrupted", failure);
+    }
+    return bytesWritten >= length;
+  }
+}
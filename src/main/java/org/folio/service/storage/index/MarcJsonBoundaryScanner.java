@@ -0,0 +1,42 @@
+package org.folio.service.storage.index;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Finds records in the MARC-JSON content: record is an object inside the top-level array,
+ * or the top-level object itself.
+ */
+public class MarcJsonBoundaryScanner implements RecordBoundaryScanner {
+
+  private int depth;
+  private boolean topLevelArray;
+  private boolean insideString;
+  private boolean escaped;
+
+  @Override
+  public void scan(byte[] data, long dataPosition, LongConsumer recordStarts) {
+    for (int i = 0; i < data.length; i++) {
+      byte b = data[i];
+      if (insideString) {
+        if (escaped) {
+          escaped = false;
+        } else if (b == '\\') {
+          escaped = true;
+        } else if (b == '"') {
+          insideString = false;
+        }
+      } else if (b == '"') {
+        insideString = true;
+      } else if (b == '{' || b == '[') {
+        if (depth == 0 && b == '[') {
+          topLevelArray = true;
+        } else if (b == '{' && depth == (topLevelArray ? 1 : 0)) {
+          recordStarts.accept(dataPosition + i);
+        }
+        depth++;
+      } else if (b == '}' || b == ']') {
+        depth--;
+      }
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package org.folio.service.storage.index;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Finds records in the raw MARC21 content: record starts at the first byte following the record terminator (0x1D),
+ * line breaks and spaces between records are skipped.
+ */
+public class MarcRawBoundaryScanner implements RecordBoundaryScanner {
+
+  private static final byte RECORD_TERMINATOR = 0x1D;
+
+  private boolean expectingRecordStart = true;
+
+  @Override
+  public void scan(byte[] data, long dataPosition, LongConsumer recordStarts) {
+    for (int i = 0; i < data.length; i++) {
+      byte b = data[i];
+      if (b == RECORD_TERMINATOR) {
+        expectingRecordStart = true;
+      } else if (expectingRecordStart && b != '\n' && b != '\r' && b != ' ') {
+        expectingRecordStart = false;
+        recordStarts.accept(dataPosition + i);
+      }
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package org.folio.service.storage.index;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Finds records in the MARCXML content: record is a direct child element of the root element.
+ * Comments, processing instructions, CDATA sections and declarations are skipped.
+ */
+public class MarcXmlBoundaryScanner implements RecordBoundaryScanner {
+
+  private enum State {
+    TEXT, TAG_OPEN, START_TAG, END_TAG, PROCESSING_INSTRUCTION, BANG, COMMENT, CDATA, DECLARATION
+  }
+
+  private State state = State.TEXT;
+  private int depth;
+  private long tagStart;
+  private byte quote;
+  private byte previous;
+  private byte beforePrevious;
+  private int declarationBrackets;
+
+  @Override
+  public void scan(byte[] data, long dataPosition, LongConsumer recordStarts) {
+    for (int i = 0; i < data.length; i++) {
+      byte b = data[i];
+      switch (state) {
+        case TEXT:
+          if (b == '<') {
+            tagStart = dataPosition + i;
+            state = State.TAG_OPEN;
+          }
+          break;
+        case TAG_OPEN:
+          if (b == '/') {
+            state = State.END_TAG;
+          } else if (b == '?') {
+            state = State.PROCESSING_INSTRUCTION;
+          } else if (b == '!') {
+            state = State.BANG;
+          } else {
+            if (depth == 1) {
+              recordStarts.accept(tagStart);
+            }
+            quote = 0;
+            state = State.START_TAG;
+          }
+          break;
+        case START_TAG:
+          if (quote != 0) {
+            quote = b == quote ? 0 : quote;
+          } else if (b == '"' || b == '\'') {
+            quote = b;
+          } else if (b == '>') {
+            if (previous != '/') {
+              depth++;
+            }
+            state = State.TEXT;
+          }
+          break;
+        case END_TAG:
+          if (b == '>') {
+            depth--;
+            state = State.TEXT;
+          }
+          break;
+        case PROCESSING_INSTRUCTION:
+          if (b == '>' && previous == '?') {
+            state = State.TEXT;
+          }
+          break;
+        case BANG:
+          if (b == '-') {
+            state = State.COMMENT;
+          } else if (b == '[') {
+            state = State.CDATA;
+          } else {
+            declarationBrackets = 0;
+            state = State.DECLARATION;
+          }
+          // the opening part of comment and CDATA can not be a part of their closing sequence
+          b = 0;
+          break;
+        case COMMENT:
+          if (b == '>' && previous == '-' && beforePrevious == '-') {
+            state = State.TEXT;
+          }
+          break;
+        case CDATA:
+          if (b == '>' && previous == ']' && beforePrevious == ']') {
+            state = State.TEXT;
+          }
+          break;
+        case DECLARATION:
+          if (b == '[') {
+            declarationBrackets++;
+          } else if (b == ']') {
+            declarationBrackets--;
+          } else if (b == '>' && declarationBrackets == 0) {
+            state = State.TEXT;
+          }
+          break;
+        default:
+          break;
+      }
+      beforePrevious = previous;
+      previous = b;
+    }
+  }
+}
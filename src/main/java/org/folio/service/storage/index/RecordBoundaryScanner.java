@@ -0,0 +1,19 @@
+package org.folio.service.storage.index;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Finds positions where records start in the file content which comes in consecutive parts.
+ * Implementations keep the scanning state between the parts, so a record may start in one part and end in another.
+ */
+public interface RecordBoundaryScanner {
+
+  /**
+   * Scans next part of the file content
+   *
+   * @param data         part of the file content
+   * @param dataPosition position of the part in the file
+   * @param recordStarts consumer of positions in the file where records start
+   */
+  void scan(byte[] data, long dataPosition, LongConsumer recordStarts);
+}
@@ -0,0 +1,22 @@
+package org.folio.service.storage.index;
+
+import java.util.function.Supplier;
+
+/**
+ * Formats of the files the {@link RecordOffsetIndex} can be built for, the ordinal is written to the index header
+ */
+public enum RecordFormat {
+  MARC_RAW(MarcRawBoundaryScanner::new),
+  MARC_JSON(MarcJsonBoundaryScanner::new),
+  MARC_XML(MarcXmlBoundaryScanner::new);
+
+  private Supplier<RecordBoundaryScanner> scannerFactory;
+
+  RecordFormat(Supplier<RecordBoundaryScanner> scannerFactory) {
+    this.scannerFactory = scannerFactory;
+  }
+
+  RecordBoundaryScanner createScanner() {
+    return scannerFactory.get();
+  }
+}
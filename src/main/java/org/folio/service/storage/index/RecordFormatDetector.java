@@ -0,0 +1,28 @@
+package org.folio.service.storage.index;
+
+import java.io.File;
+import java.util.Optional;
+
+/**
+ * Detects format of the file the records index is built for. The detector is loaded with {@link java.util.ServiceLoader},
+ * so the index is built with the record boundaries of the reader the file is processed with, while the storage
+ * does not depend on the readers.
+ */
+public interface RecordFormatDetector {
+
+  /**
+   * Returns number of the first bytes of the file the format is detected by
+   *
+   * @return size of the beginning of the file
+   */
+  int getSampleSize();
+
+  /**
+   * Detects format of the file by its beginning
+   *
+   * @param file file being written
+   * @param head first bytes of the file content
+   * @return format of the records index or empty Optional if the index is not built for the file
+   */
+  Optional<RecordFormat> detect(File file, byte[] head);
+}
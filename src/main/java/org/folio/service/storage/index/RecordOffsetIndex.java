@@ -0,0 +1,114 @@
+package org.folio.service.storage.index;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Sidecar index of the stored file with positions of records in the file.
+ * The index is built by {@link RecordOffsetIndexer} while the file is uploaded and allows to know the number
+ * of records and to seek to the record N without reading the file.
+ * <p>
+ * Index file layout, all numbers are big-endian:
+ * <pre>
+ * int     magic number "DIDX"
+ * short   format version
+ * byte    format of the data file detected by the content, see {@link RecordFormat}
+ * byte    flags, 1 - index is complete
+ * long    length of the data file covered by the index, set when index is complete
+ * long[]  positions of records in the data file
+ * </pre>
+ */
+public class RecordOffsetIndex {
+
+  static final int MAGIC = 0x44494458;
+  static final short VERSION = 1;
+  static final int FORMAT_POSITION = 6;
+  static final int FLAGS_POSITION = 7;
+  static final byte FLAG_COMPLETE = 1;
+  static final int HEADER_SIZE = 16;
+  private static final String INDEX_FILE_SUFFIX = ".idx";
+
+  private MappedByteBuffer buffer;
+  private RecordFormat format;
+  private long dataLength;
+  private int recordsNumber;
+
+  private RecordOffsetIndex(MappedByteBuffer buffer) {
+    this.buffer = buffer;
+    this.format = RecordFormat.values()[buffer.get(FORMAT_POSITION)];
+    this.dataLength = buffer.getLong(8);
+    this.recordsNumber = (buffer.limit() - HEADER_SIZE) / Long.BYTES;
+  }
+
+  /**
+   * Opens complete index of the data file
+   *
+   * @param dataPath path to the data file
+   * @return index if it exists, is complete and matches the current data file length, otherwise empty Optional
+   * @throws IOException if index file can not be read
+   */
+  public static Optional<RecordOffsetIndex> open(Path dataPath) throws IOException {
+    Path indexPath = getIndexPath(dataPath);
+    if (!Files.exists(indexPath) || !Files.exists(dataPath)) {
+      return Optional.empty();
+    }
+    try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+        return Optional.empty();
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION || buffer.get(FLAGS_POSITION) != FLAG_COMPLETE
+        || buffer.get(FORMAT_POSITION) >= RecordFormat.values().length) {
+        return Optional.empty();
+      }
+      RecordOffsetIndex index = new RecordOffsetIndex(buffer);
+      return index.dataLength == Files.size(dataPath) ? Optional.of(index) : Optional.empty();
+    }
+  }
+
+  /**
+   * Deletes index of the data file if it exists
+   *
+   * @param dataPath path to the data file
+   * @throws IOException if index file can not be deleted
+   */
+  public static void delete(Path dataPath) throws IOException {
+    Files.deleteIfExists(getIndexPath(dataPath));
+  }
+
+  static Path getIndexPath(Path dataPath) {
+    return Paths.get(dataPath.toString() + INDEX_FILE_SUFFIX);
+  }
+
+  public RecordFormat getFormat() {
+    return format;
+  }
+
+  public long getDataLength() {
+    return dataLength;
+  }
+
+  public int getRecordsNumber() {
+    return recordsNumber;
+  }
+
+  /**
+   * Returns position of the record in the data file
+   *
+   * @param recordNumber zero-based number of the record
+   * @return position of the record in the data file
+   */
+  public long getOffset(int recordNumber) {
+    if (recordNumber < 0 || recordNumber >= recordsNumber) {
+      throw new IndexOutOfBoundsException("Record number " + recordNumber + " is out of index bounds, records number: " + recordsNumber);
+    }
+    return buffer.getLong(HEADER_SIZE + recordNumber * Long.BYTES);
+  }
+}
@@ -0,0 +1,183 @@
+package org.folio.service.storage.index;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.function.LongConsumer;
+
+import static org.folio.service.storage.index.RecordOffsetIndex.FLAGS_POSITION;
+import static org.folio.service.storage.index.RecordOffsetIndex.FLAG_COMPLETE;
+import static org.folio.service.storage.index.RecordOffsetIndex.FORMAT_POSITION;
+import static org.folio.service.storage.index.RecordOffsetIndex.HEADER_SIZE;
+import static org.folio.service.storage.index.RecordOffsetIndex.MAGIC;
+import static org.folio.service.storage.index.RecordOffsetIndex.VERSION;
+
+/**
+ * Builds the {@link RecordOffsetIndex} of the file while the file is being written part by part.
+ * Offsets found in every part are appended to the index file right away, once the format of the file is detected
+ * by its beginning. The index gets marked as complete once the whole file is written.
+ * Format is detected by the {@link RecordFormatDetector} loaded with {@link ServiceLoader}, the index is not built
+ * if no detector is available.
+ */
+public class RecordOffsetIndexer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RecordOffsetIndexer.class);
+  private static final RecordFormatDetector FORMAT_DETECTOR = loadFormatDetector();
+
+  private Path dataPath;
+  private Path indexPath;
+  private RecordFormat format;
+  private RecordBoundaryScanner scanner;
+  /* beginning of the file kept until the format is detected */
+  private ByteArrayOutputStream sample = new ByteArrayOutputStream();
+  private boolean unsupported;
+  private long dataLength;
+
+  private RecordOffsetIndexer(Path dataPath) {
+    this.dataPath = dataPath;
+    this.indexPath = RecordOffsetIndex.getIndexPath(dataPath);
+  }
+
+  /**
+   * Creates new index file for the data file. Format of the data file is detected by the content once
+   * the beginning of the file is written, the same way the file reader is chosen for processing
+   *
+   * @param dataPath path to the data file
+   * @return indexer for the data file
+   * @throws IOException if index file can not be created
+   */
+  public static RecordOffsetIndexer create(Path dataPath) throws IOException {
+    RecordOffsetIndexer indexer = new RecordOffsetIndexer(dataPath);
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+      .putInt(MAGIC)
+      .putShort(VERSION)
+      .put((byte) 0)
+      .put((byte) 0)
+      .putLong(0);
+    header.flip();
+    try (FileChannel channel = FileChannel.open(indexer.indexPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      channel.write(header);
+    }
+    return indexer;
+  }
+
+  /**
+   * Finds records in the next part of the data file and appends their offsets to the index
+   *
+   * @param data next part of the data file
+   * @throws IOException if index file can not be written
+   */
+  public void append(byte[] data) throws IOException {
+    if (unsupported) {
+      return;
+    }
+    if (scanner == null) {
+      sample.write(data);
+      if (FORMAT_DETECTOR != null && sample.size() < FORMAT_DETECTOR.getSampleSize() && data.length > 0) {
+        return;
+      }
+      if (!detectFormat()) {
+        return;
+      }
+      data = sample.toByteArray();
+      sample = null;
+    }
+    LongBufferWriter offsets = new LongBufferWriter();
+    scanner.scan(data, dataLength, offsets);
+    dataLength += data.length;
+    if (offsets.buffer.position() > 0) {
+      offsets.buffer.flip();
+      try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.APPEND)) {
+        while (offsets.buffer.hasRemaining()) {
+          channel.write(offsets.buffer);
+        }
+      }
+    }
+  }
+
+  /**
+   * Marks the index as complete, the index covers the whole data file after that
+   *
+   * @throws IOException if index file can not be written
+   */
+  public void complete() throws IOException {
+    if (scanner == null) {
+      append(new byte[0]);
+    }
+    if (unsupported) {
+      return;
+    }
+    ByteBuffer flags = ByteBuffer.allocate(HEADER_SIZE - FLAGS_POSITION)
+      .put(FLAG_COMPLETE)
+      .putLong(dataLength);
+    flags.flip();
+    try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+      channel.write(flags, FLAGS_POSITION);
+      channel.force(false);
+    }
+  }
+
+  /**
+   * Deletes the index of the data file which upload is interrupted, the indexer ignores the data file after that
+   *
+   * @throws IOException if index file can not be deleted
+   */
+  public void discard() throws IOException {
+    unsupported = true;
+    sample = null;
+    RecordOffsetIndex.delete(dataPath);
+  }
+
+  /**
+   * Detects format of the data file by its beginning and writes it to the index header,
+   * the index file is deleted if the records index is not built for the files of the format
+   */
+  private boolean detectFormat() throws IOException {
+    Optional<RecordFormat> detectedFormat = FORMAT_DETECTOR == null
+      ? Optional.empty()
+      : FORMAT_DETECTOR.detect(dataPath.toFile(), sample.toByteArray());
+    if (detectedFormat.isEmpty()) {
+      unsupported = true;
+      sample = null;
+      RecordOffsetIndex.delete(dataPath);
+      return false;
+    }
+    format = detectedFormat.get();
+    scanner = format.createScanner();
+    try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[]{(byte) format.ordinal()}), FORMAT_POSITION);
+    }
+    return true;
+  }
+
+  private static RecordFormatDetector loadFormatDetector() {
+    Iterator<RecordFormatDetector> detectors = ServiceLoader.load(RecordFormatDetector.class).iterator();
+    if (!detectors.hasNext()) {
+      LOGGER.warn("No record format detector is registered, records index is not built for the uploaded files");
+      return null;
+    }
+    return detectors.next();
+  }
+
+  private static class LongBufferWriter implements LongConsumer {
+    private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+    @Override
+    public void accept(long value) {
+      if (buffer.remaining() < Long.BYTES) {
+        ByteBuffer extended = ByteBuffer.allocate(buffer.capacity() * 2);
+        buffer.flip();
+        buffer = extended.put(buffer);
+      }
+      buffer.putLong(value);
+    }
+  }
+}
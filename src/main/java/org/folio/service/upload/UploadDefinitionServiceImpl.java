@@ -13,7 +13,6 @@ import org.folio.HttpStatus;
 import org.folio.dao.UploadDefinitionDao;
 import org.folio.dao.UploadDefinitionDaoImpl;
 import org.folio.dataimport.util.OkapiConnectionParams;
-import org.folio.rest.client.ChangeManagerClient;
 import org.folio.rest.impl.util.BufferMapper;
 import org.folio.rest.jaxrs.model.DefinitionCollection;
 import org.folio.rest.jaxrs.model.Error;
@@ -26,8 +25,10 @@ import org.folio.rest.jaxrs.model.JobExecutionCollection;
 import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.StatusDto;
 import org.folio.rest.jaxrs.model.UploadDefinition;
+import org.folio.service.client.ChangeManagerHttpClient;
 import org.folio.service.fileextension.FileExtensionService;
 import org.folio.service.fileextension.FileExtensionServiceImpl;
+import org.folio.service.storage.CompressionFormat;
 import org.folio.service.storage.FileStorageServiceBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -145,7 +146,7 @@ public class UploadDefinitionServiceImpl implements UploadDefinitionService {
   @Override
   public Future<Boolean> updateJobExecutionStatus(String jobExecutionId, StatusDto status, OkapiConnectionParams params) {
     Promise<Boolean> promise = Promise.promise();
-    ChangeManagerClient client = new ChangeManagerClient(params.getOkapiUrl(), params.getTenantId(), params.getToken());
+    ChangeManagerHttpClient client = new ChangeManagerHttpClient(params);
     try {
       client.putChangeManagerJobExecutionsStatusById(jobExecutionId, status, response -> {
         if (response.statusCode() == HttpStatus.HTTP_OK.toInt()) {
@@ -154,7 +155,7 @@ public class UploadDefinitionServiceImpl implements UploadDefinitionService {
           logger.error("Error updating status of JobExecution with id {}", jobExecutionId, response.statusMessage());
           promise.fail(new HttpStatusException(response.statusCode(), "Error updating status of JobExecution"));
         }
-      });
+      }, promise::tryFail);
     } catch (Exception e) {
       promise.fail(e);
     }
@@ -196,9 +197,11 @@ public class UploadDefinitionServiceImpl implements UploadDefinitionService {
 
   private String getFileExtensionFromString(String fileName) {
     String extension = "";
-    int i = fileName.lastIndexOf('.');
+    // extension of the compressed file content is validated, e.g. ".mrc" for "records.mrc.gz"
+    String contentFileName = CompressionFormat.getContentFileName(fileName);
+    int i = contentFileName.lastIndexOf('.');
     if (i > 0) {
-      extension = fileName.substring(i);
+      extension = contentFileName.substring(i);
     }
     return extension;
   }
@@ -253,7 +256,7 @@ public class UploadDefinitionServiceImpl implements UploadDefinitionService {
         .withSourceType(InitJobExecutionsRqDto.SourceType.FILES);
 
     Promise<UploadDefinition> promise = Promise.promise();
-    ChangeManagerClient client = new ChangeManagerClient(params.getOkapiUrl(), params.getTenantId(), params.getToken());
+    ChangeManagerHttpClient client = new ChangeManagerHttpClient(params);
     try {
       client.postChangeManagerJobExecutions(initJobExecutionsRqDto, response -> {
         if (response.statusCode() != HttpStatus.HTTP_CREATED.toInt()) {
@@ -277,7 +280,7 @@ public class UploadDefinitionServiceImpl implements UploadDefinitionService {
             promise.complete(definition);
           });
         }
-      });
+      }, promise::tryFail);
     } catch (Exception e) {
       promise.fail(e);
     }
@@ -332,7 +335,7 @@ public class UploadDefinitionServiceImpl implements UploadDefinitionService {
 
   private Future<JobExecutionCollection> getChildrenJobExecutions(String jobExecutionParentId, OkapiConnectionParams params) {
     Promise<JobExecutionCollection> promise = Promise.promise();
-    ChangeManagerClient client = new ChangeManagerClient(params.getOkapiUrl(), params.getTenantId(), params.getToken());
+    ChangeManagerHttpClient client = new ChangeManagerHttpClient(params);
     try {
       client.getChangeManagerJobExecutionsChildrenById(jobExecutionParentId, Integer.MAX_VALUE, null, 0, response -> {
         if (response.statusCode() == HttpStatus.HTTP_OK.toInt()) {
@@ -342,7 +345,7 @@ public class UploadDefinitionServiceImpl implements UploadDefinitionService {
           logger.error(errorMessage);
           promise.fail(errorMessage);
         }
-      });
+      }, promise::tryFail);
     } catch (Exception e) {
       promise.fail(e);
     }
@@ -351,9 +354,9 @@ public class UploadDefinitionServiceImpl implements UploadDefinitionService {
 
   private Future<JobExecution> getJobExecutionById(String jobExecutionId, OkapiConnectionParams params) {
     Promise<JobExecution> promise = Promise.promise();
-    ChangeManagerClient client = new ChangeManagerClient(params.getOkapiUrl(), params.getTenantId(), params.getToken());
+    ChangeManagerHttpClient client = new ChangeManagerHttpClient(params);
     try {
-      client.getChangeManagerJobExecutionsById(jobExecutionId, null, response -> {
+      client.getChangeManagerJobExecutionsById(jobExecutionId, response -> {
         if (response.statusCode() == HttpStatus.HTTP_OK.toInt()) {
           response.bodyHandler(buffer -> promise.handle(BufferMapper.mapBufferContentToEntity(buffer, JobExecution.class)));
         } else {
@@ -361,7 +364,7 @@ public class UploadDefinitionServiceImpl implements UploadDefinitionService {
           logger.error(errorMessage);
           promise.fail(errorMessage);
         }
-      });
+      }, promise::tryFail);
     } catch (Exception e) {
       promise.fail(e);
     }
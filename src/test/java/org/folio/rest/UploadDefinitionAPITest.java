@@ -60,6 +60,7 @@ public class UploadDefinitionAPITest extends AbstractRestTest {
   private static final String DEFINITION_PATH = "/data-import/uploadDefinitions";
   private static final String FILE_PATH = "/files";
   private static final String PROCESS_FILE_IMPORT_PATH = "/processFiles";
+  private static final String RANGES_PATH = "/ranges";
   private String uploadDefIdForTest1;
   private String uploadDefIdForTest2;
   private String uploadDefIdForTest3;
@@ -477,6 +478,160 @@ public class UploadDefinitionAPITest extends AbstractRestTest {
     }));
   }
 
+  @Test
+  public void rangedFileUploadShouldCompleteFileWhenRangesCoverWholeFile(TestContext context) throws IOException {
+    Async async = context.async();
+    UploadDefinition uploadDefinition = createUploadDefinition();
+    String uploadDefId = uploadDefinition.getId();
+    String fileId = uploadDefinition.getFileDefinitions().get(0).getId();
+    byte[] content = readFileContent();
+    int half = content.length / 2;
+
+    putFileRange(uploadDefId, fileId, half, Arrays.copyOfRange(content, half, content.length), content.length)
+      .body("completed", is(false))
+      .body("receivedSize", is(content.length - half));
+    RestAssured.given()
+      .spec(spec)
+      .when()
+      .get(DEFINITION_PATH + "/" + uploadDefId)
+      .then()
+      .log().all()
+      .statusCode(HttpStatus.SC_OK)
+      .body("fileDefinitions[0].status", is(FileDefinition.Status.UPLOADING.name()));
+
+    putFileRange(uploadDefId, fileId, 0, Arrays.copyOfRange(content, 0, half), content.length)
+      .body("completed", is(true))
+      .body("receivedSize", is(content.length));
+    UploadDefinition uploadedDefinition = RestAssured.given()
+      .spec(spec)
+      .when()
+      .get(DEFINITION_PATH + "/" + uploadDefId)
+      .then()
+      .log().all()
+      .statusCode(HttpStatus.SC_OK)
+      .body("status", is(UploadDefinition.Status.LOADED.name()))
+      .body("fileDefinitions[0].status", is(FileDefinition.Status.UPLOADED.name()))
+      .extract().body().as(UploadDefinition.class);
+    File uploadedFile = new File(uploadedDefinition.getFileDefinitions().get(0).getSourcePath());
+    assertTrue(Arrays.equals(content, FileUtils.readFileToByteArray(uploadedFile)));
+    async.complete();
+  }
+
+  @Test
+  public void rangedFileUploadShouldReturnReceivedRangesWhenUploadIsReopened(TestContext context) throws IOException {
+    Async async = context.async();
+    UploadDefinition uploadDefinition = createUploadDefinition();
+    String uploadDefId = uploadDefinition.getId();
+    String fileId = uploadDefinition.getFileDefinitions().get(0).getId();
+    byte[] content = readFileContent();
+    int third = content.length / 3;
+
+    // every range closes the upload once it is received, the next range opens it again
+    putFileRange(uploadDefId, fileId, 0, Arrays.copyOfRange(content, 0, third), content.length)
+      .body("completed", is(false));
+    putFileRange(uploadDefId, fileId, 2 * third, Arrays.copyOfRange(content, 2 * third, content.length), content.length)
+      .body("completed", is(false))
+      .body("ranges.size()", is(2));
+
+    RestAssured.given()
+      .spec(spec)
+      .when()
+      .get(DEFINITION_PATH + "/" + uploadDefId + FILE_PATH + "/" + fileId + RANGES_PATH)
+      .then()
+      .log().all()
+      .statusCode(HttpStatus.SC_OK)
+      .body("totalSize", is(content.length))
+      .body("receivedSize", is(content.length - third))
+      .body("completed", is(false))
+      .body("ranges[0].offset", is(0))
+      .body("ranges[0].length", is(third))
+      .body("ranges[1].offset", is(2 * third))
+      .body("ranges[1].length", is(content.length - 2 * third));
+
+    putFileRange(uploadDefId, fileId, third, Arrays.copyOfRange(content, third, 2 * third), content.length)
+      .body("completed", is(true))
+      .body("ranges.size()", is(1));
+    async.complete();
+  }
+
+  @Test
+  public void rangedFileUploadShouldNotFailFileWhenRangeUploadStreamInterrupted(TestContext context) throws IOException {
+    Async async = context.async();
+    UploadDefinition uploadDefinition = createUploadDefinition();
+    String uploadDefId = uploadDefinition.getId();
+    String fileId = uploadDefinition.getFileDefinitions().get(0).getId();
+    byte[] content = readFileContent();
+    int half = content.length / 2;
+    putFileRange(uploadDefId, fileId, 0, Arrays.copyOfRange(content, 0, half), content.length);
+    async.complete();
+
+    Vertx vertx = Vertx.vertx();
+    Promise<Object> promise = Promise.promise();
+    Async async2 = context.async();
+    vertx.createNetClient().connect(port, "localhost", con -> {
+      context.assertTrue(con.succeeded());
+      if (con.failed()) {
+        async2.complete();
+        return;
+      }
+      NetSocket socket = con.result();
+      socket.write("PUT " + DEFINITION_PATH + "/" + uploadDefId + FILE_PATH + "/" + fileId + RANGES_PATH
+        + "?offset=" + half + "&totalSize=" + content.length + " HTTP/1.1\r\n");
+      socket.write("Content-Type: application/octet-stream\r\n");
+      socket.write("Accept: application/json,text/plain\r\n");
+      socket.write("x-okapi-tenant: " + TENANT_ID + "\r\n");
+      socket.write("Content-Length: " + (content.length - half) + "\r\n");
+      socket.write("\r\n");
+      // only the part of the range is sent
+      socket.write(Buffer.buffer(Arrays.copyOfRange(content, half, half + 10)));
+      socket.handler(buf -> {
+      });
+      vertx.setTimer(100, x -> socket.end());
+      socket.endHandler(x -> promise.tryComplete());
+    });
+
+    promise.future().onComplete(ar -> vertx.setTimer(100, e -> {
+      RestAssured.given()
+        .spec(spec)
+        .when()
+        .get(DEFINITION_PATH + "/" + uploadDefId)
+        .then()
+        .log().all()
+        .statusCode(HttpStatus.SC_OK)
+        .body("status", Matchers.not(ERROR.name()))
+        .body("fileDefinitions[0].status", is(FileDefinition.Status.UPLOADING.name()));
+      RestAssured.given()
+        .spec(spec)
+        .when()
+        .get(DEFINITION_PATH + "/" + uploadDefId + FILE_PATH + "/" + fileId + RANGES_PATH)
+        .then()
+        .log().all()
+        .statusCode(HttpStatus.SC_OK)
+        .body("receivedSize", is(half))
+        .body("completed", is(false));
+      putFileRange(uploadDefId, fileId, half, Arrays.copyOfRange(content, half, content.length), content.length)
+        .body("completed", is(true));
+      vertx.close();
+      async2.complete();
+    }));
+  }
+
+  @Test
+  public void rangedFileUploadShouldRejectEmptyFile(TestContext context) {
+    Async async = context.async();
+    UploadDefinition uploadDefinition = createUploadDefinition();
+    RestAssured.given()
+      .spec(specUpload)
+      .when()
+      .body(new byte[0])
+      .put(DEFINITION_PATH + "/" + uploadDefinition.getId() + FILE_PATH + "/" + uploadDefinition.getFileDefinitions().get(0).getId()
+        + RANGES_PATH + "?offset=0&totalSize=0")
+      .then()
+      .log().all()
+      .statusCode(HttpStatus.SC_BAD_REQUEST);
+    async.complete();
+  }
+
   @Test
   public void fileUploadNotFound() {
     ClassLoader classLoader = getClass().getClassLoader();
@@ -1193,6 +1348,36 @@ public class UploadDefinitionAPITest extends AbstractRestTest {
     async.complete();
   }
 
+  private UploadDefinition createUploadDefinition() {
+    return RestAssured.given()
+      .spec(spec)
+      .body(uploadDef3)
+      .when()
+      .post(DEFINITION_PATH)
+      .then()
+      .statusCode(HttpStatus.SC_CREATED)
+      .log().all()
+      .extract().body().as(UploadDefinition.class);
+  }
+
+  private byte[] readFileContent() throws IOException {
+    ClassLoader classLoader = getClass().getClassLoader();
+    return FileUtils.readFileToByteArray(new File(Objects.requireNonNull(classLoader.getResource("CornellFOLIOExemplars_Bibs.mrc")).getFile()));
+  }
+
+  private ValidatableResponse putFileRange(String uploadDefId, String fileId, long offset, byte[] data, long totalSize) {
+    return RestAssured.given()
+      .spec(specUpload)
+      .when()
+      .body(data)
+      .put(DEFINITION_PATH + "/" + uploadDefId + FILE_PATH + "/" + fileId + RANGES_PATH + "?offset=" + offset + "&totalSize=" + totalSize)
+      .then()
+      .log().all()
+      .statusCode(HttpStatus.SC_OK)
+      .body("fileId", is(fileId))
+      .body("totalSize", is((int) totalSize));
+  }
+
   private String getUnsecuredJwtWithUserId(String userId) {
     String header = new JsonObject().put("alg", "none").encode();
     String payload = new JsonObject()
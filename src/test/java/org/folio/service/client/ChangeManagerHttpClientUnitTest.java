@@ -0,0 +1,130 @@
+package org.folio.service.client;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.common.Slf4jNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.folio.rest.jaxrs.model.RawRecordsDto;
+import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Testing requests sent by ChangeManagerHttpClient through the pooled HttpClient
+ */
+@RunWith(VertxUnitRunner.class)
+public class ChangeManagerHttpClientUnitTest {
+
+  private static final String TENANT = "diku";
+  private static final String TOKEN = "token";
+  private static final String RAW_RECORDS_SERVICE_URL_WITH_QUERY_PARAM = "/change-manager/jobExecutions/%s/records?defaultMapping=%s&";
+  private static final int REQUESTS_NUMBER = 20;
+  private static final long REQUEST_TIMEOUT_MS = 200;
+
+  private Vertx vertx;
+
+  @Rule
+  public WireMockRule mockServer = new WireMockRule(
+    WireMockConfiguration.wireMockConfig()
+      .dynamicPort()
+      .notifier(new Slf4jNotifier(true)));
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void shouldReuseConnectionsForSequentialRequests(TestContext context) {
+    // given
+    Async async = context.async();
+    String jobExecutionId = UUID.randomUUID().toString();
+    WireMock.stubFor(WireMock.post(String.format(RAW_RECORDS_SERVICE_URL_WITH_QUERY_PARAM, jobExecutionId, true))
+      .willReturn(WireMock.noContent()));
+    ChangeManagerHttpClient client = new ChangeManagerHttpClient(vertx, "http://localhost:" + mockServer.port(), TENANT, TOKEN);
+    long openedConnectionsBefore = PooledHttpClientProvider.getOpenedConnections();
+
+    // when
+    Future<Void> future = Future.succeededFuture();
+    for (int i = 0; i < REQUESTS_NUMBER; i++) {
+      future = future.compose(v -> postChunk(client, jobExecutionId));
+    }
+
+    // then
+    future.onComplete(ar -> {
+      context.assertTrue(ar.succeeded());
+      List<LoggedRequest> requests = WireMock.findAll(RequestPatternBuilder.allRequests());
+      context.assertEquals(REQUESTS_NUMBER, requests.size());
+      context.assertEquals(TENANT, requests.get(0).getHeader("x-okapi-tenant"));
+      context.assertEquals(TOKEN, requests.get(0).getHeader("X-Okapi-Token"));
+      context.assertEquals(1L, PooledHttpClientProvider.getOpenedConnections() - openedConnectionsBefore);
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldFailRequestNotAnsweredWithinDeadline(TestContext context) {
+    // given
+    Async async = context.async();
+    String jobExecutionId = UUID.randomUUID().toString();
+    WireMock.stubFor(WireMock.post(String.format(RAW_RECORDS_SERVICE_URL_WITH_QUERY_PARAM, jobExecutionId, true))
+      .willReturn(WireMock.noContent().withFixedDelay(5000)));
+    ChangeManagerHttpClient client = new ChangeManagerHttpClient(vertx, "http://localhost:" + mockServer.port(), TENANT, TOKEN,
+      ChunkCompression.CONFIGURED, REQUEST_TIMEOUT_MS);
+    long timedOutRequestsBefore = PooledHttpClientProvider.getTimedOutRequests();
+
+    // when
+    postChunk(client, jobExecutionId).onComplete(ar -> {
+      // then
+      context.assertTrue(ar.failed());
+      context.assertTrue(ar.cause() instanceof TimeoutException);
+      context.assertEquals(1L, PooledHttpClientProvider.getTimedOutRequests() - timedOutRequestsBefore);
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldShareHttpClientWithinVertx() {
+    // then
+    Assert.assertSame(PooledHttpClientProvider.getHttpClient(vertx), PooledHttpClientProvider.getHttpClient(vertx));
+  }
+
+  private Future<Void> postChunk(ChangeManagerHttpClient client, String jobExecutionId) {
+    Promise<Void> promise = Promise.promise();
+    RawRecordsDto chunk = new RawRecordsDto()
+      .withRecordsMetadata(new RecordsMetadata()
+        .withContentType(RecordsMetadata.ContentType.MARC_RAW)
+        .withCounter(0)
+        .withLast(true)
+        .withTotal(0));
+    client.postChangeManagerJobExecutionsRecordsById(jobExecutionId, true, chunk, response -> {
+      if (response.statusCode() == 204) {
+        promise.complete();
+      } else {
+        promise.fail("Unexpected status code " + response.statusCode());
+      }
+    }, promise::tryFail);
+    return promise.future();
+  }
+}
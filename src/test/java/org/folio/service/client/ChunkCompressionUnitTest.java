@@ -0,0 +1,194 @@
+package org.folio.service.client;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.commons.io.IOUtils;
+import org.folio.rest.jaxrs.model.InitialRecord;
+import org.folio.rest.jaxrs.model.RawRecordsDto;
+import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.folio.service.client.ChunkCompression.ContentEncoding;
+import org.folio.service.processing.reader.MarcRawReader;
+import org.folio.service.processing.reader.SourceReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Testing compressed chunks against the stand-in receiver that decodes the chunk by its Content-Encoding.
+ * Besides the round trip, every test reports the bytes sent and the throughput of the encoding.
+ */
+@RunWith(VertxUnitRunner.class)
+public class ChunkCompressionUnitTest {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChunkCompressionUnitTest.class);
+  private static final String SOURCE_PATH = "src/test/resources/CornellFOLIOExemplars.mrc";
+  private static final String TENANT = "diku";
+  private static final String TOKEN = "token";
+  private static final int CHUNK_SIZE = 50;
+  private static final int ROUNDS = 50;
+  private static final int COMPRESSION_LEVEL = 1;
+
+  private Vertx vertx;
+  private HttpServer receiver;
+  private List<RawRecordsDto> chunks;
+  private List<RawRecordsDto> receivedChunks = new ArrayList<>();
+  private List<String> receivedEncodings = new ArrayList<>();
+  private long receivedBytes;
+
+  @Before
+  public void setUp(TestContext context) {
+    vertx = Vertx.vertx();
+    chunks = readChunks();
+    receiver = vertx.createHttpServer()
+      .requestHandler(request -> request.bodyHandler(body -> receiveChunk(request, body)));
+    receiver.listen(0, context.asyncAssertSuccess());
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void shouldSendGzipCompressedChunks(TestContext context) {
+    shouldSendChunks(context, ContentEncoding.GZIP);
+  }
+
+  @Test
+  public void shouldSendDeflateCompressedChunks(TestContext context) {
+    shouldSendChunks(context, ContentEncoding.DEFLATE);
+  }
+
+  @Test
+  public void shouldSendUncompressedChunks(TestContext context) {
+    shouldSendChunks(context, ContentEncoding.IDENTITY);
+  }
+
+  @Test
+  public void shouldNotCompressChunkSmallerThanMinSize(TestContext context) {
+    // given
+    Async async = context.async();
+    ChunkCompression compression = new ChunkCompression(ContentEncoding.GZIP, COMPRESSION_LEVEL, Integer.MAX_VALUE);
+
+    // when
+    sendChunks(createClient(compression), 1).onComplete(ar -> {
+      // then
+      context.assertTrue(ar.succeeded());
+      context.assertEquals(chunks.size(), receivedEncodings.size());
+      receivedEncodings.forEach(encoding -> context.assertEquals(ContentEncoding.IDENTITY.getHeaderValue(), encoding));
+      async.complete();
+    });
+  }
+
+  private void shouldSendChunks(TestContext context, ContentEncoding encoding) {
+    // given
+    Async async = context.async();
+    ChunkCompression compression = new ChunkCompression(encoding, COMPRESSION_LEVEL, 0);
+    long startTime = System.nanoTime();
+
+    // when
+    sendChunks(createClient(compression), ROUNDS).onComplete(ar -> {
+      // then
+      context.assertTrue(ar.succeeded());
+      long elapsedMs = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+      int recordsNumber = 0;
+      for (int i = 0; i < receivedChunks.size(); i++) {
+        RawRecordsDto sentChunk = chunks.get(i % chunks.size());
+        RawRecordsDto receivedChunk = receivedChunks.get(i);
+        context.assertEquals(sentChunk.getInitialRecords().size(), receivedChunk.getInitialRecords().size());
+        for (int j = 0; j < sentChunk.getInitialRecords().size(); j++) {
+          context.assertEquals(sentChunk.getInitialRecords().get(j).getRecord(), receivedChunk.getInitialRecords().get(j).getRecord());
+        }
+        context.assertEquals(encoding.getHeaderValue(), receivedEncodings.get(i));
+        recordsNumber += receivedChunk.getInitialRecords().size();
+      }
+      context.assertEquals(chunks.size() * ROUNDS, receivedChunks.size());
+      LOGGER.info("Content-Encoding {}: {} records sent in {} ms, {} bytes on the wire, {} records/s",
+        encoding.getHeaderValue(), recordsNumber, elapsedMs, receivedBytes, recordsNumber * 1000L / elapsedMs);
+      async.complete();
+    });
+  }
+
+  private ChangeManagerHttpClient createClient(ChunkCompression compression) {
+    return new ChangeManagerHttpClient(vertx, "http://localhost:" + receiver.actualPort(), TENANT, TOKEN, compression);
+  }
+
+  private Future<Void> sendChunks(ChangeManagerHttpClient client, int rounds) {
+    Future<Void> future = Future.succeededFuture();
+    String jobExecutionId = UUID.randomUUID().toString();
+    for (int i = 0; i < rounds; i++) {
+      for (RawRecordsDto chunk : chunks) {
+        future = future.compose(v -> {
+          Promise<Void> promise = Promise.promise();
+          client.postChangeManagerJobExecutionsRecordsById(jobExecutionId, true, chunk, response -> {
+            if (response.statusCode() == 204) {
+              promise.complete();
+            } else {
+              promise.fail("Unexpected status code " + response.statusCode());
+            }
+          }, promise::tryFail);
+          return promise.future();
+        });
+      }
+    }
+    return future;
+  }
+
+  private void receiveChunk(HttpServerRequest request, Buffer body) {
+    String encoding = request.getHeader("Content-Encoding");
+    receivedEncodings.add(encoding == null ? ContentEncoding.IDENTITY.getHeaderValue() : encoding);
+    receivedBytes += body.length();
+    try (InputStream inputStream = decode(encoding, body.getBytes())) {
+      receivedChunks.add(new JsonObject(Buffer.buffer(IOUtils.toByteArray(inputStream))).mapTo(RawRecordsDto.class));
+      request.response().setStatusCode(204).end();
+    } catch (IOException e) {
+      request.response().setStatusCode(400).end(e.getMessage());
+    }
+  }
+
+  private InputStream decode(String encoding, byte[] body) throws IOException {
+    if (ContentEncoding.GZIP.getHeaderValue().equals(encoding)) {
+      return new GZIPInputStream(new ByteArrayInputStream(body));
+    } else if (ContentEncoding.DEFLATE.getHeaderValue().equals(encoding)) {
+      return new InflaterInputStream(new ByteArrayInputStream(body));
+    }
+    return new ByteArrayInputStream(body);
+  }
+
+  private List<RawRecordsDto> readChunks() {
+    List<RawRecordsDto> sourceChunks = new ArrayList<>();
+    SourceReader reader = new MarcRawReader(new File(SOURCE_PATH), CHUNK_SIZE);
+    while (reader.hasNext()) {
+      List<InitialRecord> records = reader.next();
+      sourceChunks.add(new RawRecordsDto()
+        .withInitialRecords(records)
+        .withRecordsMetadata(new RecordsMetadata()
+          .withContentType(RecordsMetadata.ContentType.MARC_RAW)
+          .withCounter(records.size())
+          .withLast(false)
+          .withTotal(records.size())));
+    }
+    return sourceChunks;
+  }
+}
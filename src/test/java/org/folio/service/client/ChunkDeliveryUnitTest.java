@@ -0,0 +1,290 @@
+package org.folio.service.client;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.handler.impl.HttpStatusException;
+import org.folio.rest.jaxrs.model.RawRecordsDto;
+import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+
+/**
+ * Testing ChunkDelivery against the stand-in receiver failing or delaying the chunks by the given status codes
+ */
+@RunWith(VertxUnitRunner.class)
+public class ChunkDeliveryUnitTest {
+
+  private static final String TENANT = "diku";
+  private static final String TOKEN = "token";
+  private static final String CHUNK_ID_HEADER = "X-Chunk-Id";
+  private static final long INITIAL_DELAY_MS = 100;
+  private static final long SLOW_RESPONSE_DELAY_MS = 5000;
+  private static final HedgingPolicy NO_HEDGING = new HedgingPolicy(false, 0.95, 100);
+
+  private Vertx vertx;
+  private HttpServer receiver;
+  private String jobExecutionId = UUID.randomUUID().toString();
+  private List<String> receivedChunkIds = new ArrayList<>();
+  private Map<String, Integer> attempts = new HashMap<>();
+  /* status code of the response by the chunk id and the attempt number, 0 delays the successful response */
+  private BiFunction<String, Integer, Integer> responseStatus = (chunkId, attempt) -> 204;
+
+  @Before
+  public void setUp(TestContext context) {
+    vertx = Vertx.vertx();
+    receiver = vertx.createHttpServer().requestHandler(request -> request.bodyHandler(body -> receiveChunk(request)));
+    receiver.listen(0, context.asyncAssertSuccess());
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void shouldSendChunkFailedByTransientErrorAgainWithSameIdentity(TestContext context) {
+    // given
+    Async async = context.async();
+    String firstChunkId = jobExecutionId + ":1";
+    responseStatus = (chunkId, attempt) -> chunkId.equals(firstChunkId) && attempt == 1 ? 503 : 204;
+    ChunkDelivery delivery = new ChunkDelivery(vertx, jobExecutionId, new RetryPolicy(3, INITIAL_DELAY_MS, 1000, 0.1, 10), NO_HEDGING);
+
+    // when
+    List<Future> sentChunks = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      sentChunks.add(sendChunk(delivery));
+    }
+
+    // then
+    CompositeFuture.all(sentChunks).onComplete(ar -> {
+      context.assertTrue(ar.succeeded());
+      context.assertEquals(1L, delivery.getRetries());
+      context.assertEquals(4, receivedChunkIds.size());
+      context.assertEquals(2, attempts.get(firstChunkId));
+      // the other chunks are sent while the failed one waits for the retry
+      context.assertEquals(firstChunkId, receivedChunkIds.get(3));
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldNotSendChunkFailedByClientErrorAgain(TestContext context) {
+    // given
+    Async async = context.async();
+    responseStatus = (chunkId, attempt) -> 422;
+    ChunkDelivery delivery = new ChunkDelivery(vertx, jobExecutionId, new RetryPolicy(3, INITIAL_DELAY_MS, 1000, 0.1, 10), NO_HEDGING);
+
+    // when
+    sendChunk(delivery).onComplete(ar -> {
+      // then
+      context.assertTrue(ar.failed());
+      context.assertEquals(0L, delivery.getRetries());
+      context.assertEquals(1, receivedChunkIds.size());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldStopRetriesWhenRetryBudgetIsExhausted(TestContext context) {
+    // given
+    Async async = context.async();
+    responseStatus = (chunkId, attempt) -> 503;
+    ChunkDelivery delivery = new ChunkDelivery(vertx, jobExecutionId, new RetryPolicy(5, INITIAL_DELAY_MS, 1000, 0, 2), NO_HEDGING);
+
+    // when
+    sendChunk(delivery).onComplete(ar -> {
+      // then
+      context.assertTrue(ar.failed());
+      context.assertEquals(2L, delivery.getRetries());
+      context.assertEquals(3, receivedChunkIds.size());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldNotSendChunkThatMayHaveBeenStoredAgain(TestContext context) {
+    // given
+    Async async = context.async();
+    responseStatus = (chunkId, attempt) -> 500;
+    ChunkDelivery delivery = new ChunkDelivery(vertx, jobExecutionId, new RetryPolicy(3, INITIAL_DELAY_MS, 1000, 0.1, 10), NO_HEDGING);
+
+    // when
+    sendChunk(delivery).onComplete(ar -> {
+      // then
+      context.assertTrue(ar.failed());
+      context.assertEquals(0L, delivery.getRetries());
+      context.assertEquals(1, receivedChunkIds.size());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldNotRetryByDefault(TestContext context) {
+    // given
+    Async async = context.async();
+    responseStatus = (chunkId, attempt) -> 503;
+    ChunkDelivery delivery = new ChunkDelivery(vertx, jobExecutionId);
+
+    // when
+    sendChunk(delivery).onComplete(ar -> {
+      // then
+      context.assertTrue(ar.failed());
+      context.assertEquals(1, receivedChunkIds.size());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldHedgeChunkNotAnsweredWithinHedgingDelay(TestContext context) {
+    // given
+    Async async = context.async();
+    responseStatus = (chunkId, attempt) -> attempt == 1 ? 0 : 204;
+    HedgingPolicy hedgingPolicy = new HedgingPolicy(true, 0.95, 100);
+    for (int i = 0; i < 100; i++) {
+      hedgingPolicy.recordLatency(10);
+    }
+    ChunkDelivery delivery = new ChunkDelivery(vertx, jobExecutionId, new RetryPolicy(1, INITIAL_DELAY_MS, 1000, 0.1, 10), hedgingPolicy);
+    long startTime = System.nanoTime();
+
+    // when
+    sendChunk(delivery).onComplete(ar -> {
+      // then
+      context.assertTrue(ar.succeeded());
+      context.assertTrue((System.nanoTime() - startTime) / 1_000_000 < SLOW_RESPONSE_DELAY_MS);
+      context.assertEquals(1L, delivery.getHedgedSends());
+      context.assertEquals(2, receivedChunkIds.size());
+      context.assertEquals(receivedChunkIds.get(0), receivedChunkIds.get(1));
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldNotHedgeChunkWhileCircuitBreakerIsOpen(TestContext context) {
+    // given
+    Async async = context.async();
+    responseStatus = (chunkId, attempt) -> attempt == 1 ? 0 : 204;
+    HedgingPolicy hedgingPolicy = new HedgingPolicy(true, 0.95, 100);
+    for (int i = 0; i < 100; i++) {
+      hedgingPolicy.recordLatency(10);
+    }
+    SharedCircuitBreaker circuitBreaker = new SharedCircuitBreaker(vertx, true, 10, 0.5, SLOW_RESPONSE_DELAY_MS * 2,
+      SLOW_RESPONSE_DELAY_MS * 2, 1, SLOW_RESPONSE_DELAY_MS * 2);
+    ChunkDelivery delivery = new ChunkDelivery(vertx, jobExecutionId, new RetryPolicy(1, INITIAL_DELAY_MS, 1000, 0.1, 10),
+      hedgingPolicy, circuitBreaker);
+
+    // when
+    sendChunk(delivery);
+    for (int i = 0; i < 10; i++) {
+      circuitBreaker.onResult(true, 10);
+    }
+
+    // then
+    vertx.setTimer(500, id -> {
+      context.assertEquals(SharedCircuitBreaker.State.OPEN, circuitBreaker.getState());
+      context.assertEquals(1L, delivery.getHedgedSends());
+      context.assertEquals(1, circuitBreaker.getWaitingRequests());
+      context.assertEquals(1, receivedChunkIds.size());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldNotHedgeUntilLatenciesAreKnown() {
+    // given
+    HedgingPolicy hedgingPolicy = new HedgingPolicy(true, 0.9, 1);
+
+    // when
+    long delayWithoutLatencies = hedgingPolicy.getDelay();
+    for (int latency = 1; latency <= 100; latency++) {
+      hedgingPolicy.recordLatency(latency);
+    }
+
+    // then
+    Assert.assertEquals(-1, delayWithoutLatencies);
+    Assert.assertEquals(90, hedgingPolicy.getDelay());
+    Assert.assertEquals(-1, NO_HEDGING.getDelay());
+  }
+
+  @Test
+  public void shouldClassifyTransientErrorsAndLimitDelay() {
+    // given
+    RetryPolicy retryPolicy = new RetryPolicy(10, 100, 1000, 0.1, 10);
+
+    RetryPolicy deduplicatedRetryPolicy = new RetryPolicy(10, 100, 1000, 0.1, 10, true);
+
+    // then
+    Assert.assertTrue(retryPolicy.isRetryable(new HttpStatusException(503)));
+    Assert.assertTrue(retryPolicy.isRetryable(new HttpStatusException(429)));
+    Assert.assertTrue(retryPolicy.isRetryable(new ConnectException("Connection refused")));
+    Assert.assertFalse(retryPolicy.isRetryable(new HttpStatusException(503, "Chunk processing failed")));
+    Assert.assertFalse(retryPolicy.isRetryable(new HttpStatusException(500)));
+    Assert.assertFalse(retryPolicy.isRetryable(new IOException("Connection reset by peer")));
+    Assert.assertFalse(retryPolicy.isRetryable(new TimeoutException()));
+    Assert.assertFalse(retryPolicy.isRetryable(new HttpStatusException(422)));
+    Assert.assertFalse(retryPolicy.isRetryable(new IllegalStateException()));
+    Assert.assertTrue(retryPolicy.isTransient(new IOException("Connection reset by peer")));
+    Assert.assertTrue(deduplicatedRetryPolicy.isRetryable(new HttpStatusException(500)));
+    Assert.assertTrue(deduplicatedRetryPolicy.isRetryable(new IOException("Connection reset by peer")));
+    Assert.assertTrue(deduplicatedRetryPolicy.isRetryable(new TimeoutException()));
+    Assert.assertFalse(deduplicatedRetryPolicy.isRetryable(new HttpStatusException(422)));
+    for (int attempt = 1; attempt < 100; attempt++) {
+      long delay = retryPolicy.getDelay(attempt);
+      long expectedDelay = Math.min(1000, 100L << Math.min(attempt - 1, 30));
+      Assert.assertTrue(delay >= expectedDelay / 2 && delay <= expectedDelay);
+    }
+  }
+
+  private Future<Void> sendChunk(ChunkDelivery delivery) {
+    ChangeManagerHttpClient client = new ChangeManagerHttpClient(vertx, "http://localhost:" + receiver.actualPort(), TENANT, TOKEN);
+    RawRecordsDto chunk = new RawRecordsDto()
+      .withRecordsMetadata(new RecordsMetadata()
+        .withContentType(RecordsMetadata.ContentType.MARC_RAW)
+        .withCounter(0)
+        .withLast(false)
+        .withTotal(0));
+    String chunkId = delivery.nextChunkId();
+    return delivery.send(chunkId, () -> {
+      Promise<Void> promise = Promise.promise();
+      client.postChangeManagerJobExecutionsRecordsById(jobExecutionId, true, chunk, chunkId, response -> {
+        if (response.statusCode() == 204) {
+          promise.complete();
+        } else {
+          promise.fail(new HttpStatusException(response.statusCode()));
+        }
+      }, promise::tryFail);
+      return promise.future();
+    });
+  }
+
+  private void receiveChunk(HttpServerRequest request) {
+    String chunkId = request.getHeader(CHUNK_ID_HEADER);
+    receivedChunkIds.add(chunkId);
+    int attempt = attempts.merge(chunkId, 1, Integer::sum);
+    int statusCode = responseStatus.apply(chunkId, attempt);
+    if (statusCode == 0) {
+      vertx.setTimer(SLOW_RESPONSE_DELAY_MS, id -> request.response().setStatusCode(204).end());
+    } else {
+      request.response().setStatusCode(statusCode).end();
+    }
+  }
+}
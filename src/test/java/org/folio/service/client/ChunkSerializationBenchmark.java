@@ -0,0 +1,74 @@
+package org.folio.service.client;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import org.folio.rest.jaxrs.model.RawRecordsDto;
+import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.folio.service.processing.reader.MarcRawReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding of the chunk of 50 records of CornellFOLIOExemplars.mrc to the request body:
+ * mapping to the JSON tree as the generated client does, encoding to the JSON string and streaming into the Buffer.
+ * Every operation is a single record, so "gc.alloc.rate.norm" reported by the gc profiler is the number of bytes
+ * allocated per record. Benchmark is not run by the unit tests, to run it:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *   -Dexec.args="-cp %classpath org.openjdk.jmh.Main ChunkSerializationBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@OperationsPerInvocation(ChunkSerializationBenchmark.CHUNK_SIZE)
+public class ChunkSerializationBenchmark {
+
+  static final int CHUNK_SIZE = 50;
+  private static final String SOURCE_PATH = "src/test/resources/CornellFOLIOExemplars.mrc";
+
+  private RawRecordsDto chunk;
+
+  @Setup(Level.Trial)
+  public void readChunk() {
+    chunk = new RawRecordsDto()
+      .withInitialRecords(new MarcRawReader(new File(SOURCE_PATH), CHUNK_SIZE).next())
+      .withRecordsMetadata(new RecordsMetadata()
+        .withContentType(RecordsMetadata.ContentType.MARC_RAW)
+        .withCounter(CHUNK_SIZE)
+        .withLast(false)
+        .withTotal(CHUNK_SIZE));
+  }
+
+  @Benchmark
+  public Buffer jsonTree() {
+    return Buffer.buffer().appendString(JsonObject.mapFrom(chunk).encode());
+  }
+
+  @Benchmark
+  public Buffer jsonString() {
+    return Json.encodeToBuffer(chunk);
+  }
+
+  @Benchmark
+  public Buffer streamingBuffer() {
+    return JsonBufferEncoder.encodeChunk(chunk);
+  }
+}
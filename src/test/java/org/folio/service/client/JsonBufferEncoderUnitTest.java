@@ -0,0 +1,59 @@
+package org.folio.service.client;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.folio.rest.jaxrs.model.RawRecordsDto;
+import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.folio.service.processing.reader.MarcRawReader;
+import org.folio.service.processing.reader.SourceReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * Testing JsonBufferEncoder
+ */
+public class JsonBufferEncoderUnitTest {
+
+  private static final String SOURCE_PATH = "src/test/resources/CornellFOLIOExemplars.mrc";
+  private static final int CHUNK_SIZE = 50;
+
+  @Test
+  public void shouldEncodeChunkOfRawRecords() {
+    // given
+    SourceReader reader = new MarcRawReader(new File(SOURCE_PATH), CHUNK_SIZE);
+    RawRecordsDto chunk = new RawRecordsDto()
+      .withInitialRecords(reader.next())
+      .withRecordsMetadata(new RecordsMetadata()
+        .withContentType(RecordsMetadata.ContentType.MARC_RAW)
+        .withCounter(CHUNK_SIZE)
+        .withLast(false)
+        .withTotal(62));
+
+    // when
+    Buffer body = JsonBufferEncoder.encodeChunk(chunk);
+
+    // then
+    Assert.assertEquals(JsonObject.mapFrom(chunk), body.toJsonObject());
+    RawRecordsDto decodedChunk = body.toJsonObject().mapTo(RawRecordsDto.class);
+    Assert.assertEquals(chunk.getInitialRecords().get(0).getRecord(), decodedChunk.getInitialRecords().get(0).getRecord());
+  }
+
+  @Test
+  public void shouldEncodeEmptyChunk() {
+    // given
+    RawRecordsDto chunk = new RawRecordsDto()
+      .withRecordsMetadata(new RecordsMetadata()
+        .withContentType(RecordsMetadata.ContentType.MARC_RAW)
+        .withCounter(0)
+        .withLast(true)
+        .withTotal(0));
+
+    // when
+    Buffer body = JsonBufferEncoder.encodeChunk(chunk);
+
+    // then
+    Assert.assertEquals(JsonObject.mapFrom(chunk), body.toJsonObject());
+  }
+}
@@ -0,0 +1,265 @@
+package org.folio.service.client;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.handler.impl.HttpStatusException;
+import org.folio.rest.jaxrs.model.RawRecordsDto;
+import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.folio.service.client.SharedCircuitBreaker.State;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Testing SharedCircuitBreaker
+ */
+@RunWith(VertxUnitRunner.class)
+public class SharedCircuitBreakerUnitTest {
+
+  private static final String TENANT = "diku";
+  private static final String TOKEN = "token";
+  private static final int WINDOW_SIZE = 10;
+  private static final long SLOW_REQUEST_MS = 1000;
+  private static final long OPEN_DURATION_MS = 200;
+  private static final int HALF_OPEN_REQUESTS = 2;
+  private static final long MAX_WAIT_MS = 5000;
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void shouldPauseRequestsWhileOpenAndCloseAfterProbesSucceed(TestContext context) {
+    // given
+    Async async = context.async();
+    SharedCircuitBreaker circuitBreaker = createCircuitBreaker();
+    for (int i = 0; i < WINDOW_SIZE; i++) {
+      circuitBreaker.onResult(i % 2 == 0, 10);
+    }
+
+    // when
+    Future<Void> firstRequest = circuitBreaker.acquire();
+    Future<Void> secondRequest = circuitBreaker.acquire();
+    Future<Void> thirdRequest = circuitBreaker.acquire();
+
+    // then
+    context.assertEquals(State.OPEN, circuitBreaker.getState());
+    context.assertFalse(firstRequest.isComplete());
+    context.assertEquals(3, circuitBreaker.getWaitingRequests());
+    CompositeFuture.all(firstRequest, secondRequest).onComplete(ar -> {
+      context.assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+      context.assertFalse(thirdRequest.isComplete());
+      circuitBreaker.onResult(false, 10);
+      circuitBreaker.onResult(false, 10);
+      context.assertEquals(State.CLOSED, circuitBreaker.getState());
+      context.assertTrue(thirdRequest.isComplete());
+      context.assertTrue(circuitBreaker.acquire().isComplete());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldOpenAgainWhenProbeFails(TestContext context) {
+    // given
+    Async async = context.async();
+    SharedCircuitBreaker circuitBreaker = createCircuitBreaker();
+    for (int i = 0; i < WINDOW_SIZE; i++) {
+      circuitBreaker.onResult(true, 10);
+    }
+
+    // when
+    circuitBreaker.acquire().onComplete(ar -> {
+      circuitBreaker.onResult(true, 10);
+
+      // then
+      context.assertEquals(State.OPEN, circuitBreaker.getState());
+      context.assertFalse(circuitBreaker.acquire().isComplete());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldNotCloseOnProbesSkippedBeforeSending(TestContext context) {
+    // given
+    Async async = context.async();
+    SharedCircuitBreaker circuitBreaker = createCircuitBreaker();
+    for (int i = 0; i < WINDOW_SIZE; i++) {
+      circuitBreaker.onResult(true, 10);
+    }
+    Future<Void> firstProbe = circuitBreaker.acquire();
+    Future<Void> secondProbe = circuitBreaker.acquire();
+    Future<Void> waitingRequest = circuitBreaker.acquire();
+
+    // when
+    CompositeFuture.all(firstProbe, secondProbe).onComplete(ar -> {
+      circuitBreaker.onSkipped();
+      circuitBreaker.onResult(false, 10);
+
+      // then
+      context.assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+      context.assertTrue(waitingRequest.isComplete());
+      circuitBreaker.onResult(false, 10);
+      context.assertEquals(State.CLOSED, circuitBreaker.getState());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldKeepRequestWaitingAfterMaxWait(TestContext context) {
+    // given
+    Async async = context.async();
+    SharedCircuitBreaker circuitBreaker = new SharedCircuitBreaker(vertx, true, WINDOW_SIZE, 0.5, SLOW_REQUEST_MS,
+      500, HALF_OPEN_REQUESTS, 100);
+    for (int i = 0; i < WINDOW_SIZE; i++) {
+      circuitBreaker.onResult(true, 10);
+    }
+
+    // when
+    Future<Void> request = circuitBreaker.acquire();
+
+    // then
+    vertx.setTimer(300, id -> {
+      context.assertFalse(request.isComplete());
+      context.assertEquals(1, circuitBreaker.getWaitingRequests());
+      request.onComplete(context.asyncAssertSuccess(v -> {
+        context.assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+        async.complete();
+      }));
+    });
+  }
+
+  @Test
+  public void shouldNotCloseOnChunksFailedBeforeSending(TestContext context) {
+    // given
+    Async async = context.async();
+    SharedCircuitBreaker circuitBreaker = createCircuitBreaker();
+    for (int i = 0; i < WINDOW_SIZE; i++) {
+      circuitBreaker.onResult(true, 10);
+    }
+    ChunkDelivery delivery = new ChunkDelivery(vertx, UUID.randomUUID().toString(), new RetryPolicy(1, 10, 50, 1, 10),
+      new HedgingPolicy(false, 0.95, 100), circuitBreaker);
+    List<Future> sentChunks = new ArrayList<>();
+
+    // when
+    for (int i = 0; i < HALF_OPEN_REQUESTS * 2; i++) {
+      sentChunks.add(delivery.send(delivery.nextChunkId(),
+        () -> Future.failedFuture("canSendNextChunk has already been cleared to false")));
+    }
+
+    // then
+    CompositeFuture.join(sentChunks).onComplete(ar -> {
+      context.assertTrue(ar.failed());
+      context.assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+      context.assertEquals(0, circuitBreaker.getWaitingRequests());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldOpenOnSlowRequests() {
+    // given
+    SharedCircuitBreaker circuitBreaker = createCircuitBreaker();
+
+    // when
+    for (int i = 0; i < WINDOW_SIZE; i++) {
+      circuitBreaker.onResult(false, i < WINDOW_SIZE / 2 ? 10 : SLOW_REQUEST_MS);
+    }
+
+    // then
+    Assert.assertEquals(State.OPEN, circuitBreaker.getState());
+  }
+
+  @Test
+  public void shouldStayClosedBelowFailureRate() {
+    // given
+    SharedCircuitBreaker circuitBreaker = createCircuitBreaker();
+
+    // when
+    for (int i = 0; i < WINDOW_SIZE * 10; i++) {
+      circuitBreaker.onResult(i % 3 == 0, 10);
+    }
+
+    // then
+    Assert.assertEquals(State.CLOSED, circuitBreaker.getState());
+  }
+
+  @Test
+  public void shouldDeliverAllChunksThroughBrownout(TestContext context) {
+    // given
+    Async async = context.async();
+    int failedRequestsNumber = WINDOW_SIZE;
+    AtomicInteger receivedRequests = new AtomicInteger();
+    HttpServer receiver = vertx.createHttpServer().requestHandler(request -> request.bodyHandler(body ->
+      request.response().setStatusCode(receivedRequests.incrementAndGet() <= failedRequestsNumber ? 503 : 204).end()));
+    SharedCircuitBreaker circuitBreaker = createCircuitBreaker();
+    String jobExecutionId = UUID.randomUUID().toString();
+    ChunkDelivery delivery = new ChunkDelivery(vertx, jobExecutionId, new RetryPolicy(5, 10, 50, 1, 10),
+      new HedgingPolicy(false, 0.95, 100), circuitBreaker);
+
+    receiver.listen(0, context.asyncAssertSuccess(server -> {
+      ChangeManagerHttpClient client = new ChangeManagerHttpClient(vertx, "http://localhost:" + server.actualPort(), TENANT, TOKEN);
+
+      // when
+      List<Future> sentChunks = new ArrayList<>();
+      for (int i = 0; i < WINDOW_SIZE; i++) {
+        sentChunks.add(sendChunk(delivery, client, jobExecutionId));
+      }
+
+      // then
+      CompositeFuture.all(sentChunks).onComplete(ar -> {
+        context.assertTrue(ar.succeeded());
+        context.assertEquals(State.CLOSED, circuitBreaker.getState());
+        // failed chunks waited for the breaker instead of using up their retries
+        context.assertEquals((long) WINDOW_SIZE, delivery.getRetries());
+        context.assertEquals(WINDOW_SIZE * 2, receivedRequests.get());
+        async.complete();
+      });
+    }));
+  }
+
+  private SharedCircuitBreaker createCircuitBreaker() {
+    return new SharedCircuitBreaker(vertx, true, WINDOW_SIZE, 0.5, SLOW_REQUEST_MS, OPEN_DURATION_MS, HALF_OPEN_REQUESTS, MAX_WAIT_MS);
+  }
+
+  private Future<Void> sendChunk(ChunkDelivery delivery, ChangeManagerHttpClient client, String jobExecutionId) {
+    RawRecordsDto chunk = new RawRecordsDto()
+      .withRecordsMetadata(new RecordsMetadata()
+        .withContentType(RecordsMetadata.ContentType.MARC_RAW)
+        .withCounter(0)
+        .withLast(false)
+        .withTotal(0));
+    String chunkId = delivery.nextChunkId();
+    return delivery.send(chunkId, () -> {
+      Promise<Void> promise = Promise.promise();
+      client.postChangeManagerJobExecutionsRecordsById(jobExecutionId, true, chunk, chunkId, response -> {
+        if (response.statusCode() == 204) {
+          promise.complete();
+        } else {
+          promise.fail(new HttpStatusException(response.statusCode()));
+        }
+      }, promise::tryFail);
+      return promise.future();
+    });
+  }
+}
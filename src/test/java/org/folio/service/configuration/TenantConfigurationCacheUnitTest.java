@@ -0,0 +1,209 @@
+package org.folio.service.configuration;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import org.folio.dataimport.util.OkapiConnectionParams;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.folio.dataimport.util.RestUtil.OKAPI_TENANT_HEADER;
+
+/**
+ * Testing TenantConfigurationCache
+ */
+public class TenantConfigurationCacheUnitTest {
+
+  private static final String STORAGE_TYPE_CODE = "data.import.storage.type";
+  private static final long TTL_MS = 1000;
+  private static final long FAILURE_TTL_MS = 100;
+  private static final double REFRESH_AHEAD_RATIO = 0.8;
+  private static final long LOAD_TIMEOUT_MS = 50;
+
+  private List<Promise<String>> requests;
+  private long now;
+  private TenantConfigurationCache cache;
+
+  @Before
+  public void setUp() {
+    requests = new ArrayList<>();
+    now = 0;
+    cache = new TenantConfigurationCache(true, TTL_MS, FAILURE_TTL_MS, REFRESH_AHEAD_RATIO, LOAD_TIMEOUT_MS, (code, params) -> {
+      Promise<String> promise = Promise.promise();
+      requests.add(promise);
+      return promise.future();
+    }, () -> now);
+  }
+
+  @Test
+  public void shouldRequestPropertyOnceForConcurrentCallers() {
+    // given
+    OkapiConnectionParams params = buildParams("diku");
+
+    // when
+    Future<String> first = cache.get(STORAGE_TYPE_CODE, params);
+    Future<String> second = cache.get(STORAGE_TYPE_CODE, params);
+    requests.get(0).complete("LOCAL_STORAGE");
+    now = TTL_MS / 2;
+    Future<String> third = cache.get(STORAGE_TYPE_CODE, params);
+
+    // then
+    Assert.assertEquals(1, requests.size());
+    Assert.assertEquals("LOCAL_STORAGE", first.result());
+    Assert.assertEquals("LOCAL_STORAGE", second.result());
+    Assert.assertEquals("LOCAL_STORAGE", third.result());
+    Assert.assertEquals(1, cache.getMisses());
+    Assert.assertEquals(2, cache.getHits());
+  }
+
+  @Test
+  public void shouldServeCachedPropertyWhileReloadingAheadOfExpiration() {
+    // given
+    OkapiConnectionParams params = buildParams("diku");
+    cache.get(STORAGE_TYPE_CODE, params);
+    requests.get(0).complete("LOCAL_STORAGE");
+
+    // when
+    now = (long) (TTL_MS * REFRESH_AHEAD_RATIO);
+    Future<String> servedWhileReloading = cache.get(STORAGE_TYPE_CODE, params);
+    Future<String> servedToNextCaller = cache.get(STORAGE_TYPE_CODE, params);
+    requests.get(1).complete("S3_STORAGE");
+    now = TTL_MS + 1;
+    Future<String> servedAfterReload = cache.get(STORAGE_TYPE_CODE, params);
+
+    // then
+    Assert.assertEquals(2, requests.size());
+    Assert.assertEquals("LOCAL_STORAGE", servedWhileReloading.result());
+    Assert.assertEquals("LOCAL_STORAGE", servedToNextCaller.result());
+    Assert.assertEquals("S3_STORAGE", servedAfterReload.result());
+    Assert.assertEquals(1, cache.getRefreshes());
+  }
+
+  @Test
+  public void shouldKeepPreviousValueIfReloadFails() {
+    // given
+    OkapiConnectionParams params = buildParams("diku");
+    cache.get(STORAGE_TYPE_CODE, params);
+    requests.get(0).complete("LOCAL_STORAGE");
+
+    // when
+    now = (long) (TTL_MS * REFRESH_AHEAD_RATIO);
+    cache.get(STORAGE_TYPE_CODE, params);
+    requests.get(1).fail("Connection refused");
+    Future<String> servedAfterFailedReload = cache.get(STORAGE_TYPE_CODE, params);
+    now = TTL_MS;
+    Future<String> servedAfterExpiration = cache.get(STORAGE_TYPE_CODE, params);
+
+    // then
+    Assert.assertEquals("LOCAL_STORAGE", servedAfterFailedReload.result());
+    Assert.assertFalse(servedAfterExpiration.isComplete());
+    Assert.assertEquals(3, requests.size());
+  }
+
+  @Test
+  public void shouldCacheFailedLookupForFailureTtl() {
+    // given
+    OkapiConnectionParams params = buildParams("diku");
+    cache.get(STORAGE_TYPE_CODE, params);
+    requests.get(0).fail("No config values was found");
+
+    // when
+    Future<String> servedWithinFailureTtl = cache.get(STORAGE_TYPE_CODE, params);
+    now = FAILURE_TTL_MS;
+    Future<String> servedAfterFailureTtl = cache.get(STORAGE_TYPE_CODE, params);
+    requests.get(1).complete("LOCAL_STORAGE");
+
+    // then
+    Assert.assertTrue(servedWithinFailureTtl.failed());
+    Assert.assertEquals("LOCAL_STORAGE", servedAfterFailureTtl.result());
+    Assert.assertEquals(2, requests.size());
+  }
+
+  @Test
+  public void shouldKeepSeparateSnapshotsOfTenants() {
+    // given
+    cache.get(STORAGE_TYPE_CODE, buildParams("diku"));
+    requests.get(0).complete("LOCAL_STORAGE");
+
+    // when
+    Future<String> otherTenantProperty = cache.get(STORAGE_TYPE_CODE, buildParams("other"));
+    requests.get(1).complete("S3_STORAGE");
+    cache.invalidate("diku");
+    cache.get(STORAGE_TYPE_CODE, buildParams("diku"));
+
+    // then
+    Assert.assertEquals("S3_STORAGE", otherTenantProperty.result());
+    Assert.assertEquals(3, requests.size());
+  }
+
+  @Test
+  public void shouldRequestPropertyAgainWhenLoadTimesOut() {
+    // given
+    OkapiConnectionParams params = buildParams("diku");
+    Future<String> waitingForHungRequest = cache.get(STORAGE_TYPE_CODE, params);
+
+    // when
+    now = LOAD_TIMEOUT_MS;
+    Future<String> servedAfterTimeout = cache.get(STORAGE_TYPE_CODE, params);
+    requests.get(1).complete("LOCAL_STORAGE");
+    requests.get(0).complete("S3_STORAGE");
+    Future<String> servedAfterLateResponse = cache.get(STORAGE_TYPE_CODE, params);
+
+    // then
+    Assert.assertEquals(2, requests.size());
+    Assert.assertTrue(waitingForHungRequest.failed());
+    Assert.assertEquals("LOCAL_STORAGE", servedAfterTimeout.result());
+    Assert.assertEquals("LOCAL_STORAGE", servedAfterLateResponse.result());
+  }
+
+  @Test
+  public void shouldReloadPropertyAgainWhenRefreshTimesOut() {
+    // given
+    OkapiConnectionParams params = buildParams("diku");
+    cache.get(STORAGE_TYPE_CODE, params);
+    requests.get(0).complete("LOCAL_STORAGE");
+    now = (long) (TTL_MS * REFRESH_AHEAD_RATIO);
+    cache.get(STORAGE_TYPE_CODE, params);
+
+    // when
+    now += LOAD_TIMEOUT_MS;
+    Future<String> servedAfterRefreshTimeout = cache.get(STORAGE_TYPE_CODE, params);
+    requests.get(2).complete("S3_STORAGE");
+    Future<String> servedAfterReload = cache.get(STORAGE_TYPE_CODE, params);
+
+    // then
+    Assert.assertEquals(3, requests.size());
+    Assert.assertEquals("LOCAL_STORAGE", servedAfterRefreshTimeout.result());
+    Assert.assertEquals("S3_STORAGE", servedAfterReload.result());
+    Assert.assertEquals(2, cache.getRefreshes());
+  }
+
+  @Test
+  public void shouldRequestPropertyEveryTimeIfDisabled() {
+    // given
+    cache = new TenantConfigurationCache(false, TTL_MS, FAILURE_TTL_MS, REFRESH_AHEAD_RATIO, LOAD_TIMEOUT_MS,
+      (code, params) -> {
+        requests.add(Promise.promise());
+        return Future.succeededFuture("LOCAL_STORAGE");
+      }, () -> now);
+
+    // when
+    cache.get(STORAGE_TYPE_CODE, buildParams("diku"));
+    cache.get(STORAGE_TYPE_CODE, buildParams("diku"));
+
+    // then
+    Assert.assertEquals(2, requests.size());
+    Assert.assertEquals(0, cache.getHits());
+  }
+
+  private OkapiConnectionParams buildParams(String tenantId) {
+    Map<String, String> headers = new HashMap<>();
+    headers.put(OKAPI_TENANT_HEADER, tenantId);
+    return new OkapiConnectionParams(headers, null);
+  }
+}
@@ -0,0 +1,61 @@
+package org.folio.service.metrics;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.folio.service.client.SharedCircuitBreaker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Testing PrometheusMetricsExporter
+ */
+@RunWith(VertxUnitRunner.class)
+public class PrometheusMetricsExporterUnitTest {
+
+  private Vertx vertx;
+  private PrometheusMetricsExporter exporter;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+    exporter = new PrometheusMetricsExporter(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    exporter.stop();
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void shouldExportMetersOfGlobalRegistry(TestContext context) {
+    // given
+    Async async = context.async();
+    // meters registered by the module classes before the exporter is started
+    SharedCircuitBreaker.getShared(vertx);
+
+    // when
+    exporter.start(vertx, 0).onComplete(context.asyncAssertSuccess(server -> {
+      Metrics.globalRegistry.summary("data.import.chunk.bytes").record(1024);
+
+      // then
+      vertx.createHttpClient().getNow(server.actualPort(), "localhost", PrometheusMetricsExporter.METRICS_PATH,
+        response -> {
+          context.assertEquals(200, response.statusCode());
+          response.bodyHandler(body -> {
+            String metrics = body.toString();
+            context.assertTrue(metrics.contains("data_import_okapi_client_circuit_breaker_opened_total"));
+            context.assertTrue(metrics.contains("data_import_chunk_bytes_count"));
+            async.complete();
+          });
+        });
+    }));
+  }
+}
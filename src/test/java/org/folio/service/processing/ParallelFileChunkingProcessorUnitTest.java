@@ -16,22 +16,36 @@ import io.vertx.ext.unit.junit.VertxUnitRunner;
 import org.apache.commons.lang.StringUtils;
 import org.folio.dataimport.util.OkapiConnectionParams;
 import org.folio.rest.jaxrs.model.FileDefinition;
+import org.folio.rest.jaxrs.model.InitialRecord;
 import org.folio.rest.jaxrs.model.JobProfileInfo;
 import org.folio.rest.jaxrs.model.RawRecordsDto;
+import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.folio.service.processing.coordinator.ChunksCompletionTracker;
+import org.folio.service.processing.outbox.ChunksJournal;
+import org.folio.service.processing.outbox.ChunksOutbox;
+import org.folio.service.processing.reader.SourceReaderBuilder;
 import org.folio.service.storage.FileStorageService;
+import org.folio.service.storage.index.RecordOffsetIndexer;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.folio.dataimport.util.RestUtil.OKAPI_TENANT_HEADER;
@@ -73,6 +87,8 @@ public class ParallelFileChunkingProcessorUnitTest {
   private Map<String, String> headers = new HashMap<>();
   private Vertx vertx = Vertx.vertx();
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
   @Rule
   public WireMockRule mockServer = new WireMockRule(
     WireMockConfiguration.wireMockConfig()
@@ -138,6 +154,100 @@ public class ParallelFileChunkingProcessorUnitTest {
     });
   }
 
+  @Test
+  public void shouldSendNumberOfReadRecordsWithLastChunkIfIndexCountsOtherwise(TestContext context) throws Exception {
+    /* given */
+    Async async = context.async();
+    String jobExecutionId = UUID.randomUUID().toString();
+    WireMock.stubFor(WireMock.post(String.format(RAW_RECORDS_SERVICE_URL_WITH_QUERY_PARAM, jobExecutionId, true))
+      .willReturn(WireMock.noContent()));
+    FileDefinition fileDefinition = new FileDefinition()
+      .withSourcePath(StringUtils.EMPTY)
+      .withJobExecutionId(jobExecutionId);
+    JobProfileInfo jobProfile = new JobProfileInfo()
+      .withId(UUID.randomUUID().toString())
+      .withDataType(JobProfileInfo.DataType.MARC)
+      .withName("MARC profile");
+    OkapiConnectionParams okapiConnectionParams = new OkapiConnectionParams(headers, vertx);
+
+    // the index finds one more record boundary than the reader does
+    File file = temporaryFolder.newFile("records.mrc");
+    byte[] content = Files.readAllBytes(new File(SOURCE_PATH).toPath());
+    Files.write(file.toPath(), content);
+    byte[] indexedContent = Arrays.copyOf(content, content.length);
+    indexedContent[100] = 0x1D;
+    RecordOffsetIndexer indexer = RecordOffsetIndexer.create(file.toPath());
+    indexer.append(indexedContent);
+    indexer.complete();
+    FileStorageService fileStorageService = Mockito.mock(FileStorageService.class);
+    when(fileStorageService.getFile(anyString())).thenReturn(file);
+
+    /* when */
+    Future<Void> future = fileProcessor.processFile(fileDefinition, jobProfile, fileStorageService, okapiConnectionParams, true);
+
+    /* then */
+    future.onComplete(ar -> {
+      context.assertTrue(ar.succeeded());
+      List<LoggedRequest> requests = WireMock.findAll(RequestPatternBuilder.allRequests());
+      for (LoggedRequest loggedRequest : requests) {
+        RecordsMetadata recordsMetadata = new JsonObject(loggedRequest.getBodyAsString()).mapTo(RawRecordsDto.class).getRecordsMetadata();
+        if (recordsMetadata.getLast()) {
+          context.assertEquals(RECORDS_NUMBER, recordsMetadata.getTotal());
+        } else {
+          context.assertEquals(RECORDS_NUMBER + 1, recordsMetadata.getTotal());
+        }
+      }
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldNotKeepSentChunksWhileProcessingFile(TestContext context) throws Exception {
+    /* given */
+    Async async = context.async();
+    String jobExecutionId = UUID.randomUUID().toString();
+    WireMock.stubFor(WireMock.post(String.format(RAW_RECORDS_SERVICE_URL_WITH_QUERY_PARAM, jobExecutionId, true))
+      .willReturn(WireMock.noContent()));
+    FileDefinition fileDefinition = new FileDefinition()
+      .withSourcePath(StringUtils.EMPTY)
+      .withJobExecutionId(jobExecutionId);
+    JobProfileInfo jobProfile = new JobProfileInfo()
+      .withId(UUID.randomUUID().toString())
+      .withDataType(JobProfileInfo.DataType.MARC)
+      .withName("MARC profile");
+    OkapiConnectionParams okapiConnectionParams = new OkapiConnectionParams(headers, vertx);
+
+    int recordsNumber = 2000;
+    File file = temporaryFolder.newFile("synthetic-records.mrc");
+    SyntheticMarcRecords.write(file.toPath(), recordsNumber);
+    FileStorageService fileStorageService = Mockito.mock(FileStorageService.class);
+    when(fileStorageService.getFile(anyString())).thenReturn(file);
+
+    List<ChunksCompletionTracker> trackers = new ArrayList<>();
+    ParallelFileChunkingProcessor trackedFileProcessor = Mockito.spy(fileProcessor);
+    Mockito.doAnswer(invocation -> {
+      ChunksCompletionTracker tracker = (ChunksCompletionTracker) invocation.callRealMethod();
+      trackers.add(tracker);
+      return tracker;
+    }).when(trackedFileProcessor).createCompletionTracker();
+    int chunksNumber = recordsNumber / SourceReaderBuilder.getChunkSize();
+
+    /* when */
+    Future<Void> future = trackedFileProcessor.processFile(fileDefinition, jobProfile, fileStorageService, okapiConnectionParams, true);
+
+    /* then */
+    future.onComplete(ar -> {
+      context.assertTrue(ar.succeeded());
+      context.assertEquals(1, trackers.size());
+      ChunksCompletionTracker tracker = trackers.get(0);
+      context.assertEquals((long) chunksNumber, tracker.getSucceeded());
+      context.assertEquals(0L, tracker.getPending());
+      // only the chunks admitted by the blocking coordinator are pending, the completed ones are not kept
+      context.assertTrue(tracker.getMaxPending() <= 10);
+      async.complete();
+    });
+  }
+
   @Test
   public void shouldReadAndStopSendingChunksOnServerError(TestContext context) {
     /* given */
@@ -544,4 +654,300 @@ public class ParallelFileChunkingProcessorUnitTest {
     });
   }
 
+  @Test
+  public void shouldReadAndSendAllChunksAsync(TestContext context) {
+    /* given */
+    Async async = context.async();
+    String jobExecutionId = UUID.randomUUID().toString();
+    WireMock.stubFor(WireMock.post(String.format(RAW_RECORDS_SERVICE_URL_WITH_QUERY_PARAM, jobExecutionId, true))
+      .willReturn(WireMock.noContent()));
+    FileDefinition fileDefinition = new FileDefinition()
+      .withSourcePath(StringUtils.EMPTY)
+      .withJobExecutionId(jobExecutionId);
+    JobProfileInfo jobProfile = new JobProfileInfo()
+      .withId(UUID.randomUUID().toString())
+      .withDataType(JobProfileInfo.DataType.MARC)
+      .withName("MARC profile");
+    OkapiConnectionParams okapiConnectionParams = new OkapiConnectionParams(headers, vertx);
+    FileStorageService fileStorageService = Mockito.mock(FileStorageService.class);
+    when(fileStorageService.getFile(anyString())).thenReturn(new File(SOURCE_PATH));
+    ParallelFileChunkingProcessor asyncFileProcessor = new ParallelFileChunkingProcessor(vertx);
+    int expectedRequestsNumber = CHUNKS_NUMBER + 1;
+
+    /* when */
+    Future<Void> future = asyncFileProcessor.processFileAsync(fileDefinition, jobProfile, fileStorageService, okapiConnectionParams, true);
+
+    /* then */
+    future.onComplete(ar -> {
+      context.assertTrue(ar.succeeded());
+      List<LoggedRequest> requests = WireMock.findAll(RequestPatternBuilder.allRequests());
+      context.assertEquals(expectedRequestsNumber, requests.size());
+      int actualTotalRecordsNumber = 0;
+      int actualLastChunkRecordsCounter = 0;
+      int lastChunksNumber = 0;
+      for (LoggedRequest loggedRequest : requests) {
+        RawRecordsDto rawRecordsDto = new JsonObject(loggedRequest.getBodyAsString()).mapTo(RawRecordsDto.class);
+        actualTotalRecordsNumber += rawRecordsDto.getInitialRecords().size();
+        if (rawRecordsDto.getRecordsMetadata().getLast()) {
+          lastChunksNumber++;
+          actualLastChunkRecordsCounter = rawRecordsDto.getRecordsMetadata().getCounter();
+        }
+      }
+      context.assertEquals(1, lastChunksNumber);
+      context.assertEquals(RECORDS_NUMBER, actualLastChunkRecordsCounter);
+      context.assertEquals(RECORDS_NUMBER, actualTotalRecordsNumber);
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldStopSendingChunksAsyncOnServerError(TestContext context) {
+    /* given */
+    Async async = context.async();
+    String jobExecutionId = UUID.randomUUID().toString();
+    WireMock.stubFor(WireMock.post(String.format(RAW_RECORDS_SERVICE_URL_WITH_QUERY_PARAM, jobExecutionId, false))
+      .willReturn(WireMock.serverError()));
+    FileDefinition fileDefinition = new FileDefinition()
+      .withSourcePath(StringUtils.EMPTY)
+      .withJobExecutionId(jobExecutionId);
+    JobProfileInfo jobProfile = new JobProfileInfo()
+      .withId(UUID.randomUUID().toString())
+      .withDataType(JobProfileInfo.DataType.MARC)
+      .withName("MARC profile");
+    OkapiConnectionParams okapiConnectionParams = new OkapiConnectionParams(headers, vertx);
+    FileStorageService fileStorageService = Mockito.mock(FileStorageService.class);
+    when(fileStorageService.getFile(anyString())).thenReturn(new File(SOURCE_PATH_5));
+    ParallelFileChunkingProcessor asyncFileProcessor = new ParallelFileChunkingProcessor(vertx);
+
+    /* when */
+    Future<Void> future = asyncFileProcessor.processFileAsync(fileDefinition, jobProfile, fileStorageService, okapiConnectionParams, false);
+
+    /* then */
+    future.onComplete(ar -> {
+      context.assertTrue(ar.failed());
+      List<LoggedRequest> requests = WireMock.findAll(RequestPatternBuilder.allRequests());
+      context.assertFalse(requests.isEmpty());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldReadAndSendAllChunksByStream(TestContext context) {
+    /* given */
+    Async async = context.async();
+    String jobExecutionId = UUID.randomUUID().toString();
+    WireMock.stubFor(WireMock.post(String.format(RAW_RECORDS_SERVICE_URL_WITH_QUERY_PARAM, jobExecutionId, true))
+      .willReturn(WireMock.noContent()));
+    FileDefinition fileDefinition = new FileDefinition()
+      .withSourcePath(StringUtils.EMPTY)
+      .withJobExecutionId(jobExecutionId);
+    JobProfileInfo jobProfile = new JobProfileInfo()
+      .withId(UUID.randomUUID().toString())
+      .withDataType(JobProfileInfo.DataType.MARC)
+      .withName("MARC profile");
+    OkapiConnectionParams okapiConnectionParams = new OkapiConnectionParams(headers, vertx);
+    FileStorageService fileStorageService = Mockito.mock(FileStorageService.class);
+    when(fileStorageService.getFile(anyString())).thenReturn(new File(SOURCE_PATH));
+    ParallelFileChunkingProcessor streamFileProcessor = new ParallelFileChunkingProcessor(vertx);
+    int expectedRequestsNumber = CHUNKS_NUMBER + 1;
+
+    /* when */
+    Future<Void> future = streamFileProcessor.processFileStream(fileDefinition, jobProfile, fileStorageService, okapiConnectionParams, true);
+
+    /* then */
+    future.onComplete(ar -> {
+      context.assertTrue(ar.succeeded());
+      List<LoggedRequest> requests = WireMock.findAll(RequestPatternBuilder.allRequests());
+      context.assertEquals(expectedRequestsNumber, requests.size());
+      int actualTotalRecordsNumber = 0;
+      int actualLastChunkRecordsCounter = 0;
+      int lastChunksNumber = 0;
+      for (LoggedRequest loggedRequest : requests) {
+        RawRecordsDto rawRecordsDto = new JsonObject(loggedRequest.getBodyAsString()).mapTo(RawRecordsDto.class);
+        actualTotalRecordsNumber += rawRecordsDto.getInitialRecords().size();
+        if (rawRecordsDto.getRecordsMetadata().getLast()) {
+          lastChunksNumber++;
+          actualLastChunkRecordsCounter = rawRecordsDto.getRecordsMetadata().getCounter();
+        }
+      }
+      context.assertEquals(1, lastChunksNumber);
+      context.assertEquals(RECORDS_NUMBER, actualLastChunkRecordsCounter);
+      context.assertEquals(RECORDS_NUMBER, actualTotalRecordsNumber);
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldStopSendingChunksByStreamOnServerError(TestContext context) {
+    /* given */
+    Async async = context.async();
+    String jobExecutionId = UUID.randomUUID().toString();
+    WireMock.stubFor(WireMock.post(String.format(RAW_RECORDS_SERVICE_URL_WITH_QUERY_PARAM, jobExecutionId, false))
+      .willReturn(WireMock.serverError()));
+    FileDefinition fileDefinition = new FileDefinition()
+      .withSourcePath(StringUtils.EMPTY)
+      .withJobExecutionId(jobExecutionId);
+    JobProfileInfo jobProfile = new JobProfileInfo()
+      .withId(UUID.randomUUID().toString())
+      .withDataType(JobProfileInfo.DataType.MARC)
+      .withName("MARC profile");
+    OkapiConnectionParams okapiConnectionParams = new OkapiConnectionParams(headers, vertx);
+    FileStorageService fileStorageService = Mockito.mock(FileStorageService.class);
+    when(fileStorageService.getFile(anyString())).thenReturn(new File(SOURCE_PATH_5));
+    ParallelFileChunkingProcessor streamFileProcessor = new ParallelFileChunkingProcessor(vertx);
+
+    /* when */
+    Future<Void> future = streamFileProcessor.processFileStream(fileDefinition, jobProfile, fileStorageService, okapiConnectionParams, false);
+
+    /* then */
+    future.onComplete(ar -> {
+      context.assertTrue(ar.failed());
+      List<LoggedRequest> requests = WireMock.findAll(RequestPatternBuilder.allRequests());
+      context.assertFalse(requests.isEmpty());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldSendChunksWithIdentityOfJobExecutionAndChunkSequence(TestContext context) {
+    /* given */
+    Async async = context.async();
+    String jobExecutionId = UUID.randomUUID().toString();
+    WireMock.stubFor(WireMock.post(String.format(RAW_RECORDS_SERVICE_URL_WITH_QUERY_PARAM, jobExecutionId, true))
+      .willReturn(WireMock.noContent()));
+    FileDefinition fileDefinition = new FileDefinition()
+      .withSourcePath(StringUtils.EMPTY)
+      .withJobExecutionId(jobExecutionId);
+    JobProfileInfo jobProfile = new JobProfileInfo()
+      .withId(UUID.randomUUID().toString())
+      .withDataType(JobProfileInfo.DataType.MARC)
+      .withName("MARC profile");
+    OkapiConnectionParams okapiConnectionParams = new OkapiConnectionParams(headers, vertx);
+    FileStorageService fileStorageService = Mockito.mock(FileStorageService.class);
+    when(fileStorageService.getFile(anyString())).thenReturn(new File(SOURCE_PATH));
+
+    /* when */
+    Future<Void> future = fileProcessor.processFile(fileDefinition, jobProfile, fileStorageService, okapiConnectionParams, true);
+
+    /* then */
+    future.onComplete(ar -> {
+      context.assertTrue(ar.succeeded());
+      List<LoggedRequest> requests = WireMock.findAll(RequestPatternBuilder.allRequests());
+      context.assertEquals(CHUNKS_NUMBER + 1, requests.size());
+      Set<String> chunkIds = new HashSet<>();
+      for (LoggedRequest loggedRequest : requests) {
+        RawRecordsDto rawRecordsDto = new JsonObject(loggedRequest.getBodyAsString()).mapTo(RawRecordsDto.class);
+        String chunkId = loggedRequest.getHeader("X-Chunk-Id");
+        chunkIds.add(chunkId);
+        if (rawRecordsDto.getRecordsMetadata().getLast()) {
+          context.assertEquals(jobExecutionId + ":" + (CHUNKS_NUMBER + 1), chunkId);
+        }
+      }
+      for (int sequence = 1; sequence <= CHUNKS_NUMBER + 1; sequence++) {
+        context.assertTrue(chunkIds.contains(jobExecutionId + ":" + sequence));
+      }
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldResumeFileFromJournalAfterRestart(TestContext context) throws Exception {
+    /* given */
+    Async async = context.async();
+    String jobExecutionId = UUID.randomUUID().toString();
+    WireMock.stubFor(WireMock.post(String.format(RAW_RECORDS_SERVICE_URL_WITH_QUERY_PARAM, jobExecutionId, true))
+      .willReturn(WireMock.noContent()));
+    FileDefinition fileDefinition = new FileDefinition()
+      .withSourcePath(StringUtils.EMPTY)
+      .withJobExecutionId(jobExecutionId);
+    JobProfileInfo jobProfile = new JobProfileInfo()
+      .withId(UUID.randomUUID().toString())
+      .withDataType(JobProfileInfo.DataType.MARC)
+      .withName("MARC profile");
+    OkapiConnectionParams okapiConnectionParams = new OkapiConnectionParams(headers, vertx);
+    FileStorageService fileStorageService = Mockito.mock(FileStorageService.class);
+    when(fileStorageService.getFile(anyString())).thenReturn(new File(SOURCE_PATH));
+
+    // the first chunk was journaled but not acknowledged before the restart
+    Path outboxDirectory = temporaryFolder.newFolder("outbox").toPath();
+    ChunksOutbox outbox = new ChunksOutbox(outboxDirectory, 1024 * 1024);
+    List<InitialRecord> firstChunkRecords = SourceReaderBuilder.build(new File(SOURCE_PATH), jobProfile).next();
+    RawRecordsDto firstChunk = new RawRecordsDto()
+      .withInitialRecords(firstChunkRecords)
+      .withRecordsMetadata(new RecordsMetadata()
+        .withContentType(MARC_RAW)
+        .withCounter(firstChunkRecords.size())
+        .withLast(false)
+        .withTotal(RECORDS_NUMBER));
+    outbox.open(jobExecutionId, new JsonObject()).append(1, firstChunk).toCompletionStage().toCompletableFuture().get();
+    outbox.close();
+    ChunksOutbox restartedOutbox = new ChunksOutbox(outboxDirectory, 1024 * 1024);
+    ChunksJournal journal = restartedOutbox.recover().get(0);
+    ParallelFileChunkingProcessor resumingFileProcessor = new ParallelFileChunkingProcessor(vertx, restartedOutbox, true);
+
+    /* when */
+    Future<Void> future = resumingFileProcessor.resumeFile(fileDefinition, jobProfile, fileStorageService, okapiConnectionParams, true, journal);
+
+    /* then */
+    future.onComplete(ar -> {
+      context.assertTrue(ar.succeeded());
+      List<LoggedRequest> requests = WireMock.findAll(RequestPatternBuilder.allRequests());
+      context.assertEquals(CHUNKS_NUMBER + 1, requests.size());
+      Map<String, RawRecordsDto> sentChunks = new HashMap<>();
+      for (LoggedRequest loggedRequest : requests) {
+        sentChunks.put(loggedRequest.getHeader("X-Chunk-Id"), new JsonObject(loggedRequest.getBodyAsString()).mapTo(RawRecordsDto.class));
+      }
+      context.assertEquals(firstChunkRecords.size(), sentChunks.get(jobExecutionId + ":1").getInitialRecords().size());
+      context.assertEquals(RECORDS_NUMBER - firstChunkRecords.size(), sentChunks.get(jobExecutionId + ":2").getInitialRecords().size());
+      context.assertTrue(sentChunks.get(jobExecutionId + ":3").getRecordsMetadata().getLast());
+      context.assertEquals(RECORDS_NUMBER, sentChunks.get(jobExecutionId + ":3").getRecordsMetadata().getCounter());
+      async.complete();
+    });
+  }
+
+  @Test
+  public void shouldNotResumeFileWithChunksNotAcknowledgedUnlessDeduplicationIsConfirmed(TestContext context) throws Exception {
+    /* given */
+    Async async = context.async();
+    String jobExecutionId = UUID.randomUUID().toString();
+    WireMock.stubFor(WireMock.post(String.format(RAW_RECORDS_SERVICE_URL_WITH_QUERY_PARAM, jobExecutionId, true))
+      .willReturn(WireMock.noContent()));
+    FileDefinition fileDefinition = new FileDefinition()
+      .withSourcePath(StringUtils.EMPTY)
+      .withJobExecutionId(jobExecutionId);
+    JobProfileInfo jobProfile = new JobProfileInfo()
+      .withId(UUID.randomUUID().toString())
+      .withDataType(JobProfileInfo.DataType.MARC)
+      .withName("MARC profile");
+    OkapiConnectionParams okapiConnectionParams = new OkapiConnectionParams(headers, vertx);
+    FileStorageService fileStorageService = Mockito.mock(FileStorageService.class);
+    when(fileStorageService.getFile(anyString())).thenReturn(new File(SOURCE_PATH));
+
+    // the first chunk was journaled but not acknowledged before the restart
+    Path outboxDirectory = temporaryFolder.newFolder("outbox").toPath();
+    ChunksOutbox outbox = new ChunksOutbox(outboxDirectory, 1024 * 1024);
+    List<InitialRecord> firstChunkRecords = SourceReaderBuilder.build(new File(SOURCE_PATH), jobProfile).next();
+    RawRecordsDto firstChunk = new RawRecordsDto()
+      .withInitialRecords(firstChunkRecords)
+      .withRecordsMetadata(new RecordsMetadata()
+        .withContentType(MARC_RAW)
+        .withCounter(firstChunkRecords.size())
+        .withLast(false)
+        .withTotal(RECORDS_NUMBER));
+    outbox.open(jobExecutionId, new JsonObject()).append(1, firstChunk).toCompletionStage().toCompletableFuture().get();
+    outbox.close();
+    ChunksOutbox restartedOutbox = new ChunksOutbox(outboxDirectory, 1024 * 1024);
+    ChunksJournal journal = restartedOutbox.recover().get(0);
+    ParallelFileChunkingProcessor resumingFileProcessor = new ParallelFileChunkingProcessor(vertx, restartedOutbox, false);
+
+    /* when */
+    Future<Void> future = resumingFileProcessor.resumeFile(fileDefinition, jobProfile, fileStorageService, okapiConnectionParams, true, journal);
+
+    /* then */
+    future.onComplete(ar -> {
+      context.assertTrue(ar.failed());
+      context.assertTrue(WireMock.findAll(RequestPatternBuilder.allRequests()).isEmpty());
+      async.complete();
+    });
+  }
 }
@@ -0,0 +1,44 @@
+package org.folio.service.processing;
+
+import org.marc4j.MarcStreamWriter;
+import org.marc4j.marc.MarcFactory;
+import org.marc4j.marc.Record;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes files of the synthetic raw MARC records for the tests of the large files processing
+ */
+public final class SyntheticMarcRecords {
+
+  private static final String LEADER = "00000nam a2200000 a 4500";
+
+  private SyntheticMarcRecords() {
+  }
+
+  /**
+   * Writes the given number of the raw MARC records, each one having its sequence number in the 001 control field
+   *
+   * @param path          path of the file to write
+   * @param recordsNumber number of the records to write
+   * @return path of the written file
+   * @throws IOException if the file can not be written
+   */
+  public static Path write(Path path, int recordsNumber) throws IOException {
+    MarcFactory factory = MarcFactory.newInstance();
+    try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(path))) {
+      MarcStreamWriter writer = new MarcStreamWriter(outputStream);
+      for (int i = 0; i < recordsNumber; i++) {
+        Record record = factory.newRecord(LEADER);
+        record.addVariableField(factory.newControlField("001", String.valueOf(i)));
+        writer.write(record);
+      }
+      writer.close();
+    }
+    return path;
+  }
+}
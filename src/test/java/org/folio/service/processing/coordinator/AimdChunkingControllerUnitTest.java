@@ -0,0 +1,65 @@
+package org.folio.service.processing.coordinator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Testing AimdChunkingController
+ */
+public class AimdChunkingControllerUnitTest {
+
+  private static final long LATENCY_TARGET_MS = 1000;
+
+  @Test
+  public void shouldIncreaseSettingsAfterWindowOfFastChunks() {
+    // given
+    AimdChunkingController controller = new AimdChunkingController("jobId", 50, 2, LATENCY_TARGET_MS, 10, 100, 10, 1, 5);
+    // when
+    controller.onChunkCompleted(controller.onChunkSent(), 100, true);
+    int chunkSizeInsideWindow = controller.getChunkSize();
+    controller.onChunkCompleted(controller.onChunkSent(), 100, true);
+    // then
+    Assert.assertEquals(50, chunkSizeInsideWindow);
+    Assert.assertEquals(60, controller.getChunkSize());
+    Assert.assertEquals(3, controller.getParallelChunks());
+  }
+
+  @Test
+  public void shouldHalveSettingsOnSlowChunkOnce() {
+    // given
+    AimdChunkingController controller = new AimdChunkingController("jobId", 80, 8, LATENCY_TARGET_MS, 10, 100, 10, 1, 10);
+    long firstChunk = controller.onChunkSent();
+    long secondChunk = controller.onChunkSent();
+    // when
+    controller.onChunkCompleted(firstChunk, 5000, true);
+    controller.onChunkCompleted(secondChunk, 5000, true);
+    // then
+    Assert.assertEquals(40, controller.getChunkSize());
+    Assert.assertEquals(4, controller.getParallelChunks());
+  }
+
+  @Test
+  public void shouldHalveSettingsOnFailedChunkWithinLimits() {
+    // given
+    AimdChunkingController controller = new AimdChunkingController("jobId", 15, 1, LATENCY_TARGET_MS, 10, 100, 10, 1, 10);
+    // when
+    controller.onChunkCompleted(controller.onChunkSent(), 10, false);
+    controller.onChunkCompleted(controller.onChunkSent(), 10, false);
+    // then
+    Assert.assertEquals(10, controller.getChunkSize());
+    Assert.assertEquals(1, controller.getParallelChunks());
+  }
+
+  @Test
+  public void shouldNotExceedMaxLimits() {
+    // given
+    AimdChunkingController controller = new AimdChunkingController("jobId", 95, 2, LATENCY_TARGET_MS, 10, 100, 10, 1, 2);
+    // when
+    for (int i = 0; i < 10; i++) {
+      controller.onChunkCompleted(controller.onChunkSent(), 10, true);
+    }
+    // then
+    Assert.assertEquals(100, controller.getChunkSize());
+    Assert.assertEquals(2, controller.getParallelChunks());
+  }
+}
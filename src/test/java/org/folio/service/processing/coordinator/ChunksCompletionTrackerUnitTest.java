@@ -0,0 +1,106 @@
+package org.folio.service.processing.coordinator;
+
+import io.vertx.core.Promise;
+import org.folio.rest.jaxrs.model.InitialRecord;
+import org.folio.service.processing.SyntheticMarcRecords;
+import org.folio.service.processing.reader.MarcRawReader;
+import org.folio.service.processing.reader.SourceReader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Testing ChunksCompletionTracker
+ */
+public class ChunksCompletionTrackerUnitTest {
+
+  private static final int RECORDS_NUMBER = 100_000;
+  private static final int CHUNK_SIZE = 50;
+  private static final int CHUNKS_IN_FLIGHT = 10;
+
+  private Path syntheticFile;
+
+  @Before
+  public void setUp() throws IOException {
+    syntheticFile = SyntheticMarcRecords.write(Files.createTempFile("synthetic-records", ".mrc"), RECORDS_NUMBER);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(syntheticFile);
+  }
+
+  @Test
+  public void shouldNotKeepCompletedChunksOfLargeFile() {
+    // given
+    ChunksCompletionTracker tracker = new ChunksCompletionTracker();
+    SourceReader reader = new MarcRawReader(syntheticFile.toFile(), CHUNK_SIZE);
+    Deque<Promise<Void>> chunksInFlight = new ArrayDeque<>();
+    int chunksNumber = 0;
+    int recordsNumber = 0;
+
+    // when
+    while (reader.hasNext()) {
+      List<InitialRecord> records = reader.next();
+      recordsNumber += records.size();
+      Promise<Void> chunkSent = Promise.promise();
+      chunksNumber++;
+      tracker.track(chunkSent.future());
+      chunksInFlight.add(chunkSent);
+      if (chunksInFlight.size() == CHUNKS_IN_FLIGHT) {
+        chunksInFlight.poll().complete();
+      }
+    }
+    tracker.seal();
+    boolean completedBeforeLastChunks = tracker.future().isComplete();
+    chunksInFlight.forEach(Promise::complete);
+    chunksInFlight.clear();
+
+    // then
+    Assert.assertEquals(RECORDS_NUMBER, recordsNumber);
+    Assert.assertFalse(completedBeforeLastChunks);
+    Assert.assertTrue(tracker.future().succeeded());
+    Assert.assertEquals(chunksNumber, tracker.getSucceeded());
+    Assert.assertEquals(0, tracker.getPending());
+    Assert.assertEquals(CHUNKS_IN_FLIGHT, tracker.getMaxPending());
+  }
+
+  @Test
+  public void shouldFailOnFirstFailedChunk() {
+    // given
+    ChunksCompletionTracker tracker = new ChunksCompletionTracker();
+    Promise<Void> firstChunk = Promise.promise();
+    Promise<Void> secondChunk = Promise.promise();
+    tracker.track(firstChunk.future());
+    tracker.track(secondChunk.future());
+    tracker.seal();
+
+    // when
+    secondChunk.fail("Internal Server Error");
+
+    // then
+    Assert.assertTrue(tracker.isFailed());
+    Assert.assertEquals("Internal Server Error", tracker.future().cause().getMessage());
+    Assert.assertEquals(1, tracker.getPending());
+  }
+
+  @Test
+  public void shouldSucceedWithoutChunks() {
+    // given
+    ChunksCompletionTracker tracker = new ChunksCompletionTracker();
+
+    // when
+    tracker.seal();
+
+    // then
+    Assert.assertTrue(tracker.future().succeeded());
+  }
+}
@@ -0,0 +1,190 @@
+package org.folio.service.processing.outbox;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import org.folio.rest.jaxrs.model.InitialRecord;
+import org.folio.rest.jaxrs.model.RawRecordsDto;
+import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing ChunksOutbox
+ */
+public class ChunksOutboxUnitTest {
+
+  private static final long SEGMENT_BYTES = 1024 * 1024;
+  private static final int CHUNK_SIZE = 10;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path outboxDirectory;
+  private ChunksOutbox outbox;
+  private String jobExecutionId;
+
+  @Before
+  public void setUp() throws IOException {
+    outboxDirectory = temporaryFolder.newFolder("outbox").toPath();
+    jobExecutionId = UUID.randomUUID().toString();
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    outbox.close();
+  }
+
+  @Test
+  public void shouldReplayOnlyChunksNotAcknowledged() throws Exception {
+    // given
+    outbox = new ChunksOutbox(outboxDirectory, SEGMENT_BYTES);
+    ChunksJournal journal = outbox.open(jobExecutionId, new JsonObject().put("jobExecutionId", jobExecutionId));
+    await(appendChunks(journal, 1, 3));
+    journal.ack(2);
+
+    // when
+    ChunksJournal recoveredJournal = restartAndRecover();
+
+    // then
+    assertEquals(jobExecutionId, recoveredJournal.getManifest().getString("jobExecutionId"));
+    assertEquals(3L, recoveredJournal.getLastSequence());
+    assertEquals(3 * CHUNK_SIZE, recoveredJournal.getRecordsCounter());
+    assertEquals(2, recoveredJournal.getPendingChunks().size());
+    assertEquals(1L, recoveredJournal.getPendingChunks().get(0).getSequence());
+    assertEquals(3L, recoveredJournal.getPendingChunks().get(1).getSequence());
+    assertEquals(CHUNK_SIZE, recoveredJournal.getPendingChunks().get(0).getChunk().getInitialRecords().size());
+  }
+
+  @Test
+  public void shouldRemoveSegmentsOnceTheirChunksAreAcknowledged() throws Exception {
+    // given
+    outbox = new ChunksOutbox(outboxDirectory, 1);
+    ChunksJournal journal = outbox.open(jobExecutionId, new JsonObject());
+    await(appendChunks(journal, 1, 5));
+
+    // when
+    for (long sequence = 1; sequence <= 5; sequence++) {
+      journal.ack(sequence);
+    }
+    // entries are written in order, so the acknowledgements are written once the next chunk is
+    await(appendChunks(journal, 6, 6));
+
+    // then
+    assertTrue(journal.getSegmentsNumber() <= 2);
+    ChunksJournal recoveredJournal = restartAndRecover();
+    assertEquals(1, recoveredJournal.getPendingChunks().size());
+    assertEquals(6L, recoveredJournal.getPendingChunks().get(0).getSequence());
+    assertEquals(6L, recoveredJournal.getLastSequence());
+    assertEquals(6 * CHUNK_SIZE, recoveredJournal.getRecordsCounter());
+  }
+
+  @Test
+  public void shouldSkipEntryTornByCrash() throws Exception {
+    // given
+    outbox = new ChunksOutbox(outboxDirectory, SEGMENT_BYTES);
+    ChunksJournal journal = outbox.open(jobExecutionId, new JsonObject());
+    await(appendChunks(journal, 1, 2));
+    outbox.close();
+
+    // when
+    Files.write(getLastSegment(), new byte[]{1, 0, 0, 0, 0, 0, 0, 0, 3, 0, 0}, StandardOpenOption.APPEND);
+    outbox = new ChunksOutbox(outboxDirectory, SEGMENT_BYTES);
+    List<ChunksJournal> recoveredJournals = outbox.recover();
+
+    // then
+    assertEquals(1, recoveredJournals.size());
+    assertEquals(2, recoveredJournals.get(0).getPendingChunks().size());
+    assertEquals(2L, recoveredJournals.get(0).getLastSequence());
+  }
+
+  @Test
+  public void shouldSyncChunksAppendedTogetherOnce() throws Exception {
+    // given
+    int chunksNumber = 200;
+    outbox = new ChunksOutbox(outboxDirectory, SEGMENT_BYTES);
+    ChunksJournal journal = outbox.open(jobExecutionId, new JsonObject());
+
+    // when
+    await(appendChunks(journal, 1, chunksNumber));
+
+    // then
+    assertEquals(chunksNumber, outbox.getWrittenEntries());
+    assertTrue(outbox.getSyncs() < chunksNumber);
+  }
+
+  @Test
+  public void shouldDeleteJournalOfProcessedJob() throws Exception {
+    // given
+    outbox = new ChunksOutbox(outboxDirectory, SEGMENT_BYTES);
+    ChunksJournal journal = outbox.open(jobExecutionId, new JsonObject());
+    await(appendChunks(journal, 1, 1));
+
+    // when
+    await(outbox.delete(jobExecutionId));
+
+    // then
+    assertNull(outbox.getJournal(jobExecutionId));
+    assertFalse(Files.exists(outboxDirectory.resolve(jobExecutionId)));
+  }
+
+  private Future<Void> appendChunks(ChunksJournal journal, long fromSequence, long toSequence) {
+    List<Future> appendedChunks = new ArrayList<>();
+    for (long sequence = fromSequence; sequence <= toSequence; sequence++) {
+      appendedChunks.add(journal.append(sequence, buildChunk((int) sequence * CHUNK_SIZE)));
+    }
+    return CompositeFuture.all(appendedChunks).mapEmpty();
+  }
+
+  private RawRecordsDto buildChunk(int counter) {
+    return new RawRecordsDto()
+      .withInitialRecords(Collections.nCopies(CHUNK_SIZE, new InitialRecord().withRecord("record")))
+      .withRecordsMetadata(new RecordsMetadata()
+        .withContentType(RecordsMetadata.ContentType.MARC_RAW)
+        .withCounter(counter)
+        .withLast(false)
+        .withTotal(0));
+  }
+
+  private ChunksJournal restartAndRecover() throws Exception {
+    outbox.close();
+    outbox = new ChunksOutbox(outboxDirectory, SEGMENT_BYTES);
+    List<ChunksJournal> recoveredJournals = outbox.recover();
+    assertEquals(1, recoveredJournals.size());
+    return recoveredJournals.get(0);
+  }
+
+  private Path getLastSegment() throws IOException {
+    try (Stream<Path> files = Files.list(outboxDirectory.resolve(jobExecutionId))) {
+      List<Path> segments = files
+        .filter(file -> file.getFileName().toString().startsWith("segment-"))
+        .sorted()
+        .collect(Collectors.toList());
+      return segments.get(segments.size() - 1);
+    }
+  }
+
+  private static <T> T await(Future<T> future) throws Exception {
+    return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+}
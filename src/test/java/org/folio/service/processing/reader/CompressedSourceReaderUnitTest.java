@@ -0,0 +1,128 @@
+package org.folio.service.processing.reader;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.folio.rest.jaxrs.model.InitialRecord;
+import org.folio.rest.jaxrs.model.JobProfileInfo;
+import org.folio.rest.jaxrs.model.RecordsMetadata;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Testing reading of compressed files
+ */
+public class CompressedSourceReaderUnitTest {
+
+  private static final String RAW_SOURCE_PATH = "src/test/resources/CornellFOLIOExemplars_Bibs.mrc";
+  private static final String JSON_SOURCE_PATH = "src/test/resources/ChalmersFOLIOExamples.json";
+  private static final String XML_SOURCE_PATH = "src/test/resources/UChicago_SampleBibs.xml";
+  private static final JobProfileInfo JOB_PROFILE = new JobProfileInfo().withDataType(JobProfileInfo.DataType.MARC);
+
+  private Path tempDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    tempDirectory = Files.createTempDirectory("compressed-files");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDirectory.toFile());
+  }
+
+  @Test
+  public void shouldReadGzipRawMarcFile() throws IOException {
+    // given
+    File file = gzip(RAW_SOURCE_PATH, "records.mrc.gz");
+    // when
+    SourceReader reader = SourceReaderBuilder.build(file, JOB_PROFILE);
+    // then
+    Assert.assertEquals(RecordsMetadata.ContentType.MARC_RAW, reader.getContentType());
+    assertSameRecords(new MarcRawReader(new File(RAW_SOURCE_PATH), 50), reader);
+    Assert.assertEquals(file.length(), reader.getBytesRead());
+  }
+
+  @Test
+  public void shouldReadZstdXmlFile() throws IOException {
+    // given
+    File file = zstd(XML_SOURCE_PATH, "records.xml.zst");
+    // when
+    SourceReader reader = SourceReaderBuilder.build(file, JOB_PROFILE);
+    // then
+    Assert.assertEquals(RecordsMetadata.ContentType.MARC_XML, reader.getContentType());
+    assertSameRecords(new MarcXmlReader(new File(XML_SOURCE_PATH), 50), reader);
+  }
+
+  @Test
+  public void shouldReadGzipJsonFile() throws IOException {
+    // given
+    File file = gzip(JSON_SOURCE_PATH, "records.json.gz");
+    // then
+    assertSameRecords(new MarcJsonSpanReader(new File(JSON_SOURCE_PATH), 50), new MarcJsonSpanReader(file, 50));
+    assertSameRecords(new MarcJsonReader(new File(JSON_SOURCE_PATH), 50), new MarcJsonReader(file, 50));
+  }
+
+  @Test
+  public void shouldReadConcatenatedGzipMembers() throws IOException {
+    // given
+    byte[] content = Files.readAllBytes(new File(RAW_SOURCE_PATH).toPath());
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    for (int from = 0; from < content.length; from += 50000) {
+      try (OutputStream gzipStream = new GZIPOutputStream(compressed)) {
+        gzipStream.write(Arrays.copyOfRange(content, from, Math.min(from + 50000, content.length)));
+      }
+    }
+    File file = Files.write(tempDirectory.resolve("records.mrc"), compressed.toByteArray()).toFile();
+    // when
+    SourceReader reader = SourceReaderBuilder.build(file, JOB_PROFILE);
+    // then
+    assertSameRecords(new MarcRawReader(new File(RAW_SOURCE_PATH), 50), reader);
+  }
+
+  private void assertSameRecords(SourceReader expectedReader, SourceReader actualReader) {
+    List<InitialRecord> expectedRecords = readAll(expectedReader);
+    List<InitialRecord> actualRecords = readAll(actualReader);
+    Assert.assertFalse(expectedRecords.isEmpty());
+    Assert.assertEquals(expectedRecords.size(), actualRecords.size());
+    for (int i = 0; i < expectedRecords.size(); i++) {
+      Assert.assertEquals(expectedRecords.get(i).getRecord(), actualRecords.get(i).getRecord());
+    }
+  }
+
+  private List<InitialRecord> readAll(SourceReader reader) {
+    List<InitialRecord> records = new ArrayList<>();
+    while (reader.hasNext()) {
+      records.addAll(reader.next());
+    }
+    return records;
+  }
+
+  private File gzip(String sourcePath, String fileName) throws IOException {
+    File file = tempDirectory.resolve(fileName).toFile();
+    try (OutputStream outputStream = new GZIPOutputStream(FileUtils.openOutputStream(file))) {
+      Files.copy(new File(sourcePath).toPath(), outputStream);
+    }
+    return file;
+  }
+
+  private File zstd(String sourcePath, String fileName) throws IOException {
+    File file = tempDirectory.resolve(fileName).toFile();
+    try (OutputStream outputStream = new ZstdOutputStream(FileUtils.openOutputStream(file))) {
+      Files.copy(new File(sourcePath).toPath(), outputStream);
+    }
+    return file;
+  }
+}
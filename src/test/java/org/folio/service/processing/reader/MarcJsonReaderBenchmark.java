@@ -0,0 +1,89 @@
+package org.folio.service.processing.reader;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link MarcJsonReader} and {@link MarcJsonSpanReader} reading the records of ChalmersFOLIOExamples.json
+ * repeated up to the {@code recordsNumber} records.
+ * Benchmark is not run by the unit tests, to run it:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *   -Dexec.args="-cp %classpath org.openjdk.jmh.Main MarcJsonReaderBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MarcJsonReaderBenchmark {
+
+  private static final String SOURCE_PATH = "src/test/resources/ChalmersFOLIOExamples.json";
+  private static final int CHUNK_SIZE = 50;
+
+  @Param({"1000000"})
+  private int recordsNumber;
+  private File file;
+
+  @Setup(Level.Trial)
+  public void generateFile() throws IOException {
+    JsonArray records = JsonParser.parseString(FileUtils.readFileToString(new File(SOURCE_PATH), StandardCharsets.UTF_8)).getAsJsonArray();
+    file = Files.createTempFile("marc-json-benchmark", ".json").toFile();
+    try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      writer.write("[\n");
+      for (int i = 0; i < recordsNumber; i++) {
+        if (i > 0) {
+          writer.write(",\n");
+        }
+        writer.write(records.get(i % records.size()).toString());
+      }
+      writer.write("\n]\n");
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteFile() throws IOException {
+    Files.deleteIfExists(file.toPath());
+  }
+
+  @Benchmark
+  public int marcJsonReader() {
+    return readAll(new MarcJsonReader(file, CHUNK_SIZE));
+  }
+
+  @Benchmark
+  public int marcJsonSpanReader() {
+    return readAll(new MarcJsonSpanReader(file, CHUNK_SIZE));
+  }
+
+  private int readAll(SourceReader reader) {
+    int records = 0;
+    while (reader.hasNext()) {
+      records += reader.next().size();
+    }
+    return records;
+  }
+}
@@ -0,0 +1,56 @@
+package org.folio.service.processing.reader;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import org.apache.commons.io.FileUtils;
+import org.folio.rest.jaxrs.model.InitialRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Testing MarcJsonSpanReader
+ */
+public class MarcJsonSourceReaderUnitTest {
+
+  private static final String SOURCE_PATH = "src/test/resources/ChalmersFOLIOExamples.json";
+  private static final String INVALID_SOURCE_PATH = "src/test/resources/invalidJsonExample.json";
+  private static final int EXPECTED_RECORDS_NUMBER = 62;
+
+  @Test
+  public void shouldReturnAllRecordsAsIs() throws IOException {
+    // given
+    int chunkSize = 13;
+    SourceReader reader = new MarcJsonSpanReader(new File(SOURCE_PATH), chunkSize);
+    JsonArray expectedRecords = JsonParser.parseString(FileUtils.readFileToString(new File(SOURCE_PATH), StandardCharsets.UTF_8)).getAsJsonArray();
+    List<InitialRecord> actualRecords = new ArrayList<>();
+    int actualChunkNumber = 0;
+    // when
+    while (reader.hasNext()) {
+      actualRecords.addAll(reader.next());
+      actualChunkNumber++;
+    }
+    // then
+    Assert.assertEquals(5, actualChunkNumber);
+    Assert.assertEquals(EXPECTED_RECORDS_NUMBER, actualRecords.size());
+    for (int i = 0; i < EXPECTED_RECORDS_NUMBER; i++) {
+      Assert.assertEquals(i, actualRecords.get(i).getOrder().intValue());
+      Assert.assertEquals(expectedRecords.get(i), JsonParser.parseString(actualRecords.get(i).getRecord()));
+    }
+  }
+
+  @Test(expected = RecordsReaderException.class)
+  public void shouldThrowExceptionOnMalformedFile() {
+    // given
+    SourceReader reader = new MarcJsonSpanReader(new File(INVALID_SOURCE_PATH), 100);
+    // when
+    while (reader.hasNext()) {
+      reader.next();
+    }
+  }
+}
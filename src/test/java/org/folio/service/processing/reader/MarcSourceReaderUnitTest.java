@@ -1,5 +1,7 @@
 package org.folio.service.processing.reader;
 
+import io.vertx.core.Vertx;
+import org.apache.commons.lang3.StringUtils;
 import org.folio.rest.jaxrs.model.InitialRecord;
 import org.junit.Assert;
 import org.junit.Test;
@@ -7,11 +9,16 @@ import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Testing MarcRawReader
+ * Testing MarcRawReader and MarcRawSplitReader
  */
 @RunWith(MockitoJUnitRunner.class)
 public class MarcSourceReaderUnitTest {
@@ -83,4 +90,205 @@ public class MarcSourceReaderUnitTest {
     Assert.assertEquals(EXPECTED_RECORDS_NUMBER, actualRecords.size());
     Assert.assertEquals(expectedChunksNumber, actualChunkNumber);
   }
+
+  @Test
+  public void shouldReturnAllRecordsWithSplitReader() {
+    // given
+    int chunkSize = 100;
+    SourceReader reader = new MarcRawSplitReader(new File(SOURCE_PATH), chunkSize);
+    List<InitialRecord> actualRecords = new ArrayList<>();
+    // when
+    while (reader.hasNext()) {
+      actualRecords.addAll(reader.next());
+    }
+    // then
+    Assert.assertEquals(EXPECTED_RECORDS_NUMBER, actualRecords.size());
+    Assert.assertEquals(new File(SOURCE_PATH).length(), reader.getBytesRead());
+    for (int i = 0; i < actualRecords.size(); i++) {
+      Assert.assertEquals(i, actualRecords.get(i).getOrder().intValue());
+      Assert.assertTrue(actualRecords.get(i).getRecord().endsWith("\u001D"));
+    }
+  }
+
+  @Test
+  public void shouldReturnAllRecordsWithSplitReaderFallingBackToPermissiveReader() {
+    // given
+    int chunkSize = 100;
+    SourceReader reader = new MarcRawSplitReader(new File(SOURCE_WITH_WRONG_ENCODING_PATH), chunkSize);
+    List<InitialRecord> actualRecords = new ArrayList<>();
+    // when
+    while (reader.hasNext()) {
+      actualRecords.addAll(reader.next());
+    }
+    // then
+    Assert.assertEquals(246, actualRecords.size());
+  }
+
+  @Test
+  public void shouldReturn5ChunksOfRecordsWithSplitReader() {
+    // given
+    int expectedChunksNumber = 5;
+    int chunkSize = 13;
+    SourceReader reader = new MarcRawSplitReader(new File(SOURCE_PATH), chunkSize);
+    List<InitialRecord> actualRecords = new ArrayList<>();
+    int actualChunkNumber = 0;
+    // when
+    while (reader.hasNext()) {
+      actualRecords.addAll(reader.next());
+      actualChunkNumber++;
+    }
+    // then
+    Assert.assertEquals(EXPECTED_RECORDS_NUMBER, actualRecords.size());
+    Assert.assertEquals(expectedChunksNumber, actualChunkNumber);
+  }
+
+  @Test
+  public void shouldResyncOnCorruptedRecordLength() throws IOException {
+    // given
+    byte[] content = Files.readAllBytes(new File(SOURCE_PATH).toPath());
+    // corrupt record length of the first record
+    content[0] = '9';
+    content[1] = '9';
+    Path corruptedFile = Files.createTempFile("corrupted", ".mrc");
+    Files.write(corruptedFile, content);
+    SourceReader reader = new MarcRawSplitReader(corruptedFile.toFile(), 100);
+    List<InitialRecord> actualRecords = new ArrayList<>();
+    // when
+    while (reader.hasNext()) {
+      actualRecords.addAll(reader.next());
+    }
+    Files.delete(corruptedFile);
+    // then the corrupted record is skipped and reading continues from the next record terminator
+    Assert.assertEquals(EXPECTED_RECORDS_NUMBER - 1, actualRecords.size());
+  }
+
+  @Test
+  public void shouldSkipCorruptedSpanLongerThanMaxRecordLength() throws IOException {
+    // given
+    byte[] content = Files.readAllBytes(new File(SOURCE_PATH).toPath());
+    // binary garbage without record terminators in front of the records
+    byte[] garbage = new byte[4 * 1024 * 1024];
+    Arrays.fill(garbage, (byte) 'x');
+    garbage[garbage.length - 1] = 0x1D;
+    Path corruptedFile = Files.createTempFile("garbage", ".mrc");
+    Files.write(corruptedFile, garbage);
+    Files.write(corruptedFile, content, StandardOpenOption.APPEND);
+    SourceReader reader = new MarcRawSplitReader(corruptedFile.toFile(), 100);
+    List<InitialRecord> actualRecords = new ArrayList<>();
+    // when
+    while (reader.hasNext()) {
+      actualRecords.addAll(reader.next());
+    }
+    Files.delete(corruptedFile);
+    // then the garbage is skipped and the records after it are read
+    Assert.assertEquals(EXPECTED_RECORDS_NUMBER, actualRecords.size());
+    Assert.assertEquals(garbage.length + content.length, reader.getBytesRead());
+  }
+
+  @Test
+  public void shouldReturnAllRecordsInOrderWithParallelReader() throws IOException {
+    // given
+    byte[] content = Files.readAllBytes(new File(SOURCE_PATH).toPath());
+    Path largeFile = Files.createTempFile("large", ".mrc");
+    int copies = 30;
+    for (int i = 0; i < copies; i++) {
+      Files.write(largeFile, content, StandardOpenOption.APPEND);
+    }
+    long[] bounds = ParallelMarcRawReader.splitIntoRanges(largeFile.toFile(), 4).orElseThrow(AssertionError::new);
+    Vertx vertx = Vertx.vertx();
+    SourceReader sequentialReader = new MarcRawSplitReader(largeFile.toFile(), 50);
+    SourceReader parallelReader = new ParallelMarcRawReader(largeFile.toFile(), 50, bounds,
+      vertx.createSharedWorkerExecutor("ranges-pool", 2));
+    List<InitialRecord> expectedRecords = new ArrayList<>();
+    List<InitialRecord> actualRecords = new ArrayList<>();
+    // when
+    while (sequentialReader.hasNext()) {
+      expectedRecords.addAll(sequentialReader.next());
+    }
+    while (parallelReader.hasNext()) {
+      actualRecords.addAll(parallelReader.next());
+    }
+    Files.delete(largeFile);
+    vertx.close();
+    // then
+    Assert.assertEquals(4, bounds.length);
+    Assert.assertEquals(EXPECTED_RECORDS_NUMBER * copies, actualRecords.size());
+    Assert.assertEquals(content.length * copies, parallelReader.getBytesRead());
+    for (int i = 0; i < expectedRecords.size(); i++) {
+      Assert.assertEquals(i, actualRecords.get(i).getOrder().intValue());
+      Assert.assertEquals(expectedRecords.get(i).getRecord(), actualRecords.get(i).getRecord());
+    }
+  }
+
+  @Test
+  public void shouldReadFilesInParallelOnSharedSingleThreadPool() throws IOException {
+    // given
+    byte[] content = Files.readAllBytes(new File(SOURCE_PATH).toPath());
+    Path largeFile = Files.createTempFile("large", ".mrc");
+    int copies = 30;
+    for (int i = 0; i < copies; i++) {
+      Files.write(largeFile, content, StandardOpenOption.APPEND);
+    }
+    long[] bounds = ParallelMarcRawReader.splitIntoRanges(largeFile.toFile(), 4).orElseThrow(AssertionError::new);
+    Vertx vertx = Vertx.vertx();
+    SourceReader firstReader = new ParallelMarcRawReader(largeFile.toFile(), 10, bounds, vertx.createSharedWorkerExecutor("ranges-pool", 1));
+    SourceReader secondReader = new ParallelMarcRawReader(largeFile.toFile(), 10, bounds, vertx.createSharedWorkerExecutor("ranges-pool", 1));
+    SourceReader closedReader = new ParallelMarcRawReader(largeFile.toFile(), 10, bounds, vertx.createSharedWorkerExecutor("ranges-pool", 1));
+    int firstRecordsNumber = 0;
+    int secondRecordsNumber = 0;
+    // when
+    closedReader.next();
+    closedReader.close();
+    while (firstReader.hasNext() | secondReader.hasNext()) {
+      firstRecordsNumber += firstReader.next().size();
+      secondRecordsNumber += secondReader.next().size();
+    }
+    Files.delete(largeFile);
+    vertx.close();
+    // then
+    Assert.assertEquals(EXPECTED_RECORDS_NUMBER * copies, firstRecordsNumber);
+    Assert.assertEquals(EXPECTED_RECORDS_NUMBER * copies, secondRecordsNumber);
+  }
+
+  @Test
+  public void shouldNotSplitSmallFile() {
+    Assert.assertFalse(ParallelMarcRawReader.splitIntoRanges(new File(SOURCE_PATH), 4).isPresent());
+  }
+
+  @Test
+  public void shouldCloseBufferOnBytesLimit() {
+    // given
+    RecordsBuffer buffer = new RecordsBuffer(50, 2500);
+    // when
+    buffer.add(new InitialRecord().withRecord(StringUtils.repeat('a', 1000)));
+    buffer.add(new InitialRecord().withRecord(StringUtils.repeat('a', 1000)));
+    boolean fullBeforeLimit = buffer.isFull();
+    buffer.add(new InitialRecord().withRecord(StringUtils.repeat('a', 1000)));
+    // then
+    Assert.assertFalse(fullBeforeLimit);
+    Assert.assertTrue(buffer.isFull());
+    Assert.assertEquals(3000, buffer.getBytes());
+  }
+
+  @Test
+  public void shouldCloseBufferOnRecordsLimitBeforeBytesLimit() {
+    // given
+    RecordsBuffer buffer = new RecordsBuffer(2, 100000);
+    // when
+    buffer.add(new InitialRecord().withRecord("record"));
+    buffer.add(new InitialRecord().withRecord("record"));
+    // then
+    Assert.assertTrue(buffer.isFull());
+  }
+
+  @Test
+  public void shouldKeepRecordLargerThanBytesLimit() {
+    // given
+    RecordsBuffer buffer = new RecordsBuffer(50, 10);
+    // when
+    buffer.add(new InitialRecord().withRecord(StringUtils.repeat('a', 1000)));
+    // then
+    Assert.assertTrue(buffer.isFull());
+    Assert.assertEquals(1, buffer.getRecords().size());
+  }
 }
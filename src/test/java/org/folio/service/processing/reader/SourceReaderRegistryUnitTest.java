@@ -0,0 +1,79 @@
+package org.folio.service.processing.reader;
+
+import org.apache.commons.io.FileUtils;
+import org.folio.rest.jaxrs.model.JobProfileInfo;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Testing detection of the file format by content
+ */
+public class SourceReaderRegistryUnitTest {
+
+  private static final String RAW_SOURCE_PATH = "src/test/resources/CornellFOLIOExemplars_Bibs.mrc";
+  private static final String JSON_SOURCE_PATH = "src/test/resources/ChalmersFOLIOExamples.json";
+  private static final String XML_SOURCE_PATH = "src/test/resources/UChicago_SampleBibs.xml";
+  private static final JobProfileInfo JOB_PROFILE = new JobProfileInfo().withDataType(JobProfileInfo.DataType.MARC);
+
+  private Path tempDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    tempDirectory = Files.createTempDirectory("source-reader-registry");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDirectory.toFile());
+  }
+
+  @Test
+  public void shouldChooseReaderByContentOfMislabeledFiles() throws IOException {
+    Assert.assertTrue(SourceReaderBuilder.build(copy(XML_SOURCE_PATH, "records.mrc"), JOB_PROFILE) instanceof MarcXmlReader);
+    Assert.assertTrue(SourceReaderBuilder.build(copy(RAW_SOURCE_PATH, "records.xml"), JOB_PROFILE) instanceof MarcRawReader);
+    Assert.assertTrue(SourceReaderBuilder.build(copy(JSON_SOURCE_PATH, "records.dat"), JOB_PROFILE) instanceof MarcJsonReader);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldNotReadUnrecognizedFile() throws IOException {
+    File file = Files.write(tempDirectory.resolve("records.mrc"), "Title, Author\n".getBytes(StandardCharsets.UTF_8)).toFile();
+    SourceReaderBuilder.build(file, JOB_PROFILE);
+  }
+
+  @Test
+  public void shouldPreferPluggedFactoryWithHigherScore() throws IOException {
+    // given
+    SourceReaderFactory pluggedFactory = new SourceReaderFactory() {
+      @Override
+      public int score(SourceFileSample sample) {
+        return sample.getFirstSignificantByte() == '<' ? 95 : 0;
+      }
+
+      @Override
+      public SourceReader create(SourceFileSample sample, int chunkSize) {
+        return new MarcJsonSpanReader(sample.getFile(), chunkSize);
+      }
+    };
+    SourceReaderRegistry registry = new SourceReaderRegistry(Arrays.asList(new MarcXmlReaderFactory(), pluggedFactory));
+    // when
+    Optional<SourceReader> xmlReader = registry.createReader(copy(XML_SOURCE_PATH, "records.xml"), 10);
+    Optional<SourceReader> plainXmlReader = registry.createReader(copy(XML_SOURCE_PATH, "records.mrc"), 10);
+    // then
+    Assert.assertTrue(xmlReader.orElseThrow(AssertionError::new) instanceof MarcXmlReader);
+    Assert.assertTrue(plainXmlReader.orElseThrow(AssertionError::new) instanceof MarcJsonSpanReader);
+  }
+
+  private File copy(String sourcePath, String fileName) throws IOException {
+    return Files.copy(new File(sourcePath).toPath(), tempDirectory.resolve(fileName)).toFile();
+  }
+}
@@ -0,0 +1,157 @@
+package org.folio.service.processing.reader;
+
+import org.folio.rest.jaxrs.model.InitialRecord;
+import org.folio.service.storage.UploadProgress;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Testing MarcRawSplitReader reading the file that is still being uploaded
+ */
+public class TailingMarcRawSplitReaderUnitTest {
+
+  private static final String SOURCE_PATH = "src/test/resources/CornellFOLIOExemplars.mrc";
+  private static final int EXPECTED_RECORDS_NUMBER = 62;
+  /* Odd part size, so records are split between the parts */
+  private static final int PART_SIZE = 1021;
+  private static final long IDLE_TIMEOUT_MS = 10_000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private byte[] content;
+  private File uploadedFile;
+
+  @Before
+  public void setUp() throws IOException {
+    content = Files.readAllBytes(new File(SOURCE_PATH).toPath());
+    uploadedFile = temporaryFolder.newFile("records.mrc");
+  }
+
+  @Test
+  public void shouldReadAllRecordsWhileFileIsUploaded() throws Exception {
+    // given
+    UploadProgress upload = new UploadProgress(uploadedFile.getPath(), 0, IDLE_TIMEOUT_MS);
+    SourceReader reader = new MarcRawSplitReader(uploadedFile, 10, upload);
+
+    // when
+    CompletableFuture<Void> uploaded = CompletableFuture.runAsync(() -> uploadParts(upload, 0, content.length));
+    List<InitialRecord> actualRecords = readAll(reader);
+    uploaded.get(10, TimeUnit.SECONDS);
+
+    // then
+    Assert.assertEquals(EXPECTED_RECORDS_NUMBER, actualRecords.size());
+    Assert.assertEquals(getRecords(readAll(new MarcRawSplitReader(new File(SOURCE_PATH), 10))), getRecords(actualRecords));
+    Assert.assertEquals(content.length, reader.getBytesRead());
+  }
+
+  @Test
+  public void shouldWaitForPartialTrailingRecord() throws Exception {
+    // given
+    int firstRecordLength = Integer.parseInt(new String(content, 0, 5));
+    int uploadedLength = firstRecordLength + 100;
+    UploadProgress upload = new UploadProgress(uploadedFile.getPath(), 0, IDLE_TIMEOUT_MS);
+    uploadParts(upload, 0, uploadedLength);
+    SourceReader reader = new MarcRawSplitReader(uploadedFile, 1, upload);
+
+    // when
+    List<InitialRecord> firstChunk = reader.next();
+    CompletableFuture<Void> uploaded = CompletableFuture.runAsync(() -> uploadParts(upload, uploadedLength, content.length));
+    List<InitialRecord> otherRecords = readAll(reader);
+    uploaded.get(10, TimeUnit.SECONDS);
+
+    // then
+    List<String> expectedRecords = getRecords(readAll(new MarcRawSplitReader(new File(SOURCE_PATH), 10)));
+    Assert.assertEquals(1, firstChunk.size());
+    Assert.assertEquals(expectedRecords.get(0), firstChunk.get(0).getRecord());
+    Assert.assertEquals(expectedRecords.subList(1, EXPECTED_RECORDS_NUMBER), getRecords(otherRecords));
+  }
+
+  @Test
+  public void shouldSkipCorruptedSpanLongerThanMaxRecordLength() throws IOException {
+    // given
+    byte[] garbage = new byte[4 * 1024 * 1024];
+    Arrays.fill(garbage, (byte) 'x');
+    garbage[garbage.length - 1] = 0x1D;
+    Files.write(uploadedFile.toPath(), garbage);
+    UploadProgress upload = new UploadProgress(uploadedFile.getPath(), garbage.length, IDLE_TIMEOUT_MS);
+    uploadParts(upload, 0, content.length);
+    SourceReader reader = new MarcRawSplitReader(uploadedFile, 100, upload);
+
+    // when
+    List<InitialRecord> actualRecords = readAll(reader);
+
+    // then the garbage is skipped and the records after it are read
+    Assert.assertEquals(EXPECTED_RECORDS_NUMBER, actualRecords.size());
+    Assert.assertEquals(garbage.length + content.length, reader.getBytesRead());
+  }
+
+  @Test(expected = RecordsReaderException.class)
+  public void shouldFailIfUploadIsInterrupted() {
+    // given
+    UploadProgress upload = new UploadProgress(uploadedFile.getPath(), 0, IDLE_TIMEOUT_MS);
+    uploadParts(upload, 0, content.length / 2);
+    SourceReader reader = new MarcRawSplitReader(uploadedFile, 10, upload);
+
+    // when
+    CompletableFuture.runAsync(() -> upload.fail(new IOException("Connection reset")),
+      CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+    readAll(reader);
+  }
+
+  @Test(expected = RecordsReaderException.class)
+  public void shouldFailIfNothingIsUploadedForIdleTimeout() {
+    // given
+    UploadProgress upload = new UploadProgress(uploadedFile.getPath(), 0, 100);
+    uploadParts(upload, 0, content.length / 2);
+    SourceReader reader = new MarcRawSplitReader(uploadedFile, 10, upload);
+
+    // when
+    readAll(reader);
+  }
+
+  private void uploadParts(UploadProgress upload, int from, int to) {
+    try {
+      for (int offset = from; offset < to; offset += PART_SIZE) {
+        byte[] part = Arrays.copyOfRange(content, offset, Math.min(offset + PART_SIZE, to));
+        Files.write(uploadedFile.toPath(), part, StandardOpenOption.APPEND);
+        upload.advance(part.length);
+        TimeUnit.MILLISECONDS.sleep(1);
+      }
+      if (to == content.length) {
+        upload.complete();
+      }
+    } catch (IOException e) {
+      upload.fail(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      upload.fail(e);
+    }
+  }
+
+  private List<InitialRecord> readAll(SourceReader reader) {
+    List<InitialRecord> records = new ArrayList<>();
+    while (reader.hasNext()) {
+      records.addAll(reader.next());
+    }
+    return records;
+  }
+
+  private List<String> getRecords(List<InitialRecord> records) {
+    return records.stream().map(InitialRecord::getRecord).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,78 @@
+package org.folio.service.processing.stream;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.folio.rest.jaxrs.model.InitialRecord;
+import org.folio.service.processing.reader.MarcRawReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Testing flow control of the stream of file chunks
+ */
+@RunWith(VertxUnitRunner.class)
+public class SourceReaderStreamUnitTest {
+
+  private static final String SOURCE_PATH = "src/test/resources/CornellFOLIOExemplars.mrc";
+  private static final int RECORDS_NUMBER = 62;
+  private static final int CHUNK_SIZE = 10;
+
+  private Vertx vertx;
+  private WorkerExecutor executor;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+    executor = vertx.createSharedWorkerExecutor("source-reader-stream-test");
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void shouldReadAllChunksOfFile(TestContext context) {
+    // given
+    Async async = context.async();
+    List<InitialRecord> records = new ArrayList<>();
+    SourceReaderStream stream = new SourceReaderStream(new MarcRawReader(new File(SOURCE_PATH), CHUNK_SIZE), executor);
+
+    // when
+    stream.exceptionHandler(context::fail)
+      .endHandler(v -> {
+        // then
+        context.assertEquals(RECORDS_NUMBER, records.size());
+        async.complete();
+      })
+      .handler(records::addAll);
+  }
+
+  @Test
+  public void shouldReadOnlyFetchedChunks(TestContext context) {
+    // given
+    Async async = context.async();
+    List<List<InitialRecord>> chunks = new ArrayList<>();
+    SourceReaderStream stream = new SourceReaderStream(new MarcRawReader(new File(SOURCE_PATH), CHUNK_SIZE), executor);
+    stream.pause();
+
+    // when
+    stream.handler(chunks::add).fetch(2);
+
+    // then
+    vertx.setTimer(500, timerId -> {
+      context.assertEquals(2, chunks.size());
+      stream.handler(null);
+      async.complete();
+    });
+  }
+}
@@ -0,0 +1,206 @@
+package org.folio.service.storage;
+
+import io.vertx.core.buffer.Buffer;
+import org.folio.rest.jaxrs.model.FileDefinition;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Testing DuplicateFileIndex
+ */
+public class DuplicateFileIndexUnitTest {
+
+  private static final String RAW_SOURCE_PATH = "src/test/resources/CornellFOLIOExemplars_Bibs.mrc";
+  private static final String TENANT_ID = "diku";
+  /* Odd part size, so the checksum is computed over the uneven parts */
+  private static final int PART_SIZE = 1021;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private byte[] content;
+  private DuplicateFileIndex index;
+
+  @Before
+  public void setUp() throws IOException {
+    content = Files.readAllBytes(new File(RAW_SOURCE_PATH).toPath());
+    index = new DuplicateFileIndex(true, DuplicateFileIndex.Action.FLAG, 2);
+  }
+
+  @Test
+  public void shouldComputeChecksumOfFileParts() {
+    // given
+    String fileId = UUID.randomUUID().toString();
+    CRC32C expectedChecksum = new CRC32C();
+    expectedChecksum.update(content);
+
+    // when
+    ContentChecksum checksum = ContentChecksum.track(fileId, false);
+    for (int offset = 0; offset < content.length; offset += PART_SIZE) {
+      byte[] part = Arrays.copyOfRange(content, offset, Math.min(offset + PART_SIZE, content.length));
+      if (offset % 2 == 0) {
+        checksum.update(part);
+      } else {
+        checksum.update(Buffer.buffer(part));
+      }
+    }
+
+    // then
+    Assert.assertEquals(Optional.of(checksum), ContentChecksum.complete(fileId));
+    Assert.assertEquals(expectedChecksum.getValue(), checksum.getValue());
+    Assert.assertEquals(content.length, checksum.getLength());
+  }
+
+  @Test
+  public void shouldNotReportChecksumOfFileUploadedBeforeTracking() {
+    // given
+    String fileId = UUID.randomUUID().toString();
+
+    // when
+    ContentChecksum.track(fileId, true).update(content);
+
+    // then
+    Assert.assertFalse(ContentChecksum.complete(fileId).isPresent());
+  }
+
+  @Test
+  public void shouldFindFileWithSameContent() throws IOException {
+    // given
+    FileDefinition original = storeFile(content);
+    FileDefinition duplicate = storeFile(content);
+
+    // when
+    Optional<DuplicateFileIndex.IndexedFile> originalLookup = index.register(TENANT_ID, original, checksumOf(content));
+    Optional<DuplicateFileIndex.IndexedFile> duplicateLookup = index.register(TENANT_ID, duplicate, checksumOf(content));
+    Optional<DuplicateFileIndex.IndexedFile> otherTenantLookup = index.register("other", duplicate, checksumOf(content));
+
+    // then
+    Assert.assertFalse(originalLookup.isPresent());
+    Assert.assertTrue(duplicateLookup.isPresent());
+    Assert.assertEquals(original.getId(), duplicateLookup.get().getFileId());
+    Assert.assertFalse(otherTenantLookup.isPresent());
+    Assert.assertEquals(1, index.getDuplicates());
+  }
+
+  @Test
+  public void shouldNotTakeFileWithSameChecksumButOtherContentForDuplicate() throws IOException {
+    // given
+    byte[] otherContent = Arrays.copyOf(content, content.length);
+    otherContent[content.length / 2]++;
+    FileDefinition original = storeFile(content);
+    FileDefinition other = storeFile(otherContent);
+
+    // when
+    index.register(TENANT_ID, original, checksumOf(content));
+    Optional<DuplicateFileIndex.IndexedFile> lookup = index.register(TENANT_ID, other, checksumOf(content));
+
+    // then
+    Assert.assertFalse(lookup.isPresent());
+    Assert.assertEquals(0, index.getDuplicates());
+  }
+
+  @Test
+  public void shouldFindCompressedFileWithSameContentUploadedByOtherParts() throws IOException {
+    // given
+    FileDefinition original = storeFile(compressByParts(content, PART_SIZE));
+    FileDefinition duplicate = storeFile(compressByParts(content, PART_SIZE * 3));
+
+    // when
+    index.register(TENANT_ID, original, checksumOf(content));
+    Optional<DuplicateFileIndex.IndexedFile> lookup = index.register(TENANT_ID, duplicate, checksumOf(content));
+
+    // then
+    Assert.assertTrue(lookup.isPresent());
+    Assert.assertEquals(original.getId(), lookup.get().getFileId());
+  }
+
+  @Test
+  public void shouldNotTakeCompressedFileWithOtherContentForDuplicate() throws IOException {
+    // given
+    byte[] longerContent = Arrays.copyOf(content, content.length + 1);
+    FileDefinition original = storeFile(compressByParts(content, PART_SIZE));
+    FileDefinition other = storeFile(compressByParts(longerContent, PART_SIZE));
+
+    // when
+    index.register(TENANT_ID, original, checksumOf(content));
+    Optional<DuplicateFileIndex.IndexedFile> lookup = index.register(TENANT_ID, other, checksumOf(content));
+
+    // then
+    Assert.assertFalse(lookup.isPresent());
+  }
+
+  @Test
+  public void shouldKeepOnlyRecentFilesOfTenant() throws IOException {
+    // given
+    FileDefinition evicted = storeFile(content);
+    index.register(TENANT_ID, evicted, checksumOf(content));
+    index.register(TENANT_ID, storeFile(new byte[]{1}), checksumOf(new byte[]{1}));
+    index.register(TENANT_ID, storeFile(new byte[]{2}), checksumOf(new byte[]{2}));
+
+    // when
+    Optional<DuplicateFileIndex.IndexedFile> lookup = index.register(TENANT_ID, storeFile(content), checksumOf(content));
+
+    // then
+    Assert.assertFalse(lookup.isPresent());
+  }
+
+  @Test
+  public void shouldReplaceDuplicateWithLinkToOriginalFile() throws IOException {
+    // given
+    Path original = temporaryFolder.newFile().toPath();
+    Path duplicate = temporaryFolder.newFile().toPath();
+    Files.write(original, content);
+    Files.write(duplicate, content);
+
+    // when
+    DuplicateFileIndex.link(duplicate, original);
+
+    // then
+    Assert.assertTrue(Files.isSameFile(original, duplicate));
+    Assert.assertArrayEquals(content, Files.readAllBytes(duplicate));
+  }
+
+  private FileDefinition storeFile(byte[] data) throws IOException {
+    File file = temporaryFolder.newFile();
+    Files.write(file.toPath(), data);
+    return new FileDefinition()
+      .withId(UUID.randomUUID().toString())
+      .withUploadDefinitionId(UUID.randomUUID().toString())
+      .withSourcePath(file.getPath());
+  }
+
+  /**
+   * Compresses every part into the separate gzip member, as the storage does
+   */
+  private byte[] compressByParts(byte[] data, int partSize) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    for (int offset = 0; offset < data.length; offset += partSize) {
+      ByteArrayOutputStream member = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzipStream = new GZIPOutputStream(member)) {
+        gzipStream.write(data, offset, Math.min(partSize, data.length - offset));
+      }
+      member.writeTo(compressed);
+    }
+    return compressed.toByteArray();
+  }
+
+  private ContentChecksum checksumOf(byte[] data) {
+    ContentChecksum checksum = new ContentChecksum();
+    checksum.update(data);
+    return checksum;
+  }
+}
@@ -0,0 +1,136 @@
+package org.folio.service.storage;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.commons.io.FileUtils;
+import org.folio.rest.jaxrs.model.FileDefinition;
+import org.folio.service.storage.index.RecordOffsetIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Testing FileUploadSession
+ */
+@RunWith(VertxUnitRunner.class)
+public class FileUploadSessionUnitTest {
+
+  private static final String RAW_SOURCE_PATH = "src/test/resources/CornellFOLIOExemplars_Bibs.mrc";
+  private static final int EXPECTED_RECORDS_NUMBER = 62;
+  /* Odd part size, so records are split between the parts */
+  private static final int PART_SIZE = 1021;
+  /* Write queue smaller than the part, so every part waits for the queue to drain */
+  private static final int WRITE_QUEUE_BYTES = 512;
+
+  private Vertx vertx;
+  private Path tempDirectory;
+  private byte[] content;
+
+  @Before
+  public void setUp() throws IOException {
+    vertx = Vertx.vertx();
+    tempDirectory = Files.createTempDirectory("upload-session");
+    content = FileUtils.readFileToByteArray(new File(RAW_SOURCE_PATH));
+  }
+
+  @After
+  public void tearDown(TestContext context) throws IOException {
+    FileUtils.deleteDirectory(tempDirectory.toFile());
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void shouldWriteAllFilePartsToOpenFile(TestContext context) {
+    // given
+    Async async = context.async();
+    FileDefinition fileDefinition = new FileDefinition().withId(UUID.randomUUID().toString()).withName("records.mrc");
+    String path = tempDirectory.resolve("upload").resolve("records.mrc").toString();
+
+    // when
+    FileUploadSession.open(vertx, fileDefinition, path, false, WRITE_QUEUE_BYTES)
+      .compose(session -> writeParts(session, 0).compose(v -> session.close()))
+      .onComplete(context.asyncAssertSuccess(uploadedFile -> {
+        // then
+        context.assertEquals(path, uploadedFile.getSourcePath());
+        try {
+          context.assertTrue(Arrays.equals(content, Files.readAllBytes(Paths.get(path))));
+          context.assertFalse(RecordOffsetIndex.open(Paths.get(path)).isPresent());
+        } catch (IOException e) {
+          context.fail(e);
+        }
+        async.complete();
+      }));
+  }
+
+  @Test
+  public void shouldBuildRecordsIndexWhileUploading(TestContext context) {
+    // given
+    Async async = context.async();
+    FileDefinition fileDefinition = new FileDefinition().withId(UUID.randomUUID().toString()).withName("records.mrc");
+    String path = tempDirectory.resolve("records.mrc").toString();
+
+    // when
+    FileUploadSession.open(vertx, fileDefinition, path, true, WRITE_QUEUE_BYTES)
+      .compose(session -> writeParts(session, 0).compose(v -> session.close()))
+      .onComplete(context.asyncAssertSuccess(uploadedFile -> {
+        // then
+        try {
+          Optional<RecordOffsetIndex> index = RecordOffsetIndex.open(Paths.get(path));
+          context.assertTrue(index.isPresent());
+          context.assertEquals(EXPECTED_RECORDS_NUMBER, index.get().getRecordsNumber());
+          context.assertEquals((long) content.length, index.get().getDataLength());
+        } catch (IOException e) {
+          context.fail(e);
+        }
+        async.complete();
+      }));
+  }
+
+  @Test
+  public void shouldDropRecordsIndexOfInterruptedUpload(TestContext context) {
+    // given
+    Async async = context.async();
+    FileDefinition fileDefinition = new FileDefinition().withId(UUID.randomUUID().toString()).withName("records.mrc");
+    String path = tempDirectory.resolve("records.mrc").toString();
+
+    // when
+    FileUploadSession.open(vertx, fileDefinition, path, true, WRITE_QUEUE_BYTES)
+      .compose(session -> session.write(Buffer.buffer(Arrays.copyOf(content, PART_SIZE)))
+        .compose(v -> session.abort())
+        .map(v -> session))
+      .onComplete(context.asyncAssertSuccess(session -> {
+        // then
+        context.assertTrue(session.write(Buffer.buffer(content)).failed());
+        try {
+          context.assertEquals((long) PART_SIZE, Files.size(Paths.get(path)));
+          context.assertFalse(RecordOffsetIndex.open(Paths.get(path)).isPresent());
+        } catch (IOException e) {
+          context.fail(e);
+        }
+        async.complete();
+      }));
+  }
+
+  private Future<Void> writeParts(FileUploadSession session, int offset) {
+    if (offset >= content.length) {
+      return Future.succeededFuture();
+    }
+    int partEnd = Math.min(offset + PART_SIZE, content.length);
+    return session.write(Buffer.buffer(Arrays.copyOfRange(content, offset, partEnd)))
+      .compose(v -> writeParts(session, partEnd));
+  }
+}
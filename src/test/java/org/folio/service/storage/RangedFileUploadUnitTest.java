@@ -0,0 +1,209 @@
+package org.folio.service.storage;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.commons.io.FileUtils;
+import org.folio.rest.jaxrs.model.FileDefinition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Testing RangedFileUpload
+ */
+@RunWith(VertxUnitRunner.class)
+public class RangedFileUploadUnitTest {
+
+  private static final String RAW_SOURCE_PATH = "src/test/resources/CornellFOLIOExemplars_Bibs.mrc";
+  /* Odd range size, so records are split between the ranges */
+  private static final int RANGE_SIZE = 10_007;
+
+  private Vertx vertx;
+  private Path tempDirectory;
+  private byte[] content;
+  private FileDefinition fileDefinition;
+  private String path;
+
+  @Before
+  public void setUp() throws IOException {
+    vertx = Vertx.vertx();
+    tempDirectory = Files.createTempDirectory("ranged-upload");
+    content = FileUtils.readFileToByteArray(new File(RAW_SOURCE_PATH));
+    fileDefinition = new FileDefinition().withId(UUID.randomUUID().toString()).withName("records.mrc");
+    path = tempDirectory.resolve("upload").resolve("records.mrc").toString();
+  }
+
+  @After
+  public void tearDown(TestContext context) throws IOException {
+    FileUtils.deleteDirectory(tempDirectory.toFile());
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void shouldAssembleFileFromRangesSentInAnyOrder(TestContext context) {
+    // given
+    Async async = context.async();
+    List<Integer> offsets = getRangeOffsets();
+    Collections.reverse(offsets);
+
+    // when
+    RangedFileUpload.open(vertx, fileDefinition, path, (long) content.length)
+      .compose(upload -> {
+        List<Future> ranges = new ArrayList<>();
+        offsets.forEach(offset -> ranges.add(sendRange(upload, offset)));
+        return CompositeFuture.all(ranges).map(upload);
+      })
+      .onComplete(context.asyncAssertSuccess(upload -> {
+        // then
+        context.assertTrue(upload.isCompleted());
+        context.assertEquals(1, upload.getReceivedRanges().size());
+        context.assertEquals((long) content.length, upload.getReceivedRanges().get(0).getLength());
+        upload.close().onComplete(context.asyncAssertSuccess(uploadedFile -> {
+          context.assertEquals(path, uploadedFile.getSourcePath());
+          try {
+            context.assertTrue(Arrays.equals(content, Files.readAllBytes(Paths.get(path))));
+            context.assertFalse(Files.exists(Paths.get(path + ".ranges")));
+          } catch (IOException e) {
+            context.fail(e);
+          }
+          async.complete();
+        }));
+      }));
+  }
+
+  @Test
+  public void shouldCompleteUploadOnlyOnce(TestContext context) {
+    // given
+    Async async = context.async();
+    List<Integer> offsets = getRangeOffsets();
+
+    // when
+    RangedFileUpload.open(vertx, fileDefinition, path, (long) content.length)
+      .compose(upload -> {
+        List<Future> ranges = new ArrayList<>();
+        offsets.forEach(offset -> ranges.add(sendRange(upload, offset)));
+        // the range sent again after the file is completed
+        ranges.add(sendRange(upload, offsets.get(0)));
+        return CompositeFuture.all(ranges);
+      })
+      .onComplete(context.asyncAssertSuccess(ranges -> {
+        // then
+        long completingRanges = ranges.list().stream().filter(Boolean.TRUE::equals).count();
+        context.assertEquals(1L, completingRanges);
+        async.complete();
+      }));
+  }
+
+  @Test
+  public void shouldContinueInterruptedUploadFromReceivedRanges(TestContext context) {
+    // given
+    Async async = context.async();
+    List<Integer> offsets = getRangeOffsets();
+    int interruptedAt = offsets.size() / 2;
+
+    // when
+    RangedFileUpload.open(vertx, fileDefinition, path, (long) content.length)
+      .compose(upload -> sendRanges(upload, offsets.subList(0, interruptedAt)).map(upload))
+      .compose(upload -> {
+        upload.startRange();
+        return upload.finishRange();
+      })
+      .compose(closed -> {
+        context.assertTrue(closed);
+        return RangedFileUpload.open(vertx, fileDefinition, path, null);
+      })
+      .compose(upload -> {
+        // then
+        context.assertEquals((long) offsets.get(interruptedAt), upload.getReceivedSize());
+        context.assertFalse(upload.isCompleted());
+        return sendRanges(upload, offsets.subList(interruptedAt, offsets.size())).map(upload);
+      })
+      .compose(RangedFileUpload::close)
+      .onComplete(context.asyncAssertSuccess(uploadedFile -> {
+        try {
+          context.assertTrue(Arrays.equals(content, Files.readAllBytes(Paths.get(path))));
+        } catch (IOException e) {
+          context.fail(e);
+        }
+        async.complete();
+      }));
+  }
+
+  @Test
+  public void shouldStartUploadOverIfFileSizeChanged(TestContext context) {
+    // given
+    Async async = context.async();
+    List<Integer> offsets = getRangeOffsets();
+
+    // when
+    RangedFileUpload.open(vertx, fileDefinition, path, (long) content.length)
+      .compose(upload -> sendRanges(upload, offsets.subList(0, 2)).map(upload))
+      .compose(upload -> {
+        upload.startRange();
+        return upload.finishRange();
+      })
+      .compose(closed -> RangedFileUpload.open(vertx, fileDefinition, path, (long) content.length + 1))
+      .onComplete(context.asyncAssertSuccess(upload -> {
+        // then
+        context.assertEquals(0L, upload.getReceivedSize());
+        context.assertEquals((long) content.length + 1, upload.getTotalSize());
+        async.complete();
+      }));
+  }
+
+  @Test
+  public void shouldNotOpenUploadWithoutSizeIfNothingWasReceived(TestContext context) {
+    // when
+    RangedFileUpload.open(vertx, fileDefinition, path, null)
+      .onComplete(context.asyncAssertSuccess(upload ->
+        // then
+        context.assertNull(upload)));
+  }
+
+  @Test
+  public void shouldFailToWriteRangeOutOfFile(TestContext context) {
+    // when
+    RangedFileUpload.open(vertx, fileDefinition, path, (long) content.length)
+      .compose(upload -> upload.write(content.length - 1, Buffer.buffer(new byte[2])))
+      .onComplete(context.asyncAssertFailure());
+  }
+
+  private List<Integer> getRangeOffsets() {
+    List<Integer> offsets = new ArrayList<>();
+    for (int offset = 0; offset < content.length; offset += RANGE_SIZE) {
+      offsets.add(offset);
+    }
+    return offsets;
+  }
+
+  private Future<Void> sendRanges(RangedFileUpload upload, List<Integer> offsets) {
+    Future<Void> future = Future.succeededFuture();
+    for (Integer offset : offsets) {
+      future = future.compose(v -> sendRange(upload, offset).mapEmpty());
+    }
+    return future;
+  }
+
+  private Future<Boolean> sendRange(RangedFileUpload upload, int offset) {
+    int length = Math.min(RANGE_SIZE, content.length - offset);
+    return upload.write(offset, Buffer.buffer(Arrays.copyOfRange(content, offset, offset + length)))
+      .compose(v -> upload.receive(offset, length));
+  }
+}
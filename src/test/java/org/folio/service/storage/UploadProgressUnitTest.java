@@ -0,0 +1,108 @@
+package org.folio.service.storage;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Testing claims of the processing on UploadProgress
+ */
+public class UploadProgressUnitTest {
+
+  private Path tempDirectory;
+  private String fileId;
+  private String path;
+
+  @Before
+  public void setUp() throws IOException {
+    tempDirectory = Files.createTempDirectory("upload-progress");
+    fileId = UUID.randomUUID().toString();
+    path = tempDirectory.resolve("records.mrc").toString();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    UploadProgress.release(fileId);
+    UploadProgress.fail(fileId, new IllegalStateException("Test is finished"));
+    FileUtils.deleteDirectory(tempDirectory.toFile());
+  }
+
+  @Test
+  public void shouldReportUploadConsumedWhenClaimedAfterTracking() {
+    // given
+    UploadProgress progress = UploadProgress.track(fileId, path);
+
+    // when
+    UploadProgress.claim(fileId);
+    UploadProgress.release(fileId);
+
+    // then
+    Assert.assertTrue(progress.isConsumed());
+    Assert.assertTrue(UploadProgress.complete(fileId));
+    Assert.assertTrue(progress.isCompleted());
+  }
+
+  @Test
+  public void shouldReportUploadConsumedWhenClaimedBeforeTracking() {
+    // given
+    UploadProgress.claim(fileId);
+
+    // when
+    UploadProgress progress = UploadProgress.track(fileId, path);
+
+    // then
+    Assert.assertTrue(progress.isConsumed());
+    Assert.assertTrue(UploadProgress.complete(fileId));
+  }
+
+  @Test
+  public void shouldNotReportUploadConsumedWhenNotClaimed() {
+    // given
+    UploadProgress progress = UploadProgress.track(fileId, path);
+
+    // when
+    boolean consumed = UploadProgress.complete(fileId);
+
+    // then
+    Assert.assertFalse(consumed);
+    Assert.assertFalse(progress.isConsumed());
+  }
+
+  @Test
+  public void shouldWaitUntilUploadIsTracked() throws Exception {
+    // given
+    CompletableFuture<Optional<UploadProgress>> awaited = CompletableFuture.supplyAsync(() -> {
+      try {
+        return UploadProgress.awaitTracked(fileId, TimeUnit.SECONDS.toMillis(10));
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    // when
+    Thread.sleep(100);
+    UploadProgress progress = UploadProgress.track(fileId, path);
+
+    // then
+    Assert.assertEquals(Optional.of(progress), awaited.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldReturnEmptyWhenUploadIsNotTrackedInTime() throws InterruptedException {
+    // when
+    Optional<UploadProgress> progress = UploadProgress.awaitTracked(fileId, 100);
+
+    // then
+    Assert.assertFalse(progress.isPresent());
+  }
+}
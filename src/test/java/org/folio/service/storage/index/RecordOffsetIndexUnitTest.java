@@ -0,0 +1,164 @@
+package org.folio.service.storage.index;
+
+import org.apache.commons.io.FileUtils;
+import org.folio.service.processing.reader.MarcXmlReader;
+import org.folio.service.processing.reader.SourceReader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Testing RecordOffsetIndexer and RecordOffsetIndex
+ */
+public class RecordOffsetIndexUnitTest {
+
+  private static final String RAW_SOURCE_PATH = "src/test/resources/CornellFOLIOExemplars_Bibs.mrc";
+  private static final String JSON_SOURCE_PATH = "src/test/resources/ChalmersFOLIOExamples.json";
+  private static final String XML_SOURCE_PATH = "src/test/resources/UChicago_SampleBibs.xml";
+  private static final int EXPECTED_RECORDS_NUMBER = 62;
+  /* Odd part size, so records and tags are split between the parts */
+  private static final int PART_SIZE = 1021;
+
+  private Path tempDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    tempDirectory = Files.createTempDirectory("records-index");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDirectory.toFile());
+  }
+
+  @Test
+  public void shouldIndexRawMarcRecords() throws IOException {
+    // given
+    byte[] content = FileUtils.readFileToByteArray(new File(RAW_SOURCE_PATH));
+    // when
+    RecordOffsetIndex index = uploadWithIndex(content, "records.mrc").orElseThrow(AssertionError::new);
+    // then
+    Assert.assertEquals(RecordFormat.MARC_RAW, index.getFormat());
+    Assert.assertEquals(content.length, index.getDataLength());
+    Assert.assertEquals(EXPECTED_RECORDS_NUMBER, index.getRecordsNumber());
+    Assert.assertEquals(0, index.getOffset(0));
+    for (int i = 1; i < index.getRecordsNumber(); i++) {
+      Assert.assertEquals(0x1D, content[(int) index.getOffset(i) - 1]);
+    }
+  }
+
+  @Test
+  public void shouldIndexMarcJsonRecords() throws IOException {
+    // given
+    byte[] content = FileUtils.readFileToByteArray(new File(JSON_SOURCE_PATH));
+    // when
+    RecordOffsetIndex index = uploadWithIndex(content, "records.json").orElseThrow(AssertionError::new);
+    // then
+    Assert.assertEquals(RecordFormat.MARC_JSON, index.getFormat());
+    Assert.assertEquals(EXPECTED_RECORDS_NUMBER, index.getRecordsNumber());
+    for (int i = 0; i < index.getRecordsNumber(); i++) {
+      Assert.assertEquals('{', content[(int) index.getOffset(i)]);
+    }
+  }
+
+  @Test
+  public void shouldIndexMarcXmlRecords() throws IOException {
+    // given
+    byte[] content = FileUtils.readFileToByteArray(new File(XML_SOURCE_PATH));
+    SourceReader reader = new MarcXmlReader(new File(XML_SOURCE_PATH), 100);
+    int expectedRecordsNumber = 0;
+    while (reader.hasNext()) {
+      expectedRecordsNumber += reader.next().size();
+    }
+    // when
+    RecordOffsetIndex index = uploadWithIndex(content, "records.xml").orElseThrow(AssertionError::new);
+    // then
+    Assert.assertEquals(RecordFormat.MARC_XML, index.getFormat());
+    Assert.assertEquals(expectedRecordsNumber, index.getRecordsNumber());
+    for (int i = 0; i < index.getRecordsNumber(); i++) {
+      Assert.assertEquals('<', content[(int) index.getOffset(i)]);
+    }
+  }
+
+  @Test
+  public void shouldDetectFormatByContentRegardlessOfFileName() throws IOException {
+    // given
+    byte[] rawContent = FileUtils.readFileToByteArray(new File(RAW_SOURCE_PATH));
+    byte[] xmlContent = FileUtils.readFileToByteArray(new File(XML_SOURCE_PATH));
+    // when
+    RecordOffsetIndex rawIndex = uploadWithIndex(rawContent, "records.json").orElseThrow(AssertionError::new);
+    RecordOffsetIndex xmlIndex = uploadWithIndex(xmlContent, "records.mrc").orElseThrow(AssertionError::new);
+    // then
+    Assert.assertEquals(RecordFormat.MARC_RAW, rawIndex.getFormat());
+    Assert.assertEquals(EXPECTED_RECORDS_NUMBER, rawIndex.getRecordsNumber());
+    Assert.assertEquals(RecordFormat.MARC_XML, xmlIndex.getFormat());
+  }
+
+  @Test
+  public void shouldNotBuildIndexOfUnrecognizedFile() throws IOException {
+    // when
+    Optional<RecordOffsetIndex> index = uploadWithIndex("not records".getBytes(), "records.mrc");
+    // then
+    Assert.assertFalse(index.isPresent());
+  }
+
+  @Test
+  public void shouldNotOpenIncompleteIndex() throws IOException {
+    // given
+    Path dataPath = tempDirectory.resolve("records.mrc");
+    byte[] content = FileUtils.readFileToByteArray(new File(RAW_SOURCE_PATH));
+    Files.write(dataPath, content);
+    // when
+    RecordOffsetIndexer.create(dataPath).append(content);
+    // then
+    Assert.assertFalse(RecordOffsetIndex.open(dataPath).isPresent());
+  }
+
+  @Test
+  public void shouldDeleteIndexOfInterruptedUpload() throws IOException {
+    // given
+    Path dataPath = tempDirectory.resolve("records.mrc");
+    byte[] content = FileUtils.readFileToByteArray(new File(RAW_SOURCE_PATH));
+    Files.write(dataPath, content);
+    RecordOffsetIndexer indexer = RecordOffsetIndexer.create(dataPath);
+    indexer.append(content);
+    // when
+    indexer.discard();
+    indexer.complete();
+    // then
+    Assert.assertFalse(Files.exists(RecordOffsetIndex.getIndexPath(dataPath)));
+    Assert.assertFalse(RecordOffsetIndex.open(dataPath).isPresent());
+  }
+
+  @Test
+  public void shouldNotOpenIndexOfModifiedFile() throws IOException {
+    // given
+    byte[] content = FileUtils.readFileToByteArray(new File(RAW_SOURCE_PATH));
+    uploadWithIndex(content, "records.mrc");
+    // when
+    Files.write(tempDirectory.resolve("records.mrc"), new byte[]{'\n'}, StandardOpenOption.APPEND);
+    // then
+    Assert.assertFalse(RecordOffsetIndex.open(tempDirectory.resolve("records.mrc")).isPresent());
+  }
+
+  private Optional<RecordOffsetIndex> uploadWithIndex(byte[] content, String fileName) throws IOException {
+    Path dataPath = tempDirectory.resolve(fileName);
+    Files.write(dataPath, content);
+    RecordOffsetIndexer indexer = RecordOffsetIndexer.create(dataPath);
+    for (int from = 0; from < content.length; from += PART_SIZE) {
+      indexer.append(Arrays.copyOfRange(content, from, Math.min(from + PART_SIZE, content.length)));
+    }
+    indexer.append(new byte[0]);
+    indexer.complete();
+    return RecordOffsetIndex.open(dataPath);
+  }
+}